@@ -9,11 +9,12 @@ public class Add extends Command {
         this.aliases = new String[] {"additionf", "af"};
         this.help = "Adds as many floats as provided together.";
         this.args = "[value] ...";
+        this.cacheable = true;
     }
 
     @Override
     protected void run(InputEvent event) {
-        String[] args = event.getInputMessage().getArgs().split(" ");
+        String[] args = event.getInputMessage().getArgsArray();
         if(args.length <= 1) {
             event.replyln("You must provide at least two numbers to add together!");
             return;
@@ -23,7 +24,7 @@ public class Add extends Command {
 
         try {
             for (String arg : args) {
-                sum[0] += Float.parseFloat(arg);
+                sum[0] += Numbers.parseFloat(arg);
             }
         } catch (NumberFormatException ex) {
             event.replyln("You must provide all numbers as floats/integers!");
@@ -0,0 +1,107 @@
+package External.Commands;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.CommandMessage;
+import Internal.Managing.Commands.FlagType;
+import Internal.Managing.Commands.Flags;
+import Internal.Managing.Commands.InputEvent;
+
+/**
+ * Evaluates an arithmetic {@link Expression}, with the variables <code>a</code> to <code>z</code> set by the flags <code>-a</code> to <code>-z</code>:
+ * <code><blockquote><pre>
+ * exprf (a+b)*c/2 -a 1 -b 2 -c 4
+ * Result: 6.0
+ * </pre></blockquote></code>
+ * This is much faster than evaluating the same arithmetic as java code with {@link Evaluate}, since the expression is compiled into a small tree instead of
+ * a class, and a repeated expression is taken from the cache of compiled expressions.<br>
+ * A word of the expression such as <code>-a</code> is read as a flag, so write a negated variable without a space, such as <code>2*-a</code>.
+ */
+public class Calculate extends Command {
+    private static final String[] VARIABLE_FLAGS = new String[26];
+
+    static {
+        for(int i = 0; i < VARIABLE_FLAGS.length; i++)
+            VARIABLE_FLAGS[i] = "-" + (char) ('a' + i);
+    }
+
+    public Calculate() {
+        this.name = "exprf";
+        this.aliases = new String[] {"expressionf", "calcf", "xf"};
+        this.help = "Evaluates an arithmetic expression, such as (a+b)*c/2, with the variables a to z set by flags.";
+        this.args = "[expression] [-a value] ... [-z value]";
+
+        Flags flags = new Flags();
+        for(String flag : VARIABLE_FLAGS)
+            flags.putTypedFlag(flag, "[value of " + flag.charAt(1) + "]", FlagType.DOUBLE);
+        this.flags = flags;
+    }
+
+    @Override
+    protected void run(InputEvent event) {
+        CommandMessage message = event.getInputMessage();
+        String source = expressionOf(message);
+        if(source.isEmpty()) {
+            event.setExitStatus(EXIT_USAGE);
+            event.replyln("You must provide an expression to evaluate!");
+            return;
+        }
+
+        Expression expression;
+        try {
+            expression = Expression.compile(source);
+        } catch (ExpressionSyntaxException ex) {
+            event.setExitStatus(EXIT_USAGE);
+            event.replyln("Error: " + ex.getMessage());
+            event.replyln(source);
+            event.replyln(" ".repeat(Math.min(ex.getPosition(), source.length())) + "^");
+            return;
+        }
+
+        double[] values = new double[VARIABLE_FLAGS.length];
+        if(!expression.isConstant()) {
+            for(int i = 0; i < values.length; i++) {
+                if(!expression.uses((char) ('a' + i)))
+                    continue;
+                if(!message.hasFlag(VARIABLE_FLAGS[i])) {
+                    event.setExitStatus(EXIT_USAGE);
+                    event.replyln("The variable " + (char) ('a' + i) + " is not set! Set it with " + VARIABLE_FLAGS[i] + " [value].");
+                    return;
+                }
+                values[i] = message.getDouble(VARIABLE_FLAGS[i], 0);
+            }
+        }
+
+        event.replyln("Result: " + expression.evaluate(values));
+    }
+
+    // The words of the message after the name of the command, without the variable flags and their values.
+    // The arguments of the message are not used, since flag values are removed from them as text, which would also remove them from the expression.
+    private String expressionOf(CommandMessage message) {
+        String content = message.getContent();
+        StringBuilder source = new StringBuilder(content.length());
+        int word = 0;
+        boolean skipValue = false;
+        for(int i = 0; i < content.length(); ) {
+            while(i < content.length() && Character.isWhitespace(content.charAt(i))) i++;
+            int start = i;
+            while(i < content.length() && !Character.isWhitespace(content.charAt(i))) i++;
+            if(start == i) break;
+
+            // The names of the command and its parents
+            if(word++ <= getDepth())
+                continue;
+            if(skipValue) {
+                skipValue = false;
+                continue;
+            }
+            if(i - start == 2 && content.charAt(start) == '-' && content.charAt(start + 1) >= 'a' && content.charAt(start + 1) <= 'z') {
+                skipValue = true;
+                continue;
+            }
+
+            if(source.length() > 0) source.append(' ');
+            source.append(content, start, i);
+        }
+        return source.toString();
+    }
+}
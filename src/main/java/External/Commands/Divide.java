@@ -9,22 +9,23 @@ public class Divide extends Command {
         this.aliases = new String[] {"dividef", "divisionf", "df"};
         this.args = "[value] ...";
         this.help = "Divides as many floats as provided together.";
+        this.cacheable = true;
     }
 
     @Override
     protected void run(InputEvent event) {
-        String[] args = event.getInputMessage().getArgs().split(" ");
+        String[] args = event.getInputMessage().getArgsArray();
         if(args.length <= 1) {
             event.replyln("You must provide at least two numbers to add together!");
             return;
         }
 
         float[] diff = new float[1];
-        diff[0] += Float.parseFloat(args[0]);
 
         try {
+            diff[0] += Numbers.parseFloat(args[0]);
             for (int i = 1; i < args.length; i++) {
-                diff[0] /= Float.parseFloat(args[i]);
+                diff[0] /= Numbers.parseFloat(args[i]);
             }
         } catch (NumberFormatException ex) {
             event.replyln("You must provide all numbers as floats/integers!");
@@ -2,7 +2,23 @@ package External.Commands;
 
 import Internal.Managing.Commands.Command;
 import Internal.Managing.Commands.InputEvent;
+import jdk.jshell.Diag;
+import jdk.jshell.EvalException;
 import jdk.jshell.JShell;
+import jdk.jshell.MethodSnippet;
+import jdk.jshell.Snippet;
+import jdk.jshell.SnippetEvent;
+import jdk.jshell.SourceCodeAnalysis;
+import jdk.jshell.TypeDeclSnippet;
+import jdk.jshell.UnresolvedReferenceException;
+import jdk.jshell.VarSnippet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 public class Evaluate extends Command {
     public Evaluate() {
@@ -10,6 +26,7 @@ public class Evaluate extends Command {
         this.aliases = new String[] {"evaluatef", "ef"};
         this.help = "Evaluates java code.";
         this.args = "[Code in java]";
+        this.rawInput = true;
     }
 
     @Override
@@ -20,7 +37,116 @@ public class Evaluate extends Command {
             return;
         }
 
-        event.replyln("[OUTPUT BELOW]");
-        JShell.create().eval(args);
+        // Evaluate in the background, so a long snippet does not hold the thread that dispatched it
+        CompletableFuture<Void> done = event.defer();
+        event.getManager().getExecutor().execute(() -> {
+            try {
+                evaluate(event, args);
+                done.complete(null);
+            } catch (Throwable ex) {
+                done.completeExceptionally(ex);
+            }
+        });
+    }
+
+    // Evaluates every snippet of the code in order, and streams what each one produces to the event.
+    private static void evaluate(InputEvent event, String code) {
+        PrintStream out = new PrintStream(new LineStream(event), true, StandardCharsets.UTF_8);
+        try (JShell shell = JShell.builder().out(out).err(out).build()) {
+            // Stop the snippet if the command times out, since it can not be interrupted
+            event.getCancellationToken().onCancel(shell::stop);
+
+            SourceCodeAnalysis analysis = shell.sourceCodeAnalysis();
+            String remaining = code;
+            while (!remaining.isBlank() && !event.isCancelled()) {
+                SourceCodeAnalysis.CompletionInfo info = analysis.analyzeCompletion(remaining);
+                boolean complete = info.completeness().isComplete();
+                // Code that is not complete is evaluated as it is, which reports why
+                for (SnippetEvent e : shell.eval(complete ? info.source() : remaining)) {
+                    out.flush();
+                    report(event, shell, e);
+                }
+                remaining = complete ? info.remaining() : "";
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    // Replies with the value, diagnostics, or exception of a snippet.
+    private static void report(InputEvent event, JShell shell, SnippetEvent e) {
+        if(e.causeSnippet() != null)
+            return; // An update of a dependent snippet, not something that was evaluated
+        Snippet snippet = e.snippet();
+
+        if(e.status() == Snippet.Status.REJECTED) {
+            event.setExitStatus(EXIT_FAILURE);
+            shell.diagnostics(snippet).forEach(diag -> replyDiagnostic(event, snippet.source(), diag));
+            return;
+        }
+
+        if(e.exception() != null) {
+            event.setExitStatus(EXIT_FAILURE);
+            if(e.exception() instanceof EvalException)
+                event.replyln("Exception " + ((EvalException) e.exception()).getExceptionClassName() + ": " + e.exception().getMessage());
+            else if(e.exception() instanceof UnresolvedReferenceException)
+                event.replyln("Error: " + ((UnresolvedReferenceException) e.exception()).getSnippet().name() + " can not be used until everything it refers to is defined");
+            else
+                event.replyln("Exception " + e.exception());
+            return;
+        }
+
+        if(e.value() != null && snippet instanceof VarSnippet)
+            event.replyln(((VarSnippet) snippet).name() + " ==> " + e.value());
+        else if(e.previousStatus() == Snippet.Status.NONEXISTENT && snippet instanceof MethodSnippet)
+            event.replyln("Created method " + ((MethodSnippet) snippet).name() + "(" + ((MethodSnippet) snippet).parameterTypes() + ")");
+        else if(e.previousStatus() == Snippet.Status.NONEXISTENT && snippet instanceof TypeDeclSnippet)
+            event.replyln("Created " + snippet.subKind().name().toLowerCase(Locale.ROOT).replace("_subkind", "").replace('_', ' ') + " " + ((TypeDeclSnippet) snippet).name());
+    }
+
+    // Replies with a diagnostic, and the line of the snippet it points at.
+    private static void replyDiagnostic(InputEvent event, String source, Diag diag) {
+        event.replyln((diag.isError() ? "Error: " : "Warning: ") + diag.getMessage(Locale.ROOT));
+        int position = (int) Math.max(0, Math.min(diag.getPosition(), source.length()));
+        int start = source.lastIndexOf('\n', position - 1) + 1;
+        int end = source.indexOf('\n', position);
+        event.replyln(source.substring(start, end < 0 ? source.length() : end));
+        event.replyln(" ".repeat(position - start) + "^");
+    }
+
+    /**
+     * Writes what a snippet prints into an event, a line at a time, while it runs.
+     */
+    private static final class LineStream extends OutputStream {
+        private final InputEvent event;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        LineStream(InputEvent event) {
+            this.event = event;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            if(b == '\n') {
+                event.replyln(line.toString(StandardCharsets.UTF_8));
+                line.reset();
+            } else if(b != '\r') {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++)
+                write(b[i]);
+        }
+
+        @Override
+        public synchronized void close() {
+            // The last line, if it was not terminated
+            if(line.size() > 0)
+                event.reply(line.toString(StandardCharsets.UTF_8));
+            line.reset();
+        }
     }
 }
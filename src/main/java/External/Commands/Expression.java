@@ -0,0 +1,352 @@
+package External.Commands;
+
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * An arithmetic expression, such as <code>(a+b)*c/2</code>, compiled into a tree of nodes that is evaluated without parsing it again.<br>
+ * Expressions are made of:
+ * <ul>
+ *     <li>Numbers, in the syntax of {@link Add} and the other arithmetic commands, such as <code>2</code>, <code>0.5</code> or <code>1e-3</code>.</li>
+ *     <li>The variables <code>a</code> to <code>z</code>, which are given a value when the expression is evaluated, and the constant <code>pi</code>.</li>
+ *     <li>The operators <code>+ - * / %</code>, <code>^</code> for powers, and signs, such as <code>-a</code>. <code>^</code> groups to the right, and comes before signs, so <code>-2^2</code> is <code>-4</code>.</li>
+ *     <li>The functions <code>abs sqrt cbrt exp ln log sin cos tan asin acos atan floor ceil round signum</code> of one value, and <code>min max pow hypot atan2</code> of two.</li>
+ *     <li>Parentheses.</li>
+ * </ul>
+ * Parts of an expression that do not use variables are computed once, when it is compiled. The last {@value #MAX_CACHED} expressions that were compiled are cached,
+ * so a repeated expression is only parsed once, and evaluating it only walks its tree.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * Expression expression = Expression.compile("(a+b)*c/2");
+ *
+ * double[] values = new double[26];
+ * values['a' - 'a'] = 1;
+ * values['b' - 'a'] = 2;
+ * values['c' - 'a'] = 4;
+ * double result = expression.evaluate(values); // 6.0
+ * </pre></code></blockquote>
+ * @see Calculate
+ */
+public final class Expression {
+    /** The number of compiled expressions that are cached. */
+    public static final int MAX_CACHED = 256;
+    // Deep enough for any expression typed by hand, and shallow enough to never overflow the stack of the parser
+    private static final int MAX_DEPTH = 256;
+
+    private static final LinkedHashMap<String, Expression> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Expression> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private static final Map<String, DoubleUnaryOperator> unaryFunctions = new HashMap<>();
+    private static final Map<String, DoubleBinaryOperator> binaryFunctions = new HashMap<>();
+
+    static {
+        unaryFunctions.put("abs", Math::abs);
+        unaryFunctions.put("sqrt", Math::sqrt);
+        unaryFunctions.put("cbrt", Math::cbrt);
+        unaryFunctions.put("exp", Math::exp);
+        unaryFunctions.put("ln", Math::log);
+        unaryFunctions.put("log", Math::log10);
+        unaryFunctions.put("sin", Math::sin);
+        unaryFunctions.put("cos", Math::cos);
+        unaryFunctions.put("tan", Math::tan);
+        unaryFunctions.put("asin", Math::asin);
+        unaryFunctions.put("acos", Math::acos);
+        unaryFunctions.put("atan", Math::atan);
+        unaryFunctions.put("floor", Math::floor);
+        unaryFunctions.put("ceil", Math::ceil);
+        unaryFunctions.put("round", x -> Math.floor(x + 0.5));
+        unaryFunctions.put("signum", Math::signum);
+
+        binaryFunctions.put("min", Math::min);
+        binaryFunctions.put("max", Math::max);
+        binaryFunctions.put("pow", Math::pow);
+        binaryFunctions.put("hypot", Math::hypot);
+        binaryFunctions.put("atan2", Math::atan2);
+    }
+
+    private final String source;
+    private final Node root;
+    private final int variables;
+
+    private Expression(String source, Node root, int variables) {
+        this.source = source;
+        this.root = root;
+        this.variables = variables;
+    }
+
+    /**
+     * Compiles an expression, or gets it from the cache if it was compiled recently.
+     * @param source The expression, such as <code>(a+b)*c/2</code>.
+     * @return The compiled expression.
+     * @throws ExpressionSyntaxException If the expression is malformed.
+     */
+    public static Expression compile(String source) {
+        synchronized (cache) {
+            Expression cached = cache.get(source);
+            if(cached != null) return cached;
+        }
+
+        Parser parser = new Parser(source);
+        Expression expression = new Expression(source, parser.parse(), parser.variables);
+        synchronized (cache) {
+            cache.put(source, expression);
+        }
+        return expression;
+    }
+
+    /**
+     * Evaluates this expression.
+     * @param values The value of every variable, where <code>a</code> is at index 0, and <code>z</code> at index 25. Only the variables that this expression uses are read.
+     * @return The result, which is <code>NaN</code> or infinite for such things as dividing by zero.
+     */
+    public double evaluate(double[] values) {
+        return root.eval(values);
+    }
+
+    /**
+     * Checks whether or not this expression uses a variable.
+     * @param variable The variable, from <code>a</code> to <code>z</code>.
+     * @return Whether or not the variable is in this expression.
+     */
+    public boolean uses(char variable) {
+        return variable >= 'a' && variable <= 'z' && (variables & (1 << (variable - 'a'))) != 0;
+    }
+
+    /**
+     * Checks whether or not this expression uses no variables, in which case it was computed when it was compiled.
+     * @return Whether or not this expression is constant.
+     */
+    public boolean isConstant() {
+        return variables == 0;
+    }
+
+    /**
+     * Gets the text that this expression was compiled from.
+     * @return The source of this expression.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        StringBuilder names = new StringBuilder();
+        for(char v = 'a'; v <= 'z'; v++)
+            if(uses(v)) names.append(v);
+        return new Formatter().format("{ source=%s, variables=%s, constant=%s }", source, names, isConstant()).toString();
+    }
+
+    // A node of the tree of an expression.
+    private interface Node {
+        double eval(double[] values);
+    }
+
+    // A part of an expression that does not use variables, which is computed once.
+    private static final class Constant implements Node {
+        final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double eval(double[] values) {
+            return value;
+        }
+    }
+
+    /**
+     * Parses an expression, from the lowest precedence to the highest:
+     * <pre>
+     *     sum     = product (('+' | '-') product)*
+     *     product = sign (('*' | '/' | '%') sign)*
+     *     sign    = ('+' | '-') sign | power
+     *     power   = primary ('^' sign)?
+     *     primary = number | variable | 'pi' | function '(' sum (',' sum)? ')' | '(' sum ')'
+     * </pre>
+     */
+    private static final class Parser {
+        final String text;
+        int pos;
+        int depth;
+        int variables;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Node parse() {
+            Node node = sum();
+            if(peek() != 0 || pos < text.length())
+                throw error(text.charAt(pos) == ')' ? "There is no ( for this )" : "Unexpected " + text.charAt(pos));
+            return node;
+        }
+
+        private Node sum() {
+            Node node = product();
+            while (true) {
+                char op = peek();
+                if(op != '+' && op != '-') return node;
+                pos++;
+                node = binary(op, node, product());
+            }
+        }
+
+        private Node product() {
+            Node node = sign();
+            while (true) {
+                char op = peek();
+                if(op != '*' && op != '/' && op != '%') return node;
+                pos++;
+                node = binary(op, node, sign());
+            }
+        }
+
+        private Node sign() {
+            char op = peek();
+            if(op != '+' && op != '-')
+                return power();
+
+            pos++;
+            enter();
+            Node operand = sign();
+            depth--;
+            if(op == '+') return operand;
+            if(operand instanceof Constant) return new Constant(-((Constant) operand).value);
+            return values -> -operand.eval(values);
+        }
+
+        private Node power() {
+            Node base = primary();
+            if(peek() != '^') return base;
+
+            pos++;
+            enter();
+            Node exponent = sign();
+            depth--;
+            return binary('^', base, exponent);
+        }
+
+        private Node primary() {
+            char c = peek();
+            int start = pos;
+
+            if(c == '(') {
+                pos++;
+                enter();
+                Node node = sum();
+                depth--;
+                expect(')', start);
+                return node;
+            }
+
+            int end = Numbers.scan(text, pos);
+            if(end > pos) {
+                pos = end;
+                return new Constant(Double.parseDouble(text.substring(start, end)));
+            }
+
+            if(isLetter(c)) {
+                while (pos < text.length() && (isLetter(text.charAt(pos)) || Character.isDigit(text.charAt(pos)))) pos++;
+                String name = text.substring(start, pos);
+                if(peek() == '(')
+                    return call(name, start);
+                if(name.length() == 1 && c >= 'a' && c <= 'z') {
+                    int index = c - 'a';
+                    variables |= 1 << index;
+                    return values -> values[index];
+                }
+                if(name.equals("pi"))
+                    return new Constant(Math.PI);
+                throw new ExpressionSyntaxException(unaryFunctions.containsKey(name) || binaryFunctions.containsKey(name)
+                        ? "The function " + name + " needs (" : "There is no variable called " + name + ", only a to z", start);
+            }
+
+            if(pos >= text.length())
+                throw error("The expression ends too early");
+            throw error(c == ')' ? "Expected a value before )" : "Unexpected " + c);
+        }
+
+        private Node call(String name, int start) {
+            DoubleUnaryOperator unary = unaryFunctions.get(name);
+            DoubleBinaryOperator binary = binaryFunctions.get(name);
+            if(unary == null && binary == null)
+                throw new ExpressionSyntaxException("There is no function called " + name, start);
+
+            int open = pos++;
+            enter();
+            Node first = sum();
+            Node second = null;
+            if(peek() == ',') {
+                pos++;
+                second = sum();
+                if(peek() == ',')
+                    throw new ExpressionSyntaxException("The function " + name + " takes " + (unary != null ? "one value" : "two values"), start);
+            }
+            depth--;
+            expect(')', open);
+
+            if(unary != null && second == null) {
+                if(first instanceof Constant) return new Constant(unary.applyAsDouble(((Constant) first).value));
+                return values -> unary.applyAsDouble(first.eval(values));
+            }
+            if(binary != null && second != null) {
+                Node last = second;
+                if(first instanceof Constant && last instanceof Constant)
+                    return new Constant(binary.applyAsDouble(((Constant) first).value, ((Constant) last).value));
+                return values -> binary.applyAsDouble(first.eval(values), last.eval(values));
+            }
+            throw new ExpressionSyntaxException("The function " + name + " takes " + (unary != null ? "one value" : "two values"), start);
+        }
+
+        // Builds the node of an operator, or computes it if both sides are constant.
+        private static Node binary(char op, Node left, Node right) {
+            Node node;
+            switch (op) {
+                case '+': node = values -> left.eval(values) + right.eval(values); break;
+                case '-': node = values -> left.eval(values) - right.eval(values); break;
+                case '*': node = values -> left.eval(values) * right.eval(values); break;
+                case '/': node = values -> left.eval(values) / right.eval(values); break;
+                case '%': node = values -> left.eval(values) % right.eval(values); break;
+                default: node = values -> Math.pow(left.eval(values), right.eval(values)); break;
+            }
+            return left instanceof Constant && right instanceof Constant ? new Constant(node.eval(null)) : node;
+        }
+
+        private void expect(char c, int open) {
+            if(peek() != c)
+                throw new ExpressionSyntaxException("There is no " + c + " for this " + text.charAt(open), open);
+            pos++;
+        }
+
+        private void enter() {
+            if(++depth > MAX_DEPTH)
+                throw error("The expression is nested too deeply");
+        }
+
+        // Skips whitespace, and returns the next character, or 0 at the end.
+        private char peek() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        private ExpressionSyntaxException error(String message) {
+            return new ExpressionSyntaxException(message, pos);
+        }
+
+        private static boolean isLetter(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+    }
+}
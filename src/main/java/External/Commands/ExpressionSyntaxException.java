@@ -0,0 +1,28 @@
+package External.Commands;
+
+/**
+ * Thrown by {@link Expression#compile(String)} when an expression is malformed, such as <code>(a+b</code>.
+ */
+public class ExpressionSyntaxException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    /**
+     * Creates a new exception.
+     * @param message What is wrong with the expression.
+     * @param position The index of the expression that it is wrong at.
+     */
+    public ExpressionSyntaxException(String message, int position) {
+        super(message);
+        this.position = position;
+    }
+
+    /**
+     * Gets the index of the expression that it is wrong at.
+     * @return The index, which is the length of the expression if it ended too early.
+     */
+    public int getPosition() {
+        return position;
+    }
+}
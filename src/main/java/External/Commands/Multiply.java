@@ -9,22 +9,23 @@ public class Multiply extends Command {
         this.aliases = new String[] {"mf", "mulf"};
         this.args = "[value] ...";
         this.help = "Multiplies as many floats as inputted!";
+        this.cacheable = true;
     }
 
     @Override
     protected void run(InputEvent event) {
-        String[] args = event.getInputMessage().getArgs().split(" ");
+        String[] args = event.getInputMessage().getArgsArray();
         if(args.length <= 1) {
             event.replyln("You must provide at least two numbers to add together!");
             return;
         }
 
         float[] prod = new float[1];
-        prod[0] = Float.parseFloat(args[0]);
 
         try {
+            prod[0] = Numbers.parseFloat(args[0]);
             for (int i = 1; i < args.length; i++) {
-                prod[0] *= Float.parseFloat(args[i]);
+                prod[0] *= Numbers.parseFloat(args[i]);
             }
         } catch (NumberFormatException ex) {
             event.replyln("You must provide all numbers as floats/integers!");
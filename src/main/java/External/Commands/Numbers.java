@@ -0,0 +1,75 @@
+package External.Commands;
+
+/**
+ * The number syntax of the arithmetic commands, {@link Add}, {@link Subtract}, {@link Multiply}, {@link Divide}, and the literals of an {@link Expression}.<br>
+ * A number is a run of digits with an optional fraction and exponent, such as <code>12</code>, <code>0.5</code>, <code>.5</code> or <code>1.5e-3</code>.
+ * As an argument, it can start with a sign, such as <code>-2</code>. Hexadecimal numbers, <code>NaN</code>, <code>Infinity</code> and type suffixes such as <code>1f</code> are not numbers.
+ */
+final class Numbers {
+    private Numbers() {}
+
+    /**
+     * Finds the end of the number that starts at an index of some text, without a sign.
+     * @param text The text to read the number from.
+     * @param from The index that the number starts at.
+     * @return The index after the last character of the number, or <code>from</code> if there is no number there.
+     */
+    static int scan(CharSequence text, int from) {
+        int length = text.length();
+        int at = from;
+        while(at < length && isDigit(text.charAt(at))) at++;
+        int digits = at - from;
+
+        if(at < length && text.charAt(at) == '.') {
+            int fraction = at + 1;
+            while(fraction < length && isDigit(text.charAt(fraction))) fraction++;
+            digits += fraction - at - 1;
+            if(digits > 0) at = fraction;
+        }
+        if(digits == 0)
+            return from;
+
+        // The exponent is only part of the number if it has digits, so 2e is the number 2 followed by e
+        if(at < length && (text.charAt(at) == 'e' || text.charAt(at) == 'E')) {
+            int exponent = at + 1;
+            if(exponent < length && (text.charAt(exponent) == '+' || text.charAt(exponent) == '-')) exponent++;
+            int start = exponent;
+            while(exponent < length && isDigit(text.charAt(exponent))) exponent++;
+            if(exponent > start) at = exponent;
+        }
+        return at;
+    }
+
+    /**
+     * Parses an argument as a double.
+     * @param value The argument, which can start with a sign.
+     * @return The number.
+     * @throws NumberFormatException If the argument is not a number.
+     */
+    static double parse(String value) {
+        check(value);
+        return Double.parseDouble(value);
+    }
+
+    /**
+     * Parses an argument as a float.
+     * @param value The argument, which can start with a sign.
+     * @return The number.
+     * @throws NumberFormatException If the argument is not a number.
+     */
+    static float parseFloat(String value) {
+        check(value);
+        return Float.parseFloat(value);
+    }
+
+    private static void check(String value) {
+        int start = !value.isEmpty() && (value.charAt(0) == '+' || value.charAt(0) == '-') ? 1 : 0;
+        int end = scan(value, start);
+        if(end == start || end != value.length())
+            throw new NumberFormatException("For input string: \"" + value + "\"");
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
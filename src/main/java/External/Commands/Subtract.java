@@ -9,22 +9,23 @@ public class Subtract extends Command {
         this.aliases = new String[] {"subtractf", "subtractionf", "sf"};
         this.help = "Subtracts as many floats as inputted!";
         this.args = "[value] ...";
+        this.cacheable = true;
     }
 
     @Override
     protected void run(InputEvent event) {
-        String[] args = event.getInputMessage().getArgs().split(" ");
+        String[] args = event.getInputMessage().getArgsArray();
         if(args.length <= 1) {
             event.replyln("You must provide at least two numbers to add together!");
             return;
         }
 
         float[] diff = new float[1];
-        diff[0] += Float.parseFloat(args[0]);
 
         try {
+            diff[0] += Numbers.parseFloat(args[0]);
             for (int i = 1; i < args.length; i++) {
-                diff[0] -= Float.parseFloat(args[i]);
+                diff[0] -= Numbers.parseFloat(args[i]);
             }
         } catch (NumberFormatException ex) {
             event.replyln("You must provide all numbers as floats/integers!");
@@ -2,13 +2,12 @@ package Internal.Commands;
 
 import Internal.Managing.Commands.Category;
 import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.FlagType;
 import Internal.Managing.Commands.Flags;
 import Internal.Managing.Commands.InputEvent;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Exits the current command prompt.<br>
@@ -30,37 +29,30 @@ import java.util.concurrent.atomic.AtomicInteger;
  *         $ exitf -s 0  # Exits command prompt with status of 0 (no errors)<br>
  *         $ exitf -s 1  # Exits command prompt with status of 1 (error)<br>
  *     </code></blockquote>
+ *     The manager is stopped gracefully first, with {@link Internal.Managing.Core.CommandManager#exit(int)}. A headless manager only stops, so an application that embeds it keeps running.
  */
 public class Exit extends Command {
     public Exit() {
         this.name = "exitf";
         this.aliases = new String[] {"ef", "\\q"};
         this.help = "Exits the Command Prompt!";
-        this.flags = new Flags().putParamsFlags("-s").putParamsArgs("[status]");
+        this.flags = new Flags().putTypedFlag("-s", "[status]", FlagType.INT);
         this.category = new Category("Internal");
     }
 
     @Override
     protected void run(InputEvent event) {
-        // Get flags, create atomic integer
-        HashMap<String, String> hm = event.getInputMessage().getFlagsAndArguments();
-        AtomicInteger status = new AtomicInteger(0); // Default is 0
+        // Get the status flag, the default is 0
+        int status = event.getInputMessage().getInt("-s", 0);
 
-        // Check for flag is hm is not null
-        if(hm != null) {
-            hm.forEach((k, v) -> {
-                if(k.equalsIgnoreCase("-s"))
-                    status.set(Integer.parseInt(v));
-            });
-        }
         // Check if status is not 0, if so, print a new line (it prints the output weird otherwise)
-        if(status.get() != 0)
+        if(status != 0)
             event.replyln();
 
         // Create DateTimeFormatter with pattern "dd/MM/yyyy hh:mm:ss a"
         DateTimeFormatter fmr = DateTimeFormatter.ofPattern("dd/MM/yyyy hh:mm:ss a");
         String msg = "Exiting command prompt at " + fmr.format(LocalDateTime.now()) + "!"; // Create message with timestamp
         event.replyWithBorder(msg, "=", msg.length()); // Print
-        System.exit(status.get()); // Exit with status
+        event.getManager().exit(status); // Stop, and exit with status
     }
 }
@@ -1,9 +1,15 @@
 package Internal.Commands;
 
 import Internal.Managing.Commands.Category;
+import Internal.Managing.Commands.CommandMessage;
+import Internal.Managing.Commands.FlagType;
+import Internal.Managing.Commands.Flags;
 import Internal.Managing.Core.CommandManager;
 import Internal.Managing.Commands.Command;
 import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Core.HelpIndex;
+
+import java.util.Iterator;
 
 /**
  * The help command for the framework's commands.
@@ -21,10 +27,29 @@ import Internal.Managing.Commands.InputEvent;
  *      Help: My First Command!
  *      Flags with parameters:
  *          #1 -f flag
+ *    DB:
+ *      Category: none
+ *      Help: Manages the database.
+ *      Subcommands:
+ *         BACKUP:
+ *            Help: Backs the database up.
  * -------------------------------------------------
  * </pre></code></blockquote>
+ * With a filter or a page size, this only prints the commands that match, in order of their names, one page at a time. The commands are found with the
+ * manager's {@link HelpIndex}, and printed as they are found, so this stays fast with any number of commands:
+ * <blockquote><code><pre>
+ * $ helpf -c Database        # The commands of a category
+ * $ helpf -p db              # The commands whose name starts with db
+ * $ helpf -s back -n 10      # The first 10 commands whose name contains back
+ * ...
+ * Next page: helpf -s back -n 10 -a dbbackup
+ * $ helpf -s back -n 10 -a dbbackup
+ * </pre></code></blockquote>
+ * A custom help consumer can use {@link CommandManager#getHelpIndex()} the same way.
  */
 public class Help extends Command {
+    /** How many commands are printed per page when only a filter is given. */
+    public static final int PAGE_SIZE = 50;
 
     CommandManager man;
 
@@ -34,6 +59,12 @@ public class Help extends Command {
         this.aliases = new String[] {"hf"};
         this.help = "Returns information about all of the commands!";
         this.category = new Category("Internal");
+        this.flags = new Flags()
+                .putTypedFlag("-c", "[category]", FlagType.STRING)
+                .putTypedFlag("-p", "[prefix]", FlagType.STRING)
+                .putTypedFlag("-s", "[text]", FlagType.STRING)
+                .putTypedFlag("-n", "[count]", FlagType.INT)
+                .putTypedFlag("-a", "[after]", FlagType.STRING);
 
         this.man = man;
     }
@@ -46,53 +77,120 @@ public class Help extends Command {
             return;
         }
 
-        // Runs the default help consumer.
+        // Streams one page of the commands that match the filters
+        CommandMessage msg = event.getInputMessage();
+        if(msg.hasFlag("-c") || msg.hasFlag("-p") || msg.hasFlag("-s") || msg.hasFlag("-n") || msg.hasFlag("-a")) {
+            printPage(event, msg);
+            return;
+        }
+
+        // Runs the default help consumer, one category at a time, skipping hidden categories whole.
         event.replyln("-------------------------------------------------");
         event.replyln("Commands:");
-        for(Command cmd : man.getCommands()) {
-            if(cmd.getCategory().isHidden()) continue;
-            // Command Name
-            event.replyln("   " + cmd.getName().toUpperCase() + ":");
-            // Aliases
-            if(cmd.getAliases() != null) {
-                StringBuilder aliases = new StringBuilder();
-                for(int i = 0; i < cmd.getAliases().length; i++) {
-                    aliases.append(cmd.getAliases()[i]);
-                    if(i != cmd.getAliases().length - 1) aliases.append(", ");
-                }
-                event.replyln("      Aliases: " + aliases.toString() + "");
-            }
-            // Category
-            String msg = cmd.getCategory().getName() != null ? "      Category: " + cmd.getCategory().getName() : "      Category: none";
-            event.replyln(msg);
-            // Help
-            if(cmd.getHelp() != null) {
-                event.replyln("      Help: " + cmd.getHelp() + "");
+        man.getCategoryRegistry().forEach((category, commands) -> {
+            if(category != null && category.isHidden()) return;
+            for(Command cmd : commands)
+                printCommand(event, cmd, "");
+        });
+        event.replyln("-------------------------------------------------");
+    }
+
+    // Prints the commands of one page as they are found, and how to get the next page.
+    private void printPage(InputEvent event, CommandMessage msg) {
+        HelpIndex.Filter filter = new HelpIndex.Filter()
+                .prefix(msg.getString("-p", null))
+                .contains(msg.getString("-s", null));
+        if(msg.hasFlag("-c")) {
+            Category category = man.getCategoryRegistry().get(msg.getString("-c", ""));
+            if(category == null) {
+                event.replyln("There is no category called " + msg.getString("-c", "") + "!");
+                event.setExitStatus(EXIT_USAGE);
+                return;
             }
-            // Arguments
-            if(cmd.getArgs() != null) {
-                event.replyln("      Arguments: " + cmd.getArgs());
+            filter.category(category);
+        }
+        int count = msg.getInt("-n", PAGE_SIZE);
+        if(count < 1) {
+            event.replyln("A page needs at least one command!");
+            event.setExitStatus(EXIT_USAGE);
+            return;
+        }
+
+        Iterator<Command> it = man.getHelpIndex().find(filter, msg.getString("-a", null));
+        event.replyln("-------------------------------------------------");
+        event.replyln("Commands:");
+        Command last = null;
+        for(int i = 0; i < count && it.hasNext(); i++) {
+            last = it.next();
+            printCommand(event, last, "");
+        }
+        if(last == null)
+            event.replyln("   No commands match!");
+        event.replyln("-------------------------------------------------");
+        if(last != null && it.hasNext())
+            event.replyln("Next page: " + nextPage(msg, count, HelpIndex.cursorOf(last)));
+    }
+
+    // The command that prints the page after the cursor, with the same filters.
+    private String nextPage(CommandMessage msg, int count, String cursor) {
+        StringBuilder line = new StringBuilder(name);
+        for(String flag : new String[] {"-c", "-p", "-s"}) {
+            if(msg.hasFlag(flag))
+                line.append(' ').append(flag).append(' ').append(msg.getString(flag, ""));
+        }
+        return line.append(" -n ").append(count).append(" -a ").append(cursor).toString();
+    }
+
+    // Prints the help of a single command, and its subcommands below it, indented one more level.
+    private static void printCommand(InputEvent event, Command cmd, String indent) {
+        // Command Name
+        event.replyln(indent + "   " + cmd.getName().toUpperCase() + ":");
+        // Aliases
+        if(cmd.getAliases() != null) {
+            StringBuilder aliases = new StringBuilder();
+            for(int i = 0; i < cmd.getAliases().length; i++) {
+                aliases.append(cmd.getAliases()[i]);
+                if(i != cmd.getAliases().length - 1) aliases.append(", ");
             }
-            // Flags with no parameters
-            if(cmd.getFlags().getNoParamFlags().length > 0) {
-                event.replyln("      Flags with no parameters:");
-                int count = 0;
-                for(String f : cmd.getFlags().getNoParamFlags()) {
-                    count++;
-                    event.replyln("         #" + count + ": " + f);
-                }
+            event.replyln(indent + "      Aliases: " + aliases.toString() + "");
+        }
+        // Category, which subcommands share with their top command
+        if(cmd.getParent() == null) {
+            String msg = cmd.getCategory().getName() != null ? "      Category: " + cmd.getCategory().getName() : "      Category: none";
+            event.replyln(indent + msg);
+        }
+        // Help
+        if(cmd.getHelp() != null) {
+            event.replyln(indent + "      Help: " + cmd.getHelp() + "");
+        }
+        // Arguments
+        if(cmd.getArgs() != null) {
+            event.replyln(indent + "      Arguments: " + cmd.getArgs());
+        }
+        // Flags with no parameters
+        if(cmd.getFlags().getNoParamFlags().length > 0) {
+            event.replyln(indent + "      Flags with no parameters:");
+            int count = 0;
+            for(String f : cmd.getFlags().getNoParamFlags()) {
+                count++;
+                event.replyln(indent + "         #" + count + ": " + f);
             }
-            // Flags with parameters
-            if(cmd.getFlags().getParamsFlags().length > 0) {
-                event.replyln("      Flags with parameters:");
-                for(int i = 0; i < cmd.getFlags().getParamsFlags().length; i++) {
-                    String flag = cmd.getFlags().getParamsFlags()[i];
-                    String args = cmd.getFlags().getParamsArgs()[i];
+        }
+        // Flags with parameters
+        if(cmd.getFlags().getParamsFlags().length > 0) {
+            event.replyln(indent + "      Flags with parameters:");
+            for(int i = 0; i < cmd.getFlags().getParamsFlags().length; i++) {
+                String flag = cmd.getFlags().getParamsFlags()[i];
+                String args = cmd.getFlags().getParamsArgs()[i];
 
-                    event.replyln("         #" + (i + 1) + ": " + flag + " "+ args);
-                }
+                event.replyln(indent + "         #" + (i + 1) + ": " + flag + " "+ args);
             }
         }
-        event.replyln("-------------------------------------------------");
+        // Subcommands
+        if(cmd.getSubcommands().length > 0) {
+            event.replyln(indent + "      Subcommands:");
+            for(Command sub : cmd.getSubcommands())
+                printCommand(event, sub, indent + "      ");
+        }
     }
 }
@@ -0,0 +1,115 @@
+package Internal.Commands;
+
+import Internal.Managing.Commands.Category;
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.CommandGroup;
+import Internal.Managing.Commands.Flags;
+import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.Events.CommandRecorder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Starts and stops Java Flight Recorder recordings of the phases of every command, with the {@link CommandRecorder} of the {@link CommandManager}.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * $ recordf start slow.jfr       # Records the events of the manager to slow.jfr
+ * $ recordf start -j slow.jfr    # Records the JVM's default events as well, such as garbage collections
+ * $ recordf status
+ * Recording to slow.jfr
+ * $ recordf stop
+ * Saved the recording to slow.jfr!
+ * </pre></code></blockquote>
+ */
+public class Record extends CommandGroup {
+
+    public Record(CommandManager man) {
+        super("recordf", "Starts and stops flight recordings of every command!", "rcf");
+        this.category = new Category("Internal");
+
+        addSubcommand(new Start(man.getRecorder()));
+        addSubcommand(new Stop(man.getRecorder()));
+        addSubcommand(new Status(man.getRecorder()));
+    }
+
+    /**
+     * Starts a recording, to the given file or to <code>jcommands-[time].jfr</code>.
+     */
+    public static class Start extends Command {
+        private final CommandRecorder recorder;
+
+        public Start(CommandRecorder recorder) {
+            this.name = "start";
+            this.help = "Starts recording to a file.";
+            this.args = "[file]";
+            this.flags = new Flags("-j");
+            this.recorder = recorder;
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            String args = event.getInputMessage().getArgs();
+            Path file = Path.of(args.isEmpty() ? "jcommands-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(LocalDateTime.now()) + ".jfr" : args);
+            if(recorder.isRecording()) {
+                event.replyln("Already recording to " + recorder.getDestination() + "!");
+                event.setExitStatus(EXIT_USAGE);
+                return;
+            }
+
+            try {
+                recorder.start(file, event.getInputMessage().hasFlag("-j"));
+                event.replyln("Recording to " + file + "!");
+            } catch (IOException ex) {
+                event.replyln("Could not record to " + file + ": " + ex.getMessage());
+                event.setExitStatus(EXIT_FAILURE);
+            }
+        }
+    }
+
+    /**
+     * Stops the recording, and saves it.
+     */
+    public static class Stop extends Command {
+        private final CommandRecorder recorder;
+
+        public Stop(CommandRecorder recorder) {
+            this.name = "stop";
+            this.help = "Stops recording, and saves the file.";
+            this.recorder = recorder;
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            Path file = recorder.stop();
+            if(file == null) {
+                event.replyln("Nothing is being recorded!");
+                event.setExitStatus(EXIT_USAGE);
+            } else {
+                event.replyln("Saved the recording to " + file + "!");
+            }
+        }
+    }
+
+    /**
+     * Replies with the file that is being recorded to.
+     */
+    public static class Status extends Command {
+        private final CommandRecorder recorder;
+
+        public Status(CommandRecorder recorder) {
+            this.name = "status";
+            this.help = "Shows whether or not a recording is running.";
+            this.recorder = recorder;
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            Path file = recorder.getDestination();
+            event.replyln(file != null ? "Recording to " + file : "Nothing is being recorded.");
+        }
+    }
+}
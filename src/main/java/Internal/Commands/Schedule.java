@@ -0,0 +1,233 @@
+package Internal.Commands;
+
+import Internal.Managing.Commands.Category;
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.FlagType;
+import Internal.Managing.Commands.Flags;
+import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.Scheduling.CronExpression;
+import Internal.Managing.Scheduling.JobScheduler;
+import Internal.Managing.Scheduling.ScheduledJob;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Schedules a command to run later, or again and again, with the {@link JobScheduler} of the {@link CommandManager}. The replies of the jobs are written to the console.
+ * The schedule flags go before the command to schedule. They are read up to the first word that is not one of them, and the rest of the line is the command,
+ * with its own flags, so <code>schedulef -d 10s helpf -c Internal</code> schedules <code>helpf -c Internal</code>. A <code>--</code> also ends the schedule flags.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * $ schedulef -d 30s helpf              # Runs helpf once, in 30 seconds
+ * $ schedulef -e 1m statsf              # Runs statsf every minute
+ * $ schedulef -c 0 9 * * 1-5 statsf     # Runs statsf at 9:00 on weekdays
+ * $ schedulef -l                        # Lists the pending jobs
+ *    #2 statsf (every 1m), next at 18/10/2026 09:01:00 AM, 3 runs, last status 0
+ * $ schedulef -x 2                      # Cancels job #2
+ * $ schedulef -d 1m -- -x              # Schedules a command whose name starts with a dash
+ * </pre></code></blockquote>
+ */
+public class Schedule extends Command {
+
+    CommandManager man;
+
+    public Schedule(CommandManager man) {
+        this.name = "schedulef";
+        this.aliases = new String[] {"scf"};
+        this.help = "Runs a command after a delay, every period, or on a cron schedule!";
+        this.args = "[-d delay] [-e period] [-c minute hour day month weekday] [Command] | -l | -x [job]";
+        // The flags are read by this command, up to the command to schedule, so the flags of that command are left to it
+        this.flags = new Flags();
+        this.category = new Category("Internal");
+
+        this.man = man;
+    }
+
+    @Override
+    protected void run(InputEvent event) {
+        JobScheduler scheduler = man.getJobScheduler();
+        Options options;
+        try {
+            options = parse(event.getInputMessage().getContent());
+        } catch (IllegalArgumentException ex) {
+            usage(event, ex.getMessage());
+            return;
+        }
+
+        // List the pending jobs
+        if(options.list) {
+            List<ScheduledJob> jobs = scheduler.getJobs();
+            if(jobs.isEmpty())
+                event.replyln("There are no scheduled jobs!");
+            DateTimeFormatter fmr = DateTimeFormatter.ofPattern("dd/MM/yyyy hh:mm:ss a");
+            for(ScheduledJob job : jobs) {
+                String schedule = job.getCron() != null ? job.getCron().getExpression() : job.getPeriod() != null ? "every " + format(job.getPeriod()) : "once";
+                String next = fmr.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(job.getNextRun()), ZoneId.systemDefault()));
+                event.replyln(String.format("   #%d %s (%s), next at %s, %d runs, last status %s", job.getId(), job.getLine(), schedule, next, job.getRuns(),
+                        job.getRuns() > 0 ? String.valueOf(job.getLastExitStatus()) : "-"));
+            }
+            return;
+        }
+
+        // Cancel a job
+        if(options.cancel != null) {
+            int id = options.cancel;
+            if(scheduler.cancel(id)) {
+                event.replyln("Cancelled job #" + id + "!");
+            } else {
+                event.replyln("There is no scheduled job #" + id + "!");
+                event.setExitStatus(EXIT_USAGE);
+            }
+            return;
+        }
+
+        String line = options.line;
+        if(line.isEmpty()) {
+            usage(event, "You must provide a command to schedule!");
+            return;
+        }
+        if(man.findCommand(line) == null) {
+            usage(event, "There is no command called " + line.split(" ")[0] + "!");
+            return;
+        }
+
+        ScheduledJob job;
+        if(options.cron != null) {
+            CronExpression expression;
+            try {
+                expression = CronExpression.parse(options.cron);
+            } catch (IllegalArgumentException ex) {
+                usage(event, ex.getMessage());
+                return;
+            }
+            job = scheduler.scheduleCron(line, expression);
+        } else if(options.period != null) {
+            Duration period = options.period;
+            if(period.isZero() || period.isNegative()) {
+                usage(event, "The period must be positive!");
+                return;
+            }
+            job = scheduler.scheduleAtFixedRate(line, options.delay != null ? options.delay : period, period);
+        } else if(options.delay != null) {
+            job = scheduler.schedule(line, options.delay);
+        } else {
+            usage(event, "You must provide a delay (-d), a period (-e) or a cron schedule (-c)!");
+            return;
+        }
+
+        event.replyln("Scheduled job #" + job.getId() + ": " + line);
+    }
+
+    /**
+     * The schedule flags of an input message, and the command to schedule.
+     */
+    private static final class Options {
+        boolean list;
+        Integer cancel;
+        Duration delay;
+        Duration period;
+        String cron;
+        String line = "";
+    }
+
+    // Reads the schedule flags after the name of this command, up to the first word that is not one of them, or a --. The rest of the line is the command to schedule.
+    private Options parse(String content) {
+        Options options = new Options();
+        Words words = new Words(content);
+        for(int i = 0; i <= getDepth(); i++)
+            words.next();
+
+        String word;
+        while((word = words.next()) != null) {
+            switch (word) {
+                case "--":
+                    options.line = content.substring(words.at).trim();
+                    return options;
+                case "-l":
+                    options.list = true;
+                    break;
+                case "-c":
+                    StringBuilder cron = new StringBuilder();
+                    for(int i = 0; i < 5; i++) {
+                        String field = words.next();
+                        if(field == null)
+                            throw new IllegalArgumentException("A cron schedule needs 5 fields!");
+                        cron.append(i > 0 ? " " : "").append(field);
+                    }
+                    options.cron = cron.toString();
+                    break;
+                case "-d":
+                    options.delay = duration(words.next(), "-d", "[delay]");
+                    break;
+                case "-e":
+                    options.period = duration(words.next(), "-e", "[period]");
+                    break;
+                case "-x":
+                    String job = words.next();
+                    if(job == null)
+                        throw new IllegalArgumentException(String.format(man.getFlagNoParameterMessage(), "[job]", "-x"));
+                    try {
+                        options.cancel = Integer.parseInt(job);
+                    } catch (NumberFormatException ex) {
+                        throw new IllegalArgumentException(String.format(man.getFlagInvalidParameterMessage(), job, FlagType.INT.getDisplayName(), "-x"));
+                    }
+                    break;
+                default:
+                    options.line = content.substring(words.start).trim();
+                    return options;
+            }
+        }
+        return options;
+    }
+
+    private Duration duration(String value, String flag, String argument) {
+        if(value == null)
+            throw new IllegalArgumentException(String.format(man.getFlagNoParameterMessage(), argument, flag));
+        try {
+            return FlagType.parseDuration(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(String.format(man.getFlagInvalidParameterMessage(), value, FlagType.DURATION.getDisplayName(), flag));
+        }
+    }
+
+    /**
+     * The words of a line, split on whitespace, with where the last one started and ended.
+     */
+    private static final class Words {
+        final String text;
+        int start;
+        int at;
+
+        Words(String text) {
+            this.text = text;
+        }
+
+        String next() {
+            while(at < text.length() && Character.isWhitespace(text.charAt(at))) at++;
+            if(at == text.length())
+                return null;
+            start = at;
+            while(at < text.length() && !Character.isWhitespace(text.charAt(at))) at++;
+            return text.substring(start, at);
+        }
+    }
+
+    private void usage(InputEvent event, String message) {
+        event.replyln(message);
+        event.replyln("Usage: schedulef [-d delay] [-e period] [-c minute hour day month weekday] [Command] | -l | -x [job]");
+        event.setExitStatus(EXIT_USAGE);
+    }
+
+    // Formats a duration the way it is typed, such as 1m or 30s.
+    private static String format(Duration d) {
+        if(d.toMillis() % 3_600_000 == 0) return d.toHours() + "h";
+        if(d.toMillis() % 60_000 == 0) return d.toMinutes() + "m";
+        if(d.toMillis() % 1000 == 0) return d.getSeconds() + "s";
+        return d.toMillis() + "ms";
+    }
+}
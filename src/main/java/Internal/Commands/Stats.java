@@ -0,0 +1,69 @@
+package Internal.Commands;
+
+import Internal.Managing.Commands.Category;
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.Core.CommandMetrics;
+import Internal.Managing.Core.ErrorReporter;
+import Internal.Managing.Core.ResultCache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints the counters of everything the {@link CommandManager} has run, inside of a border:
+ * <blockquote><code><pre>
+ * $ statsf
+ * -------------------------------------------------
+ * Stats:
+ *    Dispatched: 12
+ *    Succeeded: 9
+ *    Failed: 1
+ *    ...
+ *    ADDF: 4 runs, 0 failures, 0 rate limited, 0 timeouts, 0.21ms average
+ * -------------------------------------------------
+ * </pre></code></blockquote>
+ */
+public class Stats extends Command {
+
+    CommandManager man;
+
+    public Stats(CommandManager man) {
+        this.name = "statsf";
+        this.aliases = new String[] {"stf"};
+        this.help = "Returns the counters of every command that has run!";
+        this.category = new Category("Internal");
+
+        this.man = man;
+    }
+
+    @Override
+    protected void run(InputEvent event) {
+        CommandMetrics metrics = man.getMetrics();
+
+        event.replyln("-------------------------------------------------");
+        event.replyln("Stats:");
+        event.replyln("   Dispatched: " + metrics.getDispatched());
+        event.replyln("   Not found: " + metrics.getNotFound());
+        event.replyln("   Succeeded: " + metrics.getSucceeded());
+        event.replyln("   Failed: " + metrics.getFailed());
+        event.replyln("   Malformed: " + metrics.getUsageErrors());
+        event.replyln("   Rate limited: " + metrics.getRateLimited());
+        event.replyln("   Delayed: " + metrics.getDelayed());
+        event.replyln("   Queued: " + metrics.getQueued());
+        event.replyln("   Timed out: " + metrics.getTimedOut());
+        ErrorReporter errors = man.getErrorReporter();
+        event.replyln(String.format("   Errors: %d reported, %d traces omitted, %d distinct", errors.getReported(), errors.getSuppressed(), errors.getSignatures()));
+        if(man.getResultCache() != null) {
+            ResultCache cache = man.getResultCache();
+            event.replyln(String.format("   Cache: %d entries, %d hits, %d misses, %.1f%% hit rate", cache.size(), cache.getHits(), cache.getMisses(), cache.getHitRate() * 100));
+        }
+
+        // Per command counters
+        metrics.getCommandCounters().forEach((name, c) -> {
+            double average = c.getInvocations() > 0 ? (double) c.getTotalNanos() / c.getInvocations() / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+            event.replyln(String.format("   %s: %d runs, %d failures, %d rate limited, %d timeouts, %.2fms average", name.toUpperCase(), c.getInvocations(), c.getFailures(), c.getRateLimited(), c.getTimeouts(), average));
+        });
+        event.replyln("-------------------------------------------------");
+    }
+}
@@ -0,0 +1,79 @@
+package Internal.Managing.Commands;
+
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A token that tells a running command to stop. The token is cancelled when the command times out (see {@link Command#timeout}), or when its manager stops.<br>
+ * Commands with long loops should check it, so they stop quickly:
+ * <blockquote><code><pre>
+ * protected void run(InputEvent event) {
+ *     while (...) {
+ *         event.getCancellationToken().throwIfCancelled();
+ *         ...
+ *     }
+ * }
+ * </pre></code></blockquote>
+ * Commands that wait on something that can not be interrupted can register a callback instead, with {@link CancellationToken#onCancel(Runnable)}.
+ */
+public class CancellationToken {
+    private volatile boolean cancelled;
+    private ArrayList<Runnable> callbacks;
+
+    /**
+     * Checks whether or not this token was cancelled.
+     * @return Whether or not the command should stop.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Throws a {@link CancellationException} if this token was cancelled. The exception is not reported as an error.
+     * @throws CancellationException If the command should stop.
+     */
+    public void throwIfCancelled() {
+        if(cancelled)
+            throw new CancellationException("The command was cancelled!");
+    }
+
+    /**
+     * Registers a callback to run when this token is cancelled. If it was already cancelled, the callback runs straight away.
+     * @param callback The callback to run.
+     */
+    public void onCancel(Runnable callback) {
+        synchronized (this) {
+            if(!cancelled) {
+                if(callbacks == null) callbacks = new ArrayList<>(2);
+                callbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * Cancels this token, and runs every registered callback. Cancelling more than once does nothing.
+     * @return Whether or not this call cancelled the token.
+     */
+    public boolean cancel() {
+        ArrayList<Runnable> toRun;
+        synchronized (this) {
+            if(cancelled) return false;
+            cancelled = true;
+            toRun = callbacks;
+            callbacks = null;
+        }
+
+        if(toRun != null) {
+            for(Runnable r : toRun) {
+                try {
+                    r.run();
+                } catch (RuntimeException ignored) {
+                    // One failing callback should not stop the others
+                }
+            }
+        }
+        return true;
+    }
+}
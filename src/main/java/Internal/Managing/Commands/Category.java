@@ -1,11 +1,13 @@
 package Internal.Managing.Commands;
 
-import Internal.Managing.Core.CommandManager;
-
 import java.util.Formatter;
 
 /**
  * A Category for the {@link Command} object. This contains the name of the category, and whether or not it is hidden.
+ * Categories are interned by name in the {@link CategoryRegistry} of every manager: when a command is added, it is moved to the registry's category
+ * with the same name, so every command of a category in one manager shares it, and renaming or hiding it affects all of them at once, but not the
+ * categories of other managers. Since the command is moved, a command that is added to two managers has the category of the last one,
+ * so give every manager its own command objects.
  * <h1>Usage:</h1>
  * You init it like any other command setting:
  * <blockquote><code><pre>
@@ -41,8 +43,8 @@ import java.util.Formatter;
  * </pre></code></blockquote>
  */
 public class Category {
-    private String name;
-    private boolean hidden;
+    private volatile String name;
+    private volatile boolean hidden;
 
     /** Default constructor for this object. */
     public Category() {
@@ -0,0 +1,220 @@
+package Internal.Managing.Commands;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * The categories of the commands of a {@link Internal.Managing.Core.CommandManager}, with the commands of every category.<br>
+ * Commands are moved to this registry's {@link Category} of the same name when they are added, so a category is one object shared by its commands,
+ * and renaming or hiding it is a single change instead of a scan of every command. Every registry has its own categories, so renaming or hiding
+ * a category of one manager does not change the categories of another. Categories are kept in the order they were first added,
+ * and the commands of a category in the order they were added.<br>
+ * Because {@link Command#getCategory()} is changed to the category of this registry, a command object should only be in one manager at a time.
+ * If it is added to a second one, its category is the second manager's, and renaming or hiding the category in the first manager no longer affects it.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * CategoryRegistry categories = manager.getCategoryRegistry();
+ * categories.setHidden("Internal", true);
+ * categories.forEach((category, commands) -&gt; System.out.println(category.getName() + ": " + commands.size()));
+ * </pre></code></blockquote>
+ */
+public class CategoryRegistry {
+    // Keyed by identity, so renaming a category needs no re-keying
+    private final Map<Category, List<Command>> commands = new LinkedHashMap<>();
+    // The categories of this registry, by name
+    private final Map<String, Category> byName = new HashMap<>();
+    private final Map<Command, Category> categoryOf = new IdentityHashMap<>();
+    private final List<Command> uncategorized = new ArrayList<>();
+    private volatile int version;
+
+    /**
+     * Adds a command, moving it to this registry's category with the same name, so its {@link Command#getCategory()} is changed. If the command's own category is hidden,
+     * so is the category of this registry. A command that is already in the registry of another manager is moved away from that manager's category.
+     * @param cmd The command to add.
+     */
+    public synchronized void add(Command cmd) {
+        if(categoryOf.containsKey(cmd))
+            return;
+        if(cmd.category == null)
+            cmd.category = new Category();
+
+        String name = cmd.category.getName();
+        if(name == null) {
+            categoryOf.put(cmd, cmd.category);
+            uncategorized.add(cmd);
+            version++;
+            return;
+        }
+
+        Category category = get(name);
+        if(category == null) {
+            // A copy, so a category object that is shared by commands of other managers is never changed by this one
+            category = new Category(name, cmd.category.isHidden());
+            byName.put(name, category);
+            commands.put(category, new ArrayList<>());
+        } else if(cmd.category.isHidden()) {
+            // Hiding is sticky, so a command that asked to be hidden stays hidden
+            category.setHidden(true);
+        }
+        cmd.category = category;
+        categoryOf.put(cmd, category);
+        commands.get(category).add(cmd);
+        version++;
+    }
+
+    /**
+     * Removes a command. A category is removed with its last command.
+     * @param cmd The command to remove.
+     * @return True if the command was in this registry.
+     */
+    public synchronized boolean remove(Command cmd) {
+        Category category = categoryOf.remove(cmd);
+        if(category == null)
+            return false;
+
+        if(!uncategorized.remove(cmd)) {
+            List<Command> list = commands.get(category);
+            list.remove(cmd);
+            if(list.isEmpty()) {
+                commands.remove(category);
+                byName.remove(category.getName(), category);
+            }
+        }
+        version++;
+        return true;
+    }
+
+    /**
+     * Gets a category of this registry by name.
+     * @param name The name of the category.
+     * @return The category, or <code>null</code> if no command of this registry is in it.
+     */
+    public synchronized Category get(String name) {
+        if(name == null)
+            return null;
+        Category category = byName.get(name);
+        if(category != null && name.equals(category.getName()))
+            return category;
+
+        // The category was renamed with Category#setName instead of rename, so the name index is brought up to date
+        byName.clear();
+        for (Category c : commands.keySet())
+            byName.putIfAbsent(c.getName(), c);
+        return byName.get(name);
+    }
+
+    /**
+     * Gets every category of this registry, in the order they were first added. Commands without a category are not in one.
+     * @return A copy of the categories.
+     */
+    public synchronized List<Category> getCategories() {
+        return new ArrayList<>(commands.keySet());
+    }
+
+    /**
+     * Gets the commands of a category.
+     * @param category The category.
+     * @return A copy of the commands of the category, which is empty if it has none.
+     */
+    public synchronized List<Command> getCommands(Category category) {
+        List<Command> list = commands.get(category);
+        return list != null ? new ArrayList<>(list) : Collections.emptyList();
+    }
+
+    /**
+     * Gets the commands without a category.
+     * @return A copy of the commands without a category.
+     */
+    public synchronized List<Command> getUncategorized() {
+        return new ArrayList<>(uncategorized);
+    }
+
+    /**
+     * Runs an action for every category and its commands, in order, with the commands without a category last (under a <code>null</code> category).
+     * The action runs on a copy, so it may add or remove commands.
+     * @param action The action to run for every category.
+     */
+    public void forEach(BiConsumer<Category, List<Command>> action) {
+        Map<Category, List<Command>> copy = new LinkedHashMap<>();
+        List<Command> none;
+        synchronized (this) {
+            commands.forEach((category, list) -> copy.put(category, new ArrayList<>(list)));
+            none = new ArrayList<>(uncategorized);
+        }
+        copy.forEach(action);
+        if(!none.isEmpty())
+            action.accept(null, none);
+    }
+
+    /**
+     * Renames a category. If a category with the new name already exists, the commands are moved into it.
+     * @param name The name of the category.
+     * @param newName The new name of the category.
+     * @return True if the category was found.
+     */
+    public synchronized boolean rename(String name, String newName) {
+        Category category = get(name);
+        if(category == null)
+            return false;
+        if(name.equals(newName))
+            return true;
+
+        Category target = get(newName);
+        if(target == null) {
+            // Nobody else has the name, so this is a single change
+            byName.remove(name);
+            category.setName(newName);
+            byName.put(newName, category);
+            return true;
+        }
+
+        // Merge into the existing category
+        List<Command> moved = commands.remove(category);
+        for (Command cmd : moved) {
+            cmd.category = target;
+            categoryOf.put(cmd, target);
+        }
+        commands.get(target).addAll(moved);
+        byName.remove(name, category);
+        version++;
+        return true;
+    }
+
+    /**
+     * Gets a counter that changes whenever a command is added, removed, or moved to another category. Renaming or hiding a category in place does not change it.
+     * Indexes over the categories, such as {@link Internal.Managing.Core.HelpIndex}, use this to know when they are stale.
+     * @return The version of this registry.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Hides or shows a category, and by extension all of its commands.
+     * @param name The name of the category.
+     * @param hidden Whether or not the category is hidden.
+     * @return True if the category was found.
+     */
+    public synchronized boolean setHidden(String name, boolean hidden) {
+        Category category = get(name);
+        if(category == null)
+            return false;
+        category.setHidden(hidden);
+        return true;
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public synchronized String toString() {
+        return new Formatter().format("{ categories=%s, commands=%s, uncategorized=%s }", commands.size(), categoryOf.size(), uncategorized.size()).toString();
+    }
+}
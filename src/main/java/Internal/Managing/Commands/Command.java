@@ -1,10 +1,17 @@
 package Internal.Managing.Commands;
 
 import Internal.Managing.Core.CommandManager;
+import Internal.Managing.Events.ExecuteEvent;
+import Internal.Processing.Workers.WorkerPool;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Formatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * The Command class. To create a command, extend a normal java class with this class:<br>
@@ -32,6 +39,24 @@ import java.util.Formatter;
  */
 public abstract class Command {
 
+    /** The exit status of a command that ran successfully. */
+    public static final int EXIT_SUCCESS = 0;
+
+    /** The exit status of a command that threw an exception. */
+    public static final int EXIT_FAILURE = 1;
+
+    /** The exit status of a command that was not run, because its input message was malformed. */
+    public static final int EXIT_USAGE = 2;
+
+    /** The exit status of an input message that was rejected by a rate limit. */
+    public static final int EXIT_RATE_LIMITED = 75;
+
+    /** The exit status of a command that did not finish before its timeout. */
+    public static final int EXIT_TIMEOUT = 124;
+
+    /** The exit status of an input message that did not match any command. */
+    public static final int EXIT_NOT_FOUND = 127;
+
     /** The default constructor for the Command object. This should not be called manually! To create a command, create a class and extend this class. */
     public Command() {}
 
@@ -55,6 +80,31 @@ public abstract class Command {
      * @see Category#Category(String, boolean) */
     protected Category category = new Category();
 
+    /** How long this command can run for, in milliseconds, before it is cancelled. Use <code>0</code> for the manager's default timeout, and a negative number for no timeout at all.
+     * @see Internal.Managing.Core.CommandConfigurator#setDefaultTimeout(long)
+     * @see InputEvent#getCancellationToken() */
+    protected long timeout = 0;
+
+    /** Whether or not this command is a pure function of its input, so its output can be cached. Repeated invocations with the same flags and arguments are then replayed from the cache. Default is <code>false</code>.<br>
+     * The output of a cacheable command must only depend on its flags and arguments, not on the lines it reads, its session, or the time. A stage of a pipeline reads the stage before it, so it always runs instead of being cached.
+     * @see Internal.Managing.Core.ResultCache */
+    protected boolean cacheable = false;
+
+    /** Whether or not this command takes its arguments as they are, such as code. A <code>|</code> in its arguments is then never read as a pipeline. Default is <code>false</code>.
+     * @see Internal.Processing.Pipeline#split(CommandManager, String) */
+    protected boolean rawInput = false;
+
+    /** How long the cached output of this command stays valid, in milliseconds. Only used if the command is {@link Command#cacheable}. */
+    protected long cacheTtl = 60_000;
+
+    /** The maximum weight (length) of a single cached output of this command. Longer output is not cached. Only used if the command is {@link Command#cacheable}. */
+    protected int cacheMaxWeight = 4096;
+
+    // The command this is a subcommand of, and the subcommands of this command with an index of their lower case names and aliases
+    private Command parent;
+    private volatile Command[] subcommands = new Command[0];
+    private volatile HashMap<String, Command> subcommandIndex = new HashMap<>();
+
     /**
      * The method that has the running code inside.
      * @param event The InputEvent event.
@@ -62,21 +112,79 @@ public abstract class Command {
     protected abstract void run(InputEvent event);
 
     /**
-     * Executes this command.
+     * Executes this command. If the input message is malformed (see {@link CommandMessage#getError()}), the error is printed and the command is not run.
      * @param event The InputEvent to read from.
      * @param man The executing CommandManager.
      */
     public void execute(InputEvent event, CommandManager man) {
+        ExecuteEvent trace = new ExecuteEvent();
+        trace.begin();
+        boolean routed = false;
         try {
-            run(event); // Executes the run method, which runs the code inside.
+            // Reject malformed flags before running
+            String error = event.getInputMessage().getError();
+            if(error != null) {
+                event.setExitStatus(EXIT_USAGE);
+                event.replyln(error);
+                record(trace, event, false);
+                return;
+            }
+
+            WorkerPool workers = man.getWorkerPool();
+            routed = workers != null && workers.isRouted(this);
+            if(routed)
+                workers.execute(event); // Runs the command in a worker process instead
+            else
+                run(event); // Executes the run method, which runs the code inside.
+        } catch (CancellationException ex) {
+            // The command stopped because it was cancelled, which is reported by the manager
         } catch (Exception ex) {
-            // Exception handling
-            man.getOut().print("Sorry, an error occurred. Try again!");
-            if(man.isPrintStackTrace()) {
-                man.getOut().println();
-                ex.printStackTrace(man.getOut());
+            fail(event, man, ex);
+        }
+
+        // Deferred work fails the same way as run, once it is done
+        synchronized (event) {
+            CompletableFuture<Void> deferred = event.getDeferred();
+            if(deferred != null) {
+                boolean worker = routed;
+                event.settled = deferred.handle((v, ex) -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if(cause != null && !(cause instanceof CancellationException))
+                        fail(event, man, cause);
+                    record(trace, event, worker);
+                    return null;
+                });
+                return;
             }
         }
+        record(trace, event, routed);
+    }
+
+    // Commits the flight recorder event of a run, if it is being recorded
+    private void record(ExecuteEvent trace, InputEvent event, boolean worker) {
+        trace.end();
+        if(trace.shouldCommit()) {
+            trace.command = getPath();
+            trace.session = event.getSessionId();
+            trace.inputLength = event.getInputMessage().getContent().length();
+            trace.outputLength = event.getRepliedLength();
+            trace.exitStatus = event.getExitStatus();
+            trace.deferred = event.isDeferred();
+            trace.worker = worker;
+            trace.commit();
+        }
+    }
+
+    // Exception handling
+    private void fail(InputEvent event, CommandManager man, Throwable ex) {
+        event.fail(ex, EXIT_FAILURE);
+        event.reply("Sorry, an error occurred. Try again!");
+        // Repeats of the same error are only counted, so an error storm does not flood the output
+        String trace = man.getErrorReporter().report(this, ex);
+        if(man.isPrintStackTrace()) {
+            event.replyln();
+            event.reply(trace);
+        }
     }
 
     /**
@@ -118,6 +226,112 @@ public abstract class Command {
         return this.aliases;
     }
 
+    /**
+     * Adds a subcommand, with its own flags, aliases and help. The subcommand is run when its name or an alias follows this command's name,
+     * such as <code>db backup start -f</code>, where <code>start</code> is a subcommand of <code>backup</code>, which is a subcommand of <code>db</code>.
+     * Only the top command is added to the manager. This command still runs when no subcommand matches, such as with {@link CommandGroup}.
+     * <h1>Usage:</h1>
+     * <blockquote><code><pre>
+     * CommandGroup db = new CommandGroup("db", "Manages the database.");
+     * db.addSubcommand(new CommandGroup("backup", "Manages backups.")
+     *         .addSubcommand(new StartBackup())
+     *         .addSubcommand(new StopBackup()));
+     * configurator.addCommand(db);
+     * </pre></code></blockquote>
+     * @param subcommand The subcommand to add.
+     * @return This command, so calls can be chained.
+     * @throws IllegalArgumentException If the subcommand already belongs to a command, or is this command or one of its parents.
+     */
+    public synchronized Command addSubcommand(Command subcommand) {
+        for (Command c = this; c != null; c = c.parent)
+            if(c == subcommand)
+                throw new IllegalArgumentException("The command " + subcommand.getName() + " can not be a subcommand of itself!");
+        if(subcommand.parent != null)
+            throw new IllegalArgumentException("The command " + subcommand.getName() + " is already a subcommand of " + subcommand.parent.getName() + "!");
+        subcommand.parent = this;
+
+        Command[] added = Arrays.copyOf(subcommands, subcommands.length + 1);
+        added[subcommands.length] = subcommand;
+        HashMap<String, Command> index = new HashMap<>(subcommandIndex);
+        for (String alias : subcommand.getAliases(true))
+            if(alias != null)
+                index.putIfAbsent(alias.toLowerCase(Locale.ROOT), subcommand);
+
+        // Readers only ever see the old or the new level
+        subcommandIndex = index;
+        subcommands = added;
+        return this;
+    }
+
+    /**
+     * Gets the subcommands of this command, in the order they were added.
+     * @return A copy of the subcommands, which is empty if there are none.
+     */
+    public Command[] getSubcommands() {
+        return subcommands.clone();
+    }
+
+    /**
+     * Finds a subcommand of this command by its name or an alias, ignoring case.
+     * @param name The name or alias.
+     * @return The subcommand, or <code>null</code> if none matches.
+     */
+    public Command getSubcommand(String name) {
+        return subcommandIndex.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Gets the command this is a subcommand of.
+     * @return The parent command, or <code>null</code> if this is a top command.
+     */
+    public Command getParent() {
+        return parent;
+    }
+
+    /**
+     * Gets how deep this command is in its tree.
+     * @return <code>0</code> for a top command, <code>1</code> for its subcommands, and so on.
+     */
+    public int getDepth() {
+        int depth = 0;
+        for (Command c = parent; c != null; c = c.parent)
+            depth++;
+        return depth;
+    }
+
+    /**
+     * Gets the names of this command and its parents, such as <code>db backup start</code>.
+     * @return The path of this command.
+     */
+    public String getPath() {
+        return parent == null ? name : parent.getPath() + " " + name;
+    }
+
+    /**
+     * Walks the subcommands of this command with the words of an input message that starts with this command's name or alias.
+     * Every word is one index lookup, so this costs as much as the depth of the command that is found.
+     * @param line The input message, such as <code>db backup start -f</code>.
+     * @return The deepest subcommand that the words name, or this command if the second word is not a subcommand.
+     */
+    public Command resolve(String line) {
+        Command current = this;
+        int at = line.indexOf(' ');
+        while (at >= 0 && current.subcommands.length > 0) {
+            while (at < line.length() && line.charAt(at) == ' ')
+                at++;
+            int end = line.indexOf(' ', at);
+            if(at == line.length())
+                break;
+
+            Command next = current.subcommandIndex.get(line.substring(at, end < 0 ? line.length() : end).toLowerCase(Locale.ROOT));
+            if(next == null)
+                break;
+            current = next;
+            at = end;
+        }
+        return current;
+    }
+
     /**
      * Gets the flags of this command.
      * @return A {@link Flags} object containing all message flags and their parameters.
@@ -136,6 +350,36 @@ public abstract class Command {
      */
     public String getArgs() { return this.args; }
 
+    /**
+     * Gets how long this command can run for before it is cancelled.
+     * @return The timeout in milliseconds, <code>0</code> for the manager's default, or a negative number for no timeout.
+     */
+    public long getTimeout() { return this.timeout; }
+
+    /**
+     * Gets whether or not the output of this command can be cached. The output of a cacheable command depends only on its flags and arguments, see {@link Command#cacheable}.
+     * @return Whether or not this command is cacheable.
+     */
+    public boolean isCacheable() { return this.cacheable; }
+
+    /**
+     * Gets whether or not this command takes its arguments as they are, so they are never split into a pipeline.
+     * @return Whether or not this command takes raw input.
+     */
+    public boolean isRawInput() { return this.rawInput; }
+
+    /**
+     * Gets how long the cached output of this command stays valid.
+     * @return The TTL in milliseconds.
+     */
+    public long getCacheTtl() { return this.cacheTtl; }
+
+    /**
+     * Gets the maximum weight (length) of a single cached output of this command.
+     * @return The maximum weight of a cache entry.
+     */
+    public int getCacheMaxWeight() { return this.cacheMaxWeight; }
+
     /**
      * Gets the category for this command.
      * @return A {@link Category} representing the category of this command.
@@ -0,0 +1,44 @@
+package Internal.Managing.Commands;
+
+/**
+ * A command that only holds subcommands, such as <code>db</code> in <code>db backup start</code>. When none of its subcommands is named,
+ * it replies with its usage, and the subcommands it has.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * CommandGroup db = new CommandGroup("db", "Manages the database.");
+ * db.addSubcommand(new Backup());
+ * db.addSubcommand(new Restore());
+ * configurator.addCommand(db);
+ *
+ * $ db
+ * Usage: db &lt;subcommand&gt;
+ *    backup: Backs the database up.
+ *    restore: Restores a backup.
+ * </pre></code></blockquote>
+ */
+public class CommandGroup extends Command {
+    /**
+     * Creates a new group of subcommands.
+     * @param name The name of the group.
+     * @param help The help message of the group.
+     * @param aliases The aliases of the group.
+     */
+    public CommandGroup(String name, String help, String... aliases) {
+        this.name = name;
+        this.help = help;
+        this.aliases = aliases;
+        this.args = "<subcommand>";
+    }
+
+    @Override
+    protected void run(InputEvent event) {
+        event.setExitStatus(EXIT_USAGE);
+        String[] args = event.getInputMessage().getArgsArray();
+        if(args.length > 0)
+            event.replyln(args[0] + " is not a subcommand of " + getPath() + "!");
+
+        event.replyln("Usage: " + getPath() + " <subcommand>");
+        for(Command c : getSubcommands())
+            event.replyln("   " + c.getName() + (c.getHelp() != null ? ": " + c.getHelp() : ""));
+    }
+}
@@ -1,11 +1,14 @@
 package Internal.Managing.Commands;
 
 import Internal.Managing.Core.CommandManager;
+import Internal.Managing.Events.ParseEvent;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Formatter;
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * The object containing the input message from the inputstream.<br>
@@ -21,6 +24,24 @@ public class CommandMessage {
     private HashMap<String, String> flagsAndParams;
     private String[] everyFlag;
     private String args;
+    private String[] argsArray;
+    private String error;
+
+    // Converted parameters of the flags with parameters, indexed like Flags#getParamsFlags()
+    private boolean[] present;
+    private long[] longValues;
+    private double[] doubleValues;
+    private Object[] objectValues;
+
+    // Scratch buffers that the input is parsed with, which are kept by the thread when the message is parsed for a reused event.
+    // Nothing that a command can reach is kept, so a command that keeps its message after it returns never sees the next input.
+    private static final ThreadLocal<ParseBuffers> BUFFERS = ThreadLocal.withInitial(ParseBuffers::new);
+    private static final String[] NO_STRINGS = new String[0];
+    private static final boolean[] NO_FLAGS = new boolean[0];
+    private static final long[] NO_LONGS = new long[0];
+    private static final double[] NO_DOUBLES = new double[0];
+    private static final Object[] NO_OBJECTS = new Object[0];
+    private ParseBuffers buffers;
 
     /**
      * Initializes a new CommandMessage. This should not be manually run! Instead, use {@link InputEvent#getInputMessage()} instead instead.
@@ -28,107 +49,380 @@ public class CommandMessage {
      * @param man The manager that this is associated with.
      */
     public CommandMessage(Command cmd, CommandManager man) {
+        this(cmd, man, man.getNextMsg());
+    }
+
+    /**
+     * Initializes a new CommandMessage from the given input. This should not be manually run! Instead, use {@link InputEvent#getInputMessage()} instead.
+     * @param cmd The command that this is associated with.
+     * @param man The manager that this is associated with.
+     * @param content The input message to parse.
+     */
+    public CommandMessage(Command cmd, CommandManager man, String content) {
+        this(cmd, man, content, false);
+    }
+
+    // Parses the input with the scratch buffers of this thread, if they are not in use already, instead of new ones. This is done by InputEvent for reused events.
+    CommandMessage(Command cmd, CommandManager man, String content, boolean threadBuffers) {
         this.cmd = cmd;
         this.man = man;
 
+        ParseBuffers buffers = threadBuffers ? BUFFERS.get() : null;
+        if(buffers == null || buffers.inUse) buffers = new ParseBuffers();
+        buffers.inUse = true;
+        this.buffers = buffers;
+        try {
+            parse(content);
+        } finally {
+            buffers.found.clear();
+            buffers.inUse = false;
+            this.buffers = null;
+        }
+    }
+
+    private void parse(String content) {
+        ParseEvent parse = new ParseEvent();
+        parse.begin();
+        this.error = null;
+        this.argsArray = null;
+
         Flags flagsObj = cmd.getFlags();
         String[] flags = cmd.getFlags().getNoParamFlags();
+        String[] paramFlags = flagsObj.matchOrder();
 
         // String message
-        this.contentMessage = man.getNextMsg();
+        this.contentMessage = content;
 
-        String[] msg = getContent().split(" ");
+        int count = tokenize(content);
 
         // No Param Flags
-        ArrayList<String> msgFlags = new ArrayList<>();
+        ArrayList<String> msgFlags = buffers.found;
+        msgFlags.clear();
 
-        for(String m : msg) {
+        for(int t = 0; t < count; t++) {
             for(String f : flags) {
-                if(m.equals(f)) {
+                if(isToken(t, f)) {
                     msgFlags.add(f);
                 }
             }
         }
-        this.noParamsFlags = msgFlags.toArray(new String[msgFlags.size()]);
+        this.noParamsFlags = toArray(msgFlags);
 
         // All flags
-        ArrayList<String> allFlags = new ArrayList<>();
+        ArrayList<String> allFlags = buffers.found;
+        allFlags.clear();
         String[] noParamFlags = getNoParamsFlags();
 
-        flagsObj.match().forEach((f, value) -> {
-            for (String m : msg) {
-                if (m.equals(f)) {
-                    allFlags.add(m);
+        for(String f : paramFlags) {
+            for(int t = 0; t < count; t++) {
+                if(isToken(t, f)) {
+                    allFlags.add(f);
                 }
             }
-        });
-        allFlags.addAll(Arrays.asList(noParamFlags));
+        }
+        for(String f : noParamFlags) allFlags.add(f);
 
-        this.everyFlag = allFlags.toArray(new String[allFlags.size()]);
+        this.everyFlag = toArray(allFlags);
 
         // Param Flags
         HashMap<String, String> hm = new HashMap<>();
-        boolean[] error = new boolean[1];
+        String missing = null;
 
         // Loop through all matched flags and parameters.
-        flagsObj.match().forEach((f, value) -> {
-            for (int i = 0; i < msg.length; i++) {
-                String m = msg[i];
-                if (m.equals(f)) {
-                    if(i+1 < msg.length) {
+        for(String f : paramFlags) {
+            for (int i = 0; i < count; i++) {
+                if (isToken(i, f)) {
+                    if(i+1 < count) {
                         for(String flag : getAllFlags()) {
-                            if(msg[i + 1].equals(flag)) {
+                            if(isToken(i + 1, flag)) {
                                 // Set to return null if there is no param for the flag.
-                                error[0] = true;
+                                missing = f;
                                 break;
                             }
                         }
-                        hm.put(f, msg[i + 1]);
+                        hm.put(f, token(i + 1));
                     } else {
                         // Set to return null if there is no param for the flag.
-                        error[0] = true;
+                        missing = f;
                         break;
                     }
                 }
             }
-        });
+        }
 
         // Return null
-        if(error[0]) {
+        if(missing != null) {
             this.flagsAndParams = null;
+            this.error = String.format(man.getFlagNoParameterMessage(), flagsObj.getParamsArgs()[flagsObj.indexOf(missing)], missing);
         } else {
             this.flagsAndParams = hm;
         }
 
+        // Typed parameters
+        parseTypedParameters(flagsObj, hm);
+
         // Arguments
         String msgString = getContent();
-        HashMap<String, String> flagsWithParams = getFlagsAndArguments();
 
-        for(String a : cmd.getAliases(true)) if(a.equals(msgString.split(" ")[0])) msgString = msgString.substring(a.length());
+        int depth = cmd.getDepth();
+        if(depth > 0) {
+            // Skip the names of the command and its parents, which are the first words
+            int at = 0;
+            for(int word = 0; word <= depth && at < msgString.length(); word++) {
+                while(at < msgString.length() && msgString.charAt(at) == ' ') at++;
+                while(at < msgString.length() && msgString.charAt(at) != ' ') at++;
+            }
+            msgString = msgString.substring(at);
+        } else {
+            // Only the first name that matches the first word is cut off, as the rest of the message starts with a space after it
+            if(count > 0 && cmd.getName() != null && isToken(0, cmd.getName())) {
+                msgString = msgString.substring(cmd.getName().length());
+            } else if(cmd.getAliases() != null) {
+                for(String a : cmd.getAliases()) {
+                    if(count > 0 ? isToken(0, a) : a.isEmpty()) {
+                        msgString = msgString.substring(a.length());
+                        break;
+                    }
+                }
+            }
+        }
 
-        String[] finalMsg = new String[] {msgString};
+        String finalMsg = msgString;
 
-        flagsWithParams.forEach((k, v) -> {
-            finalMsg[0] = finalMsg[0].replace(k + " ", "");
-            finalMsg[0] = finalMsg[0].replace(v + " ", "");
-        });
+        for(Map.Entry<String, String> e : hm.entrySet()) {
+            finalMsg = removeWord(finalMsg, e.getKey());
+            finalMsg = removeWord(finalMsg, e.getValue());
+        }
 
         for(String f : flags) {
-            finalMsg[0] = finalMsg[0].replace(f + " ", "");
+            finalMsg = removeWord(finalMsg, f);
         }
 
-        if(finalMsg[0].split(" ").length == 1) {
-            flagsWithParams.forEach((k, v) -> {
-                finalMsg[0] = finalMsg[0].replace(k, "");
-                finalMsg[0] = finalMsg[0].replace(v, "");
-            });
-            if(finalMsg[0].equals(" ")) {
-                args = "";
+        if(isOneWord(finalMsg)) {
+            for(Map.Entry<String, String> e : hm.entrySet()) {
+                finalMsg = finalMsg.replace(e.getKey(), "");
+                finalMsg = finalMsg.replace(e.getValue(), "");
+            }
+        }
+
+        this.args = finalMsg.trim();
+
+        parse.end();
+        if(parse.shouldCommit()) {
+            parse.command = cmd.getPath();
+            parse.length = content.length();
+            parse.flags = everyFlag.length;
+            parse.malformed = error != null;
+            parse.commit();
+        }
+    }
+
+    // Splits the content on single spaces into the token buffer, as content.split(" ") does, and returns the number of tokens.
+    // Tokens are kept as offsets into the content, and are only cut out of it when they are a parameter.
+    private int tokenize(String content) {
+        int count = 0;
+        int from = 0;
+        int at;
+        while((at = content.indexOf(' ', from)) >= 0) {
+            token(count++, from, at);
+            from = at + 1;
+        }
+        if(from == 0) {
+            token(0, 0, content.length());
+            return 1;
+        }
+        token(count++, from, content.length());
+
+        // Trailing empty tokens are removed
+        while(count > 0 && buffers.tokenEnds[count - 1] == buffers.tokenStarts[count - 1]) count--;
+        return count;
+    }
+
+    private void token(int index, int start, int end) {
+        ParseBuffers b = buffers;
+        if(index == b.tokenStarts.length) {
+            b.tokenStarts = Arrays.copyOf(b.tokenStarts, Math.max(8, index * 2));
+            b.tokenEnds = Arrays.copyOf(b.tokenEnds, b.tokenStarts.length);
+        }
+        b.tokenStarts[index] = start;
+        b.tokenEnds[index] = end;
+    }
+
+    // Whether or not a token is the given text.
+    private boolean isToken(int index, String text) {
+        int start = buffers.tokenStarts[index];
+        return buffers.tokenEnds[index] - start == text.length() && contentMessage.startsWith(text, start);
+    }
+
+    private String token(int index) {
+        return contentMessage.substring(buffers.tokenStarts[index], buffers.tokenEnds[index]);
+    }
+
+    // Removes every occurrence of the word followed by a space, as text.replace(word + " ", "") does.
+    private static String removeWord(String text, String word) {
+        StringBuilder result = null;
+        int copied = 0;
+        int from = 0;
+        int at;
+        while(from <= text.length() && (at = text.indexOf(word, from)) >= 0) {
+            int end = at + word.length();
+            if(end < text.length() && text.charAt(end) == ' ') {
+                if(result == null) result = new StringBuilder(text.length());
+                result.append(text, copied, at);
+                copied = end + 1;
+                from = end + 1;
+            } else {
+                from = at + 1;
+            }
+        }
+        if(result == null) return text;
+
+        return result.append(text, copied, text.length()).toString();
+    }
+
+    // Whether or not the text is one word, as in text.split(" ").length == 1.
+    private static boolean isOneWord(String text) {
+        int end = text.length();
+        while(end > 0 && text.charAt(end - 1) == ' ') end--;
+        if(end == 0) return text.isEmpty();
+
+        return text.lastIndexOf(' ', end - 1) < 0;
+    }
+
+    // Splits trimmed text on runs of whitespace, as text.split("\\s+") does, without compiling a pattern.
+    private static String[] splitWhitespace(String text) {
+        if(text.isEmpty()) return new String[] {text};
+
+        int count = 1;
+        for(int i = 1; i < text.length(); i++)
+            if(isWhitespace(text.charAt(i)) && !isWhitespace(text.charAt(i - 1))) count++;
+
+        String[] words = new String[count];
+        int word = 0;
+        for(int i = 0; i < text.length(); ) {
+            int start = i;
+            while(i < text.length() && !isWhitespace(text.charAt(i))) i++;
+            words[word++] = text.substring(start, i);
+            while(i < text.length() && isWhitespace(text.charAt(i))) i++;
+        }
+        return words;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static String[] toArray(ArrayList<String> list) {
+        return list.isEmpty() ? NO_STRINGS : list.toArray(new String[list.size()]);
+    }
+
+    /**
+     * Initializes a new CommandMessage from input that was already split into flags and arguments, such as a frame of the
+     * {@link Internal.Processing.Wire.WireCodec binary protocol}. Nothing is parsed out of a text line, and the text of the message is only
+     * rebuilt if {@link CommandMessage#getContent()} is called.
+     * @param cmd The command that this is associated with.
+     * @param man The manager that this is associated with.
+     * @param flags The flags of the message, such as <code>-t</code>.
+     * @param params The parameter of every flag, at the same index, or <code>null</code> for flags without parameters.
+     * @param args The arguments of the message.
+     */
+    public CommandMessage(Command cmd, CommandManager man, String[] flags, String[] params, String[] args) {
+        this.cmd = cmd;
+        this.man = man;
+
+        Flags flagsObj = cmd.getFlags();
+        ArrayList<String> noParams = new ArrayList<>();
+        HashMap<String, String> hm = new HashMap<>();
+        for(int i = 0; i < flags.length; i++) {
+            String f = flags[i];
+            if(flagsObj.indexOf(f) >= 0) {
+                if(params[i] == null) {
+                    if(this.error == null)
+                        this.error = String.format(man.getFlagNoParameterMessage(), flagsObj.getParamsArgs()[flagsObj.indexOf(f)], f);
+                    continue;
+                }
+                hm.put(f, params[i]);
+            } else if(Arrays.asList(flagsObj.getNoParamFlags()).contains(f)) {
+                noParams.add(f);
+            } else if(this.error == null) {
+                this.error = "The command " + cmd.getName() + " has no flag named " + f + "!";
+            }
+        }
+
+        this.noParamsFlags = noParams.toArray(new String[0]);
+        ArrayList<String> allFlags = new ArrayList<>(hm.keySet());
+        allFlags.addAll(noParams);
+        this.everyFlag = allFlags.toArray(new String[0]);
+        this.flagsAndParams = this.error == null ? hm : null;
+        parseTypedParameters(flagsObj, hm);
+
+        this.argsArray = args;
+        this.args = String.join(" ", args);
+    }
+
+    // Converts the parameters of every flag into its slot, once. The first malformed parameter is recorded as the error.
+    private void parseTypedParameters(Flags flagsObj, HashMap<String, String> params) {
+        String[] paramFlags = flagsObj.getParamsFlags();
+        int n = paramFlags.length;
+
+        this.present = n == 0 ? NO_FLAGS : new boolean[n];
+        this.longValues = n == 0 ? NO_LONGS : new long[n];
+        this.doubleValues = n == 0 ? NO_DOUBLES : new double[n];
+        this.objectValues = n == 0 ? NO_OBJECTS : new Object[n];
+
+        for(int i = 0; i < n; i++) {
+            String value = params.get(paramFlags[i]);
+            if(value == null) continue;
+
+            FlagType type = flagsObj.getType(i);
+            try {
+                switch (type) {
+                    case STRING:
+                        objectValues[i] = value;
+                        break;
+                    case INT:
+                        longValues[i] = Integer.parseInt(value);
+                        break;
+                    case LONG:
+                        longValues[i] = Long.parseLong(value);
+                        break;
+                    case DOUBLE:
+                        doubleValues[i] = Double.parseDouble(value);
+                        break;
+                    case BOOLEAN:
+                        int b = FlagType.parseBoolean(value);
+                        if(b < 0) throw new NumberFormatException(value);
+                        longValues[i] = b;
+                        break;
+                    case ENUM:
+                        objectValues[i] = parseEnum(flagsObj.getEnumType(i), value);
+                        break;
+                    case DURATION:
+                        longValues[i] = FlagType.parseDurationNanos(value);
+                        break;
+                }
+                present[i] = true;
+            } catch (NumberFormatException ex) {
+                if(this.error == null)
+                    this.error = String.format(man.getFlagInvalidParameterMessage(), value, type.getDisplayName(), paramFlags[i]);
             }
         }
+    }
+
+    // Matches an enum constant, ignoring case.
+    private static Object parseEnum(Class<?> enumType, String value) {
+        for(Object constant : enumType.getEnumConstants())
+            if(((Enum<?>) constant).name().equalsIgnoreCase(value)) return constant;
 
-        finalMsg[0] = finalMsg[0].trim();
-        this.args = finalMsg[0];
+        throw new NumberFormatException(value);
+    }
+
+    /**
+     * Gets the command that this message is for.
+     * @return The command of this message.
+     */
+    public Command getCommand() {
+        return cmd;
     }
 
     /**
@@ -136,6 +430,15 @@ public class CommandMessage {
      * @return A String that is the console message.
      */
     public String getContent() {
+        if(contentMessage == null) {
+            // Input that was not a text line, rebuilt as one
+            StringBuilder content = new StringBuilder(cmd.getName());
+            for(String f : noParamsFlags) content.append(' ').append(f);
+            if(flagsAndParams != null)
+                flagsAndParams.forEach((f, p) -> content.append(' ').append(f).append(' ').append(p));
+            if(!args.isEmpty()) content.append(' ').append(args);
+            contentMessage = content.toString();
+        }
         return this.contentMessage;
     }
 
@@ -163,6 +466,150 @@ public class CommandMessage {
         return this.args;
     }
 
+    /**
+     * Gets the arguments of the command, split on whitespace. The array is only split once, so it should not be modified.
+     * @return A String array containing the arguments, or an empty array if there are no args.
+     */
+    public String[] getArgsArray() {
+        if(argsArray == null)
+            argsArray = args.isEmpty() ? NO_STRINGS : splitWhitespace(args.trim());
+
+        return argsArray;
+    }
+
+    /**
+     * Gets the error message for this input, if it is malformed. A malformed input is one with a flag missing its parameter, or with a parameter that does not match the type of its flag.
+     * If this is not <code>null</code>, the command is not run and this message is printed instead.
+     * @return The error message, or <code>null</code> if the input is valid.
+     */
+    public String getError() {
+        return this.error;
+    }
+
+    /**
+     * Checks whether or not a flag, with or without parameters, is in the input message.
+     * @param flag The flag to check for.
+     * @return Whether or not the flag is in the input message.
+     */
+    public boolean hasFlag(String flag) {
+        int i = cmd.getFlags().indexOf(flag);
+        if(i >= 0) return present[i];
+
+        for(String f : noParamsFlags)
+            if(f.equals(flag)) return true;
+
+        return false;
+    }
+
+    /**
+     * Gets the parameter of an {@link FlagType#INT} flag.
+     * @param flag The flag, such as <code>-s</code>.
+     * @param defaultValue The value to return if the flag is not in the input message.
+     * @return The parameter of the flag, or the default value.
+     */
+    public int getInt(String flag, int defaultValue) {
+        int i = slot(flag, FlagType.INT);
+        return present[i] ? (int) longValues[i] : defaultValue;
+    }
+
+    /**
+     * Gets the parameter of a {@link FlagType#LONG} or {@link FlagType#INT} flag.
+     * @param flag The flag, such as <code>-i</code>.
+     * @param defaultValue The value to return if the flag is not in the input message.
+     * @return The parameter of the flag, or the default value.
+     */
+    public long getLong(String flag, long defaultValue) {
+        int i = slot(flag, FlagType.LONG);
+        return present[i] ? longValues[i] : defaultValue;
+    }
+
+    /**
+     * Gets the parameter of a {@link FlagType#DOUBLE}, {@link FlagType#LONG} or {@link FlagType#INT} flag.
+     * @param flag The flag, such as <code>-r</code>.
+     * @param defaultValue The value to return if the flag is not in the input message.
+     * @return The parameter of the flag, or the default value.
+     */
+    public double getDouble(String flag, double defaultValue) {
+        int i = slot(flag, FlagType.DOUBLE);
+        if(!present[i]) return defaultValue;
+
+        return cmd.getFlags().getType(i) == FlagType.DOUBLE ? doubleValues[i] : longValues[i];
+    }
+
+    /**
+     * Gets the parameter of a {@link FlagType#BOOLEAN} flag.
+     * @param flag The flag, such as <code>-v</code>.
+     * @param defaultValue The value to return if the flag is not in the input message.
+     * @return The parameter of the flag, or the default value.
+     */
+    public boolean getBoolean(String flag, boolean defaultValue) {
+        int i = slot(flag, FlagType.BOOLEAN);
+        return present[i] ? longValues[i] != 0 : defaultValue;
+    }
+
+    /**
+     * Gets the parameter of a {@link FlagType#DURATION} flag in nanoseconds. This does not create a {@link Duration} object.
+     * @param flag The flag, such as <code>-t</code>.
+     * @param defaultNanos The value to return if the flag is not in the input message.
+     * @return The parameter of the flag in nanoseconds, or the default value.
+     */
+    public long getDurationNanos(String flag, long defaultNanos) {
+        int i = slot(flag, FlagType.DURATION);
+        return present[i] ? longValues[i] : defaultNanos;
+    }
+
+    /**
+     * Gets the parameter of a {@link FlagType#DURATION} flag.
+     * @param flag The flag, such as <code>-t</code>.
+     * @param defaultValue The value to return if the flag is not in the input message.
+     * @return The parameter of the flag, or the default value.
+     */
+    public Duration getDuration(String flag, Duration defaultValue) {
+        int i = slot(flag, FlagType.DURATION);
+        return present[i] ? Duration.ofNanos(longValues[i]) : defaultValue;
+    }
+
+    /**
+     * Gets the parameter of an {@link FlagType#ENUM} flag.
+     * @param flag The flag, such as <code>-m</code>.
+     * @param enumType The class of the enum, which must match the class the flag was put with.
+     * @param defaultValue The value to return if the flag is not in the input message.
+     * @param <E> The type of the enum.
+     * @return The parameter of the flag, or the default value.
+     */
+    public <E extends Enum<E>> E getEnum(String flag, Class<E> enumType, E defaultValue) {
+        int i = slot(flag, FlagType.ENUM);
+        return present[i] ? enumType.cast(objectValues[i]) : defaultValue;
+    }
+
+    /**
+     * Gets the parameter of a {@link FlagType#STRING} flag.
+     * @param flag The flag, such as <code>-u</code>.
+     * @param defaultValue The value to return if the flag is not in the input message.
+     * @return The parameter of the flag, or the default value.
+     */
+    public String getString(String flag, String defaultValue) {
+        int i = slot(flag, FlagType.STRING);
+        return present[i] ? (String) objectValues[i] : defaultValue;
+    }
+
+    // Finds the slot of a flag, and checks that its type can be read as the requested type.
+    private int slot(String flag, FlagType requested) {
+        Flags flagsObj = cmd.getFlags();
+        int i = flagsObj.indexOf(flag);
+        if(i < 0)
+            throw new IllegalArgumentException("The command " + cmd.getName() + " has no flag with parameters named " + flag + "!");
+
+        FlagType type = flagsObj.getType(i);
+        boolean compatible = type == requested
+                || (requested == FlagType.LONG && type == FlagType.INT)
+                || (requested == FlagType.DOUBLE && (type == FlagType.INT || type == FlagType.LONG));
+        if(!compatible)
+            throw new IllegalArgumentException("The flag " + flag + " is a " + type.getDisplayName() + " flag, not a " + requested.getDisplayName() + " flag!");
+
+        return i;
+    }
+
     /**
      * Gets all flags from the input message. This includes no parameter flags and parameter flags, but not parameters. Use <code>this#getFlagsAndArguments()</code> instead.
      * @return A String array containing all flags from the message.
@@ -217,4 +664,12 @@ public class CommandMessage {
         }
         return new Formatter().format("{ 'message': '%s', 'noParamsFlags': [ %s ], 'flagsAndParams': { %s }, 'everyFlag': [ %s ], 'args': '%s' }", contentMessage, npf.toString(), obj.toString(), ef.toString(), args).toString();
     }
+
+    // The buffers that an input is split into tokens with, and that flags are collected in, while it is parsed.
+    private static final class ParseBuffers {
+        int[] tokenStarts = new int[0];
+        int[] tokenEnds = new int[0];
+        final ArrayList<String> found = new ArrayList<>();
+        boolean inUse;
+    }
 }
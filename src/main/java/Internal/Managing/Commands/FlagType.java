@@ -0,0 +1,110 @@
+package Internal.Managing.Commands;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+
+/**
+ * The type of a flag parameter. Typed flags are declared with {@link Flags#putTypedFlag(String, String, FlagType)}, and their
+ * parameters are validated and converted once, when the {@link CommandMessage} is parsed.<br>
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * super.flags = new Flags("-v").putTypedFlag("-s", "[status]", FlagType.INT);
+ * ...
+ * int status = event.getInputMessage().getInt("-s", 0);
+ * </pre></code></blockquote>
+ * If the parameter can not be converted, the command is not run, and the error message set in {@link Internal.Managing.Core.CommandConfigurator#setFlagInvalidParameterMessage(String)} is printed instead.
+ */
+public enum FlagType {
+    /** A plain String parameter. This is the type of every flag put with {@link Flags#putParamsFlags(String...)}. */
+    STRING,
+    /** A 32-bit integer, such as <code>-s 1</code>. */
+    INT,
+    /** A 64-bit integer, such as <code>-i 1234567890123</code>. */
+    LONG,
+    /** A floating point number, such as <code>-r 0.5</code>. */
+    DOUBLE,
+    /** A boolean. Accepts <code>true/false</code>, <code>yes/no</code>, <code>on/off</code> and <code>1/0</code>. */
+    BOOLEAN,
+    /** A constant of an enum, matched ignoring case. Declare it with {@link Flags#putEnumFlag(String, String, Class)}. */
+    ENUM,
+    /** A duration, such as <code>500ms</code>, <code>10s</code>, <code>5m</code>, <code>1h</code>, <code>2d</code> or <code>PT10S</code>. A number without a unit is in milliseconds. */
+    DURATION;
+
+    /**
+     * Gets the lower case name of this type, used in error messages.
+     * @return The lower case name of this type.
+     */
+    public String getDisplayName() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * Parses a boolean parameter.
+     * @param value The parameter to parse.
+     * @return <code>1</code> for true, <code>0</code> for false, or <code>-1</code> if the parameter is not a boolean.
+     */
+    static int parseBoolean(String value) {
+        switch (value.toLowerCase()) {
+            case "true": case "yes": case "on": case "1":
+                return 1;
+            case "false": case "no": case "off": case "0":
+                return 0;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Parses a duration the way the parameters of {@link #DURATION} flags are parsed. This is for commands that read their own flags, such as {@link Internal.Commands.Schedule}.
+     * @param value The text to parse, such as <code>10s</code>.
+     * @return The duration.
+     * @throws NumberFormatException If the text is not a duration.
+     */
+    public static Duration parseDuration(String value) {
+        return Duration.ofNanos(parseDurationNanos(value));
+    }
+
+    /**
+     * Parses a duration parameter into nanoseconds.
+     * @param value The parameter to parse.
+     * @return The duration in nanoseconds.
+     * @throws NumberFormatException If the parameter is not a duration.
+     */
+    static long parseDurationNanos(String value) {
+        if(value.length() > 1 && (value.charAt(0) == 'P' || value.charAt(0) == 'p')) {
+            try {
+                return Duration.parse(value).toNanos();
+            } catch (DateTimeParseException | ArithmeticException ex) {
+                throw new NumberFormatException(value);
+            }
+        }
+
+        // Split the number from its unit
+        int end = value.length();
+        while (end > 0 && Character.isLetter(value.charAt(end - 1))) end--;
+        if(end == 0)
+            throw new NumberFormatException(value);
+
+        long amount = Long.parseLong(value.substring(0, end));
+        if(amount < 0)
+            throw new NumberFormatException(value);
+
+        long unit;
+        switch (value.substring(end).toLowerCase()) {
+            case "ns": unit = 1L; break;
+            case "us": unit = 1_000L; break;
+            case "": case "ms": unit = 1_000_000L; break;
+            case "s": unit = 1_000_000_000L; break;
+            case "m": unit = 60_000_000_000L; break;
+            case "h": unit = 3_600_000_000_000L; break;
+            case "d": unit = 86_400_000_000_000L; break;
+            default: throw new NumberFormatException(value);
+        }
+
+        try {
+            return Math.multiplyExact(amount, unit);
+        } catch (ArithmeticException ex) {
+            throw new NumberFormatException(value);
+        }
+    }
+}
@@ -12,11 +12,17 @@ import java.util.HashMap;
  *     - flags  # the flags that have parameters
  *     - params  # the parameters for the flags
  * </pre>
+ * Flags with parameters can also be typed, using {@link Flags#putTypedFlag(String, String, FlagType)}. The parameters of typed flags are converted once when the message is parsed,
+ * and can be read with accessors such as {@link CommandMessage#getInt(String, int)}.
  */
 public class Flags {
     private String[] noParamFlags;
     private String[] f = new String[] {};
     private String[] args = new String[] {};
+    private FlagType[] types = new FlagType[] {};
+    private Class<?>[] enumTypes = new Class<?>[] {};
+    // The flags with parameters in the order that match() iterates them, and the array of flags they were taken from
+    private volatile Object[] matchOrder;
 
     /**
      * Creates a new flag object. This constructor takes in a VarArg that represents the flags with no parameters, such as <code>-h</code>.
@@ -36,6 +42,55 @@ public class Flags {
      */
     public Flags putParamsFlags(String ... flags) {
         this.f = flags;
+        this.types = new FlagType[flags.length];
+        this.enumTypes = new Class<?>[flags.length];
+        Arrays.fill(this.types, FlagType.STRING);
+        return this;
+    }
+
+    /**
+     * Puts a flag with a typed parameter. The parameter is validated and converted when the message is parsed, and the command will not run if it is malformed.
+     * <blockquote><code><pre>
+     * new Flags().putTypedFlag("-s", "[status]", FlagType.INT).putTypedFlag("-t", "[timeout]", FlagType.DURATION);
+     * </pre></code></blockquote>
+     * @param flag The flag to add.
+     * @param argument The name of the parameter, which is shown in the help command.
+     * @param type The type of the parameter. Use {@link Flags#putEnumFlag(String, String, Class)} for enums.
+     * @return A flag object (just to chain the methods :) )
+     */
+    public Flags putTypedFlag(String flag, String argument, FlagType type) {
+        if(type == FlagType.ENUM)
+            throw new IllegalArgumentException("Enum flags must be put with putEnumFlag!");
+        return append(flag, argument, type, null);
+    }
+
+    /**
+     * Puts a flag whose parameter is a constant of an enum. The constant is matched ignoring case.
+     * @param flag The flag to add.
+     * @param argument The name of the parameter, which is shown in the help command.
+     * @param enumType The class of the enum.
+     * @param <E> The type of the enum.
+     * @return A flag object (just to chain the methods :) )
+     */
+    public <E extends Enum<E>> Flags putEnumFlag(String flag, String argument, Class<E> enumType) {
+        return append(flag, argument, FlagType.ENUM, enumType);
+    }
+
+    // Appends a single typed flag to the end of the flag arrays.
+    private Flags append(String flag, String argument, FlagType type, Class<?> enumType) {
+        int n = f.length;
+        // Pad the parameters, in case putParamsArgs was never called
+        String[] newArgs = Arrays.copyOf(args, n + 1);
+        for(int i = args.length; i < n; i++) newArgs[i] = "";
+        newArgs[n] = argument;
+
+        this.f = Arrays.copyOf(f, n + 1);
+        this.f[n] = flag;
+        this.args = newArgs;
+        this.types = Arrays.copyOf(types, n + 1);
+        this.types[n] = type;
+        this.enumTypes = Arrays.copyOf(enumTypes, n + 1);
+        this.enumTypes[n] = enumType;
         return this;
     }
 
@@ -79,6 +134,36 @@ public class Flags {
         return this.noParamFlags;
     }
 
+    /**
+     * Gets the type of the flag with parameters at the index. Flags put with {@link Flags#putParamsFlags(String...)} are {@link FlagType#STRING}.
+     * @param index The index of the flag, in the same order as {@link Flags#getParamsFlags()}.
+     * @return The type of the flag.
+     */
+    public FlagType getType(int index) {
+        return index < types.length && types[index] != null ? types[index] : FlagType.STRING;
+    }
+
+    /**
+     * Gets the enum class of the flag with parameters at the index.
+     * @param index The index of the flag, in the same order as {@link Flags#getParamsFlags()}.
+     * @return The enum class, or <code>null</code> if the flag is not an {@link FlagType#ENUM} flag.
+     */
+    public Class<?> getEnumType(int index) {
+        return index < enumTypes.length ? enumTypes[index] : null;
+    }
+
+    /**
+     * Gets the index of a flag with parameters. This is a plain scan of the (short) flag array, so no map is built.
+     * @param flag The flag to look for.
+     * @return The index of the flag, or <code>-1</code> if there is no flag with parameters matching it.
+     */
+    public int indexOf(String flag) {
+        for(int i = 0; i < f.length; i++)
+            if(f[i].equals(flag)) return i;
+
+        return -1;
+    }
+
     /**
      * Returns a Hashmap with a String as the key, and a String as the value.
      * The key is the flag, and the value is that flag's respective parameter.
@@ -93,6 +178,18 @@ public class Flags {
         return hm;
     }
 
+    // Gets the flags with parameters in the order of match(), without building the map. This is kept until the flags change.
+    String[] matchOrder() {
+        Object[] cached = matchOrder;
+        if(cached != null && cached[0] == f)
+            return (String[]) cached[1];
+
+        String[] flags = f;
+        String[] order = match().keySet().toArray(new String[0]);
+        matchOrder = new Object[] {flags, order};
+        return order;
+    }
+
     /**
      * Converts this object to a string using this library's standard format: { var1=value1, ... }
      * @return A String representing this object
@@ -1,8 +1,11 @@
 package Internal.Managing.Commands;
 
 import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.InputSource;
+import Internal.Managing.IO.ReplySink;
 
 import java.util.Formatter;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An Event that stores all possible information about an Input.
@@ -14,32 +17,151 @@ public class InputEvent {
     Command cmd;
     CommandManager man;
 
+    private final String content;
+    private final ReplySink out;
+    private final InputSource in;
+    private final String sessionId;
+    private final CompletableFuture<InputEvent> completion = new CompletableFuture<>();
+    private final CancellationToken cancellationToken = new CancellationToken();
+    private CommandMessage message;
+    private boolean threadBuffers;
+    private volatile boolean sealed;
+    private volatile boolean closed;
+    private volatile ReplySink tap;
+    private int exitStatus;
+    private long replied;
+    private Throwable exception;
+    private CompletableFuture<Void> deferred;
+    CompletableFuture<Void> settled;
+
     /**
      * Initializes a new InputEvent to use in Commands.
      * @param cmd The command that this InputEvent is associated with.
      * @param man The Command Manager that manages this Input Event
      */
     public InputEvent(Command cmd, CommandManager man) {
+        this(cmd, man, man.getNextMsg());
+    }
+
+    /**
+     * Initializes a new InputEvent for the given input message, that replies to the manager's printstream.
+     * @param cmd The command that this InputEvent is associated with.
+     * @param man The Command Manager that manages this Input Event
+     * @param content The input message that triggered the command.
+     */
+    public InputEvent(Command cmd, CommandManager man, String content) {
+        this(cmd, man, content, man.getConsoleSink(), man.getConsoleInput());
+    }
+
+    /**
+     * Initializes a new InputEvent for the given input message, with its own output and input.
+     * @param cmd The command that this InputEvent is associated with.
+     * @param man The Command Manager that manages this Input Event
+     * @param content The input message that triggered the command.
+     * @param out The sink that replies are written to.
+     * @param in The source that {@link InputEvent#waitForNextEvent()} reads from.
+     */
+    public InputEvent(Command cmd, CommandManager man, String content, ReplySink out, InputSource in) {
+        this(cmd, man, content, out, in, CommandManager.CONSOLE_SESSION);
+    }
+
+    /**
+     * Initializes a new InputEvent for the given input message, with its own output and input, from a session.
+     * @param cmd The command that this InputEvent is associated with.
+     * @param man The Command Manager that manages this Input Event
+     * @param content The input message that triggered the command.
+     * @param out The sink that replies are written to.
+     * @param in The source that {@link InputEvent#waitForNextEvent()} reads from.
+     * @param sessionId The id of the session that sent the input message.
+     */
+    public InputEvent(Command cmd, CommandManager man, String content, ReplySink out, InputSource in, String sessionId) {
         this.cmd = cmd;
         this.man = man;
+        this.content = content;
+        this.out = out;
+        this.in = in;
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Initializes a new InputEvent for an input message that was already parsed, such as one that was split into flags and arguments by a client.
+     * @param message The parsed input message, which also holds the command.
+     * @param man The Command Manager that manages this Input Event
+     * @param out The sink that replies are written to.
+     * @param in The source that {@link InputEvent#waitForNextEvent()} reads from.
+     * @param sessionId The id of the session that sent the input message.
+     */
+    public InputEvent(CommandMessage message, CommandManager man, ReplySink out, InputSource in, String sessionId) {
+        this(message.getCommand(), man, null, out, in, sessionId);
+        this.message = message;
     }
 
     /**
-     * Gets the input message from the input stream as a {@link CommandMessage}. This object contains information about the input message, such as the message, arguments, and flags.
+     * Gets the input message from the input stream as a {@link CommandMessage}. This object contains information about the input message, such as the message, arguments, and flags.<br>
+     * The message is only parsed once, so calling this multiple times returns the same object.
      * @return A {@link CommandMessage} containing information about the input message.
      */
-    public CommandMessage getInputMessage()
+    public synchronized CommandMessage getInputMessage()
     {
-        return new CommandMessage(cmd, man);
+        if(sealed)
+            throw new IllegalStateException("This event was sealed, after its command " + cmd.getName() + " returned!");
+        if(message == null)
+            message = new CommandMessage(cmd, man, content, threadBuffers);
+
+        return message;
     }
 
+    /**
+     * Creates an event whose {@link CommandMessage} is parsed with the buffers of the thread that parses it, which are kept by that thread for the next message,
+     * so parsing does not allocate them for every command. The manager does this when {@link Internal.Managing.Core.CommandConfigurator#setObjectReuse(boolean)} is on.<br>
+     * The event and its message are never reused themselves, since a command can keep them after it returns: only the buffers that a command can not reach are.
+     * Events created like this can be {@link #seal() sealed} once their command is done.
+     * @param cmd The command that this InputEvent is associated with.
+     * @param man The Command Manager that manages this Input Event
+     * @param content The input message that triggered the command.
+     * @param out The sink that replies are written to.
+     * @param in The source that {@link InputEvent#waitForNextEvent()} reads from.
+     * @param sessionId The id of the session that sent the input message.
+     * @return An event that is ready to run.
+     */
+    public static InputEvent withThreadBuffers(Command cmd, CommandManager man, String content, ReplySink out, InputSource in, String sessionId) {
+        InputEvent event = new InputEvent(cmd, man, content, out, in, sessionId);
+        event.threadBuffers = true;
+        return event;
+    }
+
+    /**
+     * Guards against late replies: tells this event that the code that dispatched it is done reading it. Afterwards, replies to this event and {@link #getInputMessage()} throw an
+     * {@link IllegalStateException}, so a command that kept a reference to its event after it returned fails, instead of its replies being dropped without a word.<br>
+     * Only events from {@link #withThreadBuffers(Command, CommandManager, String, ReplySink, InputSource, String) withThreadBuffers} are sealed, and only if their command
+     * is surely done with them: it is complete, and did not defer its completion, time out, or get cancelled. Otherwise, this does nothing.
+     */
+    public synchronized void seal() {
+        if(!threadBuffers || sealed || !closed || !completion.isDone() || deferred != null || cancellationToken.isCancelled()) return;
+        sealed = true;
+    }
+
+    /**
+     * Checks whether or not this event was sealed, so that replying to it fails.
+     * @return Whether or not this event was sealed.
+     * @see InputEvent#seal()
+     */
+    public boolean isSealed() {
+        return sealed;
+    }
 
     /**
      * Replies to the console input and then terminates the line. This works like System#out#println.
      * @param message The message to print.
      */
     public void replyln(String message) {
-        man.getOut().println(message);
+        if(closed) {
+            checkNotReleased();
+            return;
+        }
+        out.println(message);
+        replied += message.length() + 1;
+        if(tap != null) tap.println(message);
     }
 
     /**
@@ -48,37 +170,235 @@ public class InputEvent {
      */
     public void reply(String message)
     {
-        man.getOut().print(message);
+        if(closed) {
+            checkNotReleased();
+            return;
+        }
+        out.print(message);
+        replied += message.length();
+        if(tap != null) tap.print(message);
     }
 
     /**
-     * Requests to the Command Manager to wait for a new input to be sent.
-     * @return The input message that was prompted by this wait requests.
+     * Requests to the Command Manager to wait for a new input to be sent. Inside of a pipeline, this reads the next line of the previous command's output instead.
+     * @return The input message that was prompted by this wait requests, or <code>null</code> if there is no more input or the command was cancelled.
      */
     public String waitForNextEvent()  {
-        if(man.getPrintOutputToPrintStream())
-            man.getOut().print(man.getInputPrefix() + " ");
-
-        String msg = man.NewLine();
-        CommandManager.commandTriggered = true;
+        if(isCancelled()) return null;
+        if(in.isInteractive())
+            prompt();
 
-        return msg;
+        return in.readLine();
     }
 
     /**
-     * Waits for a new input event, with a prompt message.
+     * Waits for a new input event, with a prompt message. The prompt is not printed inside of a pipeline.
      * @param promptMessage A message to display before waiting.
-     * @return A String that represents the input of the next input.
+     * @return A String that represents the input of the next input, or <code>null</code> if there is no more input.
      */
     public String waitForNextEvent(String promptMessage)  {
-        this.replyln(promptMessage);
-        if(man.getPrintOutputToPrintStream())
+        if(isCancelled()) return null;
+        if(in.isInteractive()) {
+            this.replyln(promptMessage);
+            prompt();
+        }
+
+        return in.readLine();
+    }
+
+    // Prints the prompt of the input source to the replies, or the manager's input prefix to its printstream.
+    private void prompt() {
+        String prompt = in.getPrompt();
+        if(prompt != null) {
+            out.print(prompt + " ");
+            out.flush();
+        } else if(man.getPrintOutputToPrintStream()) {
             man.getOut().print(man.getInputPrefix() + " ");
+        }
+    }
 
-        String msg = man.NewLine();
-        CommandManager.commandTriggered = true;
+    /**
+     * Reads the next line of input, without printing a prompt. This is how a command reads the output of the previous command in a pipeline:
+     * <blockquote><code><pre>
+     * String line;
+     * while ((line = event.readInput()) != null) {
+     *     event.replyln(line.toUpperCase());
+     * }
+     * </pre></code></blockquote>
+     * @return The next line, or <code>null</code> if there is no more input.
+     */
+    public String readInput() {
+        return in.readLine();
+    }
 
-        return msg;
+    /**
+     * Checks whether or not the input of this command is the output of another command in a pipeline.
+     * @return Whether or not the input is piped.
+     */
+    public boolean isPiped() {
+        return !in.isInteractive();
+    }
+
+    /**
+     * Gets the command that this event is for.
+     * @return The command of this event.
+     */
+    public Command getCommand() {
+        return cmd;
+    }
+
+    /**
+     * Gets the id of the session that sent the input message. Input from the console is from the session {@link CommandManager#CONSOLE_SESSION}.
+     * @return The id of the session.
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Gets a future that completes with this event once its command is done. This is useful when the command was queued by a rate limit, and has not run yet.
+     * @return The completion of this event.
+     */
+    public CompletableFuture<InputEvent> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Defers the completion of this event, so the command can return from {@link Command#run(InputEvent)} while its work goes on in the background,
+     * and the thread that dispatched it is not held. The event stays open, so replies are still written, until the returned future is completed.
+     * If it completes exceptionally, the command fails as if <code>run</code> had thrown the exception. Timeouts still apply to deferred work.
+     * <h1>Usage:</h1>
+     * <blockquote><code><pre>
+     * CompletableFuture&lt;Void&gt; done = event.defer();
+     * executor.execute(() -&gt; {
+     *     event.replyln(slowWork());
+     *     done.complete(null);
+     * });
+     * </pre></code></blockquote>
+     * @return The future to complete once the work is done. Calling this again returns the same future.
+     */
+    public synchronized CompletableFuture<Void> defer() {
+        if(deferred == null)
+            deferred = new CompletableFuture<>();
+        return deferred;
+    }
+
+    /**
+     * Checks whether or not the command deferred the completion of this event with {@link InputEvent#defer()}.
+     * @return Whether or not the completion is deferred.
+     */
+    public synchronized boolean isDeferred() {
+        return deferred != null;
+    }
+
+    /**
+     * Gets the deferred work of this event. The manager completes the event once this completes.
+     * @return A future that completes once the deferred work is done and its failure (if any) was handled, or <code>null</code> if the completion is not deferred.
+     */
+    public synchronized CompletableFuture<Void> getDeferred() {
+        return settled != null ? settled : deferred;
+    }
+
+    /**
+     * Gets the manager that runs this event.
+     * @return The {@link CommandManager} of this event.
+     */
+    public CommandManager getManager() {
+        return man;
+    }
+
+    /**
+     * Gets the token that tells this command to stop, such as when it times out. Long loops should check it with {@link CancellationToken#throwIfCancelled()}.
+     * @return The {@link CancellationToken} of this event.
+     */
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    /**
+     * Checks whether or not this command was told to stop. This is the same as <code>getCancellationToken().isCancelled()</code>.
+     * @return Whether or not the command should stop.
+     */
+    public boolean isCancelled() {
+        return cancellationToken.isCancelled();
+    }
+
+    /**
+     * Sets a sink that receives a copy of every reply of this event. The manager uses this to capture the output of cacheable commands while it is written. Replies written to {@link InputEvent#getOutput()} directly are not copied.
+     * @param tap The sink to copy replies to, or <code>null</code> to stop copying.
+     */
+    public void setReplyTap(ReplySink tap) {
+        this.tap = tap;
+    }
+
+    /**
+     * Closes this event. This is done by the manager once the command is done, or has timed out. Any replies after this are dropped, so a command that keeps running
+     * (or keeps a reference to the event) can not write into output that was already returned.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Gets how many characters this command has replied with, counting every line break as one. Replies written to {@link InputEvent#getOutput()} directly are not counted.
+     * @return The number of characters.
+     */
+    public long getRepliedLength() {
+        return replied;
+    }
+
+    /**
+     * Checks whether or not this event was closed.
+     * @return Whether or not this event was closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Sets the exit status of this command, such as <code>0</code> for success. This is returned to code that invoked the command with {@link Internal.Processing.CommandProcessor#invoke(String)}.
+     * @param exitStatus The exit status.
+     */
+    public void setExitStatus(int exitStatus) {
+        this.exitStatus = exitStatus;
+    }
+
+    /**
+     * Gets the exit status of this command. This is <code>0</code> unless the command set it, or failed.
+     * @return The exit status.
+     */
+    public int getExitStatus() {
+        return exitStatus;
+    }
+
+    /**
+     * Gets the exception that was thrown by the command, if it failed.
+     * @return The exception, or <code>null</code> if none was thrown.
+     */
+    public Throwable getException() {
+        return exception;
+    }
+
+    // Records the exception that the command failed with.
+    void fail(Throwable exception, int exitStatus) {
+        this.exception = exception;
+        this.exitStatus = exitStatus;
+    }
+
+    /**
+     * Gets the sink that the replies of this event are written to.
+     * @return The {@link ReplySink} of this event.
+     */
+    public ReplySink getOutput() {
+        return out;
+    }
+
+    /**
+     * Gets the source that {@link InputEvent#readInput()} and {@link InputEvent#waitForNextEvent()} read from. For a stage of a pipeline, this is the output of the stage before it.
+     * @return The {@link InputSource} of this event.
+     */
+    public InputSource getInput() {
+        return in;
     }
 
     /**
@@ -138,7 +458,13 @@ public class InputEvent {
 
     /** Prints a new, empty line to the print stream. */
     public void replyln() {
-        man.getOut().println();
+        if(closed) {
+            checkNotReleased();
+            return;
+        }
+        out.println();
+        replied++;
+        if(tap != null) tap.println();
     }
 
     /**
@@ -149,6 +475,12 @@ public class InputEvent {
         this.replyln("[DEBUG] " + message);
     }
 
+    // Replies to a closed event are dropped, but replies to a sealed one are a command that kept its event.
+    private void checkNotReleased() {
+        if(sealed)
+            throw new IllegalStateException("This event was sealed, after its command returned!");
+    }
+
     /**
      * Converts this object to a string using this library's standard format: { var1=value1, ... }
      * @return A string representing this object.
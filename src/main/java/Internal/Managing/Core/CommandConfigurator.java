@@ -4,10 +4,14 @@ import External.Commands.*;
 import Internal.Commands.Help;
 import Internal.Managing.Commands.Command;
 import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Journal.FsyncPolicy;
 
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.function.BiConsumer;
 
 /**
@@ -36,19 +40,56 @@ public class CommandConfigurator {
     private String startMessage = "Please enter a command! (Type helpf to access the help command)";
     private String inputPrefix = "$";
     private String flagNoParameterMessage = "You must provide a %s for the flag %s!";
+    private String flagInvalidParameterMessage = "%s is not a valid %s for the flag %s!";
     private BiConsumer<CommandManager, InputEvent> helpConsumer;
     private boolean printOutputToPrintstream = true;
     private String noCommandMessage = "There is no command matching that name! Use the command help to return the help message!";
     private boolean printStackTrace = true;
     private boolean snapInternalCommands = false;
+    private boolean usePipelines = false;
+    private int pipeCapacity = 256;
+    private RateLimits rateLimits = new RateLimits();
+    private RateLimitPolicy rateLimitPolicy = RateLimitPolicy.REJECT;
+    private String rateLimitMessage = "You are sending commands too quickly! Please wait and try again.";
+    private long maxRateLimitDelay = 5000;
+    private int maxQueuedCommands = 1000;
+    private long defaultTimeout = 0;
+    private String timeoutMessage = "The command %s timed out after %s ms!";
+    private long resultCacheWeight = 1 << 20;
+    private long errorReportWindow = 60_000;
+    private int recentErrors = 32;
+    private int maxLineLength = 65536;
+    private String lineTooLongMessage = "That input is too long! The maximum is %s characters.";
+    private Path journal;
+    private int journalSegmentSize = 16 << 20;
+    private int journalMaxSegments = 0;
+    private FsyncPolicy journalFsyncPolicy = FsyncPolicy.INTERVAL;
+    private long journalFsyncInterval = 1000;
+
+    private int workers = 0;
+    private int workerMaxInvocations = 0;
+    private int workerMaxHeap = 0;
+    private long workerHealthCheckInterval = 10_000;
+    private final Set<String> workerCommands = new LinkedHashSet<>();
+    private long schedulerTick = 100;
+    private Path traceFile;
+    private int traceCapacity = 4096;
+    private long traceExportInterval = 5000;
+    private boolean headless = false;
+    private boolean autoStart = true;
+    private long shutdownTimeout = 5000;
+    private long sessionIdleTimeout = 600_000;
+    private int sessionPoolSize = 1024;
+    private boolean objectReuse = false;
 
     /* Constructor */
     /**
      * Builds the Command Configurator and generates a new CommandManager to use. This method MUST be registered for the framework to work.
+     * The manager is started, unless {@link CommandConfigurator#setAutoStart(boolean)} is turned off.
      * @return A fully configured CommandManager that is ready to use.
      * @since 1.0
      */
-    public CommandManager build() { return new CommandManager(commandCheck, inp, cmds, startMessage, out, inputPrefix, flagNoParameterMessage, noCommandMessage, helpConsumer, printOutputToPrintstream, printStackTrace, snapInternalCommands); }
+    public CommandManager build() { return new CommandManager(this); }
 
     /* Getters and Setters */
     /**
@@ -92,6 +133,11 @@ public class CommandConfigurator {
         return cmds.toArray(new Command[cmds.size()]);
     }
 
+    // The mutable list of commands, handed to the manager when it is built.
+    ArrayList<Command> getCommandList() {
+        return cmds;
+    }
+
     /**
      * Sets the input stream for the console application. THIS INPUT STREAM MUST BE TEXT BASED, OTHERWISE IT WILL NOT WORK! <b>DEFAULT = <code>System.in</code></b>
      * @param inp the input stream for the console application.
@@ -101,6 +147,82 @@ public class CommandConfigurator {
         this.printOutputToPrintstream = printOutputToPrintstream;
     }
 
+    /**
+     * Gets how long repeats of an error are only counted after it was printed, in milliseconds.
+     * @return The error report window in milliseconds.
+     */
+    public long getErrorReportWindow() {
+        return errorReportWindow;
+    }
+
+    /**
+     * Sets how long repeats of an error are only counted after its stack trace was printed, in milliseconds. Errors are the same if they
+     * have the same class and the same top of their stack trace. Use <code>0</code> to print every stack trace. Default is <code>60000</code>.
+     * @param errorReportWindow The error report window in milliseconds.
+     * @see Internal.Managing.Core.ErrorReporter
+     */
+    public void setErrorReportWindow(long errorReportWindow) {
+        this.errorReportWindow = errorReportWindow;
+    }
+
+    /**
+     * Gets how many of the last errors are kept.
+     * @return The number of recent errors.
+     */
+    public int getRecentErrors() {
+        return recentErrors;
+    }
+
+    /**
+     * Sets how many of the last errors are kept, to be looked at with {@link ErrorReporter#getRecentErrors()}. Default is <code>32</code>.
+     * @param recentErrors The number of recent errors.
+     */
+    public void setRecentErrors(int recentErrors) {
+        this.recentErrors = recentErrors;
+    }
+
+    /**
+     * Gets the most characters an input line can have.
+     * @return The maximum line length.
+     */
+    public int getMaxLineLength() {
+        return maxLineLength;
+    }
+
+    /**
+     * Sets the most characters an input line can have. Longer lines are skipped without being kept in memory, and the line too long message is printed instead. Default is <code>65536</code>.
+     * @param maxLineLength The maximum line length.
+     * @see Internal.Managing.IO.LineReader
+     */
+    public void setMaxLineLength(int maxLineLength) {
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Gets the message that is printed when an input line is too long.
+     * @return The line too long message.
+     */
+    public String getLineTooLongMessage() {
+        return lineTooLongMessage;
+    }
+
+    /**
+     * Sets the message that is printed when an input line is too long. The <code>%s</code> is the maximum line length. Default is <code>"That input is too long! The maximum is %s characters."</code>
+     * @param lineTooLongMessage The line too long message.
+     */
+    public void setLineTooLongMessage(String lineTooLongMessage) {
+        this.lineTooLongMessage = lineTooLongMessage;
+    }
+
+    /**
+     * Gets whether or not output is printed to the printstream.
+     * @return Whether or not output is printed to the printstream.
+     * @see CommandConfigurator#setInp(InputStream, boolean)
+     */
+    public boolean isPrintOutputToPrintstream() {
+        return printOutputToPrintstream;
+    }
+
     /**
      * Gets the starting message for the program. This is the message that is automatically sent at program start.
      * @return A String representing the starting message.
@@ -186,6 +308,40 @@ public class CommandConfigurator {
         this.flagNoParameterMessage = flagNoParameterMessage;
     }
 
+    /**
+     * Gets the error message for a flag parameter that does not match the type of its flag.
+     * @return The Error message.
+     * @see CommandConfigurator#setFlagInvalidParameterMessage(String)
+     */
+    public String getFlagInvalidParameterMessage() {
+        return flagInvalidParameterMessage;
+    }
+
+    /**
+     * Sets the error message for a flag parameter that does not match the type of its flag, such as <code>-s abc</code> for an {@link Internal.Managing.Commands.FlagType#INT} flag.
+     * The first <code>%s</code> is the parameter, the second is the type, and the third is the flag. Default is: <code>"%s is not a valid %s for the flag %s!"</code>
+     * @param flagInvalidParameterMessage The message with the placeholders.
+     */
+    public void setFlagInvalidParameterMessage(String flagInvalidParameterMessage) {
+        this.flagInvalidParameterMessage = flagInvalidParameterMessage;
+    }
+
+    /**
+     * Gets whether or not exceptions print their stack trace.
+     * @return Whether or not exceptions print their stack trace.
+     */
+    public boolean isPrintStackTrace() {
+        return printStackTrace;
+    }
+
+    /**
+     * Sets whether or not the stack trace is printed when an unhandled exception is thrown inside a command. Default is <code>true</code>.
+     * @param printStackTrace Whether or not to print the stack trace.
+     */
+    public void setPrintStackTrace(boolean printStackTrace) {
+        this.printStackTrace = printStackTrace;
+    }
+
     /**
      * Gets the error message for when the specified message does not exist.
      * @return A {@link String} representing the error message.
@@ -218,9 +374,517 @@ public class CommandConfigurator {
      * {@link Multiply} (mulf)<br>
      * {@link Divide} (divf)<br>
      * {@link Evaluate} (evalf)<br>
+     * {@link Calculate} (exprf)<br>
      * @param InternalCommands Whether or not to enable an internal command library.
      */
     public void setUseInternalCommands(boolean InternalCommands) {
         this.snapInternalCommands = InternalCommands;
     }
+
+    /**
+     * Gets whether or not pipelines are enabled.
+     * @return Whether or not pipelines are enabled.
+     */
+    public boolean isUsePipelines() {
+        return usePipelines;
+    }
+
+    /**
+     * Sets whether or not input messages can be pipelines of commands, such as <code>cmdA args | cmdB</code>. Default is <code>false</code>.<br>
+     * Each command of a pipeline runs at the same time, and reads the replies of the command before it. See {@link Internal.Processing.Pipeline} for more information.<br>
+     * Once enabled, a <code>|</code> surrounded by spaces always separates two commands, unless it is in the input of a command that takes its arguments as they are (see {@link Command#isRawInput()}).
+     * @param usePipelines Whether or not to enable pipelines.
+     */
+    public void setUsePipelines(boolean usePipelines) {
+        this.usePipelines = usePipelines;
+    }
+
+    /**
+     * Gets the maximum amount of lines that can wait between two commands of a pipeline.
+     * @return The capacity of each pipe.
+     */
+    public int getPipeCapacity() {
+        return pipeCapacity;
+    }
+
+    /**
+     * Sets the maximum amount of lines that can wait between two commands of a pipeline. When a pipe is full, the command writing into it waits for the next command to catch up. Default is <code>256</code>.
+     * @param pipeCapacity The capacity of each pipe.
+     */
+    public void setPipeCapacity(int pipeCapacity) {
+        this.pipeCapacity = pipeCapacity;
+    }
+
+    // The rate limits, which are copied by the manager when it is built.
+    RateLimits getRateLimits() {
+        return rateLimits;
+    }
+
+    /**
+     * Limits how many commands can run across every session. Commands over the limit are handled by the {@link RateLimitPolicy}.
+     * <blockquote><code><pre>
+     * configurator.setGlobalRateLimit(100, 20);  # 100 commands per second, with bursts of up to 20 at once
+     * </pre></code></blockquote>
+     * @param permitsPerSecond How many commands can run per second on average.
+     * @param burst How many commands can run at once, after a quiet period.
+     */
+    public void setGlobalRateLimit(double permitsPerSecond, int burst) {
+        rateLimits.setGlobal(permitsPerSecond, burst);
+    }
+
+    /**
+     * Limits how many commands each session can run, so that one session can not starve the others. Input from the console is the session {@link CommandManager#CONSOLE_SESSION}.
+     * @param permitsPerSecond How many commands a session can run per second on average.
+     * @param burst How many commands a session can run at once, after a quiet period.
+     */
+    public void setSessionRateLimit(double permitsPerSecond, int burst) {
+        rateLimits.setSession(permitsPerSecond, burst);
+    }
+
+    /**
+     * Limits how many times a command can run, across every session. Subcommands have their own limits, so <code>db backup start</code> and <code>jobs start</code> are limited apart.
+     * @param commandName The name of the command (not an alias), or the path of a subcommand, such as <code>db backup start</code>.
+     * @param permitsPerSecond How many times the command can run per second on average.
+     * @param burst How many times the command can run at once, after a quiet period.
+     */
+    public void setCommandRateLimit(String commandName, double permitsPerSecond, int burst) {
+        rateLimits.setCommand(commandName, permitsPerSecond, burst);
+    }
+
+    /**
+     * Limits how many commands of a {@link Internal.Managing.Commands.Category} can run, across every session. The commands of the category share the limit.
+     * @param categoryName The name of the category.
+     * @param permitsPerSecond How many commands of the category can run per second on average.
+     * @param burst How many commands of the category can run at once, after a quiet period.
+     */
+    public void setCategoryRateLimit(String categoryName, double permitsPerSecond, int burst) {
+        rateLimits.setCategory(categoryName, permitsPerSecond, burst);
+    }
+
+    /**
+     * Gets what happens to commands that go over a rate limit.
+     * @return The {@link RateLimitPolicy}.
+     */
+    public RateLimitPolicy getRateLimitPolicy() {
+        return rateLimitPolicy;
+    }
+
+    /**
+     * Sets what happens to commands that go over a rate limit: they can be rejected, delayed, or queued. Default is {@link RateLimitPolicy#REJECT}.
+     * @param rateLimitPolicy The {@link RateLimitPolicy}.
+     */
+    public void setRateLimitPolicy(RateLimitPolicy rateLimitPolicy) {
+        this.rateLimitPolicy = rateLimitPolicy;
+    }
+
+    /**
+     * Gets the message that is sent when a command is rejected by a rate limit.
+     * @return The rate limit message.
+     */
+    public String getRateLimitMessage() {
+        return rateLimitMessage;
+    }
+
+    /**
+     * Sets the message that is sent when a command is rejected by a rate limit. Default is <code>"You are sending commands too quickly! Please wait and try again."</code>
+     * @param rateLimitMessage The rate limit message.
+     */
+    public void setRateLimitMessage(String rateLimitMessage) {
+        this.rateLimitMessage = rateLimitMessage;
+    }
+
+    /**
+     * Gets the longest a command can be delayed or queued by a rate limit, in milliseconds.
+     * @return The longest delay in milliseconds.
+     */
+    public long getMaxRateLimitDelay() {
+        return maxRateLimitDelay;
+    }
+
+    /**
+     * Sets the longest a command can be delayed or queued by a rate limit, in milliseconds. Commands that would wait longer are rejected instead. Default is <code>5000</code>.
+     * @param maxRateLimitDelay The longest delay in milliseconds.
+     */
+    public void setMaxRateLimitDelay(long maxRateLimitDelay) {
+        this.maxRateLimitDelay = maxRateLimitDelay;
+    }
+
+    /**
+     * Gets the most commands that can be queued by a rate limit at once.
+     * @return The size of the queue.
+     */
+    public int getMaxQueuedCommands() {
+        return maxQueuedCommands;
+    }
+
+    /**
+     * Sets the most commands that can be queued by a rate limit at once, when the policy is {@link RateLimitPolicy#QUEUE}. Commands over this are rejected instead. Default is <code>1000</code>.
+     * @param maxQueuedCommands The size of the queue.
+     */
+    public void setMaxQueuedCommands(int maxQueuedCommands) {
+        this.maxQueuedCommands = maxQueuedCommands;
+    }
+
+    /**
+     * Gets how long commands can run for by default, in milliseconds.
+     * @return The default timeout in milliseconds.
+     */
+    public long getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    /**
+     * Sets how long commands can run for by default, in milliseconds, before they are cancelled. Commands can set their own timeout with {@link Command#getTimeout()}. Default is <code>0</code>, which is no timeout.<br>
+     * When a command times out, its {@link Internal.Managing.Commands.CancellationToken} is cancelled, its thread is interrupted, and the timeout message is sent.
+     * @param defaultTimeout The default timeout in milliseconds.
+     */
+    public void setDefaultTimeout(long defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    /**
+     * Gets the message that is sent when a command times out.
+     * @return The timeout message.
+     */
+    public String getTimeoutMessage() {
+        return timeoutMessage;
+    }
+
+    /**
+     * Sets the message that is sent when a command times out. The first <code>%s</code> is the name of the command, and the second is the timeout in milliseconds. Default is <code>"The command %s timed out after %s ms!"</code>
+     * @param timeoutMessage The timeout message.
+     */
+    public void setTimeoutMessage(String timeoutMessage) {
+        this.timeoutMessage = timeoutMessage;
+    }
+
+    /**
+     * Gets the maximum total weight of the result cache.
+     * @return The maximum weight of the result cache.
+     */
+    public long getResultCacheWeight() {
+        return resultCacheWeight;
+    }
+
+    /**
+     * Sets the maximum total weight (the length of all cached output) of the cache for cacheable commands. Use <code>0</code> to turn caching off. Default is <code>1048576</code>.
+     * @param resultCacheWeight The maximum weight of the result cache.
+     * @see Internal.Managing.Core.ResultCache
+     */
+    public void setResultCacheWeight(long resultCacheWeight) {
+        this.resultCacheWeight = resultCacheWeight;
+    }
+
+    /**
+     * Gets the directory of the journal of dispatched input messages.
+     * @return The directory of the journal, or <code>null</code> if there is no journal.
+     */
+    public Path getJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets the directory of the journal, where every dispatched input message is recorded with its session, time, exit status and duration. Default is <code>null</code>, which is no journal.
+     * @param journal The directory of the journal.
+     * @see Internal.Managing.Journal.CommandJournal
+     * @see Internal.Managing.Journal.JournalReader
+     */
+    public void setJournal(Path journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Gets the size of every segment of the journal, in bytes.
+     * @return The size of a segment.
+     */
+    public int getJournalSegmentSize() {
+        return journalSegmentSize;
+    }
+
+    /**
+     * Sets the size of every segment of the journal, in bytes. The journal rotates to a new segment when one is full. Default is <code>16777216</code>.
+     * @param journalSegmentSize The size of a segment.
+     */
+    public void setJournalSegmentSize(int journalSegmentSize) {
+        this.journalSegmentSize = journalSegmentSize;
+    }
+
+    /**
+     * Gets how many segments of the journal are kept.
+     * @return The number of segments.
+     */
+    public int getJournalMaxSegments() {
+        return journalMaxSegments;
+    }
+
+    /**
+     * Sets how many segments of the journal are kept. The oldest segments are deleted when the journal rotates. Default is <code>0</code>, which keeps all of them.
+     * @param journalMaxSegments The number of segments.
+     */
+    public void setJournalMaxSegments(int journalMaxSegments) {
+        this.journalMaxSegments = journalMaxSegments;
+    }
+
+    /**
+     * Gets when the journal is forced to disk.
+     * @return The fsync policy.
+     */
+    public FsyncPolicy getJournalFsyncPolicy() {
+        return journalFsyncPolicy;
+    }
+
+    /**
+     * Gets the interval between forcing the journal to disk, in milliseconds.
+     * @return The fsync interval.
+     */
+    public long getJournalFsyncInterval() {
+        return journalFsyncInterval;
+    }
+
+    /**
+     * Sets when the journal is forced to disk. Default is {@link FsyncPolicy#INTERVAL} every <code>1000</code> milliseconds.
+     * @param journalFsyncPolicy The fsync policy.
+     * @param journalFsyncInterval The interval between forces in milliseconds, used by {@link FsyncPolicy#INTERVAL}.
+     */
+    public void setJournalFsyncPolicy(FsyncPolicy journalFsyncPolicy, long journalFsyncInterval) {
+        this.journalFsyncPolicy = journalFsyncPolicy;
+        this.journalFsyncInterval = journalFsyncInterval;
+    }
+
+    /**
+     * Gets how many worker processes run the routed commands.
+     * @return The number of workers.
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Gets how many commands a worker runs before it is replaced.
+     * @return The number of commands, or <code>0</code> for no limit.
+     */
+    public int getWorkerMaxInvocations() {
+        return workerMaxInvocations;
+    }
+
+    /**
+     * Gets the maximum heap of every worker, in megabytes.
+     * @return The maximum heap, or <code>0</code> for the JVM's default.
+     */
+    public int getWorkerMaxHeap() {
+        return workerMaxHeap;
+    }
+
+    /**
+     * Sets up the pool of worker processes that run the commands routed with {@link #routeToWorkers(Class[])}, so they can not crash the manager,
+     * or use up its memory. Default is <code>0</code> workers, which runs every command in process.
+     * @param workers The number of workers.
+     * @param maxInvocations How many commands a worker runs before it is replaced, or <code>0</code> for no limit.
+     * @param maxHeapMegabytes The maximum heap of every worker in megabytes, or <code>0</code> for the JVM's default.
+     * @see Internal.Processing.Workers.WorkerPool
+     */
+    public void setWorkerPool(int workers, int maxInvocations, int maxHeapMegabytes) {
+        this.workers = workers;
+        this.workerMaxInvocations = maxInvocations;
+        this.workerMaxHeap = maxHeapMegabytes;
+    }
+
+    /**
+     * Gets how often idle workers are checked, in milliseconds.
+     * @return The interval between health checks.
+     */
+    public long getWorkerHealthCheckInterval() {
+        return workerHealthCheckInterval;
+    }
+
+    /**
+     * Sets how often idle workers are pinged, in milliseconds. Workers that do not answer are replaced. Default is <code>10000</code>.
+     * @param workerHealthCheckInterval The interval between health checks.
+     */
+    public void setWorkerHealthCheckInterval(long workerHealthCheckInterval) {
+        this.workerHealthCheckInterval = workerHealthCheckInterval;
+    }
+
+    /**
+     * Gets the class names of the commands that are run by the workers.
+     * @return The routed class names.
+     */
+    public Set<String> getWorkerCommands() {
+        return workerCommands;
+    }
+
+    /**
+     * Runs every command of the given classes in the worker processes, instead of in process. The commands must have a constructor without parameters,
+     * and read no input while they run. This has no effect unless {@link #setWorkerPool(int, int, int)} sets up at least one worker.
+     * @param commands The classes of the commands.
+     */
+    @SafeVarargs
+    public final void routeToWorkers(Class<? extends Command>... commands) {
+        for (Class<? extends Command> c : commands)
+            workerCommands.add(c.getName());
+    }
+
+    /**
+     * Gets the length of a tick of the job scheduler, in milliseconds.
+     * @return The length of a tick.
+     */
+    public long getSchedulerTick() {
+        return schedulerTick;
+    }
+
+    /**
+     * Sets the length of a tick of the job scheduler, in milliseconds. Scheduled commands run up to one tick late, and a shorter tick wakes the timer thread more often. Default is <code>100</code>.
+     * @param schedulerTick The length of a tick.
+     * @see Internal.Managing.Scheduling.JobScheduler
+     */
+    public void setSchedulerTick(long schedulerTick) {
+        this.schedulerTick = schedulerTick;
+    }
+
+    /**
+     * Gets the file that spans are exported to.
+     * @return The trace file, or <code>null</code> if tracing is off.
+     */
+    public Path getTraceFile() {
+        return traceFile;
+    }
+
+    /**
+     * Gets how many ended spans are kept until they are exported.
+     * @return The capacity of the span buffer.
+     */
+    public int getTraceCapacity() {
+        return traceCapacity;
+    }
+
+    /**
+     * Turns on tracing: every dispatched input message gets a span, with the span of the command that ran it as its parent, and ended spans are appended to a file as OTLP-JSON.
+     * Default is <code>null</code>, which is no tracing, and a capacity of <code>4096</code> spans.
+     * @param traceFile The file to append the spans to.
+     * @param traceCapacity How many ended spans are kept until they are exported. The oldest spans are dropped when it is full.
+     * @see Internal.Managing.Tracing.Tracer
+     */
+    public void setTracing(Path traceFile, int traceCapacity) {
+        this.traceFile = traceFile;
+        this.traceCapacity = traceCapacity;
+    }
+
+    /**
+     * Gets how often spans are exported, in milliseconds.
+     * @return The interval between exports.
+     */
+    public long getTraceExportInterval() {
+        return traceExportInterval;
+    }
+
+    /**
+     * Sets how often the ended spans are exported to the trace file, in milliseconds. Default is <code>5000</code>.
+     * @param traceExportInterval The interval between exports.
+     */
+    public void setTraceExportInterval(long traceExportInterval) {
+        this.traceExportInterval = traceExportInterval;
+    }
+
+    /**
+     * Gets whether or not the manager is headless.
+     * @return Whether or not the manager is headless.
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * Sets whether or not the manager is headless. A headless manager is embedded in another program: it never reads the console or prints the start message,
+     * and <code>exitf</code> only stops it, instead of exiting the program. Commands are run with {@link CommandManager#dispatch(String, String, Internal.Managing.IO.ReplySink, Internal.Managing.IO.InputSource)}
+     * or the {@link Internal.Processing.CommandProcessor}. Default is <code>false</code>.
+     * @param headless Whether or not the manager is headless.
+     */
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+    }
+
+    /**
+     * Gets whether or not {@link #build()} starts the manager.
+     * @return Whether or not the manager is started when it is built.
+     */
+    public boolean isAutoStart() {
+        return autoStart;
+    }
+
+    /**
+     * Sets whether or not {@link #build()} starts the manager. If this is off, the manager is started with {@link CommandManager#start()}. Default is <code>true</code>.
+     * @param autoStart Whether or not the manager is started when it is built.
+     */
+    public void setAutoStart(boolean autoStart) {
+        this.autoStart = autoStart;
+    }
+
+    /**
+     * Gets how long {@link CommandManager#close()} waits for running commands, in milliseconds.
+     * @return The shutdown timeout.
+     */
+    public long getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    /**
+     * Sets how long {@link CommandManager#close()} and <code>exitf</code> wait for running commands to finish, in milliseconds, before they are cancelled. Default is <code>5000</code>.
+     * @param shutdownTimeout The shutdown timeout.
+     */
+    public void setShutdownTimeout(long shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Gets how long a session can be idle before it is evicted, in milliseconds.
+     * @return The idle timeout of sessions.
+     */
+    public long getSessionIdleTimeout() {
+        return sessionIdleTimeout;
+    }
+
+    /**
+     * Sets how long a session of the {@link Internal.Managing.Sessions.SessionManager} can be idle before it is evicted, in milliseconds. <code>0</code> never evicts sessions. Default is <code>600000</code>.
+     * @param sessionIdleTimeout The idle timeout of sessions.
+     */
+    public void setSessionIdleTimeout(long sessionIdleTimeout) {
+        this.sessionIdleTimeout = sessionIdleTimeout;
+    }
+
+    /**
+     * Gets how many closed sessions are kept to be reused.
+     * @return The size of the session pool.
+     */
+    public int getSessionPoolSize() {
+        return sessionPoolSize;
+    }
+
+    /**
+     * Sets how many closed sessions of the {@link Internal.Managing.Sessions.SessionManager} are kept to be reused by the next sessions that open. Default is <code>1024</code>.
+     * @param sessionPoolSize The size of the session pool.
+     */
+    public void setSessionPoolSize(int sessionPoolSize) {
+        this.sessionPoolSize = sessionPoolSize;
+    }
+
+    /**
+     * Gets whether or not the buffers that input messages are parsed with are reused.
+     * @return Whether or not objects are reused.
+     */
+    public boolean isObjectReuse() {
+        return objectReuse;
+    }
+
+    /**
+     * Sets whether or not the buffers that input messages are split into tokens and flags with are kept by every thread, and reused for the next message it parses,
+     * instead of being allocated for every command. Events and their {@link Internal.Managing.Commands.CommandMessage parsed messages} are never reused, so a command
+     * that keeps them can not see another command's input or write into its output.<br>
+     * With this on, the console, sessions, scheduled jobs and {@link Internal.Processing.CommandProcessor} seal their events once they are done, after which
+     * a command that kept its {@link Internal.Managing.Commands.InputEvent} without deferring its completion fails when it replies. Default is <code>false</code>.
+     * @param objectReuse Whether or not to reuse objects.
+     * @see Internal.Managing.Commands.InputEvent#seal()
+     */
+    public void setObjectReuse(boolean objectReuse) {
+        this.objectReuse = objectReuse;
+    }
 }
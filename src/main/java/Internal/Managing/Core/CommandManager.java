@@ -2,20 +2,58 @@ package Internal.Managing.Core;
 
 import External.Commands.*;
 import Internal.Commands.Help;
+import Internal.Commands.Record;
+import Internal.Commands.Schedule;
 import Internal.Commands.Exit;
+import Internal.Commands.Stats;
 import Internal.Commands.Version;
+import Internal.Managing.Commands.CategoryRegistry;
 import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.CommandMessage;
 import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Events.CommandRecorder;
+import Internal.Managing.Events.FlushEvent;
+import Internal.Managing.Events.LineReadEvent;
+import Internal.Managing.Events.LookupEvent;
+import Internal.Managing.IO.CaptureBuffer;
+import Internal.Managing.Tracing.Span;
+import Internal.Managing.Tracing.Tracer;
+import Internal.Managing.Journal.CommandJournal;
+import Internal.Managing.Scheduling.JobScheduler;
+import Internal.Managing.Sessions.SessionManager;
+import Internal.Processing.Workers.WorkerPool;
+import Internal.Managing.IO.InputSource;
+import Internal.Managing.IO.LineReader;
+import Internal.Managing.IO.LineTooLongException;
+import Internal.Managing.IO.PrintStreamSink;
+import Internal.Managing.IO.ReplySink;
+import Internal.Processing.PipeChannel;
+import Internal.Processing.Pipeline;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Formatter;
-import java.util.Scanner;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 
 /**
@@ -47,13 +85,19 @@ import java.util.function.BiConsumer;
  * }
  * </pre></code></blockquote>
  */
-public class CommandManager {
+public class CommandManager implements AutoCloseable {
 
     /** The boolean that controls whether or not a command is triggered. */
-    public static boolean commandTriggered = false;
+    private volatile boolean commandTriggered = false;
 
     /** The String that is the latest input message. */
-    protected static String nextMsg;
+    protected volatile String nextMsg;
+
+    // The manager that was built last. Static requests from the CommandProcessor are run by it.
+    private static volatile CommandManager active;
+
+    /** The id of the session that console input comes from. */
+    public static final String CONSOLE_SESSION = "console";
 
     /** The version of the framework. */
     public final static String VERSION = "1.0";
@@ -61,16 +105,67 @@ public class CommandManager {
     // Variables //
     private int commandCheck;
     private InputStream inp;
-    private static PrintStream out;
-    private static ArrayList<Command> commands = new ArrayList<>() {};
+    private PrintStream out = System.out;
+    private final CommandRegistry registry = new CommandRegistry();
     private String startMessage;
     private String inputPrefix;
-    private static String flagNoParameterMessage;
+    private String flagNoParameterMessage = "You must provide a %s for the flag %s!";
+    private String flagInvalidParameterMessage = "%s is not a valid %s for the flag %s!";
     private BiConsumer<CommandManager, InputEvent> helpConsumer;
-    private static String noCommandMessage;
+    private String noCommandMessage = "There is no command matching that name! Use the command help to return the help message!";
     private boolean printOutputToPrintstream;
     private boolean printStackTrace;
     private boolean snapInternalCommands;
+    private boolean usePipelines = false;
+    private int pipeCapacity = 256;
+
+    private RateLimits rateLimits;
+    private RateLimitPolicy rateLimitPolicy = RateLimitPolicy.REJECT;
+    private String rateLimitMessage = "You are sending commands too quickly! Please wait and try again.";
+    private long maxRateLimitDelay = TimeUnit.SECONDS.toNanos(5);
+    private int maxQueuedCommands = 1000;
+    private final AtomicInteger queuedCommands = new AtomicInteger();
+    private long defaultTimeout = 0;
+    private String timeoutMessage = "The command %s timed out after %s ms!";
+
+    private final CommandMetrics metrics = new CommandMetrics();
+    private ResultCache resultCache;
+    private CommandJournal journal;
+    private WorkerPool workerPool;
+    private JobScheduler jobScheduler;
+    private final CommandRecorder recorder = new CommandRecorder();
+    private Tracer tracer;
+    private Path traceFile;
+    private final LongAdder traceExportFailures = new LongAdder();
+    private long schedulerTick = 100;
+    private LineReader lineReader;
+    private int maxLineLength = 65536;
+    private String lineTooLongMessage = "That input is too long! The maximum is %s characters.";
+    private ScheduledFuture<?> poller;
+    private CompletionEngine completionEngine;
+    private CommandRegistry.Snapshot completionSnapshot;
+    private HelpIndex helpIndex;
+    private CommandRegistry.Snapshot helpSnapshot;
+    private int helpVersion;
+    private final CategoryRegistry categories = new CategoryRegistry();
+    private ErrorReporter errorReporter = new ErrorReporter(60_000, 32);
+    private ReplySink consoleSink;
+    private final InputSource consoleInput = this::NewLine;
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    private ScheduledExecutorService console;
+
+    // Lifecycle
+    private enum State { NEW, RUNNING, STOPPING, STOPPED }
+    private volatile State state = State.NEW;
+    private final Object lifecycle = new Object();
+    private final Set<InputEvent> inFlight = ConcurrentHashMap.newKeySet();
+    private boolean headless;
+    private long shutdownTimeout = 5000;
+    private SessionManager sessionManager;
+    private long sessionIdleTimeout = 600_000;
+    private int sessionPoolSize = 1024;
+    private boolean objectReuse;
 
     /**
      * Instantiates a new CommandManager. This constructor SHOULD NOT be manually called, instead use {@link CommandConfigurator#build()}.
@@ -92,7 +187,7 @@ public class CommandManager {
         this.commandCheck = commandCheck;
         this.inp = inp;
         this.out = out;
-        this.commands = commands;
+        this.registry.addAll(commands);
         this.startMessage = startMessage;
         this.inputPrefix = inputPrefix;
         this.flagNoParameterMessage = flagNoParameterMessage;
@@ -101,9 +196,73 @@ public class CommandManager {
         this.printOutputToPrintstream = printOutputToPrintstream;
         this.printStackTrace = printStackTrace;
         this.snapInternalCommands = snapInternalCommands;
+        active = this;
+
+        // Init the Command Manager
+        this.init();
+        this.start();
+    }
+
+    /**
+     * Instantiates a new CommandManager from a configurator. This is what {@link CommandConfigurator#build()} uses.
+     * @param config The configurator to read the settings from.
+     */
+    CommandManager(CommandConfigurator config) {
+        // Init variables
+        this.commandCheck = config.getCommandCheck();
+        this.inp = config.getInp();
+        this.out = config.getOut();
+        this.registry.addAll(config.getCommandList());
+        this.startMessage = config.getStartMessage();
+        this.inputPrefix = config.getInputPrefix();
+        this.flagNoParameterMessage = config.getFlagNoParameterMessage();
+        this.flagInvalidParameterMessage = config.getFlagInvalidParameterMessage();
+        this.helpConsumer = config.getHelpConsumer();
+        this.noCommandMessage = config.getNoCommandMessage();
+        this.printOutputToPrintstream = config.isPrintOutputToPrintstream();
+        this.printStackTrace = config.isPrintStackTrace();
+        this.snapInternalCommands = config.isUseInternalCommands();
+        this.usePipelines = config.isUsePipelines();
+        this.pipeCapacity = config.getPipeCapacity();
+        this.rateLimits = config.getRateLimits().isEmpty() ? null : new RateLimits(config.getRateLimits());
+        this.rateLimitPolicy = config.getRateLimitPolicy();
+        this.rateLimitMessage = config.getRateLimitMessage();
+        this.maxRateLimitDelay = TimeUnit.MILLISECONDS.toNanos(config.getMaxRateLimitDelay());
+        this.maxQueuedCommands = config.getMaxQueuedCommands();
+        this.defaultTimeout = config.getDefaultTimeout();
+        this.timeoutMessage = config.getTimeoutMessage();
+        this.errorReporter = new ErrorReporter(config.getErrorReportWindow(), config.getRecentErrors());
+        this.maxLineLength = config.getMaxLineLength();
+        this.lineTooLongMessage = config.getLineTooLongMessage();
+        this.resultCache = config.getResultCacheWeight() > 0 ? new ResultCache(config.getResultCacheWeight()) : null;
+        if(config.getJournal() != null) {
+            try {
+                this.journal = new CommandJournal(config.getJournal(), config.getJournalSegmentSize(), config.getJournalMaxSegments(),
+                        config.getJournalFsyncPolicy(), config.getJournalFsyncInterval(), getScheduler());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        if(config.getWorkers() > 0 && !config.getWorkerCommands().isEmpty())
+            this.workerPool = new WorkerPool(new LinkedHashSet<>(config.getWorkerCommands()), config.getWorkers(), config.getWorkerMaxInvocations(),
+                    config.getWorkerMaxHeap(), config.getWorkerHealthCheckInterval(), getScheduler());
+        this.schedulerTick = config.getSchedulerTick();
+        if(config.getTraceFile() != null) {
+            this.tracer = new Tracer(config.getTraceCapacity());
+            this.traceFile = config.getTraceFile();
+            getScheduler().scheduleWithFixedDelay(this::exportTraces, config.getTraceExportInterval(), config.getTraceExportInterval(), TimeUnit.MILLISECONDS);
+        }
+        this.headless = config.isHeadless();
+        this.shutdownTimeout = config.getShutdownTimeout();
+        this.sessionIdleTimeout = config.getSessionIdleTimeout();
+        this.sessionPoolSize = config.getSessionPoolSize();
+        this.objectReuse = config.isObjectReuse();
+        active = this;
 
         // Init the Command Manager
         this.init();
+        if(config.isAutoStart())
+            this.start();
     }
 
     /**
@@ -111,6 +270,14 @@ public class CommandManager {
      */
     public CommandManager() {}
 
+    /**
+     * Gets the manager that was built last. Requests that are run statically through the {@link CommandProcessor} are run by this manager.
+     * @return The last built manager, or <code>null</code> if none has been built.
+     */
+    public static CommandManager getActiveManager() {
+        return active;
+    }
+
     /**
      * Gets the custom help consumer. If this is not set, it will return null.
      * @return A Help Consumer, or null if it is not set.
@@ -156,15 +323,39 @@ public class CommandManager {
      * @param command The command to add.
      */
     public void addCommand(Command command)  {
-        commands.add(command);
+        registry.add(command);
+        categories.add(command);
+    }
+
+    /**
+     * Adds many commands to the Command Manager at once. Every change to the commands copies their index, so this is much faster than adding thousands of commands one at a time.
+     * @param commands The commands to add.
+     */
+    public void addCommands(Command ... commands) {
+        registry.addAll(Arrays.asList(commands));
+        for(Command c : commands)
+            categories.add(c);
+    }
+
+    /**
+     * Removes a command from the Command Manager. This is safe to call while commands are running, and commands that already started are not affected.
+     * @param command The command to remove.
+     * @return True if the command was registered.
+     */
+    public boolean removeCommand(Command command) {
+        if(!registry.remove(command))
+            return false;
+        categories.remove(command);
+        return true;
     }
 
     /**
      * Gets an {@link Command} array, containing all of the commands that have been registered to the {@link CommandManager}.
+     * Commands can be added and removed at any time, so this is a copy of the commands at the time it was called.
      * @return A {@link Command} array containing all of the registered commands.
      */
     public Command[] getCommands() {
-        return commands.toArray(new Command[commands.size()]);
+        return registry.get().commands.clone();
     }
 
     /**
@@ -184,21 +375,554 @@ public class CommandManager {
         return out;
     }
 
+    /**
+     * Gets the sink that prints to this manager's {@link PrintStream}. This is where replies to console input go.
+     * @return A {@link ReplySink} over the printstream.
+     */
+    public ReplySink getConsoleSink() {
+        if(consoleSink == null)
+            consoleSink = new PrintStreamSink(out);
+
+        return consoleSink;
+    }
+
+    /**
+     * Gets the source that reads new lines from this manager's {@link InputStream}.
+     * @return An {@link InputSource} over the input stream.
+     */
+    public InputSource getConsoleInput() {
+        return consoleInput;
+    }
+
+    /**
+     * Gets the executor that runs commands in the background, such as the stages of a pipeline. Its threads are daemon threads.
+     * @return The background executor of this manager.
+     */
+    public synchronized ExecutorService getExecutor() {
+        if(executor == null) {
+            AtomicInteger count = new AtomicInteger();
+            // Tasks keep the span of the command that submitted them
+            executor = Tracer.wrap(Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "JCommands-worker-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }));
+        }
+
+        return executor;
+    }
+
+    /**
+     * Gets the executor that runs delayed tasks, such as commands queued by a rate limit. Its thread is a daemon thread.
+     * @return The timer executor of this manager.
+     */
+    public synchronized ScheduledExecutorService getScheduler() {
+        if(scheduler == null) {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+                Thread t = new Thread(r, "JCommands-timer");
+                t.setDaemon(true);
+                return t;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+            scheduler = timer;
+        }
+
+        return scheduler;
+    }
+
+    /**
+     * Gets the counters of everything this manager has run, including rate limit rejections.
+     * @return The {@link CommandMetrics} of this manager.
+     */
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the cache of the output of cacheable commands, which also reports its hit rate.
+     * @return The {@link ResultCache} of this manager, or <code>null</code> if caching is turned off.
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Gets the reporter of the exceptions that commands fail with, which keeps error counters and the last errors.
+     * @return The {@link ErrorReporter} of this manager.
+     */
+    public ErrorReporter getErrorReporter() {
+        return errorReporter;
+    }
+
+    /**
+     * Gets the completion engine for the commands of this manager, which completes names, aliases and flags as they are typed.
+     * The engine is rebuilt the first time this is called after a command is added or removed, so front-ends can simply call this on every keystroke.
+     * @return A {@link CompletionEngine} that is current with the commands.
+     */
+    public synchronized CompletionEngine getCompletionEngine() {
+        CommandRegistry.Snapshot current = registry.get();
+        if(completionEngine == null || completionSnapshot != current) {
+            completionEngine = new CompletionEngine(current.commands);
+            completionSnapshot = current;
+        }
+        return completionEngine;
+    }
+
+    /**
+     * Gets the index that the help command searches, which finds commands by category, name prefix, or part of their name without going over every command.
+     * The index is rebuilt the first time this is called after a command is added, removed, or moved to another category.
+     * @return A {@link HelpIndex} that is current with the commands.
+     */
+    public synchronized HelpIndex getHelpIndex() {
+        CommandRegistry.Snapshot current = registry.get();
+        int version = categories.getVersion();
+        if(helpIndex == null || helpSnapshot != current || helpVersion != version) {
+            helpIndex = new HelpIndex(current.commands);
+            helpSnapshot = current;
+            helpVersion = version;
+        }
+        return helpIndex;
+    }
+
+    /**
+     * Gets the journal of dispatched input messages.
+     * @return The {@link CommandJournal} of this manager, or <code>null</code> if there is no journal.
+     */
+    public CommandJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Gets the pool of worker processes that run the routed commands.
+     * @return The {@link WorkerPool} of this manager, or <code>null</code> if every command runs in process.
+     * @see CommandConfigurator#setWorkerPool(int, int, int)
+     */
+    public WorkerPool getWorkerPool() {
+        return workerPool;
+    }
+
+    /**
+     * Gets the recorder that starts and stops Java Flight Recorder recordings of the phases of every command.
+     * @return The {@link CommandRecorder} of this manager.
+     */
+    public CommandRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Gets the tracer that records a span for every dispatched input message.
+     * @return The {@link Tracer} of this manager, or <code>null</code> if tracing is off.
+     * @see CommandConfigurator#setTracing(Path, int)
+     */
+    public Tracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * Exports the spans that ended since the last export to the trace file. This is done periodically, so it is only needed to export spans right away.
+     * @return The number of spans that were exported.
+     */
+    public int exportTraces() {
+        if(tracer == null)
+            return 0;
+
+        try {
+            return tracer.export(traceFile);
+        } catch (IOException ex) {
+            traceExportFailures.increment();
+            return 0;
+        }
+    }
+
+    /**
+     * Gets how many exports of the trace file failed. The spans of a failed export are lost.
+     * @return The number of failed exports.
+     */
+    public long getTraceExportFailures() {
+        return traceExportFailures.sum();
+    }
+
+    /**
+     * Gets the scheduler that runs commands after a delay, at a fixed rate, or on a cron schedule. It is created the first time it is needed.
+     * @return The {@link JobScheduler} of this manager.
+     * @see CommandConfigurator#setSchedulerTick(long)
+     */
+    public synchronized JobScheduler getJobScheduler() {
+        if(jobScheduler == null)
+            jobScheduler = new JobScheduler(this, schedulerTick);
+
+        return jobScheduler;
+    }
+
+    /**
+     * Gets the session manager, that serves many operators from this manager, each with their own prompt, replies, and input. It is created the first time it is needed.
+     * @return The {@link SessionManager} of this manager.
+     * @see CommandConfigurator#setSessionIdleTimeout(long)
+     */
+    public synchronized SessionManager getSessionManager() {
+        if(sessionManager == null)
+            sessionManager = new SessionManager(this, sessionIdleTimeout, sessionPoolSize);
+
+        return sessionManager;
+    }
+
+    /**
+     * Gets whether or not pipelines (<code>cmdA | cmdB</code>) are enabled.
+     * @return Whether or not pipelines are enabled.
+     */
+    public boolean isUsePipelines() {
+        return usePipelines;
+    }
+
+    /**
+     * Gets the maximum amount of lines that can wait between two stages of a pipeline.
+     * @return The capacity of each pipe.
+     */
+    public int getPipeCapacity() {
+        return pipeCapacity;
+    }
+
+    /**
+     * Finds the command that an input message is for, by matching the first word of the message with the names and aliases of every command, ignoring case.
+     * This is a lookup in an index of the names and aliases, so it takes the same time however many commands there are.
+     * If the command has subcommands, the next words are matched with them, one level at a time (see {@link Command#resolve(String)}).
+     * @param line The input message.
+     * @return The matching command (the deepest matching subcommand), or <code>null</code> if there is none.
+     */
+    public Command findCommand(String line) {
+        Command c = registry.find(line);
+        return c != null ? c.resolve(line) : null;
+    }
+
+    /**
+     * Runs an input message from the console session, which is either a single command or a pipeline of commands, and waits for it to finish.
+     * @param line The input message.
+     * @param out The sink to write the replies to.
+     * @param in The source for commands to read further input from.
+     * @return The {@link InputEvent} of the command that ran (the last one, for a pipeline), which holds its exit status. This is <code>null</code> if no command matched the message, in which case nothing is run.
+     * @see CommandManager#dispatch(String, String, ReplySink, InputSource)
+     */
+    public InputEvent dispatch(String line, ReplySink out, InputSource in) {
+        return dispatch(CONSOLE_SESSION, line, out, in);
+    }
+
+    /**
+     * Runs an input message from a session, which is either a single command or a pipeline of commands.<br>
+     * The rate limits set in the {@link CommandConfigurator} apply here. If the message goes over a limit, it is rejected, delayed, or queued, depending on the {@link RateLimitPolicy}.
+     * Unless it is queued, or the command deferred its completion with {@link InputEvent#defer()}, this waits for the command to finish.
+     * @param sessionId The id of the session the input message came from.
+     * @param line The input message.
+     * @param out The sink to write the replies to.
+     * @param in The source for commands to read further input from.
+     * @return The {@link InputEvent} of the command (the last one, for a pipeline), which holds its exit status. This is <code>null</code> if no command matched the message, in which case nothing is run.
+     */
+    public InputEvent dispatch(String sessionId, String line, ReplySink out, InputSource in) {
+        checkNotStopped();
+        metrics.recordDispatched();
+        long start = journal != null ? System.nanoTime() : 0;
+
+        // Find the command, or the command of every stage of a pipeline
+        LookupEvent lookup = new LookupEvent();
+        lookup.begin();
+        String[] stages = usePipelines ? Pipeline.split(this, line) : null;
+        Command[] cmds;
+        if(stages != null) {
+            cmds = Pipeline.resolve(this, stages);
+        } else {
+            Command c = findCommand(line);
+            cmds = c != null ? new Command[] {c} : null;
+        }
+        lookup.end();
+        if(lookup.shouldCommit()) {
+            lookup.command = cmds != null ? cmds[cmds.length - 1].getPath() : null;
+            lookup.session = sessionId;
+            lookup.length = line.length();
+            lookup.stages = stages != null ? stages.length : 1;
+            lookup.commit();
+        }
+
+        if(cmds == null) {
+            metrics.recordNotFound();
+            if(journal != null)
+                journal.append(System.currentTimeMillis(), System.nanoTime() - start, Command.EXIT_NOT_FOUND, sessionId, line);
+            return null;
+        }
+        commandTriggered = true;
+
+        Pipeline pipeline = stages != null ? new Pipeline(this, sessionId, stages, cmds, out, in) : null;
+        InputEvent event;
+        if(pipeline != null)
+            event = pipeline.getLastEvent();
+        else if(objectReuse)
+            event = InputEvent.withThreadBuffers(cmds[0], this, line, out, in, sessionId);
+        else
+            event = new InputEvent(cmds[0], this, line, out, in, sessionId);
+        return submit(sessionId, line, cmds, event, pipeline != null ? pipeline::run : () -> execute(event), start);
+    }
+
+    /**
+     * Runs an input message that was already split into its command, flags and arguments, such as a frame of the {@link Internal.Processing.Wire.WireCodec binary protocol}.
+     * This takes the same path as {@link CommandManager#dispatch(String, String, ReplySink, InputSource)}, with its rate limits and journal, but the message is never rebuilt as a text line and parsed again.
+     * @param sessionId The id of the session the input message came from.
+     * @param message The input message, which holds its command.
+     * @param out The sink to write the replies to.
+     * @param in The source for the command to read further input from.
+     * @return The {@link InputEvent} of the command, which holds its exit status.
+     */
+    public InputEvent dispatch(String sessionId, CommandMessage message, ReplySink out, InputSource in) {
+        checkNotStopped();
+        metrics.recordDispatched();
+        long start = journal != null ? System.nanoTime() : 0;
+        commandTriggered = true;
+
+        InputEvent event = new InputEvent(message, this, out, in, sessionId);
+        return submit(sessionId, null, new Command[] {message.getCommand()}, event, () -> execute(event), start);
+    }
+
+    private void checkNotStopped() {
+        if(state == State.STOPPED)
+            throw new IllegalStateException("The manager is stopped!");
+    }
+
+    // Starts the span of an event, and submits it with the span as the current span of this thread. The event is running until it completes.
+    private InputEvent submit(String sessionId, String line, Command[] cmds, InputEvent event, Runnable task, long start) {
+        inFlight.add(event);
+        event.getCompletion().whenComplete((e, ex) -> inFlight.remove(event));
+        if(tracer == null)
+            return submitNow(sessionId, line, cmds, event, task, start);
+
+        Span span = tracer.start(spanName(cmds), sessionId);
+        event.getCompletion().whenComplete((e, ex) -> tracer.end(span, event.getExitStatus()));
+        Span previous = Tracer.activate(span);
+        try {
+            return submitNow(sessionId, line, cmds, event, task, start);
+        } finally {
+            Tracer.restore(previous);
+        }
+    }
+
+    private static String spanName(Command[] cmds) {
+        if(cmds.length == 1)
+            return cmds[0].getPath();
+
+        StringBuilder name = new StringBuilder();
+        for (Command c : cmds) {
+            if(name.length() > 0) name.append(" | ");
+            name.append(c.getPath());
+        }
+        return name.toString();
+    }
+
+    // Journals an event, checks the rate limits, and runs its task. The line is rebuilt from the event for the journal if it is null.
+    private InputEvent submitNow(String sessionId, String line, Command[] cmds, InputEvent event, Runnable task, long start) {
+        if(journal != null) {
+            long timestamp = System.currentTimeMillis();
+            String journaled = line != null ? line : event.getInputMessage().getContent();
+            event.getCompletion().whenComplete((e, ex) -> journal.append(timestamp, System.nanoTime() - start, event.getExitStatus(), sessionId, journaled));
+        }
+
+        // Check the rate limits
+        if(rateLimits != null) {
+            long wait = rateLimits.acquire(sessionId, cmds, rateLimitPolicy != RateLimitPolicy.REJECT, maxRateLimitDelay);
+            if(wait > 0 && rateLimitPolicy == RateLimitPolicy.QUEUE) {
+                if(queuedCommands.incrementAndGet() <= maxQueuedCommands) {
+                    // Run it in the background once it is allowed
+                    metrics.recordQueued();
+                    Runnable traced = Tracer.wrap(task);
+                    getScheduler().schedule(() -> {
+                        queuedCommands.decrementAndGet();
+                        getExecutor().execute(traced);
+                    }, wait, TimeUnit.NANOSECONDS);
+                    return event;
+                }
+                queuedCommands.decrementAndGet();
+                wait = -1;
+            }
+
+            if(wait < 0) {
+                metrics.recordRateLimited(cmds);
+                event.setExitStatus(Command.EXIT_RATE_LIMITED);
+                event.replyln(rateLimitMessage);
+                event.getCompletion().complete(event);
+                return event;
+            }
+
+            if(wait > 0) {
+                metrics.recordDelayed();
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        task.run();
+        return event;
+    }
+
+    /**
+     * Runs the command of an event, and records it in the metrics. This is the path that every command takes, including each stage of a pipeline.<br>
+     * If the command has a timeout, it runs in the background while a watchdog waits for it. When the timeout passes, the command's {@link Internal.Managing.Commands.CancellationToken} is cancelled,
+     * its thread is interrupted, and the timeout message is sent. This method then returns, even if the command ignores the cancellation.
+     * @param event The event to run the command of.
+     */
+    public void execute(InputEvent event) {
+        Command c = event.getCommand();
+        // Piped input is not part of the cache key, so a stage that reads the stage before it always runs
+        if(resultCache != null && c.isCacheable() && !(event.getInput() instanceof PipeChannel)) {
+            executeCached(event);
+            return;
+        }
+
+        executeNow(event);
+    }
+
+    // Replays the output of a cacheable command from the cache, or runs it and caches its output.
+    private void executeCached(InputEvent event) {
+        Command c = event.getCommand();
+        CommandMessage message = event.getInputMessage();
+        if(message.getError() != null) {
+            executeNow(event);
+            return;
+        }
+
+        long start = System.nanoTime();
+        String key = ResultCache.key(c, message);
+        String cached = resultCache.get(key);
+        if(cached != null) {
+            event.reply(cached);
+            metrics.recordCompleted(c, Command.EXIT_SUCCESS, System.nanoTime() - start);
+            finish(event);
+            return;
+        }
+
+        // Copy the replies while they are written, and cache them if the command succeeds
+        CaptureBuffer capture = CaptureBuffer.acquire();
+        event.setReplyTap(capture);
+        boolean deferred = false;
+        try {
+            executeNow(event);
+            deferred = event.isDeferred() && !event.getCompletion().isDone();
+        } finally {
+            if(deferred)
+                event.getCompletion().whenComplete((e, ex) -> cache(event, key, capture));
+            else
+                cache(event, key, capture);
+        }
+    }
+
+    // Caches the captured replies of a finished command, if it succeeded.
+    private void cache(InputEvent event, String key, CaptureBuffer capture) {
+        Command c = event.getCommand();
+        try {
+            if(event.getExitStatus() == Command.EXIT_SUCCESS && capture.length() <= c.getCacheMaxWeight())
+                resultCache.put(key, capture.toString(), c.getCacheTtl());
+        } finally {
+            event.setReplyTap(null);
+            // A command that timed out can still be running, and writing to the capture, so it is dropped instead of reused
+            if(!event.isCancelled())
+                capture.release();
+        }
+    }
+
+    // Runs a command, with a watchdog if it has a timeout.
+    private void executeNow(InputEvent event) {
+        Command c = event.getCommand();
+        long timeout = c.getTimeout() != 0 ? c.getTimeout() : defaultTimeout;
+        if(timeout <= 0) {
+            runCommand(event, System.nanoTime(), null);
+            return;
+        }
+
+        // Run the command in the background, and start the watchdog. Whichever finishes first claims the event.
+        long start = System.nanoTime();
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<?> running = getExecutor().submit(() -> runCommand(event, start, claimed));
+        ScheduledFuture<?> watchdog = getScheduler().schedule(() -> {
+            if(!claimed.compareAndSet(false, true)) return;
+
+            event.getCancellationToken().cancel();
+            running.cancel(true);
+            event.setExitStatus(Command.EXIT_TIMEOUT);
+            event.replyln(String.format(timeoutMessage, c.getName(), timeout));
+            metrics.recordTimedOut(c, System.nanoTime() - start);
+            finish(event);
+        }, timeout, TimeUnit.MILLISECONDS);
+
+        event.getCompletion().whenComplete((e, ex) -> watchdog.cancel(false));
+
+        // Wait for the command, or only for its run method if it deferred its completion
+        try {
+            running.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException ex) {
+            // Exceptions inside of commands are already handled by Command#execute, and a timeout completes the event itself
+        }
+        if(!event.isDeferred())
+            event.getCompletion().join();
+    }
+
+    // Runs a command, and completes its event unless the watchdog already did. Deferred events are completed once their work is done.
+    private void runCommand(InputEvent event, long start, AtomicBoolean claimed) {
+        boolean deferred = false;
+        try {
+            event.getCommand().execute(event, this);
+            deferred = event.isDeferred();
+        } finally {
+            if(deferred)
+                event.getDeferred().whenComplete((v, ex) -> complete(event, start, claimed));
+            else
+                complete(event, start, claimed);
+        }
+    }
+
+    // Records a finished command, and completes its event unless the watchdog already did.
+    private void complete(InputEvent event, long start, AtomicBoolean claimed) {
+        if(claimed == null || claimed.compareAndSet(false, true)) {
+            metrics.recordCompleted(event.getCommand(), event.getExitStatus(), System.nanoTime() - start);
+            finish(event);
+        }
+    }
+
+    // Closes an event, so a command that is still running can not write to it anymore, and completes it.
+    private void finish(InputEvent event) {
+        event.close();
+        event.getCompletion().complete(event);
+    }
+
     /**
      * Skips to a new line, and returns the command.
      * @return The command in console.
      */
     public String NewLine() {
-        Scanner scan = new Scanner(inp);
-        out.print("");
-        return scan.nextLine();
+        if(lineReader == null)
+            return null;
+
+        LineReadEvent read = new LineReadEvent();
+        read.begin();
+        String line = lineReader.readLine();
+        read.end();
+        if(read.shouldCommit()) {
+            read.length = line != null ? line.length() : -1;
+            read.commit();
+        }
+        return line;
     }
 
     private void init()  {
+        // Index the categories of the configured commands
+        for(Command c : registry.get().commands)
+            categories.add(c);
+
         // Add internal commands
         this.addCommand(new Help(this));
         this.addCommand(new Version());
         this.addCommand(new Exit());
+        this.addCommand(new Stats(this));
+        this.addCommand(new Schedule(this));
+        this.addCommand(new Record(this));
 
         /* Add-on commands */
         if(snapInternalCommands) {
@@ -207,15 +931,178 @@ public class CommandManager {
             this.addCommand(new Subtract());
             this.addCommand(new Multiply());
             this.addCommand(new Divide());
+            this.addCommand(new Calculate());
         }
 
-        // Print the start message
-        if(printOutputToPrintstream)
-            out.println(startMessage);
+    }
+
+    /**
+     * Starts this manager. Unless it is headless, this prints the start message, and starts reading commands from the console.<br>
+     * {@link CommandConfigurator#build()} starts the manager itself, unless {@link CommandConfigurator#setAutoStart(boolean)} is turned off.
+     * Commands can be dispatched before the manager is started, or when it is headless, but nothing is read from the console.
+     * @throws IllegalStateException If the manager was already started, or stopped.
+     */
+    public void start() {
+        synchronized (lifecycle) {
+            if(state != State.NEW)
+                throw new IllegalStateException("The manager was already " + (state == State.RUNNING ? "started!" : "stopped!"));
+            state = State.RUNNING;
+            if(headless)
+                return;
+
+            // Print the start message
+            if(printOutputToPrintstream)
+                out.println(startMessage);
+
+            // Create the SEC (timer), run the run method. Its thread keeps the program running while the console is read.
+            lineReader = new LineReader(inp, maxLineLength);
+            console = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "JCommands-console"));
+            poller = console.scheduleAtFixedRate(() -> { if(run()) run(); }, 0, commandCheck, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stops this manager, and waits for the commands that are running to finish:
+     * <ol>
+     *     <li>The console is no longer read, and scheduled jobs are cancelled.</li>
+     *     <li>Commands that are running are given until the timeout to finish. The ones that are still running then are cancelled.</li>
+     *     <li>The console is flushed, the recording is stopped, the traces are exported, and the journal and the worker pool are closed.</li>
+     *     <li>The threads of the manager are released.</li>
+     * </ol>
+     * Commands can still be dispatched while the manager stops, so commands that are finishing can run others. Afterwards, dispatching throws an {@link IllegalStateException}.
+     * A console read that is blocked keeps its thread until the next line arrives. Stopping a manager again does nothing.
+     * @param timeoutMillis How long to wait for the running commands, in milliseconds.
+     * @return True if every command finished in time.
+     */
+    public boolean stop(long timeoutMillis) {
+        synchronized (lifecycle) {
+            if(state == State.STOPPED)
+                return true;
+            state = State.STOPPING;
+
+            // Stop taking new work
+            if(poller != null)
+                poller.cancel(false);
+            if(console != null)
+                console.shutdownNow();
+            JobScheduler jobs;
+            SessionManager sessions;
+            synchronized (this) {
+                jobs = jobScheduler;
+                sessions = sessionManager;
+            }
+            if(jobs != null)
+                jobs.close();
+            // Closing the sessions wakes the commands that wait for their input
+            if(sessions != null)
+                sessions.close();
+
+            // Drain the commands that are running
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            for (InputEvent event : inFlight) {
+                try {
+                    event.getCompletion().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException | CancellationException | TimeoutException ex) {
+                    // Timed out, or failed, which the event reports itself
+                }
+            }
+            boolean drained = inFlight.isEmpty();
+            for (InputEvent event : inFlight)
+                event.getCancellationToken().cancel();
+
+            // Flush and close the outputs
+            out.flush();
+            recorder.close();
+            exportTraces();
+            if(journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException ex) {
+                    // The journal is forced on every interval, so at most the last interval is lost
+                }
+            }
+            if(workerPool != null)
+                workerPool.close();
+
+            // Release the threads
+            synchronized (this) {
+                if(executor != null)
+                    executor.shutdownNow();
+                if(scheduler != null)
+                    scheduler.shutdownNow();
+            }
+            if(active == this)
+                active = null;
+            state = State.STOPPED;
+            return drained;
+        }
+    }
+
+    /**
+     * Stops this manager, with the timeout set by {@link CommandConfigurator#setShutdownTimeout(long)}.
+     * @see CommandManager#stop(long)
+     */
+    @Override
+    public void close() {
+        stop(shutdownTimeout);
+    }
+
+    /**
+     * Stops this manager in the background, once the command that asked for it is done. This is what the <code>exitf</code> command does.<br>
+     * When the manager reads the console, the program then exits with the status. A headless manager only stops, and leaves the program running.
+     * @param status The exit status of the program.
+     */
+    public void exit(int status) {
+        Thread t = new Thread(() -> {
+            stop(shutdownTimeout);
+            if(!headless)
+                System.exit(status);
+        }, "JCommands-exit");
+        t.setDaemon(headless);
+        t.start();
+    }
+
+    /**
+     * Checks whether or not this manager was started, and has not been stopped.
+     * @return Whether or not this manager is running.
+     */
+    public boolean isRunning() {
+        return state == State.RUNNING;
+    }
+
+    /**
+     * Checks whether or not this manager was stopped. A stopped manager can not be started again.
+     * @return Whether or not this manager is stopped.
+     */
+    public boolean isStopped() {
+        return state == State.STOPPED;
+    }
+
+    /**
+     * Checks whether or not this manager is headless, so it never reads the console or prints the start message.
+     * @return Whether or not this manager is headless.
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * Gets how many dispatched commands are still running.
+     * @return The number of running commands.
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
 
-        // Create the SEC (timer), run the run method.
-        ScheduledExecutorService sec = new ScheduledThreadPoolExecutor(1);
-        sec.scheduleAtFixedRate(() -> { if(run()) run(); }, 0, commandCheck, TimeUnit.SECONDS);
+    /**
+     * Checks whether or not the last console input message matched a command.
+     * @return Whether or not a command was triggered.
+     */
+    public boolean isCommandTriggered() {
+        return commandTriggered;
     }
 
     private boolean run() {
@@ -224,35 +1111,51 @@ public class CommandManager {
             out.print(inputPrefix + " ");
 
         // Set next message to command input
-        nextMsg = NewLine();
+        try {
+            nextMsg = NewLine();
+        } catch (LineTooLongException ex) {
+            out.println(String.format(lineTooLongMessage, ex.getMaxLength()));
+            return true;
+        }
+
+        // Stop polling at the end of the input, and release the console thread
+        if(nextMsg == null) {
+            if(poller != null)
+                poller.cancel(false);
+            if(console != null)
+                console.shutdown();
+            return false;
+        }
+
         // Execute all commands; check if a command was run.
-        executeAllCommands();
-        anyCommand();
+        if(!executeAllCommands())
+            out.println(noCommandMessage);
+        commandTriggered = false;
 
         return true;
     }
 
     /** Executes all commands that are registered. */
     protected boolean executeAllCommands() {
-        for(Command c : getCommands()) {
-            for(String a : c.getAliases(true)) {
-                if (nextMsg.split(" ")[0].equalsIgnoreCase(a)) {
-                    InputEvent event = new InputEvent(c, this);
-                    commandTriggered = true;
-                    c.execute(event, this);
-                    return true;
-                }
-            }
-        }
-
-        return false;
-    }
+        InputEvent event = dispatch(nextMsg, getConsoleSink(), getConsoleInput());
+        // Deferred commands still write to the console, so the next prompt waits for them
+        if(event != null && event.isDeferred())
+            event.getCompletion().join();
+        if(event == null)
+            return false;
 
-    private static void anyCommand() {
-        if(!commandTriggered)
-            out.println(noCommandMessage);
-        else
-            commandTriggered = false;
+        FlushEvent flush = new FlushEvent();
+        flush.begin();
+        getConsoleSink().flush();
+        flush.end();
+        if(flush.shouldCommit()) {
+            flush.command = event.getCommand().getPath();
+            flush.session = event.getSessionId();
+            flush.outputLength = event.getRepliedLength();
+            flush.commit();
+        }
+        event.seal();
+        return true;
     }
 
     /**
@@ -263,6 +1166,14 @@ public class CommandManager {
         return flagNoParameterMessage;
     }
 
+    /**
+     * Gets the message for a flag parameter that does not match the type of its flag.
+     * @return A string representing the error message.
+     */
+    public String getFlagInvalidParameterMessage() {
+        return flagInvalidParameterMessage;
+    }
+
     /**
      * Gets whether or not exceptions should print their stacktrace.
      * @return A boolean indicating whether or not exceptions should print their stacktrace.
@@ -271,11 +1182,27 @@ public class CommandManager {
         return printStackTrace;
     }
 
+    /**
+     * Gets how long commands can run for by default, in milliseconds, before they are cancelled.
+     * @return The default timeout in milliseconds, or <code>0</code> for no timeout.
+     */
+    public long getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    /**
+     * Gets the message that is sent when an input message is rejected by a rate limit.
+     * @return A {@link String} representing the rate limit message.
+     */
+    public String getRateLimitMessage() {
+        return rateLimitMessage;
+    }
+
     /**
      * Gets the NoCommandExists Error message.
      * @return A {@link String} representing the No Command Message.
      */
-    public static String getNoCommandMessage() {
+    public String getNoCommandMessage() {
         return noCommandMessage;
     }
 
@@ -288,29 +1215,31 @@ public class CommandManager {
     }
 
     /**
-     * Sets a new name for the category set. This affects ALL categories with the category name.
+     * Sets a new name for the category set. This affects ALL commands in the category, since they share it.
+     * @see CategoryRegistry#rename(String, String)
      * @param category The category's name.
      * @param newName The name you want to change them to.
      */
     public void setNameForAllCategories(String category, String newName) {
-        for(Command c : getCommands()) {
-            if (c.getCategory().getName() == null) continue;
-            if (c.getCategory().getName().equals(category))
-                c.getCategory().setName(newName);
-        }
+        categories.rename(category, newName);
     }
 
     /**
-     * Sets whether the category is hidden. This affects ALL categories with the name.
+     * Sets whether the category is hidden. This affects ALL commands in the category, since they share it.
+     * @see CategoryRegistry#setHidden(String, boolean)
      * @param category The category to change.
      * @param hidden Whether or not to set the Commands to shown.
      */
     public void setHiddenForAllCategories(String category, boolean hidden) {
-        for(Command c : getCommands()) {
-            if (c.getCategory().getName() == null) continue;
-            if (c.getCategory().getName().equals(category))
-                c.getCategory().setHidden(hidden);
-        }
+        categories.setHidden(category, hidden);
+    }
+
+    /**
+     * Gets the categories of the commands of this manager, with the commands of every category.
+     * @return The {@link CategoryRegistry} of this manager.
+     */
+    public CategoryRegistry getCategoryRegistry() {
+        return categories;
     }
 
     /**
@@ -319,8 +1248,8 @@ public class CommandManager {
      */
     public String toString() {
         if(helpConsumer != null)
-            return new Formatter().format("{ commands=%s, commandcheck=%s, inputstream=%s, printstream=%s, startmessage=%s, inputprefix=%s, flagnoparametermessage=%s, helpconsumer=%s, nocommandmessage=%s, printoutputtoprintstream=%s, printstacktrace=%s, snapinternalcommands=%s }", Arrays.toString(commands.toArray(new Command[commands.size()])), commandCheck, inp.toString(), out.toString(), startMessage, inputPrefix, flagNoParameterMessage, helpConsumer.toString(), noCommandMessage, printOutputToPrintstream, printStackTrace, snapInternalCommands).toString();
+            return new Formatter().format("{ commands=%s, commandcheck=%s, inputstream=%s, printstream=%s, startmessage=%s, inputprefix=%s, flagnoparametermessage=%s, helpconsumer=%s, nocommandmessage=%s, printoutputtoprintstream=%s, printstacktrace=%s, snapinternalcommands=%s }", Arrays.toString(registry.get().commands), commandCheck, inp.toString(), out.toString(), startMessage, inputPrefix, flagNoParameterMessage, helpConsumer.toString(), noCommandMessage, printOutputToPrintstream, printStackTrace, snapInternalCommands).toString();
         else
-            return new Formatter().format("{ commands=%s, commandcheck=%s, inputstream=%s, printstream=%s, startmessage=%s, inputprefix=%s, flagnoparametermessage=%s, helpconsumer=default, nocommandmessage=%s, printoutputtoprintstream=%s, printstacktrace=%s, snapinternalcommands=%s }", Arrays.toString(commands.toArray(new Command[commands.size()])), commandCheck, inp.toString(), out.toString(), startMessage, inputPrefix, flagNoParameterMessage, noCommandMessage, printOutputToPrintstream, printStackTrace, snapInternalCommands).toString();
+            return new Formatter().format("{ commands=%s, commandcheck=%s, inputstream=%s, printstream=%s, startmessage=%s, inputprefix=%s, flagnoparametermessage=%s, helpconsumer=default, nocommandmessage=%s, printoutputtoprintstream=%s, printstacktrace=%s, snapinternalcommands=%s }", Arrays.toString(registry.get().commands), commandCheck, inp.toString(), out.toString(), startMessage, inputPrefix, flagNoParameterMessage, noCommandMessage, printOutputToPrintstream, printStackTrace, snapInternalCommands).toString();
     }
 }
@@ -0,0 +1,204 @@
+package Internal.Managing.Core;
+
+import Internal.Managing.Commands.Command;
+
+import java.util.Formatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for everything that a {@link CommandManager} runs. The counters are {@link LongAdder}s, so counting does not lock, even when many commands run at the same time.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * CommandMetrics metrics = manager.getMetrics();
+ * metrics.getDispatched();  # Every input message
+ * metrics.getRateLimited();  # Input messages that went over a rate limit
+ * metrics.getInvocations("addf");  # How many times addf ran
+ * </pre></code></blockquote>
+ * The internal command <code>statsf</code> prints these counters.
+ */
+public class CommandMetrics {
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder usageErrors = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final ConcurrentHashMap<String, CommandCounters> perCommand = new ConcurrentHashMap<>();
+
+    /** The counters of a single command. */
+    public static class CommandCounters {
+        final LongAdder invocations = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder rateLimited = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+
+        /**
+         * Gets how many times the command ran.
+         * @return The amount of invocations.
+         */
+        public long getInvocations() { return invocations.sum(); }
+
+        /**
+         * Gets how many times the command did not exit successfully.
+         * @return The amount of failures.
+         */
+        public long getFailures() { return failures.sum(); }
+
+        /**
+         * Gets how many times the command was rejected by a rate limit.
+         * @return The amount of rejections.
+         */
+        public long getRateLimited() { return rateLimited.sum(); }
+
+        /**
+         * Gets how many times the command timed out.
+         * @return The amount of timeouts.
+         */
+        public long getTimeouts() { return timeouts.sum(); }
+
+        /**
+         * Gets the total time the command spent running, in nanoseconds.
+         * @return The total running time in nanoseconds.
+         */
+        public long getTotalNanos() { return totalNanos.sum(); }
+
+        /**
+         * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+         * @return A String version of this object.
+         */
+        public String toString() {
+            return new Formatter().format("{ invocations=%s, failures=%s, ratelimited=%s, timeouts=%s, totalnanos=%s }", getInvocations(), getFailures(), getRateLimited(), getTimeouts(), getTotalNanos()).toString();
+        }
+    }
+
+    CommandMetrics() {}
+
+    // Gets the counters of a command, creating them if needed. Subcommands are counted by their path, such as "db backup start".
+    CommandCounters counters(Command cmd) {
+        String name = cmd.getPath();
+        CommandCounters c = perCommand.get(name);
+        return c != null ? c : perCommand.computeIfAbsent(name, k -> new CommandCounters());
+    }
+
+    void recordDispatched() { dispatched.increment(); }
+
+    void recordNotFound() { notFound.increment(); }
+
+    void recordDelayed() { delayed.increment(); }
+
+    void recordQueued() { queued.increment(); }
+
+    void recordRateLimited(Command[] cmds) {
+        rateLimited.increment();
+        for(Command c : cmds) counters(c).rateLimited.increment();
+    }
+
+    void recordTimedOut(Command cmd, long nanos) {
+        CommandCounters c = counters(cmd);
+        c.invocations.increment();
+        c.timeouts.increment();
+        c.totalNanos.add(nanos);
+        timedOut.increment();
+    }
+
+    void recordCompleted(Command cmd, int exitStatus, long nanos) {
+        CommandCounters c = counters(cmd);
+        c.invocations.increment();
+        c.totalNanos.add(nanos);
+
+        if(exitStatus == Command.EXIT_SUCCESS) {
+            succeeded.increment();
+        } else {
+            c.failures.increment();
+            if(exitStatus == Command.EXIT_USAGE) usageErrors.increment();
+            else failed.increment();
+        }
+    }
+
+    /**
+     * Gets how many input messages were dispatched, whether or not they matched a command.
+     * @return The amount of dispatched input messages.
+     */
+    public long getDispatched() { return dispatched.sum(); }
+
+    /**
+     * Gets how many input messages did not match any command.
+     * @return The amount of unmatched input messages.
+     */
+    public long getNotFound() { return notFound.sum(); }
+
+    /**
+     * Gets how many commands exited successfully.
+     * @return The amount of successful commands.
+     */
+    public long getSucceeded() { return succeeded.sum(); }
+
+    /**
+     * Gets how many commands failed, not counting malformed input.
+     * @return The amount of failed commands.
+     */
+    public long getFailed() { return failed.sum(); }
+
+    /**
+     * Gets how many commands were not run because their input was malformed.
+     * @return The amount of malformed input messages.
+     */
+    public long getUsageErrors() { return usageErrors.sum(); }
+
+    /**
+     * Gets how many input messages were rejected by a rate limit.
+     * @return The amount of rejected input messages.
+     */
+    public long getRateLimited() { return rateLimited.sum(); }
+
+    /**
+     * Gets how many input messages were delayed by a rate limit before running.
+     * @return The amount of delayed input messages.
+     */
+    public long getDelayed() { return delayed.sum(); }
+
+    /**
+     * Gets how many input messages were queued by a rate limit before running.
+     * @return The amount of queued input messages.
+     */
+    public long getQueued() { return queued.sum(); }
+
+    /**
+     * Gets how many commands timed out. These are not counted as failed.
+     * @return The amount of commands that timed out.
+     */
+    public long getTimedOut() { return timedOut.sum(); }
+
+    /**
+     * Gets how many times a command ran.
+     * @param name The name of the command.
+     * @return The amount of invocations, or <code>0</code> if it never ran.
+     */
+    public long getInvocations(String name) {
+        CommandCounters c = perCommand.get(name);
+        return c != null ? c.getInvocations() : 0;
+    }
+
+    /**
+     * Gets the counters of every command that has run, sorted by name.
+     * @return A map of command names to their counters.
+     */
+    public Map<String, CommandCounters> getCommandCounters() {
+        return new TreeMap<>(perCommand);
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ dispatched=%s, notfound=%s, succeeded=%s, failed=%s, usageerrors=%s, ratelimited=%s, delayed=%s, queued=%s, timedout=%s, commands=%s }", getDispatched(), getNotFound(), getSucceeded(), getFailed(), getUsageErrors(), getRateLimited(), getDelayed(), getQueued(), getTimedOut(), getCommandCounters()).toString();
+    }
+}
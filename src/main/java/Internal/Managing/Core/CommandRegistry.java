@@ -0,0 +1,105 @@
+package Internal.Managing.Core;
+
+import Internal.Managing.Commands.Command;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The commands of a {@link CommandManager}, as an immutable snapshot that is swapped atomically whenever a command is added or removed.
+ * Readers, such as the dispatch path, only read the current snapshot, so they never lock or copy, and never see a half made change.
+ */
+final class CommandRegistry {
+    /**
+     * An immutable view of the registered commands, with an index of their names and aliases.
+     */
+    static final class Snapshot {
+        final Command[] commands;
+        // Lower case names and aliases, mapped to the first command registered with them
+        private final HashMap<String, Command> index;
+
+        private Snapshot(Command[] commands) {
+            this.commands = commands;
+            this.index = new HashMap<>(Math.max(16, commands.length * 4));
+            for (Command c : commands)
+                index(c);
+        }
+
+        private Snapshot(Snapshot previous, Command added) {
+            this.commands = Arrays.copyOf(previous.commands, previous.commands.length + 1);
+            this.commands[previous.commands.length] = added;
+            this.index = new HashMap<>(previous.index);
+            index(added);
+        }
+
+        private void index(Command c) {
+            for (String name : c.getAliases(true)) {
+                if(name != null)
+                    index.putIfAbsent(name.toLowerCase(Locale.ROOT), c);
+            }
+        }
+    }
+
+    private final AtomicReference<Snapshot> snapshot;
+
+    CommandRegistry() {
+        this.snapshot = new AtomicReference<>(new Snapshot(new Command[0]));
+    }
+
+    /** Gets the current snapshot. */
+    Snapshot get() {
+        return snapshot.get();
+    }
+
+    /** Adds a command. */
+    void add(Command command) {
+        Snapshot current;
+        do {
+            current = snapshot.get();
+        } while (!snapshot.compareAndSet(current, new Snapshot(current, command)));
+    }
+
+    /** Adds many commands with a single swap. */
+    void addAll(Collection<Command> commands) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = snapshot.get();
+            Command[] all = Arrays.copyOf(current.commands, current.commands.length + commands.size());
+            int i = current.commands.length;
+            for (Command c : commands)
+                all[i++] = c;
+            next = new Snapshot(all);
+        } while (!snapshot.compareAndSet(current, next));
+    }
+
+    /** Removes a command, matched by identity. */
+    boolean remove(Command command) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = snapshot.get();
+            int at = -1;
+            for (int i = 0; i < current.commands.length && at < 0; i++)
+                if(current.commands[i] == command) at = i;
+            if(at < 0)
+                return false;
+
+            Command[] left = new Command[current.commands.length - 1];
+            System.arraycopy(current.commands, 0, left, 0, at);
+            System.arraycopy(current.commands, at + 1, left, at, left.length - at);
+            next = new Snapshot(left);
+        } while (!snapshot.compareAndSet(current, next));
+        return true;
+    }
+
+    /** Finds the command of the first word of an input message, ignoring case. */
+    Command find(String line) {
+        int end = line.indexOf(' ');
+        String name = end < 0 ? line : line.substring(0, end);
+        return snapshot.get().index.get(name.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,310 @@
+package Internal.Managing.Core;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.FlagType;
+import Internal.Managing.Commands.Flags;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Completes command names, aliases and flags as they are typed, for terminal or socket front-ends that complete on every keystroke.<br>
+ * The names and aliases of every command are kept in a prefix trie, and so are the flags of every command. Every node of a trie keeps
+ * its best candidates already ranked, so completing a prefix only walks the prefix, however many commands there are.
+ * Candidates are ranked with names before aliases, then shorter before longer, then alphabetically. Matching ignores case, like {@link CommandManager#findCommand(String)}.<br>
+ * An engine is an immutable snapshot of the commands. Use {@link CommandManager#getCompletionEngine()} to get one that is current.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * CompletionEngine completion = manager.getCompletionEngine();
+ * completion.complete("he");          # [helpf]
+ * completion.complete("exitf -");     # [-s]
+ * </pre></code></blockquote>
+ */
+public class CompletionEngine {
+    /** How many candidates every node keeps by default. */
+    public static final int DEFAULT_MAX_CANDIDATES = 16;
+
+    private final int maxCandidates;
+    private final Node commandTrie = new Node();
+    private final Map<Command, Node> flagTries = new IdentityHashMap<>();
+    private final Map<Command, Node> subcommandTries = new IdentityHashMap<>();
+    private final Map<String, Command> commandsByName = new HashMap<>();
+
+    /**
+     * Builds a new engine over commands.
+     * @param commands The commands to complete.
+     * @param maxCandidates The most candidates a completion returns.
+     */
+    public CompletionEngine(Command[] commands, int maxCandidates) {
+        if(maxCandidates < 1)
+            throw new IllegalArgumentException("There must be at least one candidate!");
+        this.maxCandidates = maxCandidates;
+
+        for (Command c : commands) {
+            String[] names = c.getAliases(true);
+            for (int i = 0; i < names.length; i++) {
+                if(names[i] == null || names[i].isEmpty())
+                    continue;
+                String key = names[i].toLowerCase();
+                commandsByName.putIfAbsent(key, c);
+                commandTrie.insert(key, new Candidate(names[i], i > 0), maxCandidates);
+            }
+            index(c);
+        }
+    }
+
+    // Builds the flag trie of a command, and the tries of its subcommands, all the way down.
+    private void index(Command c) {
+        Node flags = new Node();
+        Flags f = c.getFlags();
+        if(f != null) {
+            for (String flag : nonNull(f.getNoParamFlags()))
+                flags.insert(flag.toLowerCase(), new Candidate(flag, false), maxCandidates);
+            for (String flag : nonNull(f.getParamsFlags()))
+                flags.insert(flag.toLowerCase(), new Candidate(flag, false), maxCandidates);
+        }
+        flagTries.put(c, flags);
+
+        Command[] subcommands = c.getSubcommands();
+        if(subcommands.length == 0)
+            return;
+        Node names = new Node();
+        for (Command sub : subcommands) {
+            String[] aliases = sub.getAliases(true);
+            for (int i = 0; i < aliases.length; i++)
+                if(aliases[i] != null && !aliases[i].isEmpty())
+                    names.insert(aliases[i].toLowerCase(), new Candidate(aliases[i], i > 0), maxCandidates);
+            index(sub);
+        }
+        subcommandTries.put(c, names);
+    }
+
+    /**
+     * Builds a new engine over commands, with {@link #DEFAULT_MAX_CANDIDATES} candidates.
+     * @param commands The commands to complete.
+     */
+    public CompletionEngine(Command[] commands) {
+        this(commands, DEFAULT_MAX_CANDIDATES);
+    }
+
+    /**
+     * Completes the last word of a partly typed input message. The first word completes to command names and aliases, a word starting with
+     * <code>-</code> completes to the flags of the command (or of the subcommand that was typed), the word after an enum or boolean flag completes to its values,
+     * and any other word completes to the subcommands of the command.
+     * @param line The input message typed so far.
+     * @return The ranked candidates for the last word, which may be empty.
+     */
+    public List<String> complete(String line) {
+        // Split off the last word, without a regex
+        int end = line.length();
+        int start = end;
+        while (start > 0 && !Character.isWhitespace(line.charAt(start - 1))) start--;
+        String word = line.substring(start, end);
+
+        int firstEnd = 0;
+        while (firstEnd < line.length() && Character.isWhitespace(line.charAt(firstEnd))) firstEnd++;
+        if(firstEnd >= start)
+            return completeCommand(word);
+
+        int nameStart = firstEnd;
+        while (firstEnd < line.length() && !Character.isWhitespace(line.charAt(firstEnd))) firstEnd++;
+        Command c = commandsByName.get(line.substring(nameStart, firstEnd).toLowerCase());
+        if(c == null)
+            return Collections.emptyList();
+        // The subcommands that were already typed
+        c = c.resolve(line.substring(nameStart, start));
+
+        if(word.startsWith("-"))
+            return completeFlag(c, word);
+
+        // The word after a typed flag completes to the flag's values
+        int prevEnd = start;
+        while (prevEnd > 0 && Character.isWhitespace(line.charAt(prevEnd - 1))) prevEnd--;
+        int prevStart = prevEnd;
+        while (prevStart > 0 && !Character.isWhitespace(line.charAt(prevStart - 1))) prevStart--;
+        String previous = line.substring(prevStart, prevEnd);
+        if(c.getFlags() != null && c.getFlags().indexOf(previous) >= 0)
+            return completeFlagValue(c, previous, word);
+
+        // Otherwise, the word completes to a subcommand
+        Node subcommands = subcommandTries.get(c);
+        return subcommands != null ? subcommands.complete(word.toLowerCase()) : Collections.emptyList();
+    }
+
+    /**
+     * Completes a command name or alias.
+     * @param prefix The start of the name.
+     * @return The ranked names and aliases starting with the prefix, which may be empty.
+     */
+    public List<String> completeCommand(String prefix) {
+        return commandTrie.complete(prefix.toLowerCase());
+    }
+
+    /**
+     * Completes a flag of a command, with or without a parameter.
+     * @param cmd The command whose flags to complete.
+     * @param prefix The start of the flag, such as <code>-</code>.
+     * @return The ranked flags starting with the prefix, which may be empty.
+     */
+    public List<String> completeFlag(Command cmd, String prefix) {
+        Node flags = flagTries.get(cmd);
+        return flags != null ? flags.complete(prefix.toLowerCase()) : Collections.emptyList();
+    }
+
+    /**
+     * Gets the most candidates a completion returns.
+     * @return The maximum number of candidates.
+     */
+    public int getMaxCandidates() {
+        return maxCandidates;
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ commands=%s, names=%s, maxcandidates=%s }", flagTries.size(), commandsByName.size(), maxCandidates).toString();
+    }
+
+    private List<String> completeFlagValue(Command cmd, String flag, String prefix) {
+        Flags f = cmd.getFlags();
+        int index = f != null ? f.indexOf(flag) : -1;
+        if(index < 0)
+            return Collections.emptyList();
+
+        String[] values;
+        FlagType type = f.getType(index);
+        if(type == FlagType.BOOLEAN) {
+            values = new String[] {"true", "false"};
+        } else if(type == FlagType.ENUM) {
+            Object[] constants = f.getEnumType(index).getEnumConstants();
+            values = new String[constants.length];
+            for (int i = 0; i < constants.length; i++)
+                values[i] = ((Enum<?>) constants[i]).name().toLowerCase();
+        } else {
+            return Collections.emptyList();
+        }
+
+        // Enums are short, so they are filtered instead of put in a trie
+        String lower = prefix.toLowerCase();
+        List<String> list = new ArrayList<>();
+        for (String value : values) {
+            if(value.startsWith(lower) && list.size() < maxCandidates)
+                list.add(value);
+        }
+        return list;
+    }
+
+    private static String[] nonNull(String[] array) {
+        return array != null ? array : new String[0];
+    }
+
+    /**
+     * A word to complete to, with how it ranks.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        final String text;
+        final boolean alias;
+
+        Candidate(String text, boolean alias) {
+            this.text = text;
+            this.alias = alias;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            if(alias != o.alias)
+                return alias ? 1 : -1;
+            if(text.length() != o.text.length())
+                return Integer.compare(text.length(), o.text.length());
+            return text.compareToIgnoreCase(o.text);
+        }
+    }
+
+    /**
+     * A node of a trie. Children are kept in arrays sorted by character, and every node keeps the best candidates below it.
+     */
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Candidate[] NO_CANDIDATES = new Candidate[0];
+
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        Candidate[] top = NO_CANDIDATES;
+        boolean terminal;
+
+        void insert(String key, Candidate candidate, int max) {
+            // Find or create the node of the key, and skip duplicates such as an alias equal to another command's name
+            Node node = this;
+            for (int i = 0; i < key.length(); i++)
+                node = node.child(key.charAt(i), true);
+            if(node.terminal)
+                return;
+            node.terminal = true;
+
+            // Rank the candidate into every node along its path
+            node = this;
+            node.rank(candidate, max);
+            for (int i = 0; i < key.length(); i++) {
+                node = node.child(key.charAt(i), false);
+                node.rank(candidate, max);
+            }
+        }
+
+        List<String> complete(String prefix) {
+            Node node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++)
+                node = node.child(prefix.charAt(i), false);
+            if(node == null)
+                return Collections.emptyList();
+
+            String[] texts = new String[node.top.length];
+            for (int i = 0; i < texts.length; i++)
+                texts[i] = node.top[i].text;
+            return Arrays.asList(texts);
+        }
+
+        private Node child(char c, boolean create) {
+            int index = Arrays.binarySearch(keys, c);
+            if(index >= 0)
+                return children[index];
+            if(!create)
+                return null;
+
+            int insert = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            newKeys[insert] = c;
+            newChildren[insert] = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[insert];
+        }
+
+        private void rank(Candidate candidate, int max) {
+            int index = Arrays.binarySearch(top, candidate);
+            int insert = index >= 0 ? index : -index - 1;
+            if(insert >= max)
+                return;
+
+            int length = Math.min(top.length + 1, max);
+            Candidate[] ranked = new Candidate[length];
+            System.arraycopy(top, 0, ranked, 0, insert);
+            ranked[insert] = candidate;
+            System.arraycopy(top, insert, ranked, insert + 1, length - insert - 1);
+            top = ranked;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package Internal.Managing.Core;
+
+import Internal.Managing.Commands.Command;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports the exceptions that commands fail with, without flooding the output during an error storm.<br>
+ * Exceptions are grouped by their signature: their class, and the top frames of their stack trace (and of their causes). The first
+ * exception of a signature in a window is rendered in full. Later ones in the same window are only counted, and reported with a single line.
+ * Every exception is also counted per command, and the last ones are kept in a ring buffer, so they can be looked at later.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * ErrorReporter errors = manager.getErrorReporter();
+ * errors.getErrorCount("addf");     # How many times addf failed
+ * for (ErrorReporter.ErrorRecord record : errors.getRecentErrors())
+ *     System.out.println(record.getTrace());
+ * </pre></code></blockquote>
+ * @see CommandConfigurator#setErrorReportWindow(long)
+ */
+public class ErrorReporter {
+    /** How many frames of every exception make up its signature. */
+    private static final int SIGNATURE_FRAMES = 8;
+    /** The most signatures that are remembered at once. Once it is reached, the signatures whose window ended, and then the oldest ones, are forgotten. */
+    private static final int MAX_SIGNATURES = 1024;
+
+    private final long windowNanos;
+    private final ConcurrentHashMap<Signature, Occurrences> signatures = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> perCommand = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<ErrorRecord> recent;
+    private final AtomicLong next = new AtomicLong();
+    private final LongAdder reported = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * Creates a new error reporter.
+     * @param windowMillis How long a signature is only counted after it was rendered in full, in milliseconds.
+     * @param recentErrors How many of the last errors are kept.
+     */
+    public ErrorReporter(long windowMillis, int recentErrors) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+        this.recent = new AtomicReferenceArray<>(Math.max(1, recentErrors));
+    }
+
+    /**
+     * Reports an exception that a command failed with.
+     * @param cmd The command that failed.
+     * @param ex The exception it failed with.
+     * @return The full stack trace if this is the first exception of its signature in the window, or otherwise a single line saying how often it repeated.
+     */
+    public String report(Command cmd, Throwable ex) {
+        reported.increment();
+        String name = cmd != null ? cmd.getPath() : "none";
+        LongAdder count = perCommand.get(name);
+        if(count == null)
+            count = perCommand.computeIfAbsent(name, k -> new LongAdder());
+        count.increment();
+
+        ErrorRecord record = new ErrorRecord(System.currentTimeMillis(), name, ex);
+        recent.set((int) (next.getAndIncrement() % recent.length()), record);
+
+        long now = System.nanoTime();
+        Signature signature = new Signature(ex);
+        Occurrences occurrences = signatures.get(signature);
+        if(occurrences == null) {
+            if(signatures.size() >= MAX_SIGNATURES)
+                evict(now);
+            occurrences = signatures.computeIfAbsent(signature, k -> new Occurrences(now));
+        }
+
+        long repeated = occurrences.occur(now, windowNanos);
+        if(repeated < 0) {
+            // The first in its window, so it is rendered in full
+            long before = -repeated - 1;
+            StringWriter trace = new StringWriter();
+            if(before > 0)
+                trace.append("(This error was repeated ").append(String.valueOf(before)).append(" more times since it was last printed)").append(System.lineSeparator());
+            ex.printStackTrace(new PrintWriter(trace));
+            return trace.toString();
+        }
+
+        suppressed.increment();
+        return String.format("%s (repeated %d times since its trace was printed, trace omitted)%n", ex, repeated);
+    }
+
+    // Forgets the signatures whose window ended, and then the oldest ones, until a quarter of the capacity is free again.
+    // Freeing a whole quarter at once means the sweep runs once per MAX_SIGNATURES / 4 new signatures, instead of for every report of a storm.
+    private void evict(long now) {
+        synchronized (signatures) {
+            if(signatures.size() < MAX_SIGNATURES)
+                return; // Another thread already made room
+            signatures.values().removeIf(o -> now - o.getWindowStart() > windowNanos);
+
+            int excess = signatures.size() - MAX_SIGNATURES * 3 / 4;
+            if(excess <= 0)
+                return;
+            // The window starts are read once, since other threads keep moving them while this sorts
+            List<Object[]> oldest = new ArrayList<>(signatures.size());
+            signatures.forEach((signature, o) -> oldest.add(new Object[] {signature, o, o.getWindowStart()}));
+            oldest.sort(Comparator.comparingLong(e -> (Long) e[2]));
+            for (int i = 0; i < excess && i < oldest.size(); i++)
+                signatures.remove(oldest.get(i)[0], oldest.get(i)[1]);
+        }
+    }
+
+    /**
+     * Gets how many times a command failed with an exception.
+     * @param command The path of the command, which is its name unless it is a subcommand, such as <code>db backup start</code>.
+     * @return How many exceptions it failed with.
+     */
+    public long getErrorCount(String command) {
+        LongAdder count = perCommand.get(command);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * Gets how many times every command failed with an exception.
+     * @return The number of exceptions by command path, sorted by path.
+     */
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        perCommand.forEach((name, count) -> counts.put(name, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Gets the last errors that were reported, newest first.
+     * @return A copy of the recent errors.
+     */
+    public List<ErrorRecord> getRecentErrors() {
+        List<ErrorRecord> list = new ArrayList<>();
+        long last = next.get();
+        for (long i = last - 1; i >= 0 && i >= last - recent.length(); i--) {
+            ErrorRecord record = recent.get((int) (i % recent.length()));
+            if(record != null)
+                list.add(record);
+        }
+        return list;
+    }
+
+    /**
+     * Gets how many exceptions were reported.
+     * @return The number of exceptions.
+     */
+    public long getReported() { return reported.sum(); }
+
+    /**
+     * Gets how many exceptions were only counted, because their signature was already rendered in the window.
+     * @return The number of suppressed traces.
+     */
+    public long getSuppressed() { return suppressed.sum(); }
+
+    /**
+     * Gets how many different signatures are remembered.
+     * @return The number of signatures.
+     */
+    public int getSignatures() { return signatures.size(); }
+
+    /**
+     * Forgets every signature, so the next exception of every signature is rendered in full again. Counters and recent errors are kept.
+     */
+    public void resetSignatures() {
+        signatures.clear();
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ reported=%s, suppressed=%s, signatures=%s, windowms=%s, commands=%s }", getReported(), getSuppressed(), getSignatures(), TimeUnit.NANOSECONDS.toMillis(windowNanos), getErrorCounts()).toString();
+    }
+
+    /**
+     * An exception that a command failed with.
+     */
+    public static class ErrorRecord {
+        private final long timestamp;
+        private final String command;
+        private final Throwable exception;
+
+        ErrorRecord(long timestamp, String command, Throwable exception) {
+            this.timestamp = timestamp;
+            this.command = command;
+            this.exception = exception;
+        }
+
+        /**
+         * Gets when the exception was reported.
+         * @return The time in milliseconds since the epoch.
+         */
+        public long getTimestamp() { return timestamp; }
+
+        /**
+         * Gets the path of the command that failed, which is its name unless it is a subcommand.
+         * @return The path of the command.
+         */
+        public String getCommand() { return command; }
+
+        /**
+         * Gets the exception the command failed with.
+         * @return The exception.
+         */
+        public Throwable getException() { return exception; }
+
+        /**
+         * Renders the full stack trace of the exception.
+         * @return The stack trace.
+         */
+        public String getTrace() {
+            StringWriter trace = new StringWriter();
+            exception.printStackTrace(new PrintWriter(trace));
+            return trace.toString();
+        }
+
+        /**
+         * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+         * @return A String version of this object.
+         */
+        public String toString() {
+            return new Formatter().format("{ timestamp=%s, command=%s, exception=%s }", timestamp, command, exception).toString();
+        }
+    }
+
+    /**
+     * The class and top frames of an exception and its causes, which are the same every time the same bug throws.
+     */
+    private static final class Signature {
+        private final Object[] parts;
+        private final int hash;
+
+        Signature(Throwable ex) {
+            List<Object> list = new ArrayList<>();
+            for (Throwable t = ex; t != null && list.size() < 4 * (SIGNATURE_FRAMES + 1); t = t.getCause() == t ? null : t.getCause()) {
+                list.add(t.getClass());
+                StackTraceElement[] frames = t.getStackTrace();
+                list.addAll(Arrays.asList(frames).subList(0, Math.min(SIGNATURE_FRAMES, frames.length)));
+            }
+            this.parts = list.toArray();
+            this.hash = Arrays.hashCode(parts);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Signature && hash == ((Signature) o).hash && Arrays.equals(parts, ((Signature) o).parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * How often a signature occurred in its current window.
+     */
+    private static final class Occurrences {
+        long windowStart;
+        long count;
+        boolean printed;
+
+        Occurrences(long now) {
+            this.windowStart = now;
+        }
+
+        synchronized long getWindowStart() {
+            return windowStart;
+        }
+
+        /**
+         * Counts an occurrence.
+         * @return How many times it repeated in the window, or if it should be rendered in full, <code>-1 - (the number of occurrences in the last window that were not rendered)</code>.
+         */
+        synchronized long occur(long now, long windowNanos) {
+            if(!printed || now - windowStart >= windowNanos) {
+                long before = printed ? count - 1 : 0;
+                windowStart = now;
+                count = 1;
+                printed = true;
+                return -1 - Math.max(0, before);
+            }
+            return ++count - 1;
+        }
+    }
+}
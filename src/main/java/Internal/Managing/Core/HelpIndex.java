@@ -0,0 +1,305 @@
+package Internal.Managing.Core;
+
+import Internal.Managing.Commands.Category;
+import Internal.Managing.Commands.Command;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An index of commands for the help command, that finds the commands of a category, the commands whose name starts with a prefix, or the commands whose name
+ * contains a piece of text, without going over every command.<br>
+ * Commands are sorted by name, so a prefix is a range of them. Every category, and every piece of 1 to 3 letters of a name (its n-grams), has the sorted positions of
+ * the commands that have it. A search walks the smallest of these lists that its filters allow, and checks the other filters on every command it passes.
+ * Results are streamed in order of their names, and are never collected, so a search takes the same memory however many commands match.<br>
+ * An index is an immutable snapshot of the commands. Use {@link CommandManager#getHelpIndex()} to get one that is current.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * HelpIndex index = manager.getHelpIndex();
+ * Iterator&lt;Command&gt; it = index.find(new HelpIndex.Filter().prefix("db").contains("back"), null);
+ * while(it.hasNext())
+ *     System.out.println(it.next().getName());
+ *
+ * # The next page starts after the last command of this one
+ * index.find(filter, HelpIndex.cursorOf(last));
+ * </pre></code></blockquote>
+ */
+public class HelpIndex {
+    /** The longest n-grams that are indexed. Longer text is searched with the rarest of its n-grams of this length. */
+    private static final int MAX_GRAM = 3;
+
+    private final Command[] commands;
+    private final String[] names;
+    private final Map<Long, int[]> grams = new HashMap<>();
+    private final Map<Category, int[]> categories = new IdentityHashMap<>();
+
+    /**
+     * A search of a {@link HelpIndex}. Every filter that is set has to match. Matching ignores case.
+     */
+    public static final class Filter {
+        private Category category;
+        private String prefix;
+        private String contains;
+        private boolean hidden;
+
+        /**
+         * Only matches the commands of a category.
+         * @param category The category, or <code>null</code> for every category.
+         * @return This filter (just to chain the methods :) )
+         */
+        public Filter category(Category category) {
+            this.category = category;
+            return this;
+        }
+
+        /**
+         * Only matches the commands whose name starts with a prefix.
+         * @param prefix The prefix, or <code>null</code> for any name.
+         * @return This filter (just to chain the methods :) )
+         */
+        public Filter prefix(String prefix) {
+            this.prefix = prefix != null && !prefix.isEmpty() ? prefix.toLowerCase(Locale.ROOT) : null;
+            return this;
+        }
+
+        /**
+         * Only matches the commands whose name contains a piece of text.
+         * @param contains The text, or <code>null</code> for any name.
+         * @return This filter (just to chain the methods :) )
+         */
+        public Filter contains(String contains) {
+            this.contains = contains != null && !contains.isEmpty() ? contains.toLowerCase(Locale.ROOT) : null;
+            return this;
+        }
+
+        /**
+         * Sets whether or not the commands of hidden categories match. They do not by default.
+         * @param hidden Whether or not to match hidden commands.
+         * @return This filter (just to chain the methods :) )
+         */
+        public Filter hidden(boolean hidden) {
+            this.hidden = hidden;
+            return this;
+        }
+
+        /**
+         * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+         * @return A String version of this object.
+         */
+        public String toString() {
+            return new Formatter().format("{ category=%s, prefix=%s, contains=%s, hidden=%s }", category != null ? category.getName() : null, prefix, contains, hidden).toString();
+        }
+    }
+
+    /**
+     * Builds a new index over commands.
+     * @param commands The commands to index.
+     */
+    public HelpIndex(Command[] commands) {
+        this.commands = commands.clone();
+        Arrays.sort(this.commands, Comparator.comparing(HelpIndex::cursorOf));
+        this.names = new String[this.commands.length];
+
+        Map<Long, Postings> grams = new HashMap<>();
+        Map<Category, Postings> categories = new IdentityHashMap<>();
+        for (int i = 0; i < this.commands.length; i++) {
+            String name = cursorOf(this.commands[i]);
+            names[i] = name;
+            for (int n = 1; n <= MAX_GRAM; n++) {
+                for (int at = 0; at + n <= name.length(); at++)
+                    grams.computeIfAbsent(gram(name, at, n), k -> new Postings()).add(i);
+            }
+            if(this.commands[i].getCategory() != null)
+                categories.computeIfAbsent(this.commands[i].getCategory(), k -> new Postings()).add(i);
+        }
+        grams.forEach((gram, postings) -> this.grams.put(gram, postings.toArray()));
+        categories.forEach((category, postings) -> this.categories.put(category, postings.toArray()));
+    }
+
+    /**
+     * Finds the commands that match a filter, in order of their names. The commands are found one at a time, as the iterator is advanced.
+     * @param filter The filter.
+     * @param after A cursor from {@link #cursorOf(Command)}: only commands after it are found. Use <code>null</code> to start at the beginning.
+     * @return An iterator over the matching commands.
+     */
+    public Iterator<Command> find(Filter filter, String after) {
+        // A prefix is a range of names
+        int from = 0;
+        int to = names.length;
+        if(filter.prefix != null) {
+            from = lowerBound(filter.prefix);
+            to = lowerBound(filter.prefix + Character.MAX_VALUE);
+        }
+        if(after != null)
+            from = Math.max(from, upperBound(after.toLowerCase(Locale.ROOT)));
+
+        // Walk the shortest list of positions that the filters allow
+        int[] postings = null;
+        if(filter.category != null)
+            postings = categories.getOrDefault(filter.category, new int[0]);
+        if(filter.contains != null) {
+            int[] text = textPostings(filter.contains);
+            if(postings == null || text.length < postings.length)
+                postings = text;
+        }
+        if(postings != null && postings.length >= to - from)
+            postings = null;
+
+        return new Search(filter, postings, from, to);
+    }
+
+    /**
+     * Gets the cursor of a command, which is the position after it for {@link #find(Filter, String)}.
+     * @param command The command.
+     * @return The cursor, which is the lower case name of the command.
+     */
+    public static String cursorOf(Command command) {
+        return command.getName() != null ? command.getName().toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * Gets how many commands are in this index.
+     * @return The number of commands.
+     */
+    public int size() {
+        return commands.length;
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ commands=%s, grams=%s, categories=%s }", commands.length, grams.size(), categories.size()).toString();
+    }
+
+    // The positions of the names that can contain the text: those of the text itself, or of its rarest n-gram.
+    private int[] textPostings(String text) {
+        if(text.length() <= MAX_GRAM)
+            return grams.getOrDefault(gram(text, 0, text.length()), new int[0]);
+
+        int[] best = null;
+        for (int at = 0; at + MAX_GRAM <= text.length(); at++) {
+            int[] p = grams.get(gram(text, at, MAX_GRAM));
+            if(p == null)
+                return new int[0];
+            if(best == null || p.length < best.length)
+                best = p;
+        }
+        return best;
+    }
+
+    // Packs the n-gram at a position of a name into a key, with its length on top of its characters.
+    private static long gram(String name, int at, int n) {
+        long key = n;
+        for (int i = 0; i < n; i++)
+            key = key << 16 | name.charAt(at + i);
+        return key;
+    }
+
+    // The first position whose name is not before the key.
+    private int lowerBound(String key) {
+        int lo = 0, hi = names.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if(names[mid].compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // The first position whose name is after the key.
+    private int upperBound(String key) {
+        int lo = 0, hi = names.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if(names[mid].compareTo(key) <= 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Walks a range of positions, or the positions of a list that are in the range, and stops at every command that matches the filter.
+     */
+    private final class Search implements Iterator<Command> {
+        private final Filter filter;
+        private final int[] postings;
+        private final int to;
+        private int at;
+        private Command next;
+
+        Search(Filter filter, int[] postings, int from, int to) {
+            this.filter = filter;
+            this.postings = postings;
+            this.to = to;
+            if(postings == null) {
+                this.at = from;
+            } else {
+                int i = Arrays.binarySearch(postings, from);
+                this.at = i >= 0 ? i : -i - 1;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                int position;
+                if(postings == null) {
+                    if(at >= to) return false;
+                    position = at++;
+                } else {
+                    if(at >= postings.length || postings[at] >= to) return false;
+                    position = postings[at++];
+                }
+                if(matches(position))
+                    next = commands[position];
+            }
+            return true;
+        }
+
+        @Override
+        public Command next() {
+            if(!hasNext())
+                throw new NoSuchElementException();
+            Command c = next;
+            next = null;
+            return c;
+        }
+
+        private boolean matches(int position) {
+            Command c = commands[position];
+            if(filter.category != null && c.getCategory() != filter.category) return false;
+            if(filter.contains != null && !names[position].contains(filter.contains)) return false;
+            if(!filter.hidden && c.getCategory() != null && c.getCategory().isHidden()) return false;
+            return true;
+        }
+    }
+
+    /**
+     * A growable list of positions, in the order they were added, without repeats of the last one.
+     */
+    private static final class Postings {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if(size > 0 && values[size - 1] == value)
+                return;
+            if(size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
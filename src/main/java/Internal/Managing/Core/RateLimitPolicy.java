@@ -0,0 +1,14 @@
+package Internal.Managing.Core;
+
+/**
+ * What to do with a command when it goes over a rate limit.
+ * @see CommandConfigurator#setRateLimitPolicy(RateLimitPolicy)
+ */
+public enum RateLimitPolicy {
+    /** The command is not run, and the rate limit message is sent instead. */
+    REJECT,
+    /** The caller waits until the command is allowed, and then the command runs. */
+    DELAY,
+    /** The command is put in a queue and runs in the background once it is allowed. The caller does not wait for it. */
+    QUEUE
+}
@@ -0,0 +1,72 @@
+package Internal.Managing.Core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket. It allows <code>permitsPerSecond</code> commands on average, with bursts of up to <code>burst</code> commands at once.<br>
+ * The bucket is stored as a single timestamp (the time at which it will be full again), which is updated with a compare-and-set, so acquiring a permit never locks.
+ * @see CommandConfigurator#setGlobalRateLimit(double, int)
+ */
+public class RateLimiter {
+    private final long interval;
+    private final long tolerance;
+    private final AtomicLong fullAt = new AtomicLong(System.nanoTime());
+
+    /**
+     * Creates a new, full token bucket.
+     * @param permitsPerSecond How many permits are added to the bucket every second.
+     * @param burst How many permits the bucket holds at most.
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if(permitsPerSecond <= 0 || burst <= 0)
+            throw new IllegalArgumentException("The rate and burst of a rate limit must be positive!");
+
+        this.interval = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.tolerance = interval * burst;
+    }
+
+    /**
+     * Takes a permit if one is available right now.
+     * @param now The current time, from {@link System#nanoTime()}.
+     * @return Whether or not a permit was taken.
+     */
+    public boolean tryAcquire(long now) {
+        for(;;) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            if(next - now > tolerance)
+                return false;
+            if(fullAt.compareAndSet(current, next))
+                return true;
+        }
+    }
+
+    /**
+     * Reserves the next permit, even if it is not available yet.
+     * @param now The current time, from {@link System#nanoTime()}.
+     * @return How long to wait in nanoseconds before the permit can be used, or <code>0</code> if it can be used right now.
+     */
+    public long reserve(long now) {
+        for(;;) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            if(fullAt.compareAndSet(current, next))
+                return Math.max(0L, next - tolerance - now);
+        }
+    }
+
+    /** Gives back a permit that was taken by {@link RateLimiter#tryAcquire(long)} or {@link RateLimiter#reserve(long)}, but not used. */
+    public void refund() {
+        fullAt.addAndGet(-interval);
+    }
+
+    /**
+     * Checks whether or not the bucket is full, meaning it has not been used for a while.
+     * @param now The current time, from {@link System#nanoTime()}.
+     * @return Whether or not the bucket is full.
+     */
+    public boolean isIdle(long now) {
+        return fullAt.get() - now <= 0;
+    }
+}
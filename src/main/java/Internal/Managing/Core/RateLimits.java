@@ -0,0 +1,115 @@
+package Internal.Managing.Core;
+
+import Internal.Managing.Commands.Command;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The rate limits of a {@link CommandManager}, at every scope: global, per session, per command and per category.
+ * A command only runs if it is allowed by every limit that applies to it. This is built by the {@link CommandConfigurator}, and should not be created manually.
+ */
+class RateLimits {
+    // Session buckets are swept once there are this many of them, so idle sessions do not keep their buckets forever.
+    private static final int SESSION_SWEEP_THRESHOLD = 4096;
+
+    private double globalRate, sessionRate;
+    private int globalBurst, sessionBurst;
+    private final Map<String, double[]> commandSpecs = new HashMap<>();
+    private final Map<String, double[]> categorySpecs = new HashMap<>();
+
+    private RateLimiter global;
+    private final ConcurrentHashMap<String, RateLimiter> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RateLimiter> commands = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RateLimiter> categories = new ConcurrentHashMap<>();
+
+    RateLimits() {}
+
+    // Copies the limits of another object, with fresh buckets.
+    RateLimits(RateLimits specs) {
+        if(specs.globalRate > 0) setGlobal(specs.globalRate, specs.globalBurst);
+        if(specs.sessionRate > 0) setSession(specs.sessionRate, specs.sessionBurst);
+        specs.commandSpecs.forEach((k, v) -> setCommand(k, v[0], (int) v[1]));
+        specs.categorySpecs.forEach((k, v) -> setCategory(k, v[0], (int) v[1]));
+    }
+
+    void setGlobal(double rate, int burst) {
+        this.globalRate = rate;
+        this.globalBurst = burst;
+        this.global = new RateLimiter(rate, burst);
+    }
+
+    void setSession(double rate, int burst) {
+        new RateLimiter(rate, burst); // Validates the limit
+        this.sessionRate = rate;
+        this.sessionBurst = burst;
+    }
+
+    void setCommand(String name, double rate, int burst) {
+        commandSpecs.put(name.toLowerCase(), new double[] {rate, burst});
+        commands.put(name.toLowerCase(), new RateLimiter(rate, burst));
+    }
+
+    void setCategory(String name, double rate, int burst) {
+        categorySpecs.put(name, new double[] {rate, burst});
+        categories.put(name, new RateLimiter(rate, burst));
+    }
+
+    boolean isEmpty() {
+        return global == null && sessionRate <= 0 && commands.isEmpty() && categories.isEmpty();
+    }
+
+    /**
+     * Acquires a permit from every limit that applies to the commands.
+     * @param sessionId The session the commands came from.
+     * @param cmds The commands that will run. There is more than one for a pipeline.
+     * @param wait Whether or not to reserve permits that are not available yet (for {@link RateLimitPolicy#DELAY} and {@link RateLimitPolicy#QUEUE}).
+     * @param maxWaitNanos The longest that a reserved permit may be waited for.
+     * @return How long to wait in nanoseconds before running the commands, or <code>-1</code> if they are rejected.
+     */
+    long acquire(String sessionId, Command[] cmds, boolean wait, long maxWaitNanos) {
+        RateLimiter[] taken = new RateLimiter[2 + cmds.length * 2];
+        int count = 0;
+
+        taken[count++] = global;
+        if(sessionRate > 0) taken[count++] = session(sessionId);
+        for(Command c : cmds) {
+            if(!commands.isEmpty()) taken[count++] = commands.get(c.getPath().toLowerCase());
+            if(!categories.isEmpty() && c.getCategory().getName() != null) taken[count++] = categories.get(c.getCategory().getName());
+        }
+
+        long now = System.nanoTime();
+        long longest = 0;
+        for(int i = 0; i < count; i++) {
+            RateLimiter limiter = taken[i];
+            if(limiter == null) continue;
+
+            if(wait) {
+                longest = Math.max(longest, limiter.reserve(now));
+                if(longest <= maxWaitNanos) continue;
+            } else if(limiter.tryAcquire(now)) {
+                continue;
+            }
+
+            // Give back every permit that was already taken
+            for(int j = wait ? i : i - 1; j >= 0; j--)
+                if(taken[j] != null) taken[j].refund();
+            return -1;
+        }
+
+        return longest;
+    }
+
+    // Gets the bucket of a session, creating it if needed.
+    private RateLimiter session(String sessionId) {
+        RateLimiter limiter = sessions.get(sessionId);
+        if(limiter != null) return limiter;
+
+        if(sessions.size() >= SESSION_SWEEP_THRESHOLD) {
+            long now = System.nanoTime();
+            sessions.values().removeIf(l -> l.isIdle(now));
+        }
+        return sessions.computeIfAbsent(sessionId, k -> new RateLimiter(sessionRate, sessionBurst));
+    }
+}
@@ -0,0 +1,185 @@
+package Internal.Managing.Core;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.CommandMessage;
+import Internal.Managing.Commands.Flags;
+
+import java.util.Arrays;
+import java.util.Formatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the output of cacheable commands (see {@link Command#cacheable}). Repeated invocations with the same normalized name, flags and arguments are replayed from the cache, instead of running the command again.<br>
+ * Every entry has a weight, which is the length of its output. When the total weight goes over the maximum, the least recently used entries are evicted. Entries also expire after the TTL of their command.
+ * @see CommandConfigurator#setResultCacheWeight(long)
+ */
+public class ResultCache {
+    private final long maxWeight;
+    private long weight;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static class Entry {
+        final String output;
+        final long expiresAt;
+
+        Entry(String output, long expiresAt) {
+            this.output = output;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Creates a new, empty cache.
+     * @param maxWeight The maximum total length of all cached output.
+     */
+    public ResultCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Builds the key of an input message: the name of the command, its no parameter flags (sorted), its flags with parameters (in the order they were declared), and its arguments.
+     * Aliases, the order of the flags, and extra whitespace do not change the key.
+     * @param cmd The command of the input message.
+     * @param message The parsed input message.
+     * @return The key of the input message.
+     */
+    public static String key(Command cmd, CommandMessage message) {
+        StringBuilder key = new StringBuilder(64).append(cmd.getPath().toLowerCase());
+
+        String[] noParams = message.getNoParamsFlags();
+        if(noParams.length > 0) {
+            String[] sorted = noParams.clone();
+            Arrays.sort(sorted);
+            for(String f : sorted) key.append('\0').append(f);
+        }
+
+        Flags flags = cmd.getFlags();
+        Map<String, String> params = message.getFlagsAndArguments();
+        for(String f : flags.getParamsFlags()) {
+            String value = params.get(f);
+            if(value != null) key.append('\0').append(f).append('\1').append(value);
+        }
+
+        key.append('\2');
+        String[] args = message.getArgsArray();
+        for(int i = 0; i < args.length; i++) {
+            if(i > 0) key.append(' ');
+            key.append(args[i]);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Gets the cached output for a key, if it is there and has not expired.
+     * @param key The key, from {@link ResultCache#key(Command, CommandMessage)}.
+     * @return The cached output, or <code>null</code> if there is none.
+     */
+    public String get(String key) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if(e != null && e.expiresAt - now > 0) {
+                hits.increment();
+                return e.output;
+            }
+            if(e != null) remove(key, e);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches the output of a command.
+     * @param key The key, from {@link ResultCache#key(Command, CommandMessage)}.
+     * @param output The output of the command.
+     * @param ttlMillis How long the output stays in the cache, in milliseconds.
+     */
+    public void put(String key, String output, long ttlMillis) {
+        if(output.length() > maxWeight) return;
+
+        Entry entry = new Entry(output, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+        synchronized (this) {
+            Entry old = entries.put(key, entry);
+            if(old != null) weight -= old.output.length();
+            weight += output.length();
+
+            // Evict the least recently used entries
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (weight > maxWeight && it.hasNext()) {
+                Entry e = it.next().getValue();
+                it.remove();
+                weight -= e.output.length();
+                evictions.increment();
+            }
+        }
+    }
+
+    /** Removes every entry from the cache. */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private void remove(String key, Entry e) {
+        entries.remove(key);
+        weight -= e.output.length();
+    }
+
+    /**
+     * Gets how many lookups found an entry.
+     * @return The amount of hits.
+     */
+    public long getHits() { return hits.sum(); }
+
+    /**
+     * Gets how many lookups did not find an entry.
+     * @return The amount of misses.
+     */
+    public long getMisses() { return misses.sum(); }
+
+    /**
+     * Gets how many entries were evicted to stay under the maximum weight.
+     * @return The amount of evictions.
+     */
+    public long getEvictions() { return evictions.sum(); }
+
+    /**
+     * Gets the fraction of lookups that found an entry.
+     * @return The hit rate, from <code>0</code> to <code>1</code>.
+     */
+    public double getHitRate() {
+        long h = getHits(), total = h + getMisses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Gets the total length of all cached output.
+     * @return The current weight of the cache.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Gets how many entries are in the cache.
+     * @return The amount of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ size=%s, weight=%s, maxweight=%s, hits=%s, misses=%s, evictions=%s, hitrate=%.3f }", size(), getWeight(), maxWeight, getHits(), getMisses(), getEvictions(), getHitRate()).toString();
+    }
+}
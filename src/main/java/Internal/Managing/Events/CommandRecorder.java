@@ -0,0 +1,120 @@
+package Internal.Managing.Events;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Formatter;
+
+/**
+ * Starts and stops Java Flight Recorder recordings of the manager's events, so a latency spike can be tracked down to the phase it happened in:
+ * reading a line ({@link LineReadEvent}), finding the command ({@link LookupEvent}), parsing the message ({@link ParseEvent}), running it
+ * ({@link ExecuteEvent}), and flushing its replies ({@link FlushEvent}).<br>
+ * The events are only built into records while a recording is running. Otherwise, they are turned off by the JVM, and cost nothing. Recordings
+ * can be opened with JDK Mission Control, or with <code>jfr print --events JCommands.* file.jfr</code>.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * CommandRecorder recorder = manager.getRecorder();
+ * recorder.start(Path.of("commands.jfr"), true);
+ * ...
+ * Path file = recorder.stop();
+ * </pre></code></blockquote>
+ * @see Internal.Commands.Record
+ */
+public class CommandRecorder implements AutoCloseable {
+    private static final String[] EVENTS = {"JCommands.LineRead", "JCommands.Lookup", "JCommands.Parse", "JCommands.Execute", "JCommands.Flush"};
+
+    private Recording recording;
+    private Path destination;
+
+    /**
+     * Starts recording to a file. The file is written when the recording stops.
+     * @param file The file to write the recording to.
+     * @param jvmEvents Whether or not to record the JVM's default events as well, such as garbage collections and thread parks.
+     * @throws IllegalStateException If a recording is already running.
+     * @throws IOException If the file can not be written to.
+     */
+    public synchronized void start(Path file, boolean jvmEvents) throws IOException {
+        if(recording != null)
+            throw new IllegalStateException("A recording is already running!");
+
+        Recording r;
+        if(jvmEvents) {
+            try {
+                r = new Recording(Configuration.getConfiguration("default"));
+            } catch (ParseException ex) {
+                throw new IOException("The default recording settings can not be read!", ex);
+            }
+        } else {
+            r = new Recording();
+        }
+        try {
+            for (String event : EVENTS)
+                r.enable(event).withoutStackTrace();
+            r.setName("JCommands");
+            r.setToDisk(true);
+            r.setDestination(file);
+            r.start();
+        } catch (IOException | RuntimeException ex) {
+            // Such as a file that can not be written to, so the recording would otherwise stay registered with JFR
+            r.close();
+            throw ex;
+        }
+
+        recording = r;
+        destination = file;
+    }
+
+    /**
+     * Stops the recording, and writes it to its file.
+     * @return The file the recording was written to, or <code>null</code> if nothing was recording.
+     */
+    public synchronized Path stop() {
+        if(recording == null)
+            return null;
+
+        Path file = destination;
+        try {
+            recording.stop();
+        } finally {
+            recording.close();
+            recording = null;
+            destination = null;
+        }
+        return file;
+    }
+
+    /**
+     * Checks whether or not a recording is running.
+     * @return Whether or not a recording is running.
+     */
+    public synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Gets the file that the running recording is written to.
+     * @return The file, or <code>null</code> if nothing is recording.
+     */
+    public synchronized Path getDestination() {
+        return destination;
+    }
+
+    /**
+     * Stops the recording, if one is running.
+     */
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public synchronized String toString() {
+        return new Formatter().format("{ recording=%s, destination=%s }", recording != null, destination).toString();
+    }
+}
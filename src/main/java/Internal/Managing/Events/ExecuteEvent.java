@@ -0,0 +1,43 @@
+package Internal.Managing.Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for running a command. For a command that deferred its completion, it lasts until the deferred work is done.
+ * @see CommandRecorder
+ */
+@Name("JCommands.Execute")
+@Label("Command Execute")
+@Category("JCommands")
+@Description("A command ran.")
+@StackTrace(false)
+public final class ExecuteEvent extends jdk.jfr.Event {
+    @Label("Command")
+    public String command;
+
+    @Label("Session")
+    public String session;
+
+    @Label("Input Length")
+    @Description("The length of the input message in characters.")
+    public int inputLength;
+
+    @Label("Output Length")
+    @Description("The number of characters the command replied with.")
+    public long outputLength;
+
+    @Label("Exit Status")
+    public int exitStatus;
+
+    @Label("Deferred")
+    @Description("Whether or not the command finished in the background.")
+    public boolean deferred;
+
+    @Label("Worker")
+    @Description("Whether or not the command ran in a worker process.")
+    public boolean worker;
+}
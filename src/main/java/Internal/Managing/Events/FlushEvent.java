@@ -0,0 +1,28 @@
+package Internal.Managing.Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for flushing the replies of a command to the console.
+ * @see CommandRecorder
+ */
+@Name("JCommands.Flush")
+@Label("Output Flush")
+@Category("JCommands")
+@Description("The replies of a command were flushed.")
+@StackTrace(false)
+public final class FlushEvent extends jdk.jfr.Event {
+    @Label("Command")
+    public String command;
+
+    @Label("Session")
+    public String session;
+
+    @Label("Output Length")
+    @Description("The number of characters the command replied with.")
+    public long outputLength;
+}
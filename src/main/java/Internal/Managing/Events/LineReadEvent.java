@@ -0,0 +1,22 @@
+package Internal.Managing.Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for reading a line of console input. Its duration includes the time spent waiting for the user to type.
+ * @see CommandRecorder
+ */
+@Name("JCommands.LineRead")
+@Label("Line Read")
+@Category("JCommands")
+@Description("A line of console input was read.")
+@StackTrace(false)
+public final class LineReadEvent extends jdk.jfr.Event {
+    @Label("Length")
+    @Description("The length of the line in characters, or -1 at the end of the input.")
+    public int length;
+}
@@ -0,0 +1,33 @@
+package Internal.Managing.Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for finding the command of an input message, or the commands of every stage of a pipeline.
+ * @see CommandRecorder
+ */
+@Name("JCommands.Lookup")
+@Label("Command Lookup")
+@Category("JCommands")
+@Description("The command of an input message was looked up.")
+@StackTrace(false)
+public final class LookupEvent extends jdk.jfr.Event {
+    @Label("Command")
+    @Description("The path of the command that was found, or null if there is none.")
+    public String command;
+
+    @Label("Session")
+    public String session;
+
+    @Label("Length")
+    @Description("The length of the input message in characters.")
+    public int length;
+
+    @Label("Stages")
+    @Description("The number of stages of the pipeline, or 1 for a single command.")
+    public int stages;
+}
@@ -0,0 +1,33 @@
+package Internal.Managing.Events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for parsing the flags and arguments of an input message into a {@link Internal.Managing.Commands.CommandMessage}.
+ * @see CommandRecorder
+ */
+@Name("JCommands.Parse")
+@Label("Message Parse")
+@Category("JCommands")
+@Description("An input message was parsed into its flags and arguments.")
+@StackTrace(false)
+public final class ParseEvent extends jdk.jfr.Event {
+    @Label("Command")
+    public String command;
+
+    @Label("Length")
+    @Description("The length of the input message in characters.")
+    public int length;
+
+    @Label("Flags")
+    @Description("The number of flags that were found.")
+    public int flags;
+
+    @Label("Malformed")
+    @Description("Whether or not a flag was missing its parameter, or had a malformed one.")
+    public boolean malformed;
+}
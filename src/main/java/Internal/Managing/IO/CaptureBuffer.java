@@ -0,0 +1,85 @@
+package Internal.Managing.IO;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A {@link ReplySink} that captures replies into memory, instead of printing them. This is used to return the output of a command to the code that invoked it,
+ * such as {@link Internal.Processing.CommandProcessor#invoke(String)}.<br>
+ * Buffers are pooled, so that capturing output does not allocate a new buffer (or a new {@link java.io.PrintStream}) for every command:
+ * <blockquote><code><pre>
+ * CaptureBuffer buffer = CaptureBuffer.acquire();
+ * try {
+ *     ...
+ *     String output = buffer.toString();
+ * } finally {
+ *     buffer.release();
+ * }
+ * </pre></code></blockquote>
+ * A buffer must not be used after it is released.
+ */
+public class CaptureBuffer implements ReplySink, CharSequence {
+    // Buffers that grew bigger than this are not returned to the pool, so one huge reply does not stay in memory forever.
+    private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+    private static final ArrayBlockingQueue<CaptureBuffer> POOL = new ArrayBlockingQueue<>(64);
+
+    private final StringBuilder text = new StringBuilder(256);
+
+    private CaptureBuffer() {}
+
+    /**
+     * Takes an empty buffer from the pool, or creates a new one if the pool is empty.
+     * @return An empty buffer.
+     */
+    public static CaptureBuffer acquire() {
+        CaptureBuffer buffer = POOL.poll();
+        return buffer != null ? buffer : new CaptureBuffer();
+    }
+
+    /** Clears this buffer and returns it to the pool. */
+    public void release() {
+        synchronized (this) {
+            if(text.capacity() > MAX_RETAINED_CAPACITY) return;
+            text.setLength(0);
+        }
+        POOL.offer(this);
+    }
+
+    @Override
+    public synchronized void print(CharSequence text) {
+        this.text.append(text);
+    }
+
+    @Override
+    public synchronized void println(CharSequence text) {
+        this.text.append(text).append('\n');
+    }
+
+    @Override
+    public synchronized void println() {
+        this.text.append('\n');
+    }
+
+    @Override
+    public synchronized int length() {
+        return text.length();
+    }
+
+    @Override
+    public synchronized char charAt(int index) {
+        return text.charAt(index);
+    }
+
+    @Override
+    public synchronized CharSequence subSequence(int start, int end) {
+        return text.substring(start, end);
+    }
+
+    /**
+     * Copies the captured output into a String.
+     * @return The captured output.
+     */
+    @Override
+    public synchronized String toString() {
+        return text.toString();
+    }
+}
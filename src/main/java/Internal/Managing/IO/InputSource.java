@@ -0,0 +1,44 @@
+package Internal.Managing.IO;
+
+/**
+ * The source of the input lines that a command reads while it runs, such as with {@link Internal.Managing.Commands.InputEvent#waitForNextEvent()}.
+ * For console input, this reads the next line from the input stream. For a command inside of a pipeline, this reads the output of the previous command.
+ */
+@FunctionalInterface
+public interface InputSource {
+    /** A source with no input at all. Commands that wait for input read <code>null</code> straight away. */
+    InputSource EMPTY = new InputSource() {
+        @Override
+        public String readLine() {
+            return null;
+        }
+
+        @Override
+        public boolean isInteractive() {
+            return false;
+        }
+    };
+
+    /**
+     * Reads the next line of input, blocking until one is available.
+     * @return The next line, or <code>null</code> if there is no more input.
+     */
+    String readLine();
+
+    /**
+     * Checks whether or not a person is typing this input, in which case the input prefix is printed before waiting. Default is <code>true</code>.
+     * @return Whether or not this source is interactive.
+     */
+    default boolean isInteractive() {
+        return true;
+    }
+
+    /**
+     * Gets the prompt that is printed to the replies of a command before it waits for this input, such as the prompt of a
+     * {@link Internal.Managing.Sessions.Session}. Default is <code>null</code>, which prints the manager's input prefix to its printstream instead.
+     * @return The prompt, or <code>null</code>.
+     */
+    default String getPrompt() {
+        return null;
+    }
+}
@@ -0,0 +1,190 @@
+package Internal.Managing.IO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A long-lived reader of UTF-8 lines from a channel. This is what the {@link Internal.Managing.Core.CommandManager} reads the console with.<br>
+ * The reader keeps one byte buffer, one char buffer and one line buffer for its whole life, and finds the ends of lines by scanning
+ * for <code>\n</code>, so reading a line allocates nothing but the returned String. Nothing that was read ahead is ever lost between lines.<br>
+ * Lines end with <code>\n</code> or <code>\r\n</code>. Lines longer than the maximum line length are skipped entirely, and
+ * {@link LineTooLongException} is thrown once the end of the line is reached, so a huge paste can never fill the heap.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * LineReader reader = new LineReader(System.in, 8192);
+ * String line;
+ * while ((line = reader.readLine()) != null)
+ *     System.out.println(line);
+ * </pre></code></blockquote>
+ */
+public class LineReader implements InputSource, AutoCloseable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ReadableByteChannel channel;
+    private final int maxLineLength;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder line = new StringBuilder();
+    private boolean eof;
+    private boolean flushed;
+
+    /**
+     * Creates a new reader of a channel.
+     * @param channel The channel to read from.
+     * @param maxLineLength The most characters a line can have.
+     */
+    public LineReader(ReadableByteChannel channel, int maxLineLength) {
+        if(maxLineLength < 1)
+            throw new IllegalArgumentException("The maximum line length must be positive!");
+        this.channel = channel;
+        this.maxLineLength = maxLineLength;
+        chars.flip();
+    }
+
+    /**
+     * Creates a new reader of an input stream. Unlike {@link java.nio.channels.Channels#newChannel(InputStream)}, interrupting a
+     * thread that is reading does not close the stream, so a command that is cancelled while it waits for input does not close the console.
+     * @param in The input stream to read from.
+     * @param maxLineLength The most characters a line can have.
+     */
+    public LineReader(InputStream in, int maxLineLength) {
+        this(new StreamChannel(in), maxLineLength);
+    }
+
+    /**
+     * Reads the next line, blocking until it is complete.
+     * @return The next line without its line terminator, or <code>null</code> at the end of the input.
+     * @throws LineTooLongException If the line is longer than the maximum line length. The line is skipped, and the next call reads the line after it.
+     * @throws UncheckedIOException If the channel can not be read.
+     */
+    @Override
+    public synchronized String readLine() {
+        line.setLength(0);
+        int length = 0;
+        boolean any = false;
+        // A \r is only part of the line if it is not followed by \n, so it is held back until the next character is known
+        boolean cr = false;
+
+        while (true) {
+            while (chars.hasRemaining()) {
+                char c = chars.get();
+                any = true;
+                if(c == '\n')
+                    return finish(length);
+                if(cr) {
+                    cr = false;
+                    length = append('\r', length);
+                }
+                if(c == '\r')
+                    cr = true;
+                else
+                    length = append(c, length);
+            }
+            if(!fill())
+                return any ? finish(length) : null;
+        }
+    }
+
+    /**
+     * Gets the most characters a line can have.
+     * @return The maximum line length.
+     */
+    public int getMaxLineLength() {
+        return maxLineLength;
+    }
+
+    /**
+     * Closes the channel.
+     * @throws IOException If the channel can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Adds a character to the line, and returns the new length. Stops counting past the maximum, so even an endless line can not overflow.
+    private int append(char c, int length) {
+        if(length > maxLineLength)
+            return length;
+        if(length < maxLineLength)
+            line.append(c);
+        return length + 1;
+    }
+
+    private String finish(int length) {
+        if(length > maxLineLength)
+            throw new LineTooLongException(maxLineLength);
+        return line.toString();
+    }
+
+    /**
+     * Decodes more characters into the char buffer.
+     * @return False at the end of the input.
+     */
+    private boolean fill() {
+        chars.clear();
+        try {
+            while (chars.position() == 0 && !flushed) {
+                if(eof) {
+                    bytes.flip();
+                    decoder.decode(bytes, chars, true);
+                    decoder.flush(chars);
+                    bytes.compact();
+                    flushed = true;
+                } else if(channel.read(bytes) < 0) {
+                    eof = true;
+                } else {
+                    bytes.flip();
+                    decoder.decode(bytes, chars, false);
+                    bytes.compact();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            chars.flip();
+        }
+        return chars.hasRemaining();
+    }
+
+    /**
+     * A channel over an input stream, that reads straight into the buffer's array and is not closed by interrupts.
+     */
+    private static class StreamChannel implements ReadableByteChannel {
+        private final InputStream in;
+        private boolean open = true;
+
+        StreamChannel(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int n = in.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+            if(n > 0)
+                dst.position(dst.position() + n);
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package Internal.Managing.IO;
+
+/**
+ * Thrown by a {@link LineReader} when a line is longer than its maximum line length. The line has been skipped when this is thrown.
+ */
+public class LineTooLongException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int maxLength;
+
+    /**
+     * Creates a new exception.
+     * @param maxLength The maximum line length.
+     */
+    public LineTooLongException(int maxLength) {
+        super("The line is longer than the maximum of " + maxLength + " characters!");
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Gets the maximum line length.
+     * @return The maximum line length.
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+}
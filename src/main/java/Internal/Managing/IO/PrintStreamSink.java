@@ -0,0 +1,46 @@
+package Internal.Managing.IO;
+
+import java.io.PrintStream;
+
+/**
+ * A {@link ReplySink} that prints to a {@link PrintStream}. This is the sink used for console input.
+ */
+public class PrintStreamSink implements ReplySink {
+    private final PrintStream out;
+
+    /**
+     * Creates a new sink over a printstream.
+     * @param out The printstream to print to.
+     */
+    public PrintStreamSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void print(CharSequence text) {
+        out.print(text);
+    }
+
+    @Override
+    public void println(CharSequence text) {
+        out.println(text);
+    }
+
+    @Override
+    public void println() {
+        out.println();
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    /**
+     * Gets the printstream this sink prints to.
+     * @return The printstream of this sink.
+     */
+    public PrintStream getPrintStream() {
+        return out;
+    }
+}
@@ -0,0 +1,31 @@
+package Internal.Managing.IO;
+
+import Internal.Managing.Commands.InputEvent;
+
+/**
+ * The destination of the replies of a command. Every {@link InputEvent} writes its replies to one of these, instead of writing to the
+ * manager's {@link java.io.PrintStream} directly. By default this is a {@link PrintStreamSink} over the printstream set in the configurator,
+ * but a command inside of a pipeline writes into the next command's input instead.
+ */
+public interface ReplySink {
+    /**
+     * Prints text, without terminating the line.
+     * @param text The text to print.
+     */
+    void print(CharSequence text);
+
+    /**
+     * Prints text, and then terminates the line.
+     * @param text The text to print.
+     */
+    default void println(CharSequence text) {
+        print(text);
+        println();
+    }
+
+    /** Terminates the current line. */
+    void println();
+
+    /** Flushes any buffered output. By default, this does nothing. */
+    default void flush() {}
+}
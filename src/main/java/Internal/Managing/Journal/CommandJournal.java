@@ -0,0 +1,317 @@
+package Internal.Managing.Journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only, binary journal of every input message dispatched by a {@link Internal.Managing.Core.CommandManager}.<br>
+ * The journal is a directory of fixed size segment files (<code>journal-0000000000000000.jcj</code>, ...), each memory-mapped
+ * while it is written, so appending a record is a copy into memory and never a system call (unless the
+ * {@link FsyncPolicy} is {@link FsyncPolicy#EVERY_WRITE}). When a segment is full, the journal rotates to the next one, and
+ * deletes the oldest segments beyond {@link #getMaxSegments()}.<br>
+ * <h1>Format:</h1>
+ * Every segment starts with the magic number <code>JCJ1</code>, followed by records of the form
+ * <blockquote><code><pre>
+ * int    length      (of the rest of the record, 0 marks the end of the segment)
+ * int    crc32c      (of the rest of the record)
+ * long   timestamp   (milliseconds since the epoch)
+ * long   duration    (nanoseconds)
+ * int    exit status
+ * short  session length, then the session id in UTF-8
+ * int    line length, then the input message in UTF-8
+ * </pre></code></blockquote>
+ * A record that was cut off by a crash fails its checksum, and the journal is read up to it.<br>
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * configurator.setJournal(Path.of("journal"));
+ * configurator.setJournalFsyncPolicy(FsyncPolicy.INTERVAL, 1000);
+ * CommandManager manager = configurator.build();
+ * ...
+ * try (JournalReader reader = new JournalReader(Path.of("journal"))) {
+ *     reader.stream().filter(r -&gt; r.getExitStatus() != 0).forEach(System.out::println);
+ * }
+ * </pre></code></blockquote>
+ */
+public class CommandJournal implements AutoCloseable {
+    /** The magic number at the start of every segment: <code>JCJ1</code>. */
+    static final int MAGIC = 0x4A434A31;
+    /** The size of a segment's header. */
+    static final int HEADER_SIZE = 4;
+    /** The size of a record's fixed fields, before the strings. */
+    static final int RECORD_HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 2 + 4;
+    /** The file name prefix of a segment. */
+    static final String SEGMENT_PREFIX = "journal-";
+    /** The file name suffix of a segment. */
+    static final String SEGMENT_SUFFIX = ".jcj";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final FsyncPolicy fsyncPolicy;
+    private final ScheduledFuture<?> syncTask;
+    private final CRC32C crc = new CRC32C();
+    private final List<Path> segments = new ArrayList<>();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private long segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private boolean dirty;
+    private boolean closed;
+
+    /**
+     * Opens a journal, creating the directory if needed. If the directory already holds a journal, new records are appended after its last record.
+     * @param directory The directory of the journal.
+     * @param segmentSize The size of every segment in bytes. Input messages longer than fit in a segment are cut off.
+     * @param maxSegments How many segments to keep, or <code>0</code> to keep all of them.
+     * @param fsyncPolicy When to force records to disk.
+     * @param fsyncInterval The interval between forces in milliseconds, if the policy is {@link FsyncPolicy#INTERVAL}.
+     * @param scheduler The scheduler that forces records, if the policy is {@link FsyncPolicy#INTERVAL}.
+     * @throws IOException If the journal can not be opened.
+     */
+    public CommandJournal(Path directory, int segmentSize, int maxSegments, FsyncPolicy fsyncPolicy, long fsyncInterval, ScheduledExecutorService scheduler) throws IOException {
+        if(segmentSize < 1024)
+            throw new IllegalArgumentException("The segment size must be at least 1024 bytes!");
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = Math.max(0, maxSegments);
+        this.fsyncPolicy = fsyncPolicy;
+
+        Files.createDirectories(directory);
+        segments.addAll(listSegments(directory));
+
+        if(segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            // Continue after the last valid record of the newest segment
+            Path last = segments.remove(segments.size() - 1);
+            openSegment(segmentIndex(last));
+            int end = JournalReader.findEnd(buffer, segmentSize);
+            buffer.position(end);
+        }
+
+        syncTask = fsyncPolicy == FsyncPolicy.INTERVAL
+                ? scheduler.scheduleWithFixedDelay(this::sync, fsyncInterval, fsyncInterval, TimeUnit.MILLISECONDS)
+                : null;
+    }
+
+    /**
+     * Appends a record. An I/O error is counted in {@link #getFailures()} instead of being thrown, so the journal can never break a command.
+     * @param timestamp When the input message was dispatched, in milliseconds since the epoch.
+     * @param durationNanos How long the input message took, in nanoseconds.
+     * @param exitStatus The exit status of the input message.
+     * @param sessionId The session the input message came from.
+     * @param line The input message.
+     */
+    public synchronized void append(long timestamp, long durationNanos, int exitStatus, String sessionId, String line) {
+        if(closed)
+            return;
+
+        byte[] session = encode(sessionId, Short.MAX_VALUE);
+        byte[] content = encode(line, segmentSize - HEADER_SIZE - RECORD_HEADER_SIZE - session.length - 4);
+        int size = RECORD_HEADER_SIZE + session.length + content.length;
+
+        try {
+            // Leave room for the end marker
+            if(buffer.remaining() < size + 4)
+                rotate();
+
+            int start = buffer.position();
+            buffer.position(start + 8);
+            buffer.putLong(timestamp).putLong(durationNanos).putInt(exitStatus);
+            buffer.putShort((short) session.length).put(session);
+            buffer.putInt(content.length).put(content);
+            int end = buffer.position();
+
+            crc.reset();
+            crc.update(buffer.duplicate().position(start + 8).limit(end));
+            buffer.putInt(start + 4, (int) crc.getValue());
+            buffer.putInt(end, 0);
+            // The length is written last, so a reader never sees a half written record
+            buffer.putInt(start, size - 4);
+            buffer.position(end);
+
+            records.increment();
+            dirty = true;
+            if(fsyncPolicy == FsyncPolicy.EVERY_WRITE)
+                force();
+        } catch (IOException | UncheckedIOException ex) {
+            failures.increment();
+        }
+    }
+
+    /**
+     * Forces every record appended so far to disk.
+     */
+    public synchronized void sync() {
+        if(closed || !dirty)
+            return;
+        try {
+            force();
+        } catch (UncheckedIOException ex) {
+            failures.increment();
+        }
+    }
+
+    /**
+     * Forces the records to disk and closes the journal. Records appended after closing are ignored.
+     * @throws IOException If the journal can not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if(closed)
+            return;
+        closed = true;
+        if(syncTask != null)
+            syncTask.cancel(false);
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Gets the directory of this journal.
+     * @return The directory.
+     */
+    public Path getDirectory() { return directory; }
+
+    /**
+     * Gets the size of every segment.
+     * @return The size in bytes.
+     */
+    public int getSegmentSize() { return segmentSize; }
+
+    /**
+     * Gets how many segments are kept.
+     * @return The number of segments, or <code>0</code> if all are kept.
+     */
+    public int getMaxSegments() { return maxSegments; }
+
+    /**
+     * Gets when records are forced to disk.
+     * @return The policy.
+     */
+    public FsyncPolicy getFsyncPolicy() { return fsyncPolicy; }
+
+    /**
+     * Gets how many records were appended since the journal was opened.
+     * @return The number of records.
+     */
+    public long getRecords() { return records.sum(); }
+
+    /**
+     * Gets how many records could not be appended because of an I/O error.
+     * @return The number of failures.
+     */
+    public long getFailures() { return failures.sum(); }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ directory=%s, segmentsize=%s, segment=%s, fsync=%s, records=%s, failures=%s }", directory, segmentSize, segmentIndex, fsyncPolicy, getRecords(), getFailures()).toString();
+    }
+
+    private void force() {
+        buffer.force();
+        dirty = false;
+    }
+
+    private void rotate() throws IOException {
+        buffer.putInt(0);
+        if(fsyncPolicy != FsyncPolicy.NEVER)
+            force();
+        channel.close();
+        segments.add(segmentPath(directory, segmentIndex));
+
+        openSegment(segmentIndex + 1);
+
+        while (maxSegments > 0 && segments.size() >= maxSegments)
+            Files.deleteIfExists(segments.remove(0));
+    }
+
+    private void openSegment(long index) throws IOException {
+        segmentIndex = index;
+        Path path = segmentPath(directory, index);
+        boolean created = Files.notExists(path);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        if(created || buffer.getInt(0) != MAGIC)
+            buffer.putInt(0, MAGIC);
+        buffer.position(HEADER_SIZE);
+    }
+
+    /**
+     * Encodes a string to UTF-8, without the intermediate copies of {@link String#getBytes} for plain ASCII.
+     */
+    private static byte[] encode(String s, int max) {
+        int length = s.length();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++)
+            ascii = s.charAt(i) < 0x80;
+
+        byte[] bytes;
+        if(ascii) {
+            bytes = new byte[length];
+            for (int i = 0; i < length; i++)
+                bytes[i] = (byte) s.charAt(i);
+        } else {
+            bytes = s.getBytes(StandardCharsets.UTF_8);
+        }
+
+        if(bytes.length <= max)
+            return bytes;
+        // Cut off at a character boundary
+        int end = Math.max(0, max);
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) end--;
+        byte[] cut = new byte[end];
+        System.arraycopy(bytes, 0, cut, 0, end);
+        return cut;
+    }
+
+    /**
+     * Lists the segments of a journal, oldest first.
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> list = new ArrayList<>();
+        if(Files.notExists(directory))
+            return list;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                if(segmentIndex(path) >= 0)
+                    list.add(path);
+            }
+        }
+        list.sort((a, b) -> Long.compare(segmentIndex(a), segmentIndex(b)));
+        return list;
+    }
+
+    static Path segmentPath(Path directory, long index) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    static long segmentIndex(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException ex) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package Internal.Managing.Journal;
+
+/**
+ * How often the {@link CommandJournal} forces its records to disk.
+ * @see Internal.Managing.Core.CommandConfigurator#setJournalFsyncPolicy(FsyncPolicy, long)
+ */
+public enum FsyncPolicy {
+    /** Records are never forced. The operating system writes them back on its own, so they survive the JVM crashing, but not the machine. This is the fastest. */
+    NEVER,
+    /** Records are forced by a background thread at a fixed interval. At most one interval of records can be lost if the machine crashes. */
+    INTERVAL,
+    /** Every record is forced before the command returns. Nothing is lost, but each record costs a disk flush. */
+    EVERY_WRITE
+}
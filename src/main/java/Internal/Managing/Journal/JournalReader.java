@@ -0,0 +1,178 @@
+package Internal.Managing.Journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * Streams the records of a {@link CommandJournal}, oldest first. Every segment is memory-mapped read only, one at a time,
+ * so reading a journal costs no more memory than its largest segment, however long it is.<br>
+ * A journal can be read while it is still written to; the reader stops at the last complete record.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * try (JournalReader reader = new JournalReader(Path.of("journal"))) {
+ *     for (JournalRecord record : reader)
+ *         System.out.println(record.getLine());
+ * }
+ * </pre></code></blockquote>
+ */
+public class JournalReader implements Iterable<JournalRecord>, Iterator<JournalRecord>, AutoCloseable {
+    private final List<Path> segments;
+    private final CRC32C crc = new CRC32C();
+    private int segment = -1;
+    private ByteBuffer buffer;
+    private JournalRecord next;
+
+    /**
+     * Opens a journal for reading.
+     * @param directory The directory of the journal.
+     * @throws IOException If the directory can not be listed.
+     */
+    public JournalReader(Path directory) throws IOException {
+        this.segments = CommandJournal.listSegments(directory);
+    }
+
+    /**
+     * Checks if there is another record.
+     * @return True if there is another record.
+     * @throws UncheckedIOException If a segment can not be read.
+     */
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if(buffer != null && (next = read(buffer, crc)) != null)
+                break;
+            if(++segment >= segments.size()) {
+                buffer = null;
+                return false;
+            }
+            buffer = map(segments.get(segment));
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next record.
+     * @return The next record.
+     * @throws NoSuchElementException If there are no more records.
+     */
+    @Override
+    public JournalRecord next() {
+        if(!hasNext())
+            throw new NoSuchElementException();
+        JournalRecord record = next;
+        next = null;
+        return record;
+    }
+
+    /**
+     * Gets this reader as an iterator, so it can be used in a for-each loop. A reader can only be iterated once.
+     * @return This reader.
+     */
+    @Override
+    public Iterator<JournalRecord> iterator() {
+        return this;
+    }
+
+    /**
+     * Gets the remaining records as a sequential stream.
+     * @return A stream of the records.
+     */
+    public Stream<JournalRecord> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Releases the segment being read.
+     */
+    @Override
+    public void close() {
+        buffer = null;
+        segment = segments.size();
+    }
+
+    private static ByteBuffer map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.limit() < CommandJournal.HEADER_SIZE || buffer.getInt(0) != CommandJournal.MAGIC)
+                return ByteBuffer.allocate(0);
+            buffer.position(CommandJournal.HEADER_SIZE);
+            return buffer;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads the record at the position of a segment, and moves past it.
+     * @return The record, or null at the end of the segment, or at a record that is cut off or corrupt.
+     */
+    private static JournalRecord read(ByteBuffer buffer, CRC32C crc) {
+        int start = buffer.position();
+        int end = recordEnd(buffer, start, crc);
+        if(end < 0)
+            return null;
+
+        buffer.position(start + 8);
+        long timestamp = buffer.getLong();
+        long duration = buffer.getLong();
+        int status = buffer.getInt();
+        String session = string(buffer, buffer.getShort());
+        String line = string(buffer, buffer.getInt());
+        buffer.position(end);
+        return new JournalRecord(timestamp, duration, status, session, line);
+    }
+
+    private static String string(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Validates the record starting at an offset of a segment.
+     * @return The offset after the record, or <code>-1</code> if there is no valid record.
+     */
+    private static int recordEnd(ByteBuffer buffer, int start, CRC32C crc) {
+        if(start + CommandJournal.RECORD_HEADER_SIZE > buffer.limit())
+            return -1;
+        int length = buffer.getInt(start);
+        if(length < CommandJournal.RECORD_HEADER_SIZE - 4 || start + 4L + length > buffer.limit())
+            return -1;
+
+        int end = start + 4 + length;
+        crc.reset();
+        crc.update(buffer.duplicate().limit(end).position(start + 8));
+        return (int) crc.getValue() == buffer.getInt(start + 4) ? end : -1;
+    }
+
+    /**
+     * Finds the end of the last valid record of a segment, where the next record should be appended.
+     * @param buffer The segment.
+     * @param size The size of the segment.
+     * @return The offset after the last valid record.
+     */
+    static int findEnd(ByteBuffer buffer, int size) {
+        CRC32C crc = new CRC32C();
+        ByteBuffer view = buffer.duplicate().limit(Math.min(size, buffer.capacity()));
+        int position = CommandJournal.HEADER_SIZE;
+        int end;
+        while ((end = recordEnd(view, position, crc)) >= 0)
+            position = end;
+        return position;
+    }
+}
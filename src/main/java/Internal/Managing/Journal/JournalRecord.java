@@ -0,0 +1,68 @@
+package Internal.Managing.Journal;
+
+import java.util.Formatter;
+
+/**
+ * A single record of the {@link CommandJournal}: an input message that was dispatched, who sent it, when, and how it ended.
+ */
+public class JournalRecord {
+    private final long timestamp;
+    private final long durationNanos;
+    private final int exitStatus;
+    private final String sessionId;
+    private final String line;
+
+    /**
+     * Creates a new record. Records are created by the {@link JournalReader}.
+     * @param timestamp When the input message was dispatched, in milliseconds since the epoch.
+     * @param durationNanos How long the input message took, in nanoseconds.
+     * @param exitStatus The exit status of the input message, such as {@link Internal.Managing.Commands.Command#EXIT_SUCCESS}.
+     * @param sessionId The session the input message came from.
+     * @param line The input message.
+     */
+    public JournalRecord(long timestamp, long durationNanos, int exitStatus, String sessionId, String line) {
+        this.timestamp = timestamp;
+        this.durationNanos = durationNanos;
+        this.exitStatus = exitStatus;
+        this.sessionId = sessionId;
+        this.line = line;
+    }
+
+    /**
+     * Gets when the input message was dispatched.
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getTimestamp() { return timestamp; }
+
+    /**
+     * Gets how long the input message took.
+     * @return The duration in nanoseconds.
+     */
+    public long getDurationNanos() { return durationNanos; }
+
+    /**
+     * Gets the exit status of the input message.
+     * @return The exit status.
+     */
+    public int getExitStatus() { return exitStatus; }
+
+    /**
+     * Gets the session the input message came from.
+     * @return The id of the session.
+     */
+    public String getSessionId() { return sessionId; }
+
+    /**
+     * Gets the input message.
+     * @return The input message.
+     */
+    public String getLine() { return line; }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ timestamp=%s, durationnanos=%s, exitstatus=%s, session=%s, line=%s }", timestamp, durationNanos, exitStatus, sessionId, line).toString();
+    }
+}
@@ -0,0 +1,156 @@
+package Internal.Managing.Scheduling;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Formatter;
+
+/**
+ * A cron expression with the five standard fields: minute, hour, day of the month, month, and day of the week.<br>
+ * Every field is <code>*</code>, a number, a range <code>a-b</code>, or a list of them separated by commas, and each of these can have a
+ * step, such as <code>*&#47;15</code>. Days of the week go from <code>0</code> (Sunday) to <code>6</code>, and <code>7</code> is also Sunday.
+ * Like in cron, if both the day of the month and the day of the week are set, a day matches if either matches.
+ * The shortcuts <code>@yearly</code>, <code>@monthly</code>, <code>@weekly</code>, <code>@daily</code> and <code>@hourly</code> work as well.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * CronExpression cron = CronExpression.parse("*&#47;5 9-17 * * 1-5");   # Every 5 minutes during work hours
+ * ZonedDateTime next = cron.next(ZonedDateTime.now());
+ * </pre></code></blockquote>
+ */
+public final class CronExpression {
+    private final String expression;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek;
+    private final boolean anyDayOfMonth;
+    private final boolean anyDayOfWeek;
+
+    private CronExpression(String expression, String[] fields) {
+        this.expression = expression;
+        this.minutes = parseField(fields[0], 0, 59, "minute");
+        this.hours = parseField(fields[1], 0, 23, "hour");
+        this.daysOfMonth = parseField(fields[2], 1, 31, "day of the month");
+        this.months = parseField(fields[3], 1, 12, "month");
+        long dow = parseField(fields[4], 0, 7, "day of the week");
+        this.daysOfWeek = (dow & 1L << 7) != 0 ? (dow | 1) & ~(1L << 7) : dow;
+        this.anyDayOfMonth = fields[2].startsWith("*");
+        this.anyDayOfWeek = fields[4].startsWith("*");
+    }
+
+    /**
+     * Parses a cron expression.
+     * @param expression The expression, such as <code>0 * * * *</code>.
+     * @return The parsed expression.
+     * @throws IllegalArgumentException If the expression is malformed.
+     */
+    public static CronExpression parse(String expression) {
+        String trimmed = expression.trim();
+        switch (trimmed) {
+            case "@yearly": case "@annually": trimmed = "0 0 1 1 *"; break;
+            case "@monthly": trimmed = "0 0 1 * *"; break;
+            case "@weekly": trimmed = "0 0 * * 0"; break;
+            case "@daily": case "@midnight": trimmed = "0 0 * * *"; break;
+            case "@hourly": trimmed = "0 * * * *"; break;
+            default: break;
+        }
+
+        String[] fields = trimmed.split("\\s+");
+        if(fields.length != 5)
+            throw new IllegalArgumentException("A cron expression needs 5 fields, not " + fields.length + ": " + expression);
+        return new CronExpression(expression.trim(), fields);
+    }
+
+    /**
+     * Finds the next time this expression matches, strictly after a time. Seconds are ignored, so this is always at the start of a minute.
+     * @param after The time to start from.
+     * @return The next matching time, in the same time zone.
+     * @throws IllegalStateException If nothing matches in the next five years, such as for the 31st of February.
+     */
+    public ZonedDateTime next(ZonedDateTime after) {
+        ZonedDateTime t = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        ZonedDateTime limit = t.plusYears(5);
+        while (t.isBefore(limit)) {
+            if(!has(months, t.getMonthValue())) {
+                t = t.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+            } else if(!matchesDay(t)) {
+                t = t.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if(!has(hours, t.getHour())) {
+                t = t.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if(!has(minutes, t.getMinute())) {
+                t = t.plusMinutes(1);
+            } else {
+                return t;
+            }
+        }
+        throw new IllegalStateException("The cron expression " + expression + " never matches!");
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ expression=%s }", expression).toString();
+    }
+
+    /**
+     * Gets the text of this expression.
+     * @return The expression, as it was parsed.
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    private boolean matchesDay(ZonedDateTime t) {
+        boolean dom = has(daysOfMonth, t.getDayOfMonth());
+        boolean dow = has(daysOfWeek, t.getDayOfWeek().getValue() % 7);
+        if(anyDayOfMonth || anyDayOfWeek)
+            return dom && dow;
+        return dom || dow;
+    }
+
+    private static boolean has(long bits, int value) {
+        return (bits & 1L << value) != 0;
+    }
+
+    // Parses a field into a bit set of the values it matches.
+    private static long parseField(String field, int min, int max, String name) {
+        long bits = 0;
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if(slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), 1, max, name);
+                part = part.substring(0, slash);
+            }
+
+            int from, to;
+            if(part.equals("*")) {
+                from = min;
+                to = max;
+            } else {
+                int dash = part.indexOf('-');
+                from = parseNumber(dash >= 0 ? part.substring(0, dash) : part, min, max, name);
+                to = dash >= 0 ? parseNumber(part.substring(dash + 1), min, max, name) : (slash >= 0 ? max : from);
+                if(to < from)
+                    throw new IllegalArgumentException("The " + name + " range " + part + " is backwards!");
+            }
+
+            for (int v = from; v <= to; v += step)
+                bits |= 1L << v;
+        }
+        return bits;
+    }
+
+    private static int parseNumber(String text, int min, int max, String name) {
+        try {
+            int value = Integer.parseInt(text);
+            if(value < min || value > max)
+                throw new IllegalArgumentException("The " + name + " " + value + " is not between " + min + " and " + max + "!");
+            return value;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("The " + name + " " + text + " is not a number!");
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package Internal.Managing.Scheduling;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.InputSource;
+import Internal.Managing.IO.ReplySink;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Formatter;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs input messages after a delay, at a fixed rate, or on a cron schedule, such as a <code>statsf</code> snapshot every minute.<br>
+ * Pending jobs are kept in a hashed {@link TimingWheel}, so holding many of them is cheap, and scheduling or expiring one costs the same however many there are.
+ * The wheel is turned by the manager's scheduler once every tick, and due jobs are dispatched on the manager's executor, through
+ * {@link CommandManager#dispatch(String, String, ReplySink, InputSource)} from the {@link #SESSION} session. So jobs take the same path as interactive
+ * commands, with the same rate limits, timeouts, metrics and journal. Jobs read no input (as with {@link InputSource#EMPTY}).
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * JobScheduler scheduler = manager.getJobScheduler();
+ * scheduler.scheduleAtFixedRate("statsf", Duration.ofMinutes(1), Duration.ofMinutes(1));
+ * scheduler.scheduleCron("cleanupf", CronExpression.parse("0 3 * * *"));
+ * ScheduledJob job = scheduler.schedule("helpf", Duration.ofSeconds(30));
+ * job.cancel();
+ * </pre></code></blockquote>
+ * @see Internal.Commands.Schedule
+ */
+public class JobScheduler implements AutoCloseable {
+    /** The id of the session that jobs are dispatched from. */
+    public static final String SESSION = "scheduler";
+    /** How many buckets the timing wheel has. */
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private final CommandManager man;
+    private final long tickMillis;
+    private final TimingWheel wheel;
+    private final ConcurrentHashMap<Integer, ScheduledJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final LongAdder runs = new LongAdder();
+    private ScheduledFuture<?> ticker;
+    private volatile boolean closed;
+
+    /**
+     * Creates a scheduler. It does not turn its wheel until the first job is scheduled.
+     * @param man The manager to dispatch jobs with.
+     * @param tickMillis The length of a tick in milliseconds. Jobs run up to one tick late.
+     */
+    public JobScheduler(CommandManager man, long tickMillis) {
+        if(tickMillis < 1)
+            throw new IllegalArgumentException("A tick must be at least one millisecond!");
+        this.man = man;
+        this.tickMillis = tickMillis;
+        this.wheel = new TimingWheel(TimeUnit.MILLISECONDS.toNanos(tickMillis), TICKS_PER_WHEEL);
+    }
+
+    /**
+     * Runs an input message once, after a delay. Its replies go to the manager's console.
+     * @param line The input message.
+     * @param delay How long to wait.
+     * @return The job.
+     */
+    public ScheduledJob schedule(String line, Duration delay) {
+        return schedule(line, man.getConsoleSink(), delay);
+    }
+
+    /**
+     * Runs an input message once, after a delay.
+     * @param line The input message.
+     * @param out The sink to write its replies to.
+     * @param delay How long to wait.
+     * @return The job.
+     */
+    public ScheduledJob schedule(String line, ReplySink out, Duration delay) {
+        ScheduledJob job = new ScheduledJob(this, ids.incrementAndGet(), line, out, 0, null, null);
+        return add(job, System.nanoTime() + delay.toNanos());
+    }
+
+    /**
+     * Runs an input message at a fixed rate. Its replies go to the manager's console.
+     * @param line The input message.
+     * @param initialDelay How long to wait before the first run.
+     * @param period The time between the start of every run.
+     * @return The job.
+     */
+    public ScheduledJob scheduleAtFixedRate(String line, Duration initialDelay, Duration period) {
+        return scheduleAtFixedRate(line, man.getConsoleSink(), initialDelay, period);
+    }
+
+    /**
+     * Runs an input message at a fixed rate. A run that is due while the last one is still going is skipped, instead of piling up.
+     * @param line The input message.
+     * @param out The sink to write its replies to.
+     * @param initialDelay How long to wait before the first run.
+     * @param period The time between the start of every run.
+     * @return The job.
+     */
+    public ScheduledJob scheduleAtFixedRate(String line, ReplySink out, Duration initialDelay, Duration period) {
+        if(period.isNegative() || period.isZero())
+            throw new IllegalArgumentException("The period of a job must be positive!");
+        ScheduledJob job = new ScheduledJob(this, ids.incrementAndGet(), line, out, period.toNanos(), null, null);
+        return add(job, System.nanoTime() + initialDelay.toNanos());
+    }
+
+    /**
+     * Runs an input message whenever a cron expression matches, in the system's time zone. Its replies go to the manager's console.
+     * @param line The input message.
+     * @param cron The cron expression.
+     * @return The job.
+     */
+    public ScheduledJob scheduleCron(String line, CronExpression cron) {
+        return scheduleCron(line, man.getConsoleSink(), cron, ZoneId.systemDefault());
+    }
+
+    /**
+     * Runs an input message whenever a cron expression matches.
+     * @param line The input message.
+     * @param out The sink to write its replies to.
+     * @param cron The cron expression.
+     * @param zone The time zone to match the expression in.
+     * @return The job.
+     */
+    public ScheduledJob scheduleCron(String line, ReplySink out, CronExpression cron, ZoneId zone) {
+        ScheduledJob job = new ScheduledJob(this, ids.incrementAndGet(), line, out, 0, cron, zone);
+        return add(job, nextCron(job));
+    }
+
+    /**
+     * Cancels a job. A run that already started is not stopped.
+     * @param id The id of the job.
+     * @return True if the job was pending, and is now cancelled.
+     */
+    public boolean cancel(int id) {
+        ScheduledJob job = jobs.remove(id);
+        if(job == null)
+            return false;
+        job.cancelled = true;
+        return true;
+    }
+
+    /**
+     * Gets a pending job.
+     * @param id The id of the job.
+     * @return The job, or <code>null</code> if there is no pending job with that id.
+     */
+    public ScheduledJob getJob(int id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Gets every pending job, by id.
+     * @return A list of the jobs.
+     */
+    public List<ScheduledJob> getJobs() {
+        List<ScheduledJob> list = new ArrayList<>(jobs.values());
+        list.sort(Comparator.comparingInt(ScheduledJob::getId));
+        return list;
+    }
+
+    /**
+     * Gets how many times jobs have run.
+     * @return The number of runs.
+     */
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    /**
+     * Cancels every job, and stops turning the wheel. Runs that already started are not stopped.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if(ticker != null)
+            ticker.cancel(false);
+        for (Integer id : jobs.keySet())
+            cancel(id);
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ jobs=%s, runs=%s, tickms=%s, closed=%s }", jobs.size(), getRuns(), tickMillis, closed).toString();
+    }
+
+    // Adds a job, and starts the wheel if this is the first.
+    private ScheduledJob add(ScheduledJob job, long deadlineNanos) {
+        synchronized (this) {
+            if(closed)
+                throw new IllegalStateException("The scheduler is closed!");
+            if(ticker == null)
+                ticker = man.getScheduler().scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+        jobs.put(job.getId(), job);
+        enqueue(job, deadlineNanos);
+        return job;
+    }
+
+    private void enqueue(ScheduledJob job, long deadlineNanos) {
+        long nextRun = System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        job.setDeadline(deadlineNanos, nextRun);
+        wheel.add(job, deadlineNanos);
+    }
+
+    // Turns the wheel. An exception that escapes a periodic task cancels it for good, so it is reported here instead, and the wheel keeps turning.
+    private void tick() {
+        try {
+            wheel.advance(System.nanoTime(), this::fire);
+        } catch (RuntimeException ex) {
+            man.getOut().print(man.getErrorReporter().report(null, ex));
+        }
+    }
+
+    // Runs a job that is due, off the scheduler's thread.
+    private void fire(TimingWheel.Timeout timeout) {
+        ScheduledJob job = (ScheduledJob) timeout;
+        try {
+            man.getExecutor().execute(() -> run(job));
+        } catch (RejectedExecutionException ex) {
+            // The executor is shutting down or full, so this run fails, and a recurring job is tried again at its next run
+            done(job, Command.EXIT_FAILURE);
+        }
+    }
+
+    private void run(ScheduledJob job) {
+        if(job.cancelled)
+            return;
+        runs.increment();
+
+        InputEvent event;
+        try {
+            event = man.dispatch(SESSION, job.getLine(), job.getOutput(), InputSource.EMPTY);
+        } catch (RuntimeException ex) {
+            done(job, Command.EXIT_FAILURE);
+            return;
+        }
+        if(event == null)
+            done(job, Command.EXIT_NOT_FOUND);
+        else
+            event.getCompletion().whenComplete((e, ex) -> {
+                done(job, event.getExitStatus());
+                event.seal();
+            });
+    }
+
+    // Records a finished run, and schedules the next one.
+    private void done(ScheduledJob job, int exitStatus) {
+        job.ran(exitStatus);
+        if(job.cancelled)
+            return;
+        if(!job.isRecurring()) {
+            cancel(job.getId());
+            return;
+        }
+
+        long next;
+        if(job.getCron() != null) {
+            next = nextCron(job);
+        } else {
+            // Skip the runs that were missed while this one was going
+            long period = job.getPeriodNanos();
+            long now = System.nanoTime();
+            next = job.deadlineNanos + period;
+            if(next - now <= 0)
+                next += ((now - next) / period + 1) * period;
+        }
+        enqueue(job, next);
+    }
+
+    private static long nextCron(ScheduledJob job) {
+        ZonedDateTime now = ZonedDateTime.now(job.getZone());
+        return System.nanoTime() + Duration.between(now, job.getCron().next(now)).toNanos();
+    }
+}
@@ -0,0 +1,135 @@
+package Internal.Managing.Scheduling;
+
+import Internal.Managing.IO.ReplySink;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.Formatter;
+
+/**
+ * A job of a {@link JobScheduler}: an input message that is dispatched once after a delay, at a fixed rate, or whenever a cron expression matches.
+ * A recurring job is scheduled again once its run is done, so runs of the same job never overlap.
+ */
+public final class ScheduledJob extends TimingWheel.Timeout {
+    private final JobScheduler scheduler;
+    private final int id;
+    private final String line;
+    private final ReplySink out;
+    private final long periodNanos;
+    private final CronExpression cron;
+    private final ZoneId zone;
+
+    long deadlineNanos;
+    private volatile long nextRun;
+    private volatile long runs;
+    private volatile int lastExitStatus = -1;
+
+    ScheduledJob(JobScheduler scheduler, int id, String line, ReplySink out, long periodNanos, CronExpression cron, ZoneId zone) {
+        this.scheduler = scheduler;
+        this.id = id;
+        this.line = line;
+        this.out = out;
+        this.periodNanos = periodNanos;
+        this.cron = cron;
+        this.zone = zone;
+    }
+
+    /**
+     * Gets the id of this job, which is unique in its scheduler.
+     * @return The id.
+     */
+    public int getId() { return id; }
+
+    /**
+     * Gets the input message that this job dispatches.
+     * @return The input message.
+     */
+    public String getLine() { return line; }
+
+    /**
+     * Gets the sink that the replies of this job are written to.
+     * @return The {@link ReplySink} of this job.
+     */
+    public ReplySink getOutput() { return out; }
+
+    /**
+     * Gets the period of a job that runs at a fixed rate.
+     * @return The period, or <code>null</code> if this job does not run at a fixed rate.
+     */
+    public Duration getPeriod() { return periodNanos > 0 ? Duration.ofNanos(periodNanos) : null; }
+
+    /**
+     * Gets the cron expression of a cron job.
+     * @return The expression, or <code>null</code> if this is not a cron job.
+     */
+    public CronExpression getCron() { return cron; }
+
+    /**
+     * Gets the time zone that the cron expression is matched in.
+     * @return The time zone.
+     */
+    public ZoneId getZone() { return zone; }
+
+    /**
+     * Checks whether or not this job runs more than once.
+     * @return True for fixed rate and cron jobs.
+     */
+    public boolean isRecurring() { return periodNanos > 0 || cron != null; }
+
+    /**
+     * Gets when this job runs next.
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getNextRun() { return nextRun; }
+
+    /**
+     * Gets how many times this job has run.
+     * @return The number of runs.
+     */
+    public long getRuns() { return runs; }
+
+    /**
+     * Gets the exit status of the last run of this job.
+     * @return The exit status, or <code>-1</code> if it has not run yet.
+     */
+    public int getLastExitStatus() { return lastExitStatus; }
+
+    /**
+     * Checks whether or not this job was cancelled. A job that ran once and is done also counts as cancelled.
+     * @return Whether or not the job is cancelled.
+     */
+    public boolean isCancelled() { return cancelled; }
+
+    /**
+     * Cancels this job. A run that already started is not stopped, but the job is not run again.
+     * @return True if the job was pending, and is now cancelled.
+     */
+    public boolean cancel() {
+        return scheduler.cancel(id);
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        String schedule = cron != null ? cron.getExpression() : periodNanos > 0 ? "every " + Duration.ofNanos(periodNanos) : "once";
+        return new Formatter().format("{ id=%s, line=%s, schedule=%s, runs=%s, lastexitstatus=%s, nextrun=%s, cancelled=%s }", id, line, schedule, runs, lastExitStatus, nextRun, cancelled).toString();
+    }
+
+    // Records when this job runs next.
+    void setDeadline(long deadlineNanos, long nextRun) {
+        this.deadlineNanos = deadlineNanos;
+        this.nextRun = nextRun;
+    }
+
+    // Records a finished run.
+    void ran(int exitStatus) {
+        this.lastExitStatus = exitStatus;
+        this.runs++;
+    }
+
+    long getPeriodNanos() {
+        return periodNanos;
+    }
+}
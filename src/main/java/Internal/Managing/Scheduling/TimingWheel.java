@@ -0,0 +1,117 @@
+package Internal.Managing.Scheduling;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel: a ring of buckets, one per tick, that holds timeouts by their deadline modulo the length of the ring.
+ * Adding a timeout and expiring one are O(1), however many are pending, and a timeout further away than one turn of the wheel
+ * just waits for more turns in its bucket. Deadlines are rounded up to the next tick.<br>
+ * Timeouts can be added from any thread, but the wheel is only turned by one thread at a time.
+ */
+final class TimingWheel {
+    /**
+     * A pending timeout, linked into the bucket of its deadline.
+     */
+    static class Timeout {
+        long deadlineTick;
+        volatile boolean cancelled;
+        Timeout prev;
+        Timeout next;
+        Bucket bucket;
+    }
+
+    /**
+     * The timeouts that expire on the same tick of every turn.
+     */
+    private static final class Bucket {
+        Timeout head;
+
+        void add(Timeout t) {
+            t.bucket = this;
+            t.prev = null;
+            t.next = head;
+            if(head != null) head.prev = t;
+            head = t;
+        }
+
+        void remove(Timeout t) {
+            if(t.prev != null) t.prev.next = t.next;
+            else head = t.next;
+            if(t.next != null) t.next.prev = t.prev;
+            t.prev = t.next = null;
+            t.bucket = null;
+        }
+    }
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final ConcurrentLinkedQueue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private long tick;
+    private int size;
+
+    /**
+     * Creates a wheel.
+     * @param tickNanos The length of a tick, in nanoseconds.
+     * @param ticksPerWheel The number of buckets, which is rounded up to a power of two.
+     */
+    TimingWheel(long tickNanos, int ticksPerWheel) {
+        this.tickNanos = tickNanos;
+        this.startNanos = System.nanoTime();
+        int n = Integer.highestOneBit(Math.max(1, ticksPerWheel - 1)) << 1;
+        this.buckets = new Bucket[n];
+        for (int i = 0; i < n; i++)
+            buckets[i] = new Bucket();
+        this.mask = n - 1;
+    }
+
+    /** Adds a timeout that expires at a deadline, in {@link System#nanoTime()}. */
+    void add(Timeout timeout, long deadlineNanos) {
+        timeout.deadlineTick = Math.max(0, (deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+        added.add(timeout);
+    }
+
+    /** Turns the wheel up to the current time, and expires every timeout that is due on the way. */
+    void advance(long nowNanos, Consumer<Timeout> expire) {
+        long target = (nowNanos - startNanos) / tickNanos;
+        while (tick <= target) {
+            transferAdded();
+            Bucket bucket = buckets[(int) (tick & mask)];
+            Timeout t = bucket.head;
+            while (t != null) {
+                Timeout next = t.next;
+                if(t.cancelled) {
+                    bucket.remove(t);
+                    size--;
+                } else if(t.deadlineTick <= tick) {
+                    bucket.remove(t);
+                    size--;
+                    expire.accept(t);
+                }
+                t = next;
+            }
+            tick++;
+        }
+    }
+
+    /** Gets how many timeouts are in the wheel, not counting the ones added since it last turned. */
+    int size() {
+        return size;
+    }
+
+    // Moves the timeouts that were added since the last tick into their buckets.
+    private void transferAdded() {
+        Timeout t;
+        while ((t = added.poll()) != null) {
+            if(t.cancelled)
+                continue;
+            // A deadline that already passed expires on this tick
+            long deadline = Math.max(t.deadlineTick, tick);
+            t.deadlineTick = deadline;
+            buckets[(int) (deadline & mask)].add(t);
+            size++;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package Internal.Managing.Sessions;
+
+import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.InputSource;
+import Internal.Managing.IO.ReplySink;
+
+import java.util.ArrayDeque;
+import java.util.Formatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The state of a {@link Session}, which is kept in the pool of the {@link SessionManager} once the session closes, and reused for the next session that opens.<br>
+ * Every time it is opened, it hands out a new {@link Session} handle. The handle checks the generation of this state on every call, so a handle that is kept
+ * after its session closed can never reach the operator that the state was reused for.
+ */
+final class PooledSession implements InputSource {
+    private final SessionManager owner;
+    private final CommandManager man;
+    private String id;
+    private ReplySink out;
+    private volatile String prompt;
+    private ArrayDeque<String> lines;
+    private boolean running;
+    private boolean waiting;
+    private boolean closed;
+    private volatile long lastActive;
+    // Changes every time this state is opened, so the handles of earlier sessions go stale
+    private long generation;
+    private Session handle;
+
+    PooledSession(SessionManager owner, CommandManager man) {
+        this.owner = owner;
+        this.man = man;
+    }
+
+    // Opens this session for a new operator.
+    synchronized void reset(String id, ReplySink out, String prompt) {
+        this.id = id;
+        this.out = out;
+        this.prompt = prompt;
+        this.lines = null;
+        this.running = false;
+        this.waiting = false;
+        this.closed = false;
+        this.lastActive = System.nanoTime();
+        this.generation++;
+        this.handle = new Session(this, generation, id, out);
+    }
+
+    // The handle of the session that is open in this state.
+    synchronized Session getHandle() {
+        return handle;
+    }
+
+    // Whether or not a handle belongs to the session that is open in this state.
+    synchronized boolean isCurrent(long generation) {
+        return this.generation == generation && !closed;
+    }
+
+    // Sends a line to the session of a generation. It is read by the command that is waiting for input, or run as a command once the commands before it are done.
+    boolean submit(long generation, String line) {
+        synchronized (this) {
+            if(closed || this.generation != generation)
+                return false;
+            lastActive = System.nanoTime();
+            if(lines == null)
+                lines = new ArrayDeque<>(2);
+            lines.addLast(line);
+
+            if(waiting) {
+                notifyAll();
+                return true;
+            }
+            if(running)
+                return true;
+            running = true;
+        }
+        owner.execute(this::drain);
+        return true;
+    }
+
+    /**
+     * Waits for the next line of the session. This is what {@link InputEvent#waitForNextEvent()} reads from, while a command of the session runs.
+     * @return The next line, or <code>null</code> if the session closed or the thread was interrupted.
+     */
+    @Override
+    public String readLine() {
+        synchronized (this) {
+            waiting = true;
+            try {
+                while (!closed && (lines == null || lines.isEmpty()))
+                    wait();
+                return closed ? null : lines.pollFirst();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                waiting = false;
+                lastActive = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Gets the prompt of the session, which is printed to its replies before it waits for a line.
+     * @return The prompt.
+     */
+    @Override
+    public String getPrompt() {
+        return prompt;
+    }
+
+    // Sets the prompt of the session of a generation.
+    synchronized void setPrompt(long generation, String prompt) {
+        if(this.generation == generation && !closed)
+            this.prompt = prompt;
+    }
+
+    synchronized String getId() {
+        return id;
+    }
+
+    long getIdleMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastActive);
+    }
+
+    synchronized boolean isBusy() {
+        return running;
+    }
+
+    synchronized boolean isWaiting() {
+        return waiting;
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public synchronized String toString() {
+        return new Formatter().format("{ id=%s, prompt=%s, pending=%s, busy=%s, waiting=%s, closed=%s, idlemillis=%s }",
+                id, prompt, lines != null ? lines.size() : 0, running, waiting, closed, getIdleMillis()).toString();
+    }
+
+    // Whether or not this session can be evicted: it is idle, and no command is in the middle of running.
+    synchronized boolean isIdle(long now, long idleNanos) {
+        return !closed && (!running || waiting) && now - lastActive >= idleNanos;
+    }
+
+    // Closes this session, and wakes its waiting command. Returns whether or not it can be reused straight away.
+    synchronized boolean close() {
+        if(closed)
+            return false;
+        closed = true;
+        lines = null;
+        notifyAll();
+        return !running;
+    }
+
+    // Runs the lines of this session one at a time, until there are none left.
+    private void drain() {
+        while (true) {
+            String line;
+            synchronized (this) {
+                if(closed || lines == null || lines.isEmpty()) {
+                    running = false;
+                    lines = null;
+                    if(!closed)
+                        return;
+                    break;
+                }
+                line = lines.pollFirst();
+            }
+            run(line);
+        }
+        owner.recycle(this);
+    }
+
+    // Runs a line as on the console: the command's replies, or the no command message, and then the prompt.
+    private void run(String line) {
+        ReplySink out;
+        String id;
+        synchronized (this) {
+            out = this.out;
+            id = this.id;
+        }
+        try {
+            InputEvent event = man.dispatch(id, line, out, this);
+            if(event == null)
+                out.println(man.getNoCommandMessage());
+            else if(event.isDeferred())
+                event.getCompletion().join();
+            else
+                event.seal();
+        } catch (RuntimeException ex) {
+            if(man.isStopped()) {
+                // Close this session, but not a session that opened with the same id since
+                owner.close(this, id);
+                return;
+            }
+            out.print(man.getErrorReporter().report(null, ex));
+        }
+        lastActive = System.nanoTime();
+        if(prompt != null)
+            out.print(prompt + " ");
+        out.flush();
+    }
+}
@@ -0,0 +1,120 @@
+package Internal.Managing.Sessions;
+
+import Internal.Managing.IO.ReplySink;
+
+import java.util.Formatter;
+
+/**
+ * One operator of a {@link SessionManager}, with their own prompt, replies, and input.<br>
+ * Lines sent to a session run one at a time, in order, as they would on the console: a line that arrives while a command is waiting for input,
+ * with {@link Internal.Managing.Commands.InputEvent#waitForNextEvent()}, is read by that command, and any other line is run as the next command.
+ * A session holds no thread while it is idle, and its queue of lines is only allocated while it has lines in it.<br>
+ * The state of a session is reused once it closes, but this object is not: it only ever reaches the session it was opened as. Once that session is
+ * closed or evicted, {@link #submit(String)} drops its lines and returns false, even after the state was reused for another operator, so it is safe to keep.
+ */
+public final class Session {
+    private final PooledSession state;
+    private final long generation;
+    private final String id;
+    private final ReplySink out;
+
+    Session(PooledSession state, long generation, String id, ReplySink out) {
+        this.state = state;
+        this.generation = generation;
+        this.id = id;
+        this.out = out;
+    }
+
+    /**
+     * Sends a line to this session. It is read by the command that is waiting for input, or run as a command once the commands before it are done.
+     * @param line The input message.
+     * @return False if the session is closed, in which case the line is dropped.
+     */
+    public boolean submit(String line) {
+        return state.submit(generation, line);
+    }
+
+    /**
+     * Gets the prompt of this session, which is printed to its replies before it waits for a line.
+     * @return The prompt, or <code>null</code> if the session is closed.
+     */
+    public String getPrompt() {
+        synchronized (state) {
+            return state.isCurrent(generation) ? state.getPrompt() : null;
+        }
+    }
+
+    /**
+     * Sets the prompt of this session. This does nothing once the session is closed.
+     * @param prompt The prompt, such as <code>alice&gt;</code>.
+     */
+    public void setPrompt(String prompt) {
+        state.setPrompt(generation, prompt);
+    }
+
+    /**
+     * Gets the id of this session, which is the session id of its commands, in the journal, the rate limits, and the traces.
+     * @return The id of this session.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the sink that the replies of this session are written to.
+     * @return The sink.
+     */
+    public ReplySink getOutput() {
+        return out;
+    }
+
+    /**
+     * Gets how long this session has had no lines, and no command finish.
+     * @return The idle time in milliseconds, or <code>-1</code> if the session is closed.
+     */
+    public long getIdleMillis() {
+        synchronized (state) {
+            return state.isCurrent(generation) ? state.getIdleMillis() : -1;
+        }
+    }
+
+    /**
+     * Checks whether or not a command of this session is running.
+     * @return Whether or not this session is busy. A closed session is never busy.
+     */
+    public boolean isBusy() {
+        synchronized (state) {
+            return state.isCurrent(generation) && state.isBusy();
+        }
+    }
+
+    /**
+     * Checks whether or not a command of this session is waiting for a line.
+     * @return Whether or not this session is waiting for input. A closed session is never waiting.
+     */
+    public boolean isWaiting() {
+        synchronized (state) {
+            return state.isCurrent(generation) && state.isWaiting();
+        }
+    }
+
+    /**
+     * Checks whether or not this session is closed.
+     * @return Whether or not this session is closed.
+     */
+    public boolean isClosed() {
+        return !state.isCurrent(generation);
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        synchronized (state) {
+            if(state.isCurrent(generation))
+                return state.toString();
+            return new Formatter().format("{ id=%s, closed=%s }", id, true).toString();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package Internal.Managing.Sessions;
+
+import Internal.Managing.Core.CommandConfigurator;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.ReplySink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Serves many operators from one manager, each in their own {@link Session}, with their own prompt, replies, and input for
+ * {@link Internal.Managing.Commands.InputEvent#waitForNextEvent()}.<br>
+ * Every session runs its commands through {@link CommandManager#dispatch(String, String, Internal.Managing.IO.ReplySink, Internal.Managing.IO.InputSource)}
+ * with its own session id, so they share the manager's commands, which are an immutable snapshot, as well as its rate limits, metrics, journal and traces.
+ * A session only holds a thread of the manager's executor while one of its commands runs, and holds only a few fields while it is idle, so one manager
+ * can hold tens of thousands of them.<br>
+ * Sessions that have been idle for longer than the idle timeout are evicted. The state of closed sessions is kept in a pool, and reused for the next sessions
+ * that open, but every session that opens gets a new {@link Session}, so a session that is kept after it closed stays closed.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * SessionManager sessions = manager.getSessionManager();
+ * sessions.setEvictionListener(id -&gt; connections.remove(id).close());
+ *
+ * Session session = sessions.open("alice", new PrintStreamSink(socketOut));
+ * session.setPrompt("alice&gt;");
+ * sessions.submit("alice", "helpf -p db");
+ * ...
+ * sessions.close("alice");
+ * </pre></code></blockquote>
+ * @see CommandConfigurator#setSessionIdleTimeout(long)
+ */
+public class SessionManager implements AutoCloseable {
+    private final CommandManager man;
+    private final long idleNanos;
+    private final int poolSize;
+    private final ConcurrentHashMap<String, PooledSession> sessions = new ConcurrentHashMap<>();
+    private final ArrayDeque<PooledSession> pool = new ArrayDeque<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private volatile Consumer<String> evictionListener;
+    private ScheduledFuture<?> sweeper;
+    private volatile boolean closed;
+
+    /**
+     * Creates a session manager. It does not look for idle sessions until the first session opens.
+     * @param man The manager to run the commands of every session with.
+     * @param idleTimeoutMillis How long a session can be idle before it is evicted, in milliseconds, or <code>0</code> to never evict sessions.
+     * @param poolSize How many closed sessions are kept to be reused.
+     */
+    public SessionManager(CommandManager man, long idleTimeoutMillis, int poolSize) {
+        if(idleTimeoutMillis < 0)
+            throw new IllegalArgumentException("The idle timeout of sessions can not be negative!");
+        this.man = man;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.poolSize = Math.max(0, poolSize);
+    }
+
+    /**
+     * Opens a session with a generated id, such as <code>session-1</code>. Its prompt is the manager's input prefix.
+     * @param out The sink to write the replies of the session to.
+     * @return The session.
+     */
+    public Session open(ReplySink out) {
+        String id;
+        do {
+            id = "session-" + ids.incrementAndGet();
+        } while (sessions.containsKey(id));
+        return open(id, out);
+    }
+
+    /**
+     * Opens a session. Its prompt is the manager's input prefix.
+     * @param id The id of the session.
+     * @param out The sink to write the replies of the session to.
+     * @return The session.
+     * @throws IllegalArgumentException If a session with this id is open.
+     * @throws IllegalStateException If this session manager is closed.
+     */
+    public Session open(String id, ReplySink out) {
+        if(closed)
+            throw new IllegalStateException("The session manager is closed!");
+
+        PooledSession session;
+        synchronized (pool) {
+            session = pool.pollFirst();
+            if(sweeper == null && idleNanos > 0) {
+                long period = Math.max(10, Math.min(TimeUnit.NANOSECONDS.toMillis(idleNanos), 1000));
+                sweeper = man.getScheduler().scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+            }
+        }
+        if(session == null)
+            session = new PooledSession(this, man);
+        session.reset(id, out, man.getInputPrefix());
+
+        if(sessions.putIfAbsent(id, session) != null) {
+            recycle(session);
+            throw new IllegalArgumentException("A session called " + id + " is already open!");
+        }
+        opened.increment();
+        return session.getHandle();
+    }
+
+    /**
+     * Gets an open session.
+     * @param id The id of the session.
+     * @return The session, or <code>null</code> if no session with this id is open.
+     */
+    public Session get(String id) {
+        PooledSession session = sessions.get(id);
+        return session != null ? session.getHandle() : null;
+    }
+
+    /**
+     * Sends a line to a session.
+     * @param id The id of the session.
+     * @param line The input message.
+     * @return False if no session with this id is open, in which case the line is dropped.
+     * @see Session#submit(String)
+     */
+    public boolean submit(String id, String line) {
+        Session session = get(id);
+        return session != null && session.submit(line);
+    }
+
+    /**
+     * Closes a session. A command of the session that is waiting for input reads <code>null</code>, and the lines that have not run yet are dropped.
+     * @param id The id of the session.
+     * @return False if no session with this id was open.
+     */
+    public boolean close(String id) {
+        PooledSession session = sessions.remove(id);
+        if(session == null)
+            return false;
+        if(session.close())
+            recycle(session);
+        return true;
+    }
+
+    // Closes a session, if its id is still open with it, and not with a session that opened after it closed.
+    void close(PooledSession session, String id) {
+        if(!sessions.remove(id, session))
+            return;
+        if(session.close())
+            recycle(session);
+    }
+
+    /**
+     * Evicts the sessions that have been idle for longer than the idle timeout. This runs on the manager's scheduler while sessions are open.
+     * A session whose command is running is not idle, unless the command is waiting for input.
+     * @return The number of evicted sessions.
+     */
+    public int evictIdle() {
+        if(idleNanos == 0)
+            return 0;
+
+        int count = 0;
+        long now = System.nanoTime();
+        for (PooledSession session : sessions.values()) {
+            if(!session.isIdle(now, idleNanos))
+                continue;
+            String id = session.getId();
+            if(!sessions.remove(id, session))
+                continue;
+            if(session.close())
+                recycle(session);
+            evicted.increment();
+            count++;
+
+            Consumer<String> listener = evictionListener;
+            if(listener != null)
+                listener.accept(id);
+        }
+        return count;
+    }
+
+    /**
+     * Sets a listener that is called with the id of every evicted session, such as to close its connection.
+     * @param evictionListener The listener, or <code>null</code> for none.
+     */
+    public void setEvictionListener(Consumer<String> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Gets the open sessions.
+     * @return A copy of the open sessions.
+     */
+    public List<Session> getSessions() {
+        List<Session> list = new ArrayList<>(sessions.size());
+        for (PooledSession session : sessions.values())
+            list.add(session.getHandle());
+        return list;
+    }
+
+    /**
+     * Gets how many sessions are open.
+     * @return The number of open sessions.
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Gets how many sessions have been opened.
+     * @return The number of sessions.
+     */
+    public long getOpened() {
+        return opened.sum();
+    }
+
+    /**
+     * Gets how many sessions have been evicted for being idle.
+     * @return The number of evicted sessions.
+     */
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    /**
+     * Gets how many closed sessions are kept to be reused.
+     * @return The number of pooled sessions.
+     */
+    public int getPooled() {
+        synchronized (pool) {
+            return pool.size();
+        }
+    }
+
+    /**
+     * Closes every session, and stops looking for idle sessions. Sessions can not be opened afterwards.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (pool) {
+            if(sweeper != null)
+                sweeper.cancel(false);
+            pool.clear();
+        }
+        for (String id : sessions.keySet())
+            close(id);
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ open=%s, opened=%s, evicted=%s, pooled=%s, idletimeoutmillis=%s, closed=%s }",
+                size(), getOpened(), getEvicted(), getPooled(), TimeUnit.NANOSECONDS.toMillis(idleNanos), closed).toString();
+    }
+
+    // Runs the lines of a session on the manager's executor.
+    void execute(Runnable task) {
+        man.getExecutor().execute(task);
+    }
+
+    // Keeps a closed session to be reused, unless the pool is full.
+    void recycle(PooledSession session) {
+        synchronized (pool) {
+            if(!closed && pool.size() < poolSize)
+                pool.addLast(session);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package Internal.Managing.Tracing;
+
+import Internal.Managing.Commands.Command;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes spans as an OTLP <code>ExportTraceServiceRequest</code> in its JSON encoding: ids are hexadecimal, 64 bit numbers are strings, and enums are numbers.
+ */
+final class OtlpJson {
+    private static final int SPAN_KIND_INTERNAL = 1;
+    private static final int STATUS_CODE_UNSET = 0;
+    private static final int STATUS_CODE_ERROR = 2;
+
+    private OtlpJson() {}
+
+    static void write(Writer w, List<Span> spans) throws IOException {
+        w.write("{\"resourceSpans\":[{\"resource\":{\"attributes\":[");
+        attribute(w, "service.name", "jcommands");
+        w.write("]},\"scopeSpans\":[{\"scope\":{\"name\":\"JCommands\"},\"spans\":[");
+        for (int i = 0; i < spans.size(); i++) {
+            if(i > 0) w.write(',');
+            span(w, spans.get(i));
+        }
+        w.write("]}]}]}");
+    }
+
+    private static void span(Writer w, Span s) throws IOException {
+        w.write("{\"traceId\":\"");
+        w.write(s.getTraceId());
+        w.write("\",\"spanId\":\"");
+        w.write(s.getSpanId());
+        if(s.getParentSpanId() != null) {
+            w.write("\",\"parentSpanId\":\"");
+            w.write(s.getParentSpanId());
+        }
+        w.write("\",\"name\":");
+        string(w, s.getName());
+        w.write(",\"kind\":" + SPAN_KIND_INTERNAL);
+        w.write(",\"startTimeUnixNano\":\"" + s.getStartEpochNanos());
+        w.write("\",\"endTimeUnixNano\":\"" + (s.getStartEpochNanos() + s.getDurationNanos()));
+        w.write("\",\"attributes\":[");
+        attribute(w, "jcommands.session", s.getSessionId());
+        w.write(',');
+        attribute(w, "thread.name", s.getThread());
+        w.write(",{\"key\":\"jcommands.exit_status\",\"value\":{\"intValue\":\"" + s.getExitStatus() + "\"}}");
+        w.write("],\"status\":{\"code\":" + (s.getExitStatus() == Command.EXIT_SUCCESS ? STATUS_CODE_UNSET : STATUS_CODE_ERROR) + "}}");
+    }
+
+    private static void attribute(Writer w, String key, String value) throws IOException {
+        w.write("{\"key\":");
+        string(w, key);
+        w.write(",\"value\":{\"stringValue\":");
+        string(w, value != null ? value : "");
+        w.write("}}");
+    }
+
+    private static void string(Writer w, String s) throws IOException {
+        w.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': w.write("\\\""); break;
+                case '\\': w.write("\\\\"); break;
+                case '\n': w.write("\\n"); break;
+                case '\r': w.write("\\r"); break;
+                case '\t': w.write("\\t"); break;
+                default:
+                    if(c < 0x20) w.write(String.format("\\u%04x", (int) c));
+                    else w.write(c);
+            }
+        }
+        w.write('"');
+    }
+}
@@ -0,0 +1,126 @@
+package Internal.Managing.Tracing;
+
+import java.util.Formatter;
+
+/**
+ * One invocation of a command, or of a pipeline, recorded by a {@link Tracer}. Spans of commands that were run by other commands have the span of the
+ * outer command as their parent, and every span of the same outer request shares its trace id.
+ */
+public final class Span {
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    private final long spanId;
+    private final long parentSpanId;
+    private final String name;
+    private final String sessionId;
+    private final String thread;
+    private final long startNanos;
+    private final long startEpochNanos;
+    private volatile long durationNanos = -1;
+    private volatile int exitStatus;
+
+    Span(long traceIdHigh, long traceIdLow, long spanId, long parentSpanId, String name, String sessionId, long startNanos, long startEpochNanos) {
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.sessionId = sessionId;
+        this.thread = Thread.currentThread().getName();
+        this.startNanos = startNanos;
+        this.startEpochNanos = startEpochNanos;
+    }
+
+    /**
+     * Gets the id of the trace this span belongs to, which is shared by every span of the same outer request.
+     * @return The trace id, as 32 hexadecimal digits.
+     */
+    public String getTraceId() {
+        return hex(traceIdHigh) + hex(traceIdLow);
+    }
+
+    /**
+     * Gets the id of this span.
+     * @return The span id, as 16 hexadecimal digits.
+     */
+    public String getSpanId() {
+        return hex(spanId);
+    }
+
+    /**
+     * Gets the id of the span that this span was started in.
+     * @return The parent span id, as 16 hexadecimal digits, or <code>null</code> if this is the span of an outer request.
+     */
+    public String getParentSpanId() {
+        return parentSpanId != 0 ? hex(parentSpanId) : null;
+    }
+
+    /**
+     * Gets the name of this span, which is the path of the command, such as <code>db backup</code>, or the commands of a pipeline joined with <code> | </code>.
+     * @return The name of this span.
+     */
+    public String getName() { return name; }
+
+    /**
+     * Gets the session the input message of this span came from.
+     * @return The id of the session.
+     */
+    public String getSessionId() { return sessionId; }
+
+    /**
+     * Gets the name of the thread that dispatched the input message.
+     * @return The name of the thread.
+     */
+    public String getThread() { return thread; }
+
+    /**
+     * Gets when this span started.
+     * @return The time in nanoseconds since the epoch.
+     */
+    public long getStartEpochNanos() { return startEpochNanos; }
+
+    /**
+     * Gets how long this span took.
+     * @return The duration in nanoseconds, or <code>-1</code> if it has not ended yet.
+     */
+    public long getDurationNanos() { return durationNanos; }
+
+    /**
+     * Gets the exit status of the command of this span.
+     * @return The exit status, which is only set once the span ended.
+     */
+    public int getExitStatus() { return exitStatus; }
+
+    /**
+     * Checks whether or not this span ended.
+     * @return Whether or not the command of this span is done.
+     */
+    public boolean isEnded() { return durationNanos >= 0; }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ traceid=%s, spanid=%s, parentspanid=%s, name=%s, session=%s, durationnanos=%s, exitstatus=%s }",
+                getTraceId(), getSpanId(), getParentSpanId(), name, sessionId, durationNanos, exitStatus).toString();
+    }
+
+    // Ends this span, and returns false if it already ended.
+    boolean end(int exitStatus) {
+        if(durationNanos >= 0)
+            return false;
+        this.exitStatus = exitStatus;
+        this.durationNanos = System.nanoTime() - startNanos;
+        return true;
+    }
+
+    long getTraceIdHigh() { return traceIdHigh; }
+    long getTraceIdLow() { return traceIdLow; }
+    long getSpanIdValue() { return spanId; }
+
+    static String hex(long value) {
+        String s = Long.toHexString(value);
+        return "0".repeat(16 - s.length()) + s;
+    }
+}
@@ -0,0 +1,220 @@
+package Internal.Managing.Tracing;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records a {@link Span} for every input message that the manager dispatches, so slow commands can be found deep inside of commands that run other commands.<br>
+ * While a command runs, its span is the current span of its thread. A command that runs another one, such as with
+ * {@link Internal.Processing.CommandProcessor#runQuery(String)} or {@link Internal.Processing.CommandProcessor#invoke(String)}, starts a child span
+ * with the same trace id. The current span follows tasks onto the manager's executor, so it also reaches pipeline stages, commands with a timeout,
+ * and deferred work.<br>
+ * Ended spans are kept in a bounded buffer, which drops the oldest span when it is full. They are exported as OTLP-JSON, one export request per line,
+ * which can be read by an OpenTelemetry collector's file receiver, or with any JSON tool.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * configurator.setTracing(Path.of("traces.jsonl"), 4096);
+ *
+ * Tracer tracer = manager.getTracer();
+ * tracer.export(Path.of("now.jsonl"));   # Exports the spans that ended so far
+ * </pre></code></blockquote>
+ */
+public class Tracer {
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private final int capacity;
+    private final ArrayDeque<Span> ended;
+    private final long epochOffset;
+    private final LongAdder started = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Creates a tracer.
+     * @param capacity How many ended spans are kept until they are exported.
+     */
+    public Tracer(int capacity) {
+        if(capacity < 1)
+            throw new IllegalArgumentException("A tracer must keep at least one span!");
+        this.capacity = capacity;
+        this.ended = new ArrayDeque<>(Math.min(capacity, 1024));
+        this.epochOffset = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+    }
+
+    /**
+     * Starts a span, as a child of the current span of this thread, or as the first span of a new trace if there is none.
+     * The span does not become the current span until it is {@link #activate(Span) activated}.
+     * @param name The name of the span, such as the path of the command.
+     * @param sessionId The session the input message came from.
+     * @return The started span.
+     */
+    public Span start(String name, String sessionId) {
+        started.increment();
+        Span parent = CURRENT.get();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high = parent != null ? parent.getTraceIdHigh() : random.nextLong();
+        long low = parent != null ? parent.getTraceIdLow() : random.nextLong() | 1;
+        long now = System.nanoTime();
+        return new Span(high, low, random.nextLong() | 1, parent != null ? parent.getSpanIdValue() : 0, name, sessionId, now, now + epochOffset);
+    }
+
+    /**
+     * Ends a span, and keeps it until it is exported. Ending a span again does nothing.
+     * @param span The span to end.
+     * @param exitStatus The exit status of its command.
+     */
+    public void end(Span span, int exitStatus) {
+        if(!span.end(exitStatus))
+            return;
+
+        synchronized (ended) {
+            if(ended.size() >= capacity) {
+                ended.pollFirst();
+                dropped.increment();
+            }
+            ended.addLast(span);
+        }
+    }
+
+    /**
+     * Gets the current span of this thread.
+     * @return The span of the command that is running on this thread, or <code>null</code> if there is none.
+     */
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes a span the current span of this thread, so the commands it runs become its children.
+     * @param span The span to activate.
+     * @return The span that was current before, which must be passed to {@link #restore(Span)} once the span is done on this thread.
+     */
+    public static Span activate(Span span) {
+        Span previous = CURRENT.get();
+        CURRENT.set(span);
+        return previous;
+    }
+
+    /**
+     * Makes a span that was current before the current span again.
+     * @param previous The span returned by {@link #activate(Span)}, which can be <code>null</code>.
+     */
+    public static void restore(Span previous) {
+        if(previous == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(previous);
+    }
+
+    /**
+     * Wraps a task, so it runs with the span that is current right now, on whichever thread runs it.
+     * @param task The task to wrap.
+     * @return The wrapped task, or the task itself if there is no current span.
+     */
+    public static Runnable wrap(Runnable task) {
+        Span span = CURRENT.get();
+        if(span == null)
+            return task;
+
+        return () -> {
+            Span previous = activate(span);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps an executor, so every task keeps the span that was current when it was submitted.
+     * @param executor The executor to wrap. Shutting down the wrapper shuts it down.
+     * @return The wrapped executor.
+     */
+    public static ExecutorService wrap(ExecutorService executor) {
+        return new AbstractExecutorService() {
+            @Override public void execute(Runnable command) { executor.execute(wrap(command)); }
+            @Override public void shutdown() { executor.shutdown(); }
+            @Override public List<Runnable> shutdownNow() { return executor.shutdownNow(); }
+            @Override public boolean isShutdown() { return executor.isShutdown(); }
+            @Override public boolean isTerminated() { return executor.isTerminated(); }
+            @Override public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException { return executor.awaitTermination(timeout, unit); }
+        };
+    }
+
+    /**
+     * Removes every ended span from the buffer.
+     * @return The spans, oldest first.
+     */
+    public List<Span> drain() {
+        synchronized (ended) {
+            List<Span> spans = new ArrayList<>(ended);
+            ended.clear();
+            return spans;
+        }
+    }
+
+    /**
+     * Appends the ended spans to a file as one line of OTLP-JSON, and removes them from the buffer. Nothing is written if no span ended.
+     * @param file The file to append to. It is created if it does not exist.
+     * @return The number of spans that were exported.
+     * @throws IOException If the file can not be written. The spans are lost.
+     */
+    public int export(Path file) throws IOException {
+        List<Span> spans = drain();
+        if(spans.isEmpty())
+            return 0;
+
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            OtlpJson.write(w, spans);
+            w.write('\n');
+        }
+        return spans.size();
+    }
+
+    /**
+     * Gets how many spans have been started.
+     * @return The number of spans.
+     */
+    public long getStarted() {
+        return started.sum();
+    }
+
+    /**
+     * Gets how many ended spans were dropped, because the buffer was full before they were exported.
+     * @return The number of dropped spans.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets how many ended spans are waiting to be exported.
+     * @return The number of buffered spans.
+     */
+    public int getBuffered() {
+        synchronized (ended) {
+            return ended.size();
+        }
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ started=%s, buffered=%s, dropped=%s, capacity=%s }", getStarted(), getBuffered(), getDropped(), capacity).toString();
+    }
+}
@@ -0,0 +1,108 @@
+package Internal.Processing;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.FlagType;
+import Internal.Managing.Commands.Flags;
+import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Core.CommandConfigurator;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.InputSource;
+import Internal.Managing.IO.ReplySink;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures how much memory is allocated for every dispatched command, with and without {@link CommandConfigurator#setObjectReuse(boolean) object reuse}:
+ * <ul>
+ *     <li><b>dispatch</b>: a line dispatched to a sink that drops the replies, and sealed, as the console and sessions do.</li>
+ *     <li><b>call</b>: a line run through {@link CommandProcessor#call(CommandManager, String, String, InputSource)}, which captures the replies.</li>
+ * </ul>
+ * The allocations of the benchmark thread are read from the JVM, so this needs a JVM that supports thread allocation counters, such as HotSpot.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * java Internal.Processing.AllocationBenchmark [iterations]
+ * </pre></code></blockquote>
+ */
+public class AllocationBenchmark {
+    private static final String LINE = "benchf -v -n 3 -m hello alpha beta gamma";
+
+    /**
+     * A command with a flag of every kind, that replies with a short line.
+     */
+    public static class Bench extends Command {
+        public Bench() {
+            this.name = "benchf";
+            this.aliases = new String[] {"bf"};
+            this.flags = new Flags("-v").putTypedFlag("-n", "count", FlagType.INT).putTypedFlag("-m", "message", FlagType.STRING);
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            event.replyln(event.getInputMessage().getString("-m", "") + " x" + event.getInputMessage().getInt("-n", 1) + " " + event.getInputMessage().getArgsArray().length);
+        }
+    }
+
+    /** A sink that drops everything, so only the allocations of the manager are measured. */
+    private static final ReplySink DISCARD = new ReplySink() {
+        @Override public void print(CharSequence text) {}
+        @Override public void println() {}
+    };
+
+    /**
+     * Runs the benchmark.
+     * @param args The number of iterations of every measurement, which is <code>500000</code> by default.
+     */
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        for (int round = 0; round < 2; round++) {
+            // The first round warms up
+            boolean print = round == 1;
+            for (boolean reuse : new boolean[] {false, true}) {
+                CommandConfigurator configurator = new CommandConfigurator();
+                configurator.setHeadless(true);
+                configurator.setObjectReuse(reuse);
+                configurator.addCommand(new Bench());
+                try (CommandManager man = configurator.build()) {
+                    Result dispatch = measure(iterations, () -> {
+                        InputEvent event = man.dispatch("bench", LINE, DISCARD, InputSource.EMPTY);
+                        event.seal();
+                    });
+                    Result call = measure(iterations, () -> CommandProcessor.call(man, "bench", LINE, InputSource.EMPTY));
+                    if(print) {
+                        report("dispatch", reuse, dispatch);
+                        report("call", reuse, call);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Result {
+        final long bytes;
+        final long nanos;
+
+        Result(long bytes, long nanos) {
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+    }
+
+    // Runs a task, and returns the bytes it allocated and the time it took, on average.
+    private static Result measure(int iterations, Runnable task) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            task.run();
+        long elapsed = System.nanoTime() - start;
+        return new Result((threads.getThreadAllocatedBytes(thread) - allocated) / iterations, elapsed / iterations);
+    }
+
+    private static void report(String name, boolean reuse, Result result) {
+        // The allocation rate is how fast the young generation fills up while commands are dispatched back to back
+        double rate = result.bytes * (1e9 / Math.max(1, result.nanos)) / (1 << 20);
+        System.out.printf("%-9s reuse %-5s %,6d bytes/op   %,6d ns/op   %,8.1f MB/s%n", name, reuse, result.bytes, result.nanos, rate);
+    }
+}
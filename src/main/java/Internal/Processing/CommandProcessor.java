@@ -1,7 +1,14 @@
 package Internal.Processing;
 
 import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.CommandMessage;
+import Internal.Managing.Commands.InputEvent;
 import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.CaptureBuffer;
+import Internal.Managing.IO.InputSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * This class was designed with Frontend in mind. The functions it contains allows to run any command or query, statically. It would be implemented in this type of environment:<br>
@@ -14,6 +21,9 @@ import Internal.Managing.Core.CommandManager;
  * @since 1.0
  */
 public class CommandProcessor extends CommandManager {
+    /** The id of the session that invocations without a session come from. */
+    public static final String PROCESSOR_SESSION = "processor";
+
     /**
      * Runs a query into the command query. This method is intended for Frontend use. See the {@link CommandProcessor#runCommand(Command, String, String...)} command for similar commands.
      * @param query The query to run. This must contain the command name, flags, and args.
@@ -22,7 +32,7 @@ public class CommandProcessor extends CommandManager {
      */
     public static void runQuery(String query)
     {
-        new CommandProcessor().submitRequest(query);
+        submitRequest(target(), query);
     }
 
                 /**
@@ -37,33 +47,129 @@ public class CommandProcessor extends CommandManager {
                  * @since 1.0
                  */
         public static void runCommand(Command cmd, String args, String ... flagsAndParameters) {
-            // New stringbuilder
-            StringBuilder fp = new StringBuilder();
-            // Loop through array, append to stringbuilder
-            for(String f : flagsAndParameters) fp.append(f).append(" ");
             // Submit a request to the Command Processor
-            new CommandProcessor().submitRequest(cmd.getName() + " " + fp.toString() + args);
+            submitRequest(target(), toQuery(cmd, args, flagsAndParameters));
     }
 
-    // Submits request to the Command Processor, and runs the code.
-    private void submitRequest(String query) {
-        // Loop through all commands
-        for(Command cmd : getCommands()) {
-            if (cmd.getName().equalsIgnoreCase(query.split(" ")[0])) {
-                nextMsg = query;
-                if(executeAllCommands())
-                    return;
-
-                break;
-            }
+    /**
+     * Invokes a query in the background, and captures its result instead of printing it. This is intended for code that needs the output of a command:
+     * <blockquote><code><pre>
+     * CommandResult result = CommandProcessor.invoke("addf 1 2 3").join();
+     * result.getOutput();  # "Sum: 6.0\n"
+     * </pre></code></blockquote>
+     * The output is captured into a pooled buffer, so nothing is printed to the printstream. Commands that wait for input read <code>null</code>.
+     * @param query The query to run. This must contain the command name, flags, and args.
+     * @return A future that completes with the {@link CommandResult} once the command is done.
+     * @see CommandResult
+     */
+    public static CompletableFuture<CommandResult> invoke(String query) {
+        return invoke(target(), query);
+    }
+
+    /**
+     * Invokes a command in the background, and captures its result instead of printing it. The flagsAndParameters work the same as in {@link CommandProcessor#runCommand(Command, String, String...)}.
+     * @param cmd The command to run.
+     * @param args The arguments for the command, as a String.
+     * @param flagsAndParameters The flags and their parameters, such as <code>"-s String"</code>.
+     * @return A future that completes with the {@link CommandResult} once the command is done.
+     */
+    public static CompletableFuture<CommandResult> invoke(Command cmd, String args, String ... flagsAndParameters) {
+        return invoke(target(), toQuery(cmd, args, flagsAndParameters));
+    }
+
+    /**
+     * Invokes a query on a specific manager in the background, and captures its result instead of printing it.
+     * @param man The manager to run the query with.
+     * @param query The query to run. This must contain the command name, flags, and args.
+     * @return A future that completes with the {@link CommandResult} once the command is done.
+     */
+    public static CompletableFuture<CommandResult> invoke(CommandManager man, String query) {
+        return invoke(man, PROCESSOR_SESSION, query);
+    }
+
+    /**
+     * Invokes a query on a specific manager in the background, from a session, and captures its result instead of printing it. Rate limits for the session apply to the query.
+     * @param man The manager to run the query with.
+     * @param sessionId The id of the session the query came from.
+     * @param query The query to run. This must contain the command name, flags, and args.
+     * @return A future that completes with the {@link CommandResult} once the command is done.
+     */
+    public static CompletableFuture<CommandResult> invoke(CommandManager man, String sessionId, String query) {
+        return CompletableFuture.supplyAsync(() -> call(man, sessionId, query, InputSource.EMPTY), man.getExecutor());
+    }
+
+    /**
+     * Runs a query on the calling thread, and captures its result instead of printing it.
+     * @param man The manager to run the query with.
+     * @param sessionId The id of the session the query came from.
+     * @param query The query to run. This must contain the command name, flags, and args.
+     * @param in The source that the command reads further input from.
+     * @return The result of the command.
+     */
+    public static CommandResult call(CommandManager man, String sessionId, String query, InputSource in) {
+        return call(man, buffer -> man.dispatch(sessionId, query, buffer, in));
+    }
+
+    /**
+     * Runs an input message that was already split into its flags and arguments on the calling thread, and captures its result. The message is not rebuilt as a text line and parsed again.
+     * @param man The manager to run the message with.
+     * @param sessionId The id of the session the message came from.
+     * @param message The input message, made with {@link CommandMessage#CommandMessage(Command, CommandManager, String[], String[], String[])}.
+     * @param in The source that the command reads further input from.
+     * @return The result of the command.
+     */
+    public static CommandResult call(CommandManager man, String sessionId, CommandMessage message, InputSource in) {
+        return call(man, buffer -> man.dispatch(sessionId, message, buffer, in));
+    }
+
+    // Dispatches into a pooled buffer, and waits for the result.
+    private static CommandResult call(CommandManager man, Function<CaptureBuffer, InputEvent> dispatch) {
+        long startTime = System.currentTimeMillis();
+        long start = System.nanoTime();
+        CaptureBuffer buffer = CaptureBuffer.acquire();
+        InputEvent event = null;
+        try {
+            event = dispatch.apply(buffer);
+            if(event == null)
+                buffer.println(man.getNoCommandMessage());
+            else
+                event.getCompletion().join(); // The command may have been queued by a rate limit
+
+            String output = buffer.toString();
+            long duration = System.nanoTime() - start;
+            if(event == null)
+                return new CommandResult(output, Command.EXIT_NOT_FOUND, null, startTime, duration);
+
+            return new CommandResult(output, event.getExitStatus(), event.getException(), startTime, duration);
+        } finally {
+            // A command that timed out or was cancelled can still be running, and writing to the buffer, so its buffer is dropped instead of reused
+            if(event == null || !event.isCancelled())
+                buffer.release();
+            if(event != null)
+                event.seal();
         }
+    }
 
-        // Check if a command was every triggered
+    // The manager to run static requests with: the last built one, or an empty processor if none was built.
+    private static CommandManager target() {
+        CommandManager man = getActiveManager();
+        return man != null ? man : new CommandProcessor();
+    }
+
+    // Builds a query from a command, its arguments, and its flags.
+    private static String toQuery(Command cmd, String args, String ... flagsAndParameters) {
+        // New stringbuilder
+        StringBuilder fp = new StringBuilder();
+        // Loop through array, append to stringbuilder
+        for(String f : flagsAndParameters) fp.append(f).append(" ");
+        return cmd.getName() + " " + fp.toString() + args;
+    }
+
+    // Submits request to the Command Processor, and runs the code.
+    private static void submitRequest(CommandManager man, String query) {
+        // Check if a command was ever triggered
         //   if not: return error message
-        //   if so: set commandTriggered to false
-        if(!commandTriggered)
-            getOut().println(getNoCommandMessage());
-        else
-            commandTriggered = false;
+        if(man.dispatch(query, man.getConsoleSink(), man.getConsoleInput()) == null)
+            man.getOut().println(man.getNoCommandMessage());
     }
 }
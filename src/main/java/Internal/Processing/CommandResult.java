@@ -0,0 +1,117 @@
+package Internal.Processing;
+
+import Internal.Managing.Commands.Command;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Formatter;
+
+/**
+ * The result of a command that was invoked with {@link CommandProcessor#invoke(String)}. This holds everything the command replied, its exit status, the exception it failed with (if any), and how long it took.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * CommandProcessor.invoke("addf 1 2").thenAccept(result -> {
+ *     if(result.isSuccess())
+ *         System.out.println(result.getOutput());  # Sum: 3.0
+ * });
+ * </pre></code></blockquote>
+ */
+public class CommandResult {
+    private final CharSequence output;
+    private final int exitStatus;
+    private final Throwable exception;
+    private final long startTime;
+    private final long durationNanos;
+    private byte[] bytes;
+
+    /**
+     * Creates a new result. This should not be manually called, results are created by the {@link CommandProcessor}.
+     * @param output The captured output of the command.
+     * @param exitStatus The exit status of the command.
+     * @param exception The exception the command failed with, or <code>null</code>.
+     * @param startTime When the command started, in milliseconds since the epoch.
+     * @param durationNanos How long the command took, in nanoseconds.
+     */
+    public CommandResult(CharSequence output, int exitStatus, Throwable exception, long startTime, long durationNanos) {
+        this.output = output;
+        this.exitStatus = exitStatus;
+        this.exception = exception;
+        this.startTime = startTime;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Gets everything the command replied with.
+     * @return The captured output.
+     */
+    public CharSequence getOutput() {
+        return output;
+    }
+
+    /**
+     * Gets everything the command replied with, encoded as UTF-8. The bytes are only encoded once.
+     * @return The captured output as UTF-8 bytes.
+     */
+    public synchronized byte[] getOutputBytes() {
+        if(bytes == null)
+            bytes = output.toString().getBytes(StandardCharsets.UTF_8);
+
+        return bytes;
+    }
+
+    /**
+     * Gets the exit status of the command. See the constants in {@link Command}, such as {@link Command#EXIT_SUCCESS}.
+     * @return The exit status.
+     */
+    public int getExitStatus() {
+        return exitStatus;
+    }
+
+    /**
+     * Checks whether or not the command ran successfully, meaning its exit status is {@link Command#EXIT_SUCCESS}.
+     * @return Whether or not the command was successful.
+     */
+    public boolean isSuccess() {
+        return exitStatus == Command.EXIT_SUCCESS;
+    }
+
+    /**
+     * Gets the exception that the command failed with.
+     * @return The exception, or <code>null</code> if the command did not throw one.
+     */
+    public Throwable getException() {
+        return exception;
+    }
+
+    /**
+     * Gets when the command started.
+     * @return The start time in milliseconds since the epoch.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets how long the command took to run, in nanoseconds.
+     * @return The duration in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Gets how long the command took to run.
+     * @return The duration.
+     */
+    public Duration getDuration() {
+        return Duration.ofNanos(durationNanos);
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ exitstatus=%s, exception=%s, starttime=%s, durationnanos=%s, output=%s }", exitStatus, exception, startTime, durationNanos, output).toString();
+    }
+}
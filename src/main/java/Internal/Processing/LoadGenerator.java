@@ -0,0 +1,232 @@
+package Internal.Processing;
+
+import Internal.Commands.Exit;
+import Internal.Managing.Core.CommandConfigurator;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.InputSource;
+import Internal.Managing.Journal.JournalReader;
+import Internal.Managing.Journal.JournalRecord;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Replays a recorded workload against a {@link CommandManager}, through the {@link CommandProcessor}, and reports how it held up.<br>
+ * A workload is read from a {@link Internal.Managing.Journal.CommandJournal} with {@link #readJournal(Path)}, or from a plain text file
+ * of input messages with {@link #readLines(Path)}. It can be replayed at its original timing, faster or slower, or as fast as possible,
+ * across any number of concurrent sessions. The records are dealt to the sessions in turn, and every session runs its records in order.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * LoadGenerator generator = new LoadGenerator(manager, LoadGenerator.readJournal(Path.of("journal")));
+ * generator.setSpeed(10);      # Ten times faster than it was recorded
+ * generator.setSessions(32);
+ * generator.run().print(System.out);
+ * </pre></code></blockquote>
+ * Or from the command line, against a manager with the internal commands:
+ * <blockquote><code><pre>
+ * java Internal.Processing.LoadGenerator journal -s 0 -c 32
+ * </pre></code></blockquote>
+ * Input messages that would run {@link Exit} are skipped, since they would end the replay.
+ */
+public class LoadGenerator {
+    private final CommandManager man;
+    private final List<JournalRecord> workload;
+    private double speed = 1;
+    private int sessions = 1;
+
+    /**
+     * Creates a new load generator.
+     * @param man The manager to replay the workload against.
+     * @param workload The records to replay, oldest first.
+     */
+    public LoadGenerator(CommandManager man, List<JournalRecord> workload) {
+        this.man = man;
+        this.workload = workload;
+    }
+
+    /**
+     * Reads a workload from a journal.
+     * @param directory The directory of the journal.
+     * @return The records of the journal, oldest first.
+     * @throws IOException If the journal can not be read.
+     */
+    public static List<JournalRecord> readJournal(Path directory) throws IOException {
+        try (JournalReader reader = new JournalReader(directory)) {
+            List<JournalRecord> records = new ArrayList<>();
+            reader.forEach(records::add);
+            return records;
+        }
+    }
+
+    /**
+     * Reads a workload from a text file with one input message per line. Blank lines and lines starting with <code>#</code> are skipped.
+     * The lines have no timing, so they are always replayed at the maximum rate.
+     * @param file The text file.
+     * @return The input messages of the file, as records.
+     * @throws IOException If the file can not be read.
+     */
+    public static List<JournalRecord> readLines(Path file) throws IOException {
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            List<JournalRecord> records = new ArrayList<>();
+            lines.map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .forEach(line -> records.add(new JournalRecord(0, 0, 0, CommandProcessor.PROCESSOR_SESSION, line)));
+            return records;
+        }
+    }
+
+    /**
+     * Gets the speed of the replay.
+     * @return The speed of the replay, or <code>0</code> for the maximum rate.
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Sets the speed of the replay. <code>1</code> replays at the original timing, <code>2</code> twice as fast, <code>0.5</code> half as fast,
+     * and <code>0</code> replays every record as soon as its session is free. Default is <code>1</code>.
+     * @param speed The speed of the replay.
+     */
+    public void setSpeed(double speed) {
+        if(speed < 0)
+            throw new IllegalArgumentException("The speed can not be negative!");
+        this.speed = speed;
+    }
+
+    /**
+     * Gets how many sessions replay the workload at once.
+     * @return The number of sessions.
+     */
+    public int getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Sets how many sessions replay the workload at once. Every session runs on its own thread, with the id <code>load-N</code>. Default is <code>1</code>.
+     * @param sessions The number of sessions.
+     */
+    public void setSessions(int sessions) {
+        if(sessions < 1)
+            throw new IllegalArgumentException("There must be at least one session!");
+        this.sessions = sessions;
+    }
+
+    /**
+     * Replays the workload, and waits for it to finish.
+     * @return The report of the replay.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public LoadReport run() throws InterruptedException {
+        List<JournalRecord> records = new ArrayList<>(workload.size());
+        for (JournalRecord record : workload) {
+            if(!(man.findCommand(record.getLine()) instanceof Exit))
+                records.add(record);
+        }
+
+        // The journal appends a record when its command completes, stamped with when it was dispatched, so a slow command is written after
+        // the commands that were dispatched after it. Replaying in the order of dispatch keeps their original spacing. The sort is stable,
+        // so records with the same timestamp, such as the lines of a text file, keep their order.
+        records.sort(Comparator.comparingLong(JournalRecord::getTimestamp));
+
+        long firstTimestamp = records.isEmpty() ? 0 : records.get(0).getTimestamp();
+        // A workload without timing is replayed at the maximum rate
+        boolean paced = speed > 0 && !records.isEmpty() && records.get(records.size() - 1).getTimestamp() != firstTimestamp;
+        long[] latencies = new long[records.size()];
+        int[] statuses = new int[records.size()];
+        Thread[] threads = new Thread[sessions];
+        long start = System.nanoTime();
+
+        for (int s = 0; s < sessions; s++) {
+            int session = s;
+            threads[s] = new Thread(() -> {
+                String sessionId = "load-" + session;
+                for (int i = session; i < records.size(); i += sessions) {
+                    JournalRecord record = records.get(i);
+
+                    // Wait until the record is due, or run it right away if the session is behind
+                    long due = start;
+                    if(paced)
+                        due += (long) (TimeUnit.MILLISECONDS.toNanos(record.getTimestamp() - firstTimestamp) / speed);
+                    long wait;
+                    while ((wait = due - System.nanoTime()) > 0)
+                        LockSupport.parkNanos(wait);
+                    if(!paced)
+                        due = System.nanoTime();
+
+                    CommandResult result = CommandProcessor.call(man, sessionId, record.getLine(), InputSource.EMPTY);
+                    latencies[i] = System.nanoTime() - due;
+                    statuses[i] = result.getExitStatus();
+                }
+            }, "JCommands-load-" + s);
+            threads[s].start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+        long elapsed = System.nanoTime() - start;
+
+        Map<Integer, Long> exitStatuses = new HashMap<>();
+        for (int status : statuses)
+            exitStatuses.merge(status, 1L, Long::sum);
+        return new LoadReport(latencies, exitStatuses, elapsed, sessions, speed);
+    }
+
+    /**
+     * Replays a journal or a text file against a manager with the internal commands, and prints the report.<br>
+     * Usage: <code>LoadGenerator &lt;journal directory | text file&gt; [-s speed] [-c sessions]</code>
+     * @param args The command line arguments.
+     * @throws Exception If the workload can not be read, or the replay is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        PrintStream out = System.out;
+        if(args.length == 0) {
+            out.println("Usage: LoadGenerator <journal directory | text file> [-s speed] [-c sessions]");
+            out.println("  -s  The speed of the replay: 1 is the original timing, 0 is the maximum rate. Default is 1.");
+            out.println("  -c  How many sessions replay at once. Default is 1.");
+            System.exit(2);
+        }
+
+        Path path = Path.of(args[0]);
+        double speed = 1;
+        int sessions = 1;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-s": speed = Double.parseDouble(args[i + 1]); break;
+                case "-c": sessions = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        List<JournalRecord> workload;
+        try {
+            workload = Files.isDirectory(path) ? readJournal(path) : readLines(path);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        // A manager that only runs replayed commands, and reads nothing from the console
+        CommandConfigurator configurator = new CommandConfigurator();
+        configurator.setHeadless(true);
+        configurator.setUseInternalCommands(true);
+        CommandManager man = configurator.build();
+
+        LoadGenerator generator = new LoadGenerator(man, workload);
+        generator.setSpeed(speed);
+        generator.setSessions(sessions);
+        generator.run().print(out);
+        man.close();
+    }
+}
@@ -0,0 +1,124 @@
+package Internal.Processing;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Formatter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The report of a {@link LoadGenerator} run: how many commands were replayed, how fast, how long they took, and how they ended.<br>
+ * Latencies are measured from when a command was <i>meant</i> to start by the replay's timing, not from when it actually started,
+ * so a server that falls behind shows it in the latencies instead of silently slowing the replay down.
+ */
+public class LoadReport {
+    private final long[] latencies;
+    private final Map<Integer, Long> exitStatuses;
+    private final long elapsedNanos;
+    private final int sessions;
+    private final double speed;
+
+    /**
+     * Creates a new report. Reports are created by the {@link LoadGenerator}.
+     * @param latencies The latency of every command in nanoseconds, which this report sorts.
+     * @param exitStatuses How many commands ended with every exit status.
+     * @param elapsedNanos How long the whole replay took, in nanoseconds.
+     * @param sessions How many sessions replayed the commands.
+     * @param speed The speed of the replay, or <code>0</code> for the maximum rate.
+     */
+    LoadReport(long[] latencies, Map<Integer, Long> exitStatuses, long elapsedNanos, int sessions, double speed) {
+        Arrays.sort(latencies);
+        this.latencies = latencies;
+        this.exitStatuses = Collections.unmodifiableMap(new TreeMap<>(exitStatuses));
+        this.elapsedNanos = elapsedNanos;
+        this.sessions = sessions;
+        this.speed = speed;
+    }
+
+    /**
+     * Gets how many commands were replayed.
+     * @return The number of commands.
+     */
+    public long getCommands() { return latencies.length; }
+
+    /**
+     * Gets how many commands did not end with {@link Internal.Managing.Commands.Command#EXIT_SUCCESS}.
+     * @return The number of errors.
+     */
+    public long getErrors() {
+        return latencies.length - exitStatuses.getOrDefault(0, 0L);
+    }
+
+    /**
+     * Gets how many commands ended with every exit status, such as <code>127</code> for commands that were not found.
+     * @return The number of commands per exit status, sorted by exit status.
+     */
+    public Map<Integer, Long> getExitStatuses() { return exitStatuses; }
+
+    /**
+     * Gets how long the whole replay took.
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    /**
+     * Gets how many commands were replayed per second.
+     * @return The throughput in commands per second.
+     */
+    public double getThroughput() {
+        return elapsedNanos > 0 ? latencies.length * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * Gets a percentile of the latencies, using the nearest rank.
+     * @param percentile The percentile, from <code>0</code> to <code>100</code>, such as <code>99.9</code>.
+     * @return The latency in nanoseconds, or <code>0</code> if nothing was replayed.
+     */
+    public long getLatency(double percentile) {
+        if(latencies.length == 0)
+            return 0;
+        int rank = (int) Math.ceil(percentile / 100 * latencies.length);
+        return latencies[Math.min(latencies.length - 1, Math.max(0, rank - 1))];
+    }
+
+    /**
+     * Gets the mean latency.
+     * @return The mean latency in nanoseconds.
+     */
+    public long getMeanLatency() {
+        if(latencies.length == 0)
+            return 0;
+        double sum = 0;
+        for (long latency : latencies) sum += latency;
+        return (long) (sum / latencies.length);
+    }
+
+    /**
+     * Prints this report in a human readable table.
+     * @param out The stream to print to.
+     */
+    public void print(PrintStream out) {
+        out.printf("Commands:   %d in %.3f s across %d session(s) at %s%n", getCommands(), elapsedNanos / 1e9, sessions, speed > 0 ? speed + "x speed" : "maximum rate");
+        out.printf("Throughput: %.1f commands/s%n", getThroughput());
+        out.printf("Latency:    mean %s, p50 %s, p90 %s, p99 %s, p99.9 %s, max %s%n", millis(getMeanLatency()), millis(getLatency(50)),
+                millis(getLatency(90)), millis(getLatency(99)), millis(getLatency(99.9)), millis(getLatency(100)));
+        out.printf("Errors:     %d%n", getErrors());
+        exitStatuses.forEach((status, count) -> out.printf("  exit %3d: %d%n", status, count));
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ commands=%s, elapsedms=%s, throughput=%.1f, p50=%s, p99=%s, max=%s, errors=%s, exitstatuses=%s }",
+                getCommands(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getThroughput(), millis(getLatency(50)), millis(getLatency(99)),
+                millis(getLatency(100)), getErrors(), exitStatuses).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3fms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,109 @@
+package Internal.Processing;
+
+import Internal.Managing.IO.InputSource;
+import Internal.Managing.IO.ReplySink;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded, in-memory channel of lines between two commands of a {@link Pipeline}. The command on the left writes its replies into it as a {@link ReplySink},
+ * and the command on the right reads them as an {@link InputSource}.<br>
+ * The channel holds at most <code>capacity</code> lines. When it is full, the writing command blocks until the reading command catches up, so a fast command can not flood the heap.
+ * If the reading command finishes before the writing command, the rest of the output is dropped, so the writing command never blocks forever.
+ */
+public class PipeChannel implements ReplySink, InputSource {
+    // Marks the end of the input. Compared by identity.
+    private static final String EOF = new String("");
+
+    private final ArrayBlockingQueue<String> lines;
+    private final StringBuilder partial = new StringBuilder();
+    private volatile boolean readerClosed;
+    private boolean writerClosed;
+    private boolean eof;
+
+    /**
+     * Creates a new channel.
+     * @param capacity The maximum amount of lines that can be waiting to be read.
+     */
+    public PipeChannel(int capacity) {
+        this.lines = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    @Override
+    public synchronized void print(CharSequence text) {
+        if(writerClosed) return;
+
+        // Put every complete line into the channel, keep the rest for later
+        int start = 0;
+        for(int i = 0; i < text.length(); i++) {
+            if(text.charAt(i) == '\n') {
+                partial.append(text, start, i);
+                put(partial.toString());
+                partial.setLength(0);
+                start = i + 1;
+            }
+        }
+        partial.append(text, start, text.length());
+    }
+
+    @Override
+    public synchronized void println() {
+        if(writerClosed) return;
+
+        put(partial.toString());
+        partial.setLength(0);
+    }
+
+    /** Closes the writing end of this channel. The reading command will read the rest of the lines, and then <code>null</code>. */
+    public synchronized void closeWriter() {
+        if(writerClosed) return;
+
+        if(partial.length() > 0) {
+            put(partial.toString());
+            partial.setLength(0);
+        }
+        put(EOF);
+        writerClosed = true;
+    }
+
+    /** Closes the reading end of this channel. Any lines that are written after this are dropped. */
+    public void closeReader() {
+        readerClosed = true;
+        lines.clear();
+    }
+
+    @Override
+    public String readLine() {
+        if(eof || readerClosed) return null;
+
+        try {
+            String line = lines.take();
+            if(line == EOF) {
+                eof = true;
+                return null;
+            }
+            return line;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isInteractive() {
+        return false;
+    }
+
+    // Puts a line into the channel, waiting while it is full (the backpressure), unless the reader is gone.
+    private void put(String line) {
+        try {
+            while (!readerClosed) {
+                if(lines.offer(line, 50, TimeUnit.MILLISECONDS))
+                    return;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package Internal.Processing;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.InputSource;
+import Internal.Managing.IO.ReplySink;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a pipeline of commands, such as <code>cmdA args | cmdB -f flag | cmdC</code>.<br>
+ * Every command (stage) of the pipeline runs at the same time. The replies of each stage are written into a bounded {@link PipeChannel}, which the next stage reads
+ * with {@link InputEvent#readInput()} or {@link InputEvent#waitForNextEvent()}. Only the replies of the last stage are written to the output of the manager.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * $ lsf -a | grepf -p help
+ * </pre></code></blockquote>
+ * The <code>|</code> must be surrounded by spaces. A command that takes its arguments as they are (see {@link Command#isRawInput()}) gets the rest of the line, <code>|</code> included.
+ * Pipelines are off by default, and are turned on with {@link Internal.Managing.Core.CommandConfigurator#setUsePipelines(boolean)}.
+ */
+public class Pipeline {
+    /**
+     * Splits an input message into the stages of a pipeline.
+     * @param line The input message.
+     * @return The stages of the pipeline, or <code>null</code> if the message is not a pipeline.
+     */
+    public static String[] split(String line) {
+        return split(null, line);
+    }
+
+    /**
+     * Splits an input message into the stages of a pipeline. The stage of a command that takes raw input (see {@link Command#isRawInput()}) is the rest of the message,
+     * so <code>evalf int x = 5 | 3;</code> is a single stage.
+     * @param man The manager to find the command of each stage with, or <code>null</code> to split at every separator.
+     * @param line The input message.
+     * @return The stages of the pipeline, or <code>null</code> if the message is not a pipeline.
+     */
+    public static String[] split(CommandManager man, String line) {
+        ArrayList<String> stages = null;
+        int start = 0;
+        for(int i = 0; i < line.length(); i++) {
+            // Only a '|' surrounded by whitespace separates two stages
+            if(line.charAt(i) != '|') continue;
+            if(i > 0 && !Character.isWhitespace(line.charAt(i - 1))) continue;
+            if(i + 1 < line.length() && !Character.isWhitespace(line.charAt(i + 1))) continue;
+
+            String stage = line.substring(start, i).trim();
+            if(man != null) {
+                Command c = man.findCommand(stage);
+                if(c != null && c.isRawInput()) break;
+            }
+
+            if(stages == null) stages = new ArrayList<>();
+            stages.add(stage);
+            start = i + 1;
+        }
+
+        if(stages == null) return null;
+
+        stages.add(line.substring(start).trim());
+        return stages.toArray(new String[stages.size()]);
+    }
+
+    /**
+     * Finds the command of every stage of a pipeline.
+     * @param man The manager to find the commands with.
+     * @param stages The stages of the pipeline, from {@link Pipeline#split(String)}.
+     * @return The command of every stage, or <code>null</code> if a stage does not match a command.
+     */
+    public static Command[] resolve(CommandManager man, String[] stages) {
+        Command[] cmds = new Command[stages.length];
+        for(int i = 0; i < stages.length; i++) {
+            if(stages[i].isEmpty()) return null;
+
+            cmds[i] = man.findCommand(stages[i]);
+            if(cmds[i] == null) return null;
+        }
+
+        return cmds;
+    }
+
+    private final CommandManager man;
+    private final InputEvent[] events;
+    private final PipeChannel[] pipes;
+
+    /**
+     * Prepares a pipeline, connecting every stage to the next one. Nothing runs until {@link Pipeline#run()} is called.
+     * @param man The manager to run the commands with.
+     * @param sessionId The session the pipeline came from.
+     * @param stages The stages of the pipeline, from {@link Pipeline#split(String)}.
+     * @param cmds The command of every stage, from {@link Pipeline#resolve(CommandManager, String[])}.
+     * @param out The sink to write the replies of the last stage to.
+     * @param in The source that the first stage reads its input from.
+     */
+    public Pipeline(CommandManager man, String sessionId, String[] stages, Command[] cmds, ReplySink out, InputSource in) {
+        int n = stages.length;
+        this.man = man;
+        this.events = new InputEvent[n];
+        this.pipes = new PipeChannel[n - 1];
+        for(int i = 0; i < n - 1; i++) pipes[i] = new PipeChannel(man.getPipeCapacity());
+
+        for(int i = 0; i < n; i++) {
+            InputSource stageIn = i == 0 ? in : pipes[i - 1];
+            ReplySink stageOut = i == n - 1 ? out : pipes[i];
+            events[i] = new InputEvent(cmds[i], man, stages[i], stageOut, stageIn, sessionId);
+        }
+    }
+
+    /**
+     * Gets the event of the last stage, which holds the exit status of the pipeline.
+     * @return The event of the last stage.
+     */
+    public InputEvent getLastEvent() {
+        return events[events.length - 1];
+    }
+
+    /** Runs every stage of the pipeline at the same time, and waits for all of them to finish. */
+    public void run() {
+        int n = events.length;
+
+        // Start every stage but the last one in the background, then run the last one on this thread
+        Future<?>[] running = new Future<?>[n - 1];
+        for(int i = 0; i < n; i++) {
+            int stage = i;
+            Runnable task = () -> {
+                try {
+                    man.execute(events[stage]);
+                    // A stage that deferred its completion still writes to its pipe
+                    if(events[stage].isDeferred())
+                        events[stage].getCompletion().join();
+                } finally {
+                    // Tell the next stage there is no more input, and stop the previous stage from waiting on this one
+                    if(stage < n - 1) pipes[stage].closeWriter();
+                    if(stage > 0) pipes[stage - 1].closeReader();
+                }
+            };
+
+            if(stage < n - 1)
+                running[stage] = man.getExecutor().submit(task);
+            else
+                task.run();
+        }
+
+        // Wait for the rest of the stages
+        for(Future<?> f : running) {
+            try {
+                f.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException ignored) {
+                // Exceptions inside of commands are already handled by Command#execute
+            }
+        }
+    }
+}
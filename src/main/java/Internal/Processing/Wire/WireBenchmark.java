@@ -0,0 +1,133 @@
+package Internal.Processing.Wire;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.CommandMessage;
+import Internal.Managing.Commands.FlagType;
+import Internal.Managing.Commands.Flags;
+import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Core.CommandConfigurator;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.InputSource;
+import Internal.Processing.CommandProcessor;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Compares the {@link WireCodec binary protocol} with text lines, for the same command with flags and arguments:
+ * <ul>
+ *     <li><b>parse</b>: making the {@link CommandMessage} out of a text line, against decoding a frame and making it from the split parts.</li>
+ *     <li><b>call</b>: running the command through {@link CommandProcessor}, from a text line and from a decoded frame.</li>
+ *     <li><b>loopback</b>: calls over a {@link WireServer} on the loopback address, with many calls in flight.</li>
+ * </ul>
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * java Internal.Processing.Wire.WireBenchmark [iterations]
+ * </pre></code></blockquote>
+ */
+public class WireBenchmark {
+    private static final String LINE = "benchf -v -n 3 -m hello alpha beta gamma";
+    private static final String[] FLAGS = {"-v", "-n", "-m"};
+    private static final String[] PARAMS = {null, "3", "hello"};
+    private static final String[] ARGS = {"alpha", "beta", "gamma"};
+
+    /**
+     * A command with a flag of every kind, that replies with a short line.
+     */
+    public static class Bench extends Command {
+        public Bench() {
+            this.name = "benchf";
+            this.flags = new Flags("-v").putTypedFlag("-n", "count", FlagType.INT).putTypedFlag("-m", "message", FlagType.STRING);
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            event.replyln(event.getInputMessage().getString("-m", "") + " x" + event.getInputMessage().getInt("-n", 1) + " " + event.getInputMessage().getArgsArray().length);
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args The number of iterations of every measurement, which is <code>200000</code> by default.
+     * @throws Exception If the loopback server can not be started.
+     */
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        CommandConfigurator configurator = new CommandConfigurator();
+        configurator.setHeadless(true);
+        Bench bench = new Bench();
+        configurator.addCommand(bench);
+        CommandManager man = configurator.build();
+
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        for (int round = 0; round < 2; round++) {
+            // The first round warms up
+            boolean print = round == 1;
+
+            long text = measure(iterations, () -> new CommandMessage(bench, man, LINE).getArgsArray());
+            long binary = measure(iterations, () -> {
+                buffer.clear();
+                WireCodec.writeCall(buffer, 1, 0, "bench", FLAGS, PARAMS, ARGS);
+                buffer.flip();
+                WireCodec.Frame frame = WireCodec.read(buffer);
+                new CommandMessage(bench, man, frame.getFlags(), frame.getParams(), frame.getArgs()).getArgsArray();
+            });
+            if(print)
+                report("parse", text, binary);
+
+            text = measure(iterations, () -> CommandProcessor.call(man, "bench", LINE, InputSource.EMPTY));
+            binary = measure(iterations, () -> {
+                buffer.clear();
+                WireCodec.writeCall(buffer, 1, 0, "bench", FLAGS, PARAMS, ARGS);
+                buffer.flip();
+                WireCodec.Frame frame = WireCodec.read(buffer);
+                CommandMessage message = new CommandMessage(bench, man, frame.getFlags(), frame.getParams(), frame.getArgs());
+                CommandProcessor.call(man, frame.getSession(), message, InputSource.EMPTY);
+            });
+            if(print)
+                report("call", text, binary);
+        }
+
+        try (WireServer server = new WireServer(man, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            server.start();
+            try (WireClient client = WireClient.connect(server.getAddress())) {
+                int id = client.getCommandIds().get("benchf");
+                int window = 64;
+                for (int round = 0; round < 2; round++) {
+                    CompletableFuture<?>[] inFlight = new CompletableFuture<?>[window];
+                    long start = System.nanoTime();
+                    for (int i = 0; i < iterations; i++) {
+                        if(inFlight[i % window] != null)
+                            inFlight[i % window].join();
+                        inFlight[i % window] = client.call(id, "bench", FLAGS, PARAMS, ARGS);
+                    }
+                    for (CompletableFuture<?> f : inFlight)
+                        if(f != null) f.join();
+                    long elapsed = System.nanoTime() - start;
+                    if(round == 1)
+                        System.out.printf("loopback  %,.0f calls/s with %d in flight%n", iterations * 1e9 / elapsed, window);
+                }
+            }
+        }
+        man.close();
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    // Runs a task, and returns its average time in nanoseconds.
+    private static long measure(int iterations, Task task) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            task.run();
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private static void report(String name, long text, long binary) {
+        System.out.printf("%-9s text %,6d ns   binary %,6d ns   (%.1fx)%n", name, text, binary, (double) text / Math.max(1, binary));
+    }
+}
@@ -0,0 +1,190 @@
+package Internal.Processing.Wire;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A minimal client for the {@link WireCodec binary protocol}. It says hello when it connects, and learns the ids of the server's commands.
+ * Calls can be made from any thread, and any number of them can be in flight at once.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * try (WireClient client = WireClient.connect(new InetSocketAddress("localhost", 7070))) {
+ *     WireCodec.Frame result = client.call("addf", "session", new String[0], new String[0], "1", "2").join();
+ *     result.getOutput();    # "Sum: 3.0\n"
+ * }
+ * </pre></code></blockquote>
+ */
+public class WireClient implements AutoCloseable {
+    private final SocketChannel channel;
+    private final Map<String, Integer> ids;
+    private final ConcurrentHashMap<Long, CompletableFuture<WireCodec.Frame>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong correlationIds = new AtomicLong();
+    private volatile IOException closed;
+    private ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer out = ByteBuffer.allocate(8 * 1024);
+
+    private WireClient(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        write(WireCodec::writeHello);
+
+        WireCodec.Frame registry = next();
+        if(registry == null || registry.getType() != WireCodec.REGISTRY)
+            throw new ProtocolException("The server did not send its commands");
+        Map<String, Integer> ids = new HashMap<>();
+        String[] names = registry.getNames();
+        for (int i = 0; i < names.length; i++)
+            ids.putIfAbsent(names[i], i);
+        this.ids = Collections.unmodifiableMap(ids);
+
+        Thread reader = new Thread(this::readResults, "JCommands-wire-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Connects to a server.
+     * @param address The address of the server.
+     * @return The connected client.
+     * @throws IOException If the server can not be reached, or does not speak the protocol.
+     */
+    public static WireClient connect(SocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        try {
+            return new WireClient(channel);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the ids of the server's commands, by their names.
+     * @return The ids of the commands.
+     */
+    public Map<String, Integer> getCommandIds() {
+        return ids;
+    }
+
+    /**
+     * Calls a command by name.
+     * @param command The name of the command.
+     * @param session The id of the session that the call comes from.
+     * @param flags The flags of the call, such as <code>-t</code>.
+     * @param params The parameter of every flag at the same index, or <code>null</code> for flags without a parameter.
+     * @param args The arguments of the call.
+     * @return A future that completes with the {@link WireCodec#RESULT} frame of the call.
+     * @throws IllegalArgumentException If the server has no command with that name.
+     */
+    public CompletableFuture<WireCodec.Frame> call(String command, String session, String[] flags, String[] params, String... args) {
+        Integer id = ids.get(command);
+        if(id == null)
+            throw new IllegalArgumentException("The server has no command named " + command + "!");
+        return call(id, session, flags, params, args);
+    }
+
+    /**
+     * Calls a command by its id.
+     * @param commandId The id of the command, from {@link #getCommandIds()}.
+     * @param session The id of the session that the call comes from.
+     * @param flags The flags of the call, such as <code>-t</code>.
+     * @param params The parameter of every flag at the same index, or <code>null</code> for flags without a parameter.
+     * @param args The arguments of the call.
+     * @return A future that completes with the {@link WireCodec#RESULT} frame of the call.
+     */
+    public CompletableFuture<WireCodec.Frame> call(int commandId, String session, String[] flags, String[] params, String... args) {
+        long correlationId = correlationIds.incrementAndGet();
+        CompletableFuture<WireCodec.Frame> result = new CompletableFuture<>();
+        pending.put(correlationId, result);
+        try {
+            write(buffer -> WireCodec.writeCall(buffer, correlationId, commandId, session, flags, params, args));
+        } catch (IOException ex) {
+            pending.remove(correlationId);
+            result.completeExceptionally(ex);
+        }
+        // The connection may have closed before the call was pending
+        if(closed != null && pending.remove(correlationId) != null)
+            result.completeExceptionally(closed);
+        return result;
+    }
+
+    /**
+     * Closes the connection. Calls that are still in flight fail.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+    }
+
+    private synchronized void write(Consumer<ByteBuffer> encoder) throws IOException {
+        while (true) {
+            out.clear();
+            try {
+                encoder.accept(out);
+                break;
+            } catch (BufferOverflowException ex) {
+                if(out.capacity() > WireCodec.MAX_FRAME)
+                    throw new ProtocolException("The frame is too large");
+                out = ByteBuffer.allocate(out.capacity() * 2);
+            }
+        }
+        out.flip();
+        while (out.hasRemaining())
+            channel.write(out);
+    }
+
+    // Reads the next frame, or returns null at the end of the stream.
+    private WireCodec.Frame next() throws IOException {
+        while (true) {
+            in.flip();
+            WireCodec.Frame frame = WireCodec.read(in);
+            in.compact();
+            if(frame != null)
+                return frame;
+
+            if(!in.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.min(WireCodec.MAX_FRAME + 4, in.capacity() * 2));
+                in.flip();
+                larger.put(in);
+                in = larger;
+            }
+            if(channel.read(in) < 0)
+                return null;
+        }
+    }
+
+    private void readResults() {
+        IOException cause = null;
+        try {
+            WireCodec.Frame frame;
+            while ((frame = next()) != null) {
+                CompletableFuture<WireCodec.Frame> result = pending.remove(frame.getCorrelationId());
+                if(result != null)
+                    result.complete(frame);
+            }
+        } catch (IOException ex) {
+            cause = ex;
+        }
+
+        // Nothing more will arrive
+        closed = new IOException("The connection was closed", cause);
+        for (Long id : pending.keySet()) {
+            CompletableFuture<WireCodec.Frame> result = pending.remove(id);
+            if(result != null)
+                result.completeExceptionally(closed);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package Internal.Processing.Wire;
+
+import Internal.Managing.Commands.Command;
+
+import java.net.ProtocolException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Formatter;
+
+/**
+ * Reads and writes the frames of the binary protocol, for services that send commands at high rates, straight from and to {@link ByteBuffer}s.<br>
+ * Unlike a text line, a call names its command by an id, and carries its flags and arguments already split, so the server runs it
+ * without finding the command by name, or parsing its flags out of a line.
+ * <h1>Frames:</h1>
+ * Every frame is a 4 byte big endian length of the rest of the frame, a type byte, and a body. Numbers in a body are unsigned varints,
+ * and strings are a varint length followed by that many bytes of UTF-8.
+ * <ul>
+ *     <li>{@link #HELLO}: the protocol version. The client sends this first.</li>
+ *     <li>{@link #REGISTRY}: the names of the server's commands. The id of a command is its index. The server answers a hello with this.</li>
+ *     <li>{@link #CALL}: a correlation id, command id, session id, the flags (each with a parameter or not), and the arguments.</li>
+ *     <li>{@link #RESULT}: the correlation id of the call, its exit status, and its output.</li>
+ * </ul>
+ * Calls can be pipelined, and results may come back in any order, so they are matched to their calls by the correlation id.
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * WireCodec.writeCall(buffer, 1, ids.get("addf"), "session", new String[0], new String[0], new String[] {"1", "2"});
+ * ...
+ * WireCodec.Frame frame = WireCodec.read(buffer);   # null until a whole frame has arrived
+ * </pre></code></blockquote>
+ * @see WireServer
+ * @see WireClient
+ */
+public final class WireCodec {
+    /** The version of the protocol. */
+    public static final int VERSION = 1;
+    /** The largest frame that is read, in bytes. */
+    public static final int MAX_FRAME = 16 << 20;
+
+    /** The first frame of a client, with its protocol version. */
+    public static final byte HELLO = 1;
+    /** The names of the server's commands, in the order of their ids. */
+    public static final byte REGISTRY = 2;
+    /** A command to run. */
+    public static final byte CALL = 3;
+    /** The result of a call. */
+    public static final byte RESULT = 4;
+
+    private static final String[] EMPTY = new String[0];
+
+    private WireCodec() {}
+
+    /**
+     * Writes a hello frame.
+     * @param out The buffer to write to.
+     * @throws BufferOverflowException If the frame does not fit into the buffer.
+     */
+    public static void writeHello(ByteBuffer out) {
+        int at = begin(out, HELLO);
+        writeVarint(out, VERSION);
+        end(out, at);
+    }
+
+    /**
+     * Writes a registry frame, with the id of every command being its index in the array.
+     * @param out The buffer to write to.
+     * @param commands The commands of the server.
+     * @throws BufferOverflowException If the frame does not fit into the buffer.
+     */
+    public static void writeRegistry(ByteBuffer out, Command[] commands) {
+        int at = begin(out, REGISTRY);
+        writeVarint(out, commands.length);
+        for (Command c : commands)
+            writeString(out, c.getName());
+        end(out, at);
+    }
+
+    /**
+     * Writes a call frame.
+     * @param out The buffer to write to.
+     * @param correlationId The id that the result of the call is sent back with.
+     * @param commandId The id of the command, from the registry.
+     * @param session The id of the session that the call comes from.
+     * @param flags The flags of the call, such as <code>-t</code>.
+     * @param params The parameter of every flag at the same index, or <code>null</code> for flags without a parameter.
+     * @param args The arguments of the call.
+     * @throws BufferOverflowException If the frame does not fit into the buffer.
+     */
+    public static void writeCall(ByteBuffer out, long correlationId, int commandId, String session, String[] flags, String[] params, String[] args) {
+        int at = begin(out, CALL);
+        writeVarint(out, correlationId);
+        writeVarint(out, commandId);
+        writeString(out, session);
+        writeVarint(out, flags.length);
+        for (int i = 0; i < flags.length; i++) {
+            writeString(out, flags[i]);
+            String param = params[i];
+            out.put((byte) (param != null ? 1 : 0));
+            if(param != null)
+                writeString(out, param);
+        }
+        writeVarint(out, args.length);
+        for (String arg : args)
+            writeString(out, arg);
+        end(out, at);
+    }
+
+    /**
+     * Writes a result frame.
+     * @param out The buffer to write to.
+     * @param correlationId The correlation id of the call.
+     * @param exitStatus The exit status of the command.
+     * @param output The output of the command.
+     * @throws BufferOverflowException If the frame does not fit into the buffer.
+     */
+    public static void writeResult(ByteBuffer out, long correlationId, int exitStatus, CharSequence output) {
+        int at = begin(out, RESULT);
+        writeVarint(out, correlationId);
+        writeVarint(out, exitStatus);
+        writeString(out, output);
+        end(out, at);
+    }
+
+    /**
+     * Reads the next frame from a buffer in read mode. If the buffer does not hold a whole frame yet, nothing is consumed.
+     * @param in The buffer to read from.
+     * @return The frame, or <code>null</code> if it has not fully arrived yet.
+     * @throws ProtocolException If the frame is too large, malformed, or of an unknown type.
+     */
+    public static Frame read(ByteBuffer in) throws ProtocolException {
+        if(in.remaining() < 4)
+            return null;
+        int length = in.getInt(in.position());
+        if(length < 1 || length > MAX_FRAME)
+            throw new ProtocolException("Invalid frame length " + length);
+        if(in.remaining() < 4 + length)
+            return null;
+
+        int start = in.position() + 4;
+        int end = start + length;
+        int limit = in.limit();
+        in.position(start).limit(end);
+        try {
+            Frame frame = new Frame(in.get());
+            switch (frame.type) {
+                case HELLO:
+                    frame.version = readInt(in);
+                    break;
+                case REGISTRY:
+                    frame.names = readStrings(in);
+                    break;
+                case CALL:
+                    frame.correlationId = readVarint(in);
+                    frame.commandId = readInt(in);
+                    frame.session = readString(in);
+                    int n = count(in);
+                    frame.flags = n == 0 ? EMPTY : new String[n];
+                    frame.params = n == 0 ? EMPTY : new String[n];
+                    for (int i = 0; i < n; i++) {
+                        frame.flags[i] = readString(in);
+                        if(in.get() != 0)
+                            frame.params[i] = readString(in);
+                    }
+                    frame.args = readStrings(in);
+                    break;
+                case RESULT:
+                    frame.correlationId = readVarint(in);
+                    frame.exitStatus = readInt(in);
+                    frame.output = readString(in);
+                    break;
+                default:
+                    throw new ProtocolException("Unknown frame type " + frame.type);
+            }
+            if(in.hasRemaining())
+                throw new ProtocolException("Trailing bytes in a frame of type " + frame.type);
+            return frame;
+        } catch (BufferUnderflowException ex) {
+            throw new ProtocolException("Truncated frame");
+        } finally {
+            in.limit(limit).position(end);
+        }
+    }
+
+    // Reserves the length of a frame, and writes its type.
+    private static int begin(ByteBuffer out, byte type) {
+        int at = out.position();
+        out.putInt(0);
+        out.put(type);
+        return at;
+    }
+
+    // Fills in the length of a frame.
+    private static void end(ByteBuffer out, int at) {
+        out.putInt(at, out.position() - at - 4);
+    }
+
+    static void writeVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long readVarint(ByteBuffer in) throws ProtocolException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            // The tenth byte only holds the top bit of a long
+            if(shift == 63 && (b & 0xFE) != 0)
+                break;
+            value |= (long) (b & 0x7F) << shift;
+            if(b >= 0)
+                return value;
+        }
+        throw new ProtocolException("Malformed varint");
+    }
+
+    private static int readInt(ByteBuffer in) throws ProtocolException {
+        long value = readVarint(in);
+        if(value < 0 || value > Integer.MAX_VALUE)
+            throw new ProtocolException("Number out of range: " + value);
+        return (int) value;
+    }
+
+    // Reads a count of items, which can not be more than the bytes that are left.
+    private static int count(ByteBuffer in) throws ProtocolException {
+        int n = readInt(in);
+        if(n > in.remaining())
+            throw new ProtocolException("Invalid count " + n);
+        return n;
+    }
+
+    private static void writeString(ByteBuffer out, CharSequence s) {
+        int n = s.length();
+        int ascii = 0;
+        while (ascii < n && s.charAt(ascii) < 0x80)
+            ascii++;
+
+        if(ascii == n) {
+            // The common case, with no copy of the text
+            writeVarint(out, n);
+            if(out.remaining() < n)
+                throw new BufferOverflowException();
+            for (int i = 0; i < n; i++)
+                out.put((byte) s.charAt(i));
+        } else {
+            byte[] bytes = s.toString().getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, bytes.length);
+            out.put(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer in) throws ProtocolException {
+        int n = count(in);
+        String s;
+        if(in.hasArray()) {
+            s = new String(in.array(), in.arrayOffset() + in.position(), n, StandardCharsets.UTF_8);
+            in.position(in.position() + n);
+        } else {
+            byte[] bytes = new byte[n];
+            in.get(bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return s;
+    }
+
+    private static String[] readStrings(ByteBuffer in) throws ProtocolException {
+        int n = count(in);
+        if(n == 0)
+            return EMPTY;
+        String[] strings = new String[n];
+        for (int i = 0; i < n; i++)
+            strings[i] = readString(in);
+        return strings;
+    }
+
+    /**
+     * A frame of the protocol. Which of its values are set depends on its type.
+     */
+    public static final class Frame {
+        private final byte type;
+        private int version;
+        private String[] names;
+        private long correlationId;
+        private int commandId;
+        private String session;
+        private String[] flags;
+        private String[] params;
+        private String[] args;
+        private int exitStatus;
+        private String output;
+
+        private Frame(byte type) {
+            this.type = type;
+        }
+
+        /** @return The type of this frame, such as {@link #CALL}. */
+        public byte getType() { return type; }
+
+        /** @return The protocol version of a hello frame. */
+        public int getVersion() { return version; }
+
+        /** @return The command names of a registry frame, indexed by their id. */
+        public String[] getNames() { return names; }
+
+        /** @return The correlation id of a call or result frame. */
+        public long getCorrelationId() { return correlationId; }
+
+        /** @return The command id of a call frame. */
+        public int getCommandId() { return commandId; }
+
+        /** @return The session id of a call frame. */
+        public String getSession() { return session; }
+
+        /** @return The flags of a call frame. */
+        public String[] getFlags() { return flags; }
+
+        /** @return The parameters of the flags of a call frame, with <code>null</code> for flags without a parameter. */
+        public String[] getParams() { return params; }
+
+        /** @return The arguments of a call frame. */
+        public String[] getArgs() { return args; }
+
+        /** @return The exit status of a result frame. */
+        public int getExitStatus() { return exitStatus; }
+
+        /** @return The output of a result frame. */
+        public String getOutput() { return output; }
+
+        /**
+         * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+         * @return A String version of this object.
+         */
+        public String toString() {
+            return new Formatter().format("{ type=%s, correlationId=%s, commandId=%s, session=%s, flags=%s, params=%s, args=%s, exitStatus=%s, output=%s, names=%s }",
+                    type, correlationId, commandId, session, Arrays.toString(flags), Arrays.toString(params), Arrays.toString(args), exitStatus, output, Arrays.toString(names)).toString();
+        }
+    }
+}
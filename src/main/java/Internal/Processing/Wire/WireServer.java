@@ -0,0 +1,264 @@
+package Internal.Processing.Wire;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.CommandMessage;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.InputSource;
+import Internal.Processing.CommandProcessor;
+import Internal.Processing.CommandResult;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Formatter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A minimal server for the {@link WireCodec binary protocol}, which runs the calls of its clients on a {@link CommandManager}.<br>
+ * Every connection gets its own thread to read frames. Its calls run on the manager's executor, so a connection can pipeline calls,
+ * and their results are written back as they finish. The ids of the commands are fixed when a client says hello, so commands that are
+ * added later are only seen by new connections. Commands read no input while they run (as with {@link InputSource#EMPTY}).
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * WireServer server = new WireServer(manager, new InetSocketAddress("localhost", 7070));
+ * server.start();
+ * ...
+ * server.close();
+ * </pre></code></blockquote>
+ */
+public class WireServer implements AutoCloseable {
+    private static final AtomicInteger numbers = new AtomicInteger();
+    // The size of the buffers of a connection. A buffer that grew for a large frame goes back to this size once the frame is done.
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Room for the fields of a result frame besides its output
+    private static final int RESULT_OVERHEAD = 64;
+    private static final String CUT_OFF_MESSAGE = "\n[The output was cut off, since it is larger than the largest frame of %d bytes]\n";
+
+    private final CommandManager man;
+    private final ServerSocketChannel server;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private final LongAdder calls = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Creates a server, and binds it to an address.
+     * @param man The manager to run the calls with.
+     * @param address The address to listen on. A port of <code>0</code> picks a free port.
+     * @throws IOException If the address can not be bound.
+     */
+    public WireServer(CommandManager man, SocketAddress address) throws IOException {
+        this.man = man;
+        this.server = ServerSocketChannel.open();
+        this.server.bind(address);
+    }
+
+    /**
+     * Starts accepting connections in the background.
+     */
+    public void start() {
+        Thread acceptor = new Thread(this::accept, "JCommands-wire-accept-" + numbers.incrementAndGet());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Gets the address the server listens on, such as to find the port it picked.
+     * @return The local address of the server.
+     * @throws IOException If the server is closed.
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    /**
+     * Gets how many calls the server ran.
+     * @return The number of calls.
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * Stops accepting connections, and closes every open connection.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException ignored) {}
+        for (SocketChannel channel : connections) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ address=%s, connections=%s, calls=%s }", server.socket().getLocalSocketAddress(), connections.size(), getCalls()).toString();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                SocketChannel channel = server.accept();
+                channel.socket().setTcpNoDelay(true);
+                connections.add(channel);
+                Thread reader = new Thread(() -> serve(channel), "JCommands-wire-" + numbers.incrementAndGet());
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException ex) {
+                // The server was closed
+                return;
+            }
+        }
+    }
+
+    // Reads the frames of a connection until it closes, or breaks the protocol.
+    private void serve(SocketChannel channel) {
+        Connection connection = new Connection(channel);
+        ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        try {
+            while (channel.read(in) >= 0) {
+                in.flip();
+                WireCodec.Frame frame;
+                while ((frame = WireCodec.read(in)) != null)
+                    handle(connection, frame);
+                in.compact();
+
+                // Grow the buffer for a frame larger than it, and shrink it again once that frame was read
+                if(in.position() == 0 && in.capacity() > BUFFER_SIZE) {
+                    in = ByteBuffer.allocate(BUFFER_SIZE);
+                } else if(!in.hasRemaining()) {
+                    ByteBuffer larger = ByteBuffer.allocate(Math.min(WireCodec.MAX_FRAME + 4, in.capacity() * 2));
+                    in.flip();
+                    larger.put(in);
+                    in = larger;
+                }
+            }
+        } catch (IOException ex) {
+            // The connection was closed, or sent something that is not a frame
+        } finally {
+            connections.remove(channel);
+            try {
+                channel.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private void handle(Connection connection, WireCodec.Frame frame) throws IOException {
+        switch (frame.getType()) {
+            case WireCodec.HELLO:
+                if(frame.getVersion() != WireCodec.VERSION)
+                    throw new ProtocolException("Unsupported protocol version " + frame.getVersion());
+                connection.commands = man.getCommands();
+                connection.write(out -> WireCodec.writeRegistry(out, connection.commands));
+                break;
+            case WireCodec.CALL:
+                Command[] commands = connection.commands;
+                if(commands == null)
+                    throw new ProtocolException("A call was sent before hello");
+                calls.increment();
+                int id = frame.getCommandId();
+                if(id >= commands.length) {
+                    connection.write(out -> WireCodec.writeResult(out, frame.getCorrelationId(), Command.EXIT_NOT_FOUND, man.getNoCommandMessage()));
+                    break;
+                }
+
+                CommandMessage message = new CommandMessage(commands[id], man, frame.getFlags(), frame.getParams(), frame.getArgs());
+                man.getExecutor().execute(() -> {
+                    CommandResult result = CommandProcessor.call(man, frame.getSession(), message, InputSource.EMPTY);
+                    try {
+                        try {
+                            connection.write(out -> WireCodec.writeResult(out, frame.getCorrelationId(), result.getExitStatus(), result.getOutput()));
+                        } catch (FrameTooLargeException ex) {
+                            // The client still gets a result for its call, with as much of the output as fits
+                            connection.write(out -> WireCodec.writeResult(out, frame.getCorrelationId(), Command.EXIT_FAILURE, cutOff(result.getOutput())));
+                        }
+                    } catch (IOException ex) {
+                        // The client went away before its result
+                    }
+                });
+                break;
+            default:
+                throw new ProtocolException("Unexpected frame type " + frame.getType());
+        }
+    }
+
+    // Cuts off an output so its result frame fits into the largest frame, with a message that says so.
+    private static CharSequence cutOff(CharSequence output) {
+        String message = String.format(CUT_OFF_MESSAGE, WireCodec.MAX_FRAME);
+        long room = WireCodec.MAX_FRAME - RESULT_OVERHEAD - message.length();
+        long bytes = 0;
+        int end = 0;
+        while (end < output.length()) {
+            char c = output.charAt(end);
+            int size = c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isHighSurrogate(c) ? 4 : 3;
+            if(bytes + size > room)
+                break;
+            bytes += size;
+            end += size == 4 ? 2 : 1;
+        }
+        return new StringBuilder(end + message.length()).append(output, 0, Math.min(end, output.length())).append(message);
+    }
+
+    /**
+     * Thrown by {@link Connection#write(Consumer)} when a frame does not fit into the largest frame. Nothing was written to the connection.
+     */
+    private static final class FrameTooLargeException extends ProtocolException {
+        private static final long serialVersionUID = 1L;
+
+        FrameTooLargeException() {
+            super("The frame is too large");
+        }
+    }
+
+    /**
+     * A connection, with the commands it was told about, and the buffer its frames are written with.
+     */
+    private static final class Connection {
+        private final SocketChannel channel;
+        private ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+        private volatile Command[] commands;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        // Encodes a frame, growing the buffer if it does not fit, and writes it. A buffer that grew is shrunk again afterwards.
+        synchronized void write(Consumer<ByteBuffer> encoder) throws IOException {
+            try {
+                while (true) {
+                    out.clear();
+                    try {
+                        encoder.accept(out);
+                        break;
+                    } catch (BufferOverflowException ex) {
+                        if(out.capacity() >= WireCodec.MAX_FRAME + 4)
+                            throw new FrameTooLargeException();
+                        out = ByteBuffer.allocate(Math.min(WireCodec.MAX_FRAME + 4, out.capacity() * 2));
+                    }
+                }
+                out.flip();
+                while (out.hasRemaining())
+                    channel.write(out);
+            } finally {
+                if(out.capacity() > BUFFER_SIZE)
+                    out = ByteBuffer.allocate(BUFFER_SIZE);
+            }
+        }
+    }
+}
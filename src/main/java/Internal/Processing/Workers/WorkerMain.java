@@ -0,0 +1,69 @@
+package Internal.Processing.Workers;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Core.CommandConfigurator;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.InputSource;
+import Internal.Processing.CommandProcessor;
+import Internal.Processing.CommandResult;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * The main class of a worker process of a {@link WorkerPool}. This should not be run manually, workers are started by the pool.<br>
+ * A worker builds a manager with the commands named in its arguments, which must have a constructor without parameters, and then runs
+ * every request it reads from its standard input, one at a time, writing the response to its standard output.
+ * Anything that commands print to <code>System.out</code> goes to standard error instead, so it can never corrupt the protocol.
+ */
+public class WorkerMain {
+    /**
+     * Runs a worker.
+     * @param args The class names of the commands to load.
+     * @throws Exception If a command can not be loaded.
+     */
+    public static void main(String[] args) throws Exception {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.err), true));
+
+        // A manager that only runs requests, and reads nothing from the console
+        CommandConfigurator configurator = new CommandConfigurator();
+        configurator.setHeadless(true);
+        configurator.setUseInternalCommands(false);
+        for (String name : args)
+            configurator.addCommand((Command) Class.forName(name).getDeclaredConstructor().newInstance());
+        CommandManager man = configurator.build();
+
+        WorkerProtocol.write(out, WorkerProtocol.READY, 0);
+        serve(man, in, out);
+        System.exit(0);
+    }
+
+    // Answers frames until the pool shuts the worker down, or closes its input.
+    private static void serve(CommandManager man, DataInputStream in, DataOutputStream out) throws IOException {
+        WorkerProtocol.Frame frame;
+        while ((frame = WorkerProtocol.read(in)) != null) {
+            switch (frame.type) {
+                case WorkerProtocol.REQUEST:
+                    CommandResult result = CommandProcessor.call(man, frame.session, frame.text, InputSource.EMPTY);
+                    WorkerProtocol.writeResponse(out, frame.id, result.getExitStatus(), result.getOutput().toString());
+                    break;
+                case WorkerProtocol.PING:
+                    WorkerProtocol.write(out, WorkerProtocol.PONG, frame.id);
+                    break;
+                case WorkerProtocol.SHUTDOWN:
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+}
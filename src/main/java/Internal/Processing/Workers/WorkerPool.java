@@ -0,0 +1,261 @@
+package Internal.Processing.Workers;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.InputEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of pre-started worker JVMs that run selected commands out of process, so heavy or untrusted commands, such as
+ * {@link External.Commands.Evaluate}, can not use up the manager's heap or CPU, or crash it.<br>
+ * Every worker loads the routed commands (which need a constructor without parameters), and runs one request at a time, sent with the
+ * framed {@link WorkerProtocol} over its standard input and output. Workers are:
+ * <ul>
+ *     <li>limited to a maximum heap, and exit instead of limping on when they run out of it,</li>
+ *     <li>pinged while idle, and replaced if they do not answer,</li>
+ *     <li>recycled after a number of requests, so leaks in a command can not build up,</li>
+ *     <li>killed and replaced if a request times out, so a runaway command is really stopped.</li>
+ * </ul>
+ * Routed commands read no input while they run (as with {@link Internal.Managing.IO.InputSource#EMPTY}).
+ * <h1>Usage:</h1>
+ * <blockquote><code><pre>
+ * configurator.setWorkerPool(4, 1000, 256);   # 4 workers, recycled every 1000 requests, with 256 MB of heap
+ * configurator.routeToWorkers(Evaluate.class);
+ * </pre></code></blockquote>
+ */
+public class WorkerPool implements AutoCloseable {
+    /** How long to wait for a free worker before failing a request, in milliseconds. */
+    private static final long ACQUIRE_TIMEOUT = 30_000;
+    /** How long an idle worker has to answer a ping, in milliseconds. */
+    private static final long PING_TIMEOUT = 2000;
+    /** How many workers in a row can fail to start before the pool stops starting them. */
+    private static final int MAX_START_FAILURES = 3;
+
+    private final List<String> command;
+    private final Set<String> routed;
+    private final int size;
+    private final int maxInvocations;
+    private final LinkedBlockingQueue<WorkerProcess> idle = new LinkedBlockingQueue<>();
+    private final ScheduledFuture<?> healthCheck;
+    private final AtomicInteger numbers = new AtomicInteger();
+    private final AtomicInteger startFailures = new AtomicInteger();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder recycled = new LongAdder();
+    private final LongAdder crashed = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Creates a pool and starts its workers in the background.
+     * @param commandClasses The class names of the commands to run in the workers.
+     * @param size How many workers to keep.
+     * @param maxInvocations How many requests a worker runs before it is replaced, or <code>0</code> for no limit.
+     * @param maxHeapMegabytes The maximum heap of every worker in megabytes, or <code>0</code> for the JVM's default.
+     * @param healthCheckMillis How often idle workers are pinged, in milliseconds.
+     * @param scheduler The scheduler that runs the health checks.
+     */
+    public WorkerPool(Set<String> commandClasses, int size, int maxInvocations, int maxHeapMegabytes, long healthCheckMillis, ScheduledExecutorService scheduler) {
+        if(size < 1)
+            throw new IllegalArgumentException("A worker pool needs at least one worker!");
+        this.routed = Collections.unmodifiableSet(commandClasses);
+        this.size = size;
+        this.maxInvocations = maxInvocations;
+
+        List<String> cmd = new ArrayList<>();
+        cmd.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        if(maxHeapMegabytes > 0)
+            cmd.add("-Xmx" + maxHeapMegabytes + "m");
+        cmd.add("-XX:+ExitOnOutOfMemoryError");
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(WorkerMain.class.getName());
+        cmd.addAll(commandClasses);
+        this.command = Collections.unmodifiableList(cmd);
+
+        for (int i = 0; i < size; i++)
+            spawn();
+        healthCheck = scheduler.scheduleWithFixedDelay(this::checkHealth, healthCheckMillis, healthCheckMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks whether or not a command is run by this pool.
+     * @param cmd The command.
+     * @return True if the command is routed to the workers.
+     */
+    public boolean isRouted(Command cmd) {
+        return routed.contains(cmd.getClass().getName());
+    }
+
+    /**
+     * Runs a command in a worker, and writes its output and exit status to its event. This blocks until the worker answers.
+     * If the thread is interrupted, such as by a timeout, the worker is killed and replaced.
+     * @param event The event of the command.
+     * @throws IOException If no worker is available, or the worker exited while running the command.
+     * @throws CancellationException If the thread was interrupted while waiting.
+     */
+    public void execute(InputEvent event) throws IOException {
+        WorkerProcess worker;
+        try {
+            worker = idle.poll(ACQUIRE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("The command was cancelled while waiting for a worker!");
+        }
+        if(worker == null)
+            throw new IOException(startFailures.get() >= MAX_START_FAILURES ? "The workers can not be started!" : "No worker is available!");
+
+        WorkerProtocol.Frame response;
+        try {
+            response = worker.request(event.getSessionId(), event.getInputMessage().getContent()).get();
+        } catch (InterruptedException ex) {
+            // The command timed out, so its worker is stopped for real
+            Thread.currentThread().interrupt();
+            replace(worker, true);
+            throw new CancellationException("The command was cancelled!");
+        } catch (ExecutionException ex) {
+            replace(worker, true);
+            throw ex.getCause() instanceof IOException ? (IOException) ex.getCause() : new IOException(ex.getCause());
+        } catch (IOException ex) {
+            replace(worker, true);
+            throw ex;
+        }
+
+        release(worker);
+        event.reply(response.text);
+        event.setExitStatus(response.status);
+    }
+
+    /**
+     * Gets how many workers this pool keeps.
+     * @return The number of workers.
+     */
+    public int getSize() { return size; }
+
+    /**
+     * Gets how many workers are idle right now.
+     * @return The number of idle workers.
+     */
+    public int getIdle() { return idle.size(); }
+
+    /**
+     * Gets how many workers were started, including replacements.
+     * @return The number of started workers.
+     */
+    public long getStarted() { return started.sum(); }
+
+    /**
+     * Gets how many workers were replaced after running their maximum number of requests.
+     * @return The number of recycled workers.
+     */
+    public long getRecycled() { return recycled.sum(); }
+
+    /**
+     * Gets how many workers were replaced because they exited, stopped answering, or timed out.
+     * @return The number of crashed workers.
+     */
+    public long getCrashed() { return crashed.sum(); }
+
+    /**
+     * Shuts every idle worker down, and stops replacing workers. Busy workers are shut down when their request finishes.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        healthCheck.cancel(false);
+        WorkerProcess worker;
+        while ((worker = idle.poll()) != null)
+            worker.shutdown();
+    }
+
+    /**
+     * Converts this object to a string, using this library's standard format: { var1=value1, ... }
+     * @return A String version of this object.
+     */
+    public String toString() {
+        return new Formatter().format("{ size=%s, idle=%s, started=%s, recycled=%s, crashed=%s, commands=%s }", size, getIdle(), getStarted(), getRecycled(), getCrashed(), routed).toString();
+    }
+
+    // Returns a worker to the pool, or recycles it if it has run enough requests.
+    private void release(WorkerProcess worker) {
+        if(closed) {
+            worker.shutdown();
+        } else if(maxInvocations > 0 && worker.getInvocations() >= maxInvocations) {
+            recycled.increment();
+            replace(worker, false);
+        } else {
+            idle.offer(worker);
+        }
+    }
+
+    // Stops a worker and starts another in its place.
+    private void replace(WorkerProcess worker, boolean crash) {
+        if(crash) {
+            crashed.increment();
+            worker.kill();
+        } else {
+            worker.shutdown();
+        }
+        if(!closed)
+            spawn();
+    }
+
+    // Starts a worker, which joins the pool once it has loaded its commands.
+    private void spawn() {
+        if(startFailures.get() >= MAX_START_FAILURES)
+            return;
+        try {
+            WorkerProcess worker = new WorkerProcess(command, numbers.incrementAndGet());
+            started.increment();
+            worker.getReady().whenComplete((w, ex) -> {
+                if(ex != null) {
+                    // It exited before it was ready, such as when a command can not be loaded
+                    if(startFailures.incrementAndGet() < MAX_START_FAILURES && !closed)
+                        spawn();
+                    return;
+                }
+                startFailures.set(0);
+                if(closed)
+                    w.shutdown();
+                else
+                    idle.offer(w);
+            });
+        } catch (IOException ex) {
+            startFailures.incrementAndGet();
+        }
+    }
+
+    // Pings every idle worker, and replaces the ones that do not answer. This runs on the manager's scheduler, which also runs the watchdogs
+    // of timeouts, so it only sends the pings, and the answers are handled when they arrive, away from the scheduler.
+    private void checkHealth() {
+        for (int i = idle.size(); i > 0; i--) {
+            WorkerProcess worker = idle.poll();
+            if(worker == null)
+                return;
+            if(!worker.isAlive()) {
+                replace(worker, true);
+                continue;
+            }
+            worker.ping(PING_TIMEOUT).whenCompleteAsync((answered, ex) -> {
+                if(!Boolean.TRUE.equals(answered))
+                    replace(worker, true);
+                else if(closed)
+                    worker.shutdown();
+                else
+                    idle.offer(worker);
+            });
+        }
+    }
+}
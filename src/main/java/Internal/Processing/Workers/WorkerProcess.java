@@ -0,0 +1,126 @@
+package Internal.Processing.Workers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A single worker JVM of a {@link WorkerPool}, with the thread that reads its frames. A worker runs one request at a time.
+ */
+final class WorkerProcess {
+    private static final AtomicLong ids = new AtomicLong();
+
+    private final Process process;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final CompletableFuture<WorkerProcess> ready = new CompletableFuture<>();
+    private final AtomicReference<CompletableFuture<WorkerProtocol.Frame>> pending = new AtomicReference<>();
+    private volatile IOException exited;
+    private int invocations;
+
+    WorkerProcess(List<String> command, int number) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        this.process = builder.start();
+        this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+
+        Thread reader = new Thread(this::readFrames, "JCommands-worker-reader-" + number);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /** Completes once the worker has loaded its commands, or fails if it exits before. */
+    CompletableFuture<WorkerProcess> getReady() {
+        return ready;
+    }
+
+    /** Sends a request, and returns the future of its response. Fails if the worker exits first. */
+    CompletableFuture<WorkerProtocol.Frame> request(String session, String line) throws IOException {
+        CompletableFuture<WorkerProtocol.Frame> response = new CompletableFuture<>();
+        pending.set(response);
+        invocations++;
+        WorkerProtocol.writeRequest(out, ids.incrementAndGet(), session, line);
+        // The reader may have finished before the request was pending
+        if(exited != null && pending.compareAndSet(response, null))
+            response.completeExceptionally(exited);
+        return response;
+    }
+
+    /** Sends a ping without waiting for it. The future completes with whether or not the worker answered within a timeout. */
+    CompletableFuture<Boolean> ping(long timeoutMillis) {
+        CompletableFuture<WorkerProtocol.Frame> pong = new CompletableFuture<>();
+        pending.set(pong);
+        try {
+            WorkerProtocol.write(out, WorkerProtocol.PING, ids.incrementAndGet());
+        } catch (IOException ex) {
+            pending.compareAndSet(pong, null);
+            return CompletableFuture.completedFuture(false);
+        }
+        // The reader may have finished before the ping was pending
+        if(exited != null && pending.compareAndSet(pong, null))
+            return CompletableFuture.completedFuture(false);
+
+        return pong.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).handle((frame, ex) -> {
+            pending.compareAndSet(pong, null);
+            return ex == null && frame.type == WorkerProtocol.PONG;
+        });
+    }
+
+    int getInvocations() {
+        return invocations;
+    }
+
+    boolean isAlive() {
+        return exited == null && process.isAlive();
+    }
+
+    /** Asks the worker to exit once it is idle, and kills it if it does not. */
+    void shutdown() {
+        try {
+            WorkerProtocol.write(out, WorkerProtocol.SHUTDOWN, 0);
+            out.close();
+        } catch (IOException ex) {
+            // Already gone
+        }
+        process.onExit().orTimeout(5, TimeUnit.SECONDS).whenComplete((p, ex) -> process.destroyForcibly());
+    }
+
+    /** Kills the worker straight away, such as when a request timed out. */
+    void kill() {
+        process.destroyForcibly();
+    }
+
+    private void readFrames() {
+        Throwable cause = null;
+        try {
+            WorkerProtocol.Frame frame;
+            while ((frame = WorkerProtocol.read(in)) != null) {
+                if(frame.type == WorkerProtocol.READY) {
+                    ready.complete(this);
+                    continue;
+                }
+                CompletableFuture<WorkerProtocol.Frame> waiting = pending.getAndSet(null);
+                if(waiting != null)
+                    waiting.complete(frame);
+            }
+        } catch (IOException ex) {
+            cause = ex;
+        }
+
+        // The worker exited or broke the protocol, so nothing it owes will arrive
+        exited = new IOException("The worker process exited", cause);
+        ready.completeExceptionally(exited);
+        CompletableFuture<WorkerProtocol.Frame> waiting = pending.getAndSet(null);
+        if(waiting != null)
+            waiting.completeExceptionally(exited);
+        process.destroyForcibly();
+    }
+}
@@ -0,0 +1,134 @@
+package Internal.Processing.Workers;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The framed protocol between a {@link WorkerPool} and its {@link WorkerMain} processes, over the worker's standard input and output.<br>
+ * Every frame is
+ * <blockquote><code><pre>
+ * int    length   (of the rest of the frame)
+ * byte   type
+ * long   id       (matches a response to its request)
+ * ...    payload
+ * </pre></code></blockquote>
+ * A {@link #REQUEST} carries the session id and the input message, and a {@link #RESPONSE} carries the exit status and the output. Strings are
+ * an <code>int</code> length followed by UTF-8.
+ */
+final class WorkerProtocol {
+    /** Sent by a worker once its commands are loaded. */
+    static final byte READY = 1;
+    /** Runs an input message. */
+    static final byte REQUEST = 2;
+    /** The result of a request. */
+    static final byte RESPONSE = 3;
+    /** Checks that a worker still answers. */
+    static final byte PING = 4;
+    /** The answer to a ping. */
+    static final byte PONG = 5;
+    /** Asks a worker to exit. */
+    static final byte SHUTDOWN = 6;
+
+    /** The largest frame that is accepted, so a corrupt length can not allocate the heap away. */
+    static final int MAX_FRAME = 64 << 20;
+
+    private WorkerProtocol() {}
+
+    /** A frame that was read. */
+    static final class Frame {
+        final byte type;
+        final long id;
+        final String session;
+        final String text;
+        final int status;
+
+        Frame(byte type, long id, String session, String text, int status) {
+            this.type = type;
+            this.id = id;
+            this.session = session;
+            this.text = text;
+            this.status = status;
+        }
+    }
+
+    /** Writes a frame without a payload. */
+    static void write(DataOutputStream out, byte type, long id) throws IOException {
+        synchronized (out) {
+            out.writeInt(9);
+            out.writeByte(type);
+            out.writeLong(id);
+            out.flush();
+        }
+    }
+
+    /** Writes a request. */
+    static void writeRequest(DataOutputStream out, long id, String session, String line) throws IOException {
+        byte[] s = session.getBytes(StandardCharsets.UTF_8);
+        byte[] l = line.getBytes(StandardCharsets.UTF_8);
+        synchronized (out) {
+            out.writeInt(9 + 4 + s.length + 4 + l.length);
+            out.writeByte(REQUEST);
+            out.writeLong(id);
+            out.writeInt(s.length);
+            out.write(s);
+            out.writeInt(l.length);
+            out.write(l);
+            out.flush();
+        }
+    }
+
+    /** Writes a response. */
+    static void writeResponse(DataOutputStream out, long id, int status, String output) throws IOException {
+        byte[] o = output.getBytes(StandardCharsets.UTF_8);
+        synchronized (out) {
+            out.writeInt(9 + 4 + 4 + o.length);
+            out.writeByte(RESPONSE);
+            out.writeLong(id);
+            out.writeInt(status);
+            out.writeInt(o.length);
+            out.write(o);
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads the next frame.
+     * @return The frame, or <code>null</code> at the end of the stream.
+     */
+    static Frame read(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException ex) {
+            return null;
+        }
+        if(length < 9 || length > MAX_FRAME)
+            throw new IOException("Corrupt worker frame of length " + length);
+
+        byte type = in.readByte();
+        long id = in.readLong();
+        switch (type) {
+            case REQUEST:
+                String session = readString(in);
+                return new Frame(type, id, session, readString(in), 0);
+            case RESPONSE:
+                int status = in.readInt();
+                return new Frame(type, id, null, readString(in), status);
+            default:
+                in.skipNBytes(length - 9);
+                return new Frame(type, id, null, null, 0);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if(length < 0 || length > MAX_FRAME)
+            throw new IOException("Corrupt worker string of length " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
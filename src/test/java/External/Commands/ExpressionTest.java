@@ -0,0 +1,169 @@
+package External.Commands;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Core.CommandConfigurator;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.InputSource;
+import Internal.Processing.CommandProcessor;
+import Internal.Processing.CommandResult;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the parser of {@link Expression}: precedence, variables, functions, and the position of syntax errors, and the <code>exprf</code> command that uses it.
+ */
+public class ExpressionTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void precedence() {
+        assertEquals(7, eval("1+2*3"), DELTA);
+        assertEquals(9, eval("(1+2)*3"), DELTA);
+        assertEquals(2.5, eval("10/4"), DELTA);
+        assertEquals(3, eval("7%4"), DELTA);
+        assertEquals(1, eval("8-4-3"), DELTA);
+        assertEquals(2, eval("8/2/2"), DELTA);
+    }
+
+    @Test
+    public void powersGroupToTheRightAndComeBeforeSigns() {
+        assertEquals(512, eval("2^3^2"), DELTA);
+        assertEquals(-4, eval("-2^2"), DELTA);
+        assertEquals(0.25, eval("2^-2"), DELTA);
+        assertEquals(-6, eval("2*-3"), DELTA);
+        assertEquals(3, eval("--3"), DELTA);
+    }
+
+    @Test
+    public void numbers() {
+        assertEquals(0.001, eval("1e-3"), DELTA);
+        assertEquals(0.5, eval(" 0.5 "), DELTA);
+        assertEquals(Math.PI, eval("pi"), DELTA);
+    }
+
+    @Test
+    public void functions() {
+        assertEquals(4, eval("sqrt(16)"), DELTA);
+        assertEquals(3, eval("max(2, 3)"), DELTA);
+        assertEquals(1024, eval("pow(2,10)"), DELTA);
+        assertEquals(3, eval("round(2.5)"), DELTA);
+        assertEquals(2, eval("log(100)"), DELTA);
+        assertEquals(5, eval("hypot(3, 4)"), DELTA);
+        assertEquals(2, eval("abs(min(-2, 5))"), DELTA);
+    }
+
+    @Test
+    public void variables() {
+        Expression expression = Expression.compile("(a+b)*c/2");
+        assertFalse(expression.isConstant());
+        assertTrue(expression.uses('a'));
+        assertTrue(expression.uses('c'));
+        assertFalse(expression.uses('d'));
+        assertFalse(expression.uses('A'));
+
+        double[] values = new double[26];
+        values[0] = 1;
+        values[1] = 2;
+        values[2] = 4;
+        assertEquals(6, expression.evaluate(values), DELTA);
+        values[2] = 10;
+        assertEquals(15, expression.evaluate(values), DELTA);
+    }
+
+    @Test
+    public void constantExpressionsAreFolded() {
+        Expression expression = Expression.compile("sqrt(2)*(3+4)");
+        assertTrue(expression.isConstant());
+        assertEquals(Math.sqrt(2) * 7, expression.evaluate(null), DELTA);
+    }
+
+    @Test
+    public void compiledExpressionsAreCached() {
+        assertSame(Expression.compile("a*b+1"), Expression.compile("a*b+1"));
+        assertEquals("a*b+1", Expression.compile("a*b+1").getSource());
+    }
+
+    @Test
+    public void divisionByZeroIsNotAnError() {
+        assertTrue(Double.isInfinite(eval("1/0")));
+        assertTrue(Double.isNaN(eval("0/0")));
+    }
+
+    @Test
+    public void syntaxErrorsPointAtTheirPosition() {
+        assertError("(a+b", "There is no ) for this (", 0);
+        assertError("1+2)", "There is no ( for this )", 3);
+        assertError("a+", "The expression ends too early", 2);
+        assertError("1 2", "Unexpected 2", 2);
+        assertError("2*)", "Expected a value before )", 2);
+        assertError("1+foo(2)", "There is no function called foo", 2);
+        assertError("sqrt+1", "The function sqrt needs (", 0);
+        assertError("ab", "There is no variable called ab, only a to z", 0);
+        assertError("max(1)", "The function max takes two values", 0);
+        assertError("sqrt(1, 2)", "The function sqrt takes one value", 0);
+        assertError("", "The expression ends too early", 0);
+    }
+
+    @Test
+    public void deepNestingIsRefused() {
+        String deep = "(".repeat(1000) + "1" + ")".repeat(1000);
+        try {
+            Expression.compile(deep);
+            fail("Compiled " + deep.length() + " characters of parentheses");
+        } catch (ExpressionSyntaxException ex) {
+            assertEquals("The expression is nested too deeply", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void commandSetsVariablesWithFlags() {
+        try (CommandManager man = build()) {
+            CommandResult result = call(man, "exprf (a+b)*c/2 -a 1 -b 2 -c 4");
+            assertEquals(Command.EXIT_SUCCESS, result.getExitStatus());
+            assertEquals("Result: 6.0", result.getOutput().toString().trim());
+
+            assertEquals("Result: -6.0", call(man, "calcf 2*-a -a 3").getOutput().toString().trim());
+        }
+    }
+
+    @Test
+    public void commandReportsMistakes() {
+        try (CommandManager man = build()) {
+            CommandResult missing = call(man, "exprf a+b -a 1");
+            assertEquals(Command.EXIT_USAGE, missing.getExitStatus());
+            assertTrue(missing.getOutput().toString().contains("The variable b is not set!"));
+
+            CommandResult malformed = call(man, "exprf 1+(2");
+            assertEquals(Command.EXIT_USAGE, malformed.getExitStatus());
+            assertTrue(malformed.getOutput().toString().contains("1+(2\n  ^"));
+
+            assertEquals(Command.EXIT_USAGE, call(man, "exprf").getExitStatus());
+        }
+    }
+
+    private static double eval(String source) {
+        return Expression.compile(source).evaluate(new double[26]);
+    }
+
+    private static void assertError(String source, String message, int position) {
+        try {
+            Expression.compile(source);
+            fail("Compiled " + source);
+        } catch (ExpressionSyntaxException ex) {
+            assertEquals(source, message, ex.getMessage());
+            assertEquals(source, position, ex.getPosition());
+        }
+    }
+
+    private static CommandManager build() {
+        CommandConfigurator configurator = new CommandConfigurator();
+        configurator.setHeadless(true);
+        configurator.setUseInternalCommands(true);
+        return configurator.build();
+    }
+
+    private static CommandResult call(CommandManager man, String line) {
+        return CommandProcessor.call(man, "test", line, InputSource.EMPTY);
+    }
+}
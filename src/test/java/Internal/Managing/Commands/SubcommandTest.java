@@ -0,0 +1,117 @@
+package Internal.Managing.Commands;
+
+import Internal.Managing.Core.CommandConfigurator;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.InputSource;
+import Internal.Processing.CommandProcessor;
+import Internal.Processing.CommandResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests subcommand trees: how {@link Command#resolve(String)} walks them one level at a time, and how the manager runs the subcommand with its own flags and arguments.
+ */
+public class SubcommandTest {
+    private CommandGroup db;
+    private CommandGroup backup;
+    private Start start;
+    private CommandManager man;
+
+    @Before
+    public void build() {
+        start = new Start();
+        backup = new CommandGroup("backup", "Manages backups.", "bk");
+        backup.addSubcommand(start);
+        db = new CommandGroup("db", "Manages the database.");
+        db.addSubcommand(backup);
+
+        CommandConfigurator configurator = new CommandConfigurator();
+        configurator.setHeadless(true);
+        configurator.addCommand(db);
+        man = configurator.build();
+    }
+
+    @After
+    public void stop() {
+        man.close();
+    }
+
+    @Test
+    public void resolveWalksEveryLevel() {
+        assertSame(db, db.resolve("db"));
+        assertSame(backup, db.resolve("db backup"));
+        assertSame(start, db.resolve("db backup start -f 1 x"));
+        assertSame(start, db.resolve("db  BK   Start"));
+    }
+
+    @Test
+    public void resolveStopsAtAWordThatIsNotASubcommand() {
+        assertSame(db, db.resolve("db nope start"));
+        assertSame(backup, db.resolve("db backup nope"));
+        assertSame(db, db.resolve("db "));
+    }
+
+    @Test
+    public void pathAndDepth() {
+        assertEquals("db backup start", start.getPath());
+        assertEquals(2, start.getDepth());
+        assertEquals(0, db.getDepth());
+        assertSame(backup, start.getParent());
+        assertSame(start, backup.getSubcommand("START"));
+        assertArrayEquals(new Command[] {backup}, db.getSubcommands());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void subcommandHasOneParent() {
+        new CommandGroup("other", "Another group.").addSubcommand(start);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parentCanNotBeASubcommand() {
+        start.addSubcommand(db);
+    }
+
+    @Test
+    public void managerFindsTheDeepestSubcommand() {
+        assertSame(start, man.findCommand("db backup start"));
+        assertSame(start, man.findCommand("DB bk start -f 3"));
+        assertNull(man.findCommand("backup start"));
+    }
+
+    @Test
+    public void subcommandGetsItsOwnFlagsAndArguments() {
+        CommandResult result = CommandProcessor.call(man, "test", "db bk start -f 3 nightly weekly", InputSource.EMPTY);
+        assertEquals(Command.EXIT_SUCCESS, result.getExitStatus());
+        assertEquals("start 3 [nightly, weekly]", result.getOutput().toString().trim());
+    }
+
+    @Test
+    public void groupRepliesWithItsUsage() {
+        CommandResult result = CommandProcessor.call(man, "test", "db backup nope", InputSource.EMPTY);
+        assertEquals(Command.EXIT_USAGE, result.getExitStatus());
+        String output = result.getOutput().toString();
+        assertTrue(output.contains("nope is not a subcommand of db backup!"));
+        assertTrue(output.contains("Usage: db backup <subcommand>"));
+        assertTrue(output.contains("start: Starts a backup."));
+    }
+
+    // A leaf subcommand, with a flag that has a parameter.
+    private static class Start extends Command {
+        Start() {
+            this.name = "start";
+            this.help = "Starts a backup.";
+            this.flags = new Flags().putParamsFlags("-f").putParamsArgs("[copies]");
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            CommandMessage message = event.getInputMessage();
+            event.replyln("start " + message.getString("-f", "none") + " " + Arrays.toString(message.getArgsArray()));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package Internal.Managing.Core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the lock-free token bucket of {@link RateLimiter}. The bucket is full from the time it is created, so every test reads the clock once after creating it,
+ * and gives the times after that itself.
+ */
+public class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void allowsABurstThenRefuses() {
+        RateLimiter limiter = new RateLimiter(10, 5);
+        long now = System.nanoTime();
+        for (int i = 0; i < 5; i++)
+            assertTrue("Permit " + i, limiter.tryAcquire(now));
+        assertFalse(limiter.tryAcquire(now));
+    }
+
+    @Test
+    public void refillsAtTheRate() {
+        RateLimiter limiter = new RateLimiter(10, 1);
+        long now = System.nanoTime();
+        assertTrue(limiter.tryAcquire(now));
+        assertFalse(limiter.tryAcquire(now + SECOND / 10 - 1));
+        assertTrue(limiter.tryAcquire(now + SECOND / 10));
+        assertFalse(limiter.tryAcquire(now + SECOND / 10));
+    }
+
+    @Test
+    public void idleTimeDoesNotGrowPastTheBurst() {
+        RateLimiter limiter = new RateLimiter(10, 3);
+        long now = System.nanoTime();
+        long later = now + 60 * SECOND;
+        int taken = 0;
+        while (limiter.tryAcquire(later))
+            taken++;
+        assertEquals(3, taken);
+    }
+
+    @Test
+    public void refundGivesAPermitBack() {
+        RateLimiter limiter = new RateLimiter(10, 2);
+        long now = System.nanoTime();
+        assertTrue(limiter.tryAcquire(now));
+        assertTrue(limiter.tryAcquire(now));
+        assertFalse(limiter.tryAcquire(now));
+        limiter.refund();
+        assertTrue(limiter.tryAcquire(now));
+    }
+
+    @Test
+    public void reserveReturnsTheWait() {
+        RateLimiter limiter = new RateLimiter(10, 2);
+        long now = System.nanoTime();
+        assertEquals(0, limiter.reserve(now));
+        assertEquals(0, limiter.reserve(now));
+        assertEquals(SECOND / 10, limiter.reserve(now));
+        assertEquals(2 * SECOND / 10, limiter.reserve(now));
+        // Reserved permits are taken, so none is left right now
+        assertFalse(limiter.tryAcquire(now));
+    }
+
+    @Test
+    public void isIdleOnceFullAgain() {
+        RateLimiter limiter = new RateLimiter(10, 2);
+        long now = System.nanoTime();
+        assertTrue(limiter.isIdle(now));
+        assertTrue(limiter.tryAcquire(now));
+        assertFalse(limiter.isIdle(now));
+        assertTrue(limiter.isIdle(now + SECOND / 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rateMustBePositive() {
+        new RateLimiter(0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void burstMustBePositive() {
+        new RateLimiter(1, 0);
+    }
+
+    @Test
+    public void concurrentAcquiresNeverExceedTheBurst() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(1, 100);
+        long now = System.nanoTime();
+        AtomicInteger taken = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++)
+                    if(limiter.tryAcquire(now)) taken.incrementAndGet();
+            });
+            threads[t].start();
+        }
+        go.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(100, taken.get());
+    }
+}
@@ -0,0 +1,159 @@
+package Internal.Managing.Core;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.IO.InputSource;
+import Internal.Processing.CommandProcessor;
+import Internal.Processing.CommandResult;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link ResultCache} on its own, and the commands that a {@link CommandManager} replays from it.
+ */
+public class ResultCacheTest {
+    private CommandManager man;
+
+    @After
+    public void stop() {
+        if(man != null)
+            man.close();
+    }
+
+    @Test
+    public void getReturnsWhatWasPut() {
+        ResultCache cache = new ResultCache(1024);
+        assertNull(cache.get("a"));
+        cache.put("a", "output", 60_000);
+        assertEquals("output", cache.get("a"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void expiredEntriesAreGone() {
+        ResultCache cache = new ResultCache(1024);
+        cache.put("a", "output", 0);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        ResultCache cache = new ResultCache(10);
+        cache.put("a", "12345", 60_000);
+        cache.put("b", "12345", 60_000);
+        cache.get("a");
+        cache.put("c", "12345", 60_000);
+
+        assertEquals("12345", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(10, cache.getWeight());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void outputLargerThanTheCacheIsNotCached() {
+        ResultCache cache = new ResultCache(4);
+        cache.put("a", "12345", 60_000);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void repeatedCallsAreReplayed() {
+        Counter counter = new Counter();
+        man = build(false, counter);
+
+        assertEquals("a b 1", call("counterf a b").getOutput().toString().trim());
+        // Extra whitespace does not change the key
+        assertEquals("a b 1", call("counterf  a   b").getOutput().toString().trim());
+        assertEquals("c 2", call("counterf c").getOutput().toString().trim());
+        assertEquals(2, counter.runs.get());
+    }
+
+    @Test
+    public void failuresAreNotCached() {
+        Counter counter = new Counter();
+        man = build(false, counter);
+
+        assertEquals(Command.EXIT_FAILURE, call("counterf fail").getExitStatus());
+        assertEquals(Command.EXIT_FAILURE, call("counterf fail").getExitStatus());
+        assertEquals(2, counter.runs.get());
+    }
+
+    @Test
+    public void pipedInputBypassesTheCache() {
+        man = build(true, new Counter());
+
+        assertEquals("2", call("emitf a b | linesf").getOutput().toString().trim());
+        assertEquals("3", call("emitf a b c | linesf").getOutput().toString().trim());
+        assertEquals(0, man.getResultCache().size());
+    }
+
+    private CommandResult call(String line) {
+        return CommandProcessor.call(man, "test", line, InputSource.EMPTY);
+    }
+
+    private static CommandManager build(boolean pipelines, Counter counter) {
+        CommandConfigurator configurator = new CommandConfigurator();
+        configurator.setHeadless(true);
+        configurator.setPrintStackTrace(false);
+        configurator.setUsePipelines(pipelines);
+        configurator.addCommand(counter);
+        configurator.addCommand(new Emit());
+        configurator.addCommand(new Lines());
+        return configurator.build();
+    }
+
+    // Replies its arguments and how many times it ran, and fails for the argument "fail".
+    private static class Counter extends Command {
+        final AtomicInteger runs = new AtomicInteger();
+
+        Counter() {
+            this.name = "counterf";
+            this.cacheable = true;
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            int run = runs.incrementAndGet();
+            String args = event.getInputMessage().getArgs();
+            if(args.equals("fail"))
+                throw new IllegalStateException("Failed on purpose");
+            event.replyln(args + " " + run);
+        }
+    }
+
+    // Replies every argument on its own line.
+    private static class Emit extends Command {
+        Emit() {
+            this.name = "emitf";
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            for (String arg : event.getInputMessage().getArgsArray())
+                event.replyln(arg);
+        }
+    }
+
+    // Replies how many lines it read. It has no arguments, so it would always hit the same cache entry.
+    private static class Lines extends Command {
+        Lines() {
+            this.name = "linesf";
+            this.cacheable = true;
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            int lines = 0;
+            while (event.readInput() != null)
+                lines++;
+            event.replyln(String.valueOf(lines));
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package Internal.Managing.Journal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that a {@link CommandJournal} reads back what it wrote, stops at a corrupt record, and continues after its last valid record when it is opened again.
+ */
+public class CommandJournalTest {
+    private static final int SEGMENT_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsReadBack() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        try (CommandJournal journal = open(dir, 0)) {
+            journal.append(1000, 5, 0, "console", "addf 1 2");
+            journal.append(2000, 6, 124, "alice", "gr\u00FC\u00DF dich \u2603");
+            assertEquals(2, journal.getRecords());
+            assertEquals(0, journal.getFailures());
+        }
+
+        List<JournalRecord> records = read(dir);
+        assertEquals(2, records.size());
+        JournalRecord first = records.get(0);
+        assertEquals(1000, first.getTimestamp());
+        assertEquals(5, first.getDurationNanos());
+        assertEquals(0, first.getExitStatus());
+        assertEquals("console", first.getSessionId());
+        assertEquals("addf 1 2", first.getLine());
+        assertEquals(124, records.get(1).getExitStatus());
+        assertEquals("alice", records.get(1).getSessionId());
+        assertEquals("gr\u00FC\u00DF dich \u2603", records.get(1).getLine());
+    }
+
+    @Test
+    public void recordsCanBeReadWhileWritten() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        try (CommandJournal journal = open(dir, 0)) {
+            journal.append(1, 0, 0, "s", "one");
+            assertEquals(1, read(dir).size());
+            journal.append(2, 0, 0, "s", "two");
+            assertEquals(2, read(dir).size());
+        }
+    }
+
+    @Test
+    public void reopenAppendsAfterLastRecord() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        try (CommandJournal journal = open(dir, 0)) {
+            journal.append(1, 0, 0, "s", "one");
+            journal.append(2, 0, 0, "s", "two");
+        }
+        try (CommandJournal journal = open(dir, 0)) {
+            journal.append(3, 0, 0, "s", "three");
+        }
+
+        assertEquals(List.of("one", "two", "three"), lines(read(dir)));
+    }
+
+    @Test
+    public void corruptRecordEndsTheJournal() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        try (CommandJournal journal = open(dir, 0)) {
+            journal.append(1, 0, 0, "s", "one");
+            journal.append(2, 0, 0, "s", "two");
+            journal.append(3, 0, 0, "s", "three");
+        }
+
+        // Flip a byte of the line of the second record, so it fails its checksum
+        Path segment = CommandJournal.segmentPath(dir, 0);
+        int second = CommandJournal.HEADER_SIZE + recordSize("s", "one");
+        flip(segment, second + recordSize("s", "two") - 1);
+
+        assertEquals(List.of("one"), lines(read(dir)));
+    }
+
+    @Test
+    public void reopenOverwritesCorruptRecord() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        try (CommandJournal journal = open(dir, 0)) {
+            journal.append(1, 0, 0, "s", "one");
+            journal.append(2, 0, 0, "s", "two");
+            journal.append(3, 0, 0, "s", "three");
+        }
+        // A crash in the middle of the second record leaves its checksum wrong
+        int second = CommandJournal.HEADER_SIZE + recordSize("s", "one");
+        flip(CommandJournal.segmentPath(dir, 0), second + 4);
+
+        try (CommandJournal journal = open(dir, 0)) {
+            journal.append(4, 0, 0, "s", "four");
+        }
+
+        // The record after the corrupt one is dropped with it, instead of being read after the new record
+        assertEquals(List.of("one", "four"), lines(read(dir)));
+    }
+
+    @Test
+    public void segmentsRotateAndAreDeleted() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        String line = "x".repeat(200);
+        try (CommandJournal journal = open(dir, 3)) {
+            for (int i = 0; i < 20; i++)
+                journal.append(i, 0, 0, "s", line);
+        }
+
+        List<Path> segments = CommandJournal.listSegments(dir);
+        assertTrue("Kept " + segments.size() + " segments", segments.size() <= 3);
+        assertTrue(CommandJournal.segmentIndex(segments.get(0)) > 0);
+
+        // The records that are left are the newest ones, in order
+        List<JournalRecord> records = read(dir);
+        assertFalse(records.isEmpty());
+        for (int i = 0; i < records.size(); i++)
+            assertEquals(20 - records.size() + i, records.get(i).getTimestamp());
+    }
+
+    @Test
+    public void reopenContinuesInTheNewestSegment() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        String line = "x".repeat(200);
+        try (CommandJournal journal = open(dir, 0)) {
+            for (int i = 0; i < 6; i++)
+                journal.append(i, 0, 0, "s", line);
+        }
+        int before = CommandJournal.listSegments(dir).size();
+        assertTrue(before > 1);
+
+        try (CommandJournal journal = open(dir, 0)) {
+            journal.append(6, 0, 0, "s", "last");
+        }
+
+        assertEquals(before, CommandJournal.listSegments(dir).size());
+        List<JournalRecord> records = read(dir);
+        assertEquals(7, records.size());
+        assertEquals("last", records.get(6).getLine());
+    }
+
+    @Test
+    public void longLineIsCutAtACharacterBoundary() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        String line = "\u00E9".repeat(SEGMENT_SIZE);
+        try (CommandJournal journal = open(dir, 0)) {
+            journal.append(1, 0, 0, "s", line);
+        }
+
+        List<JournalRecord> records = read(dir);
+        assertEquals(1, records.size());
+        String cut = records.get(0).getLine();
+        assertTrue(cut.length() > 0 && cut.length() < line.length());
+        assertTrue(line.startsWith(cut));
+    }
+
+    @Test
+    public void appendAfterCloseIsIgnored() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        CommandJournal journal = open(dir, 0);
+        journal.append(1, 0, 0, "s", "one");
+        journal.close();
+        journal.append(2, 0, 0, "s", "two");
+
+        assertEquals(List.of("one"), lines(read(dir)));
+    }
+
+    @Test
+    public void segmentWithoutMagicHasNoRecords() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        try (CommandJournal journal = open(dir, 0)) {
+            journal.append(1, 0, 0, "s", "one");
+        }
+        flip(CommandJournal.segmentPath(dir, 0), 0);
+
+        assertTrue(read(dir).isEmpty());
+    }
+
+    private static CommandJournal open(Path dir, int maxSegments) throws IOException {
+        return new CommandJournal(dir, SEGMENT_SIZE, maxSegments, FsyncPolicy.NEVER, 0, null);
+    }
+
+    private static List<JournalRecord> read(Path dir) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        try (JournalReader reader = new JournalReader(dir)) {
+            reader.forEach(records::add);
+        }
+        return records;
+    }
+
+    private static List<String> lines(List<JournalRecord> records) {
+        List<String> lines = new ArrayList<>();
+        for (JournalRecord record : records)
+            lines.add(record.getLine());
+        return lines;
+    }
+
+    // The size of an ASCII record in a segment.
+    private static int recordSize(String session, String line) {
+        return CommandJournal.RECORD_HEADER_SIZE + session.length() + line.length();
+    }
+
+    private static void flip(Path segment, int offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, offset);
+            b.flip();
+            b.put(0, (byte) ~b.get(0));
+            channel.write(b, offset);
+        }
+    }
+}
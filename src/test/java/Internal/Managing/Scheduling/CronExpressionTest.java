@@ -0,0 +1,176 @@
+package Internal.Managing.Scheduling;
+
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link CronExpression#parse(String)}, and the times that {@link CronExpression#next(ZonedDateTime)} finds.
+ */
+public class CronExpressionTest {
+    // A Wednesday
+    private static final ZonedDateTime START = ZonedDateTime.of(2025, 1, 15, 10, 30, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    public void everyMinute() {
+        assertEquals(START.plusMinutes(1), CronExpression.parse("* * * * *").next(START));
+    }
+
+    @Test
+    public void nextIsStrictlyAfter() {
+        CronExpression cron = CronExpression.parse("30 10 * * *");
+        assertEquals(START.plusDays(1), cron.next(START));
+    }
+
+    @Test
+    public void secondsAreIgnored() {
+        ZonedDateTime t = START.plusSeconds(59).plusNanos(999_999_999);
+        assertEquals(START.plusMinutes(1), CronExpression.parse("* * * * *").next(t));
+    }
+
+    @Test
+    public void steps() {
+        CronExpression cron = CronExpression.parse("*/15 * * * *");
+        assertEquals(at(2025, 1, 15, 10, 45), cron.next(START));
+        assertEquals(at(2025, 1, 15, 11, 0), cron.next(at(2025, 1, 15, 10, 45)));
+    }
+
+    @Test
+    public void rangeWithStep() {
+        CronExpression cron = CronExpression.parse("0 9-17/4 * * *");
+        assertEquals(at(2025, 1, 15, 13, 0), cron.next(START));
+        assertEquals(at(2025, 1, 15, 17, 0), cron.next(at(2025, 1, 15, 13, 0)));
+        assertEquals(at(2025, 1, 16, 9, 0), cron.next(at(2025, 1, 15, 17, 0)));
+    }
+
+    @Test
+    public void numberWithStepRunsToTheEnd() {
+        CronExpression cron = CronExpression.parse("50/5 * * * *");
+        assertEquals(at(2025, 1, 15, 10, 50), cron.next(START));
+        assertEquals(at(2025, 1, 15, 11, 50), cron.next(at(2025, 1, 15, 10, 55)));
+    }
+
+    @Test
+    public void lists() {
+        CronExpression cron = CronExpression.parse("0,20 8,12 * * *");
+        assertEquals(at(2025, 1, 15, 12, 0), cron.next(START));
+        assertEquals(at(2025, 1, 15, 12, 20), cron.next(at(2025, 1, 15, 12, 0)));
+        assertEquals(at(2025, 1, 16, 8, 0), cron.next(at(2025, 1, 15, 12, 20)));
+    }
+
+    @Test
+    public void rollsOverMonthsAndYears() {
+        CronExpression cron = CronExpression.parse("0 0 1 * *");
+        assertEquals(at(2025, 2, 1, 0, 0), cron.next(START));
+        assertEquals(at(2026, 1, 1, 0, 0), cron.next(at(2025, 12, 1, 0, 0)));
+    }
+
+    @Test
+    public void leapDay() {
+        CronExpression cron = CronExpression.parse("0 0 29 2 *");
+        assertEquals(at(2028, 2, 29, 0, 0), cron.next(START));
+    }
+
+    @Test
+    public void thirtyFirstSkipsShortMonths() {
+        CronExpression cron = CronExpression.parse("0 0 31 * *");
+        assertEquals(at(2025, 1, 31, 0, 0), cron.next(START));
+        assertEquals(at(2025, 3, 31, 0, 0), cron.next(at(2025, 1, 31, 0, 0)));
+    }
+
+    @Test
+    public void daysOfTheWeek() {
+        CronExpression cron = CronExpression.parse("0 9 * * 1-5");
+        ZonedDateTime t = START;
+        for (int i = 0; i < 10; i++) {
+            t = cron.next(t);
+            assertNotEquals(DayOfWeek.SATURDAY, t.getDayOfWeek());
+            assertNotEquals(DayOfWeek.SUNDAY, t.getDayOfWeek());
+            assertEquals(9, t.getHour());
+        }
+        // Friday the 17th, then Monday the 20th
+        assertEquals(at(2025, 1, 20, 9, 0), cron.next(at(2025, 1, 17, 9, 0)));
+    }
+
+    @Test
+    public void sevenIsSunday() {
+        ZonedDateTime sunday = at(2025, 1, 19, 0, 0);
+        assertEquals(sunday, CronExpression.parse("0 0 * * 7").next(START));
+        assertEquals(sunday, CronExpression.parse("0 0 * * 0").next(START));
+    }
+
+    @Test
+    public void dayOfMonthOrDayOfWeek() {
+        // Either the 20th, or a Friday
+        CronExpression cron = CronExpression.parse("0 0 20 * 5");
+        assertEquals(at(2025, 1, 17, 0, 0), cron.next(START));
+        assertEquals(at(2025, 1, 20, 0, 0), cron.next(at(2025, 1, 17, 0, 0)));
+        assertEquals(at(2025, 1, 24, 0, 0), cron.next(at(2025, 1, 20, 0, 0)));
+    }
+
+    @Test
+    public void dayOfMonthAndAnyDayOfWeek() {
+        CronExpression cron = CronExpression.parse("0 0 20 * *");
+        assertEquals(at(2025, 1, 20, 0, 0), cron.next(START));
+    }
+
+    @Test
+    public void shortcuts() {
+        assertEquals(at(2026, 1, 1, 0, 0), CronExpression.parse("@yearly").next(START));
+        assertEquals(at(2025, 2, 1, 0, 0), CronExpression.parse("@monthly").next(START));
+        assertEquals(at(2025, 1, 19, 0, 0), CronExpression.parse("@weekly").next(START));
+        assertEquals(at(2025, 1, 16, 0, 0), CronExpression.parse("@daily").next(START));
+        assertEquals(at(2025, 1, 15, 11, 0), CronExpression.parse("@hourly").next(START));
+    }
+
+    @Test
+    public void keepsTheTimeZone() {
+        ZoneId zone = ZoneId.of("America/New_York");
+        ZonedDateTime t = ZonedDateTime.of(2025, 1, 15, 10, 30, 0, 0, zone);
+        ZonedDateTime next = CronExpression.parse("0 12 * * *").next(t);
+        assertEquals(ZonedDateTime.of(2025, 1, 15, 12, 0, 0, 0, zone), next);
+        assertEquals(zone, next.getZone());
+    }
+
+    @Test
+    public void skipsTheMissingHourOfDaylightSaving() {
+        // Clocks in New York went from 2:00 to 3:00 on the 9th of March 2025
+        ZoneId zone = ZoneId.of("America/New_York");
+        ZonedDateTime t = ZonedDateTime.of(2025, 3, 9, 0, 0, 0, 0, zone);
+        ZonedDateTime next = CronExpression.parse("30 2 * * *").next(t);
+        assertEquals(ZonedDateTime.of(2025, 3, 10, 2, 30, 0, 0, zone), next);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void neverMatches() {
+        CronExpression.parse("0 0 31 2 *").next(START);
+    }
+
+    @Test
+    public void malformedExpressions() {
+        String[] malformed = {"", "* * * *", "* * * * * *", "60 * * * *", "* 24 * * *", "* * 0 * *", "* * * 13 *", "* * * * 8",
+                "5-1 * * * *", "*/0 * * * *", "a * * * *", "1-x * * * *", "@often"};
+        for (String expression : malformed) {
+            try {
+                CronExpression.parse(expression);
+                fail("Parsed " + expression);
+            } catch (IllegalArgumentException ex) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void expressionIsKept() {
+        assertEquals("*/5 9-17 * * 1-5", CronExpression.parse("  */5 9-17 * * 1-5 ").getExpression());
+    }
+
+    private static ZonedDateTime at(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,184 @@
+package Internal.Managing.Sessions;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Core.CommandConfigurator;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.ReplySink;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that the lines of a {@link Session} run in order, that handles and pooled states never reach a session they were not opened as, and that idle sessions are evicted.
+ */
+public class SessionManagerTest {
+    private CommandManager man;
+    private SessionManager sessions;
+
+    @Before
+    public void start() {
+        CommandConfigurator configurator = new CommandConfigurator();
+        configurator.setHeadless(true);
+        configurator.addCommand(new Echo());
+        configurator.addCommand(new Ask());
+        man = configurator.build();
+        sessions = new SessionManager(man, 0, 4);
+    }
+
+    @After
+    public void stop() {
+        sessions.close();
+        man.close();
+    }
+
+    @Test
+    public void linesRunInOrder() {
+        Sink sink = new Sink();
+        Session session = sessions.open("alice", sink);
+        for (int i = 0; i < 20; i++)
+            assertTrue(session.submit("echof " + i));
+
+        await(() -> sink.count("echo ") == 20);
+        for (int i = 0; i < 20; i++)
+            assertTrue(sink.text().contains("echo " + i + "\n"));
+        assertTrue(sink.text().indexOf("echo 3\n") < sink.text().indexOf("echo 4\n"));
+        assertTrue(sink.text().contains(man.getInputPrefix() + " "));
+    }
+
+    @Test
+    public void waitingCommandReadsTheNextLine() {
+        Sink sink = new Sink();
+        Session session = sessions.open("alice", sink);
+        session.submit("askf");
+        await(session::isWaiting);
+
+        session.submit("bob");
+        await(() -> sink.text().contains("hello bob"));
+        assertFalse(sink.text().contains(man.getNoCommandMessage()));
+    }
+
+    @Test
+    public void unknownCommandPrintsTheNoCommandMessage() {
+        Sink sink = new Sink();
+        sessions.open("alice", sink).submit("nosuchf");
+        await(() -> sink.text().contains(man.getNoCommandMessage()));
+    }
+
+    @Test
+    public void staleHandleCannotReachAReopenedSession() {
+        Sink first = new Sink();
+        Session stale = sessions.open("alice", first);
+        assertTrue(sessions.close("alice"));
+        assertTrue(stale.isClosed());
+
+        Sink second = new Sink();
+        Session current = sessions.open("alice", second);
+        assertEquals(2, sessions.getOpened());
+
+        assertFalse(stale.submit("echof stale"));
+        assertTrue(current.submit("echof current"));
+        await(() -> second.text().contains("echo current"));
+        assertFalse(second.text().contains("stale"));
+        assertFalse(first.text().contains("stale"));
+    }
+
+    @Test
+    public void closingAnOldStateLeavesTheReopenedSessionOpen() {
+        sessions.open("alice", new Sink());
+        PooledSession other = new PooledSession(sessions, man);
+
+        sessions.close(other, "alice");
+        assertNotNull(sessions.get("alice"));
+        assertFalse(sessions.get("alice").isClosed());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void idsAreUnique() {
+        sessions.open("alice", new Sink());
+        sessions.open("alice", new Sink());
+    }
+
+    @Test
+    public void idleSessionsAreEvicted() {
+        List<String> evicted = new CopyOnWriteArrayList<>();
+        try (SessionManager idle = new SessionManager(man, 20, 4)) {
+            idle.setEvictionListener(evicted::add);
+            Session session = idle.open("alice", new Sink());
+
+            await(session::isClosed);
+            assertEquals(List.of("alice"), evicted);
+            assertEquals(0, idle.size());
+            assertEquals(1, idle.getEvicted());
+        }
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if(System.currentTimeMillis() > deadline)
+                fail("Timed out");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ex) {
+                throw new AssertionError(ex);
+            }
+        }
+    }
+
+    // Collects the replies of a session.
+    private static class Sink implements ReplySink {
+        private final StringBuilder text = new StringBuilder();
+
+        @Override
+        public synchronized void print(CharSequence s) {
+            text.append(s);
+        }
+
+        @Override
+        public synchronized void println() {
+            text.append('\n');
+        }
+
+        synchronized String text() {
+            return text.toString();
+        }
+
+        synchronized int count(String s) {
+            int count = 0;
+            for (int i = text.indexOf(s); i >= 0; i = text.indexOf(s, i + 1))
+                count++;
+            return count;
+        }
+    }
+
+    // Replies its arguments.
+    private static class Echo extends Command {
+        Echo() {
+            this.name = "echof";
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            event.replyln("echo " + event.getInputMessage().getArgs());
+        }
+    }
+
+    // Waits for a name, and greets it.
+    private static class Ask extends Command {
+        Ask() {
+            this.name = "askf";
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            event.replyln("hello " + event.waitForNextEvent());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package Internal.Processing;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Core.CommandConfigurator;
+import Internal.Managing.Core.CommandManager;
+import Internal.Managing.IO.InputSource;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests how input messages are split into the stages of a {@link Pipeline}, and that the stages of a pipeline read each other's replies.
+ */
+public class PipelineTest {
+    private CommandManager man;
+
+    @After
+    public void stop() {
+        if(man != null)
+            man.close();
+    }
+
+    @Test
+    public void splitsAtSeparatorsSurroundedBySpaces() {
+        assertArrayEquals(new String[] {"emitf a b", "countf"}, Pipeline.split("emitf a b | countf"));
+        assertArrayEquals(new String[] {"a", "b", "c"}, Pipeline.split("a | b\t|\tc"));
+    }
+
+    @Test
+    public void otherBarsAreNotSeparators() {
+        assertNull(Pipeline.split("emitf a|b"));
+        assertNull(Pipeline.split("emitf a |b"));
+        assertNull(Pipeline.split("emitf a || b"));
+    }
+
+    @Test
+    public void rawInputCommandTakesTheRestOfTheLine() {
+        man = build(true);
+        assertNull(Pipeline.split(man, "evalf int x = 5 | 3;"));
+        assertArrayEquals(new String[] {"emitf a", "evalf int x = 5 | 3; | countf"}, Pipeline.split(man, "emitf a | evalf int x = 5 | 3; | countf"));
+    }
+
+    @Test
+    public void pipelinesAreOffByDefault() {
+        man = build(false);
+        assertFalse(man.isUsePipelines());
+
+        CommandResult result = CommandProcessor.call(man, "test", "emitf a | countf", InputSource.EMPTY);
+        assertEquals(Command.EXIT_SUCCESS, result.getExitStatus());
+        assertEquals("a\n|\ncountf", result.getOutput().toString().trim());
+    }
+
+    @Test
+    public void stagesReadThePreviousStage() {
+        man = build(true);
+
+        CommandResult result = CommandProcessor.call(man, "test", "emitf a b c | countf", InputSource.EMPTY);
+        assertEquals(Command.EXIT_SUCCESS, result.getExitStatus());
+        assertEquals("3", result.getOutput().toString().trim());
+    }
+
+    @Test
+    public void stageWithoutACommandMatchesNothing() {
+        man = build(true);
+
+        CommandResult result = CommandProcessor.call(man, "test", "emitf a | nosuchf", InputSource.EMPTY);
+        assertEquals(Command.EXIT_NOT_FOUND, result.getExitStatus());
+    }
+
+    private static CommandManager build(boolean pipelines) {
+        CommandConfigurator configurator = new CommandConfigurator();
+        configurator.setHeadless(true);
+        configurator.setUseInternalCommands(true);
+        configurator.setUsePipelines(pipelines);
+        configurator.addCommand(new Emit());
+        configurator.addCommand(new Count());
+        return configurator.build();
+    }
+
+    // Replies every argument on its own line.
+    private static class Emit extends Command {
+        Emit() {
+            this.name = "emitf";
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            for (String arg : event.getInputMessage().getArgsArray())
+                event.replyln(arg);
+        }
+    }
+
+    // Replies how many lines it read.
+    private static class Count extends Command {
+        Count() {
+            this.name = "countf";
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            int lines = 0;
+            while (event.readInput() != null)
+                lines++;
+            event.replyln(String.valueOf(lines));
+        }
+    }
+}
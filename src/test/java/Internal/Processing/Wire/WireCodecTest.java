@@ -0,0 +1,289 @@
+package Internal.Processing.Wire;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.InputEvent;
+import org.junit.Test;
+
+import java.net.ProtocolException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the frames of {@link WireCodec}: that every frame reads back as it was written, and that malformed input is refused.
+ */
+public class WireCodecTest {
+    private static final String[] NONE = new String[0];
+
+    @Test
+    public void helloRoundTrip() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        WireCodec.writeHello(buffer);
+        buffer.flip();
+
+        WireCodec.Frame frame = WireCodec.read(buffer);
+        assertEquals(WireCodec.HELLO, frame.getType());
+        assertEquals(WireCodec.VERSION, frame.getVersion());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void registryRoundTrip() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        WireCodec.writeRegistry(buffer, new Command[] {new Named("addf"), new Named("gr\u00FC\u00DFf")});
+        buffer.flip();
+
+        WireCodec.Frame frame = WireCodec.read(buffer);
+        assertEquals(WireCodec.REGISTRY, frame.getType());
+        assertArrayEquals(new String[] {"addf", "gr\u00FC\u00DFf"}, frame.getNames());
+    }
+
+    @Test
+    public void callRoundTrip() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        WireCodec.writeCall(buffer, Long.MAX_VALUE, 300, "alice", new String[] {"-v", "-n"}, new String[] {null, "3"}, new String[] {"1", "", "two words"});
+        buffer.flip();
+
+        WireCodec.Frame frame = WireCodec.read(buffer);
+        assertEquals(WireCodec.CALL, frame.getType());
+        assertEquals(Long.MAX_VALUE, frame.getCorrelationId());
+        assertEquals(300, frame.getCommandId());
+        assertEquals("alice", frame.getSession());
+        assertArrayEquals(new String[] {"-v", "-n"}, frame.getFlags());
+        assertArrayEquals(new String[] {null, "3"}, frame.getParams());
+        assertArrayEquals(new String[] {"1", "", "two words"}, frame.getArgs());
+    }
+
+    @Test
+    public void callWithoutFlagsOrArguments() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        WireCodec.writeCall(buffer, 0, 0, "", NONE, NONE, NONE);
+        buffer.flip();
+
+        WireCodec.Frame frame = WireCodec.read(buffer);
+        assertEquals(0, frame.getFlags().length);
+        assertEquals(0, frame.getParams().length);
+        assertEquals(0, frame.getArgs().length);
+        assertEquals("", frame.getSession());
+    }
+
+    @Test
+    public void resultRoundTrip() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        WireCodec.writeResult(buffer, 42, 124, new StringBuilder("Sum: 3.0\n"));
+        buffer.flip();
+
+        WireCodec.Frame frame = WireCodec.read(buffer);
+        assertEquals(WireCodec.RESULT, frame.getType());
+        assertEquals(42, frame.getCorrelationId());
+        assertEquals(124, frame.getExitStatus());
+        assertEquals("Sum: 3.0\n", frame.getOutput());
+    }
+
+    @Test
+    public void nonAsciiStringsRoundTrip() throws ProtocolException {
+        // Two, three and four bytes characters, and a surrogate pair
+        String text = "\u00E9 \u2603 \u65E5\u672C\u8A9E \uD83D\uDE00";
+        for (ByteBuffer buffer : new ByteBuffer[] {ByteBuffer.allocate(256), ByteBuffer.allocateDirect(256)}) {
+            WireCodec.writeResult(buffer, 1, 0, text);
+            buffer.flip();
+            assertEquals(text, WireCodec.read(buffer).getOutput());
+        }
+    }
+
+    @Test
+    public void framesAreReadOneAtATime() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        WireCodec.writeResult(buffer, 1, 0, "one");
+        WireCodec.writeResult(buffer, 2, 0, "two");
+        buffer.flip();
+
+        assertEquals("one", WireCodec.read(buffer).getOutput());
+        assertEquals("two", WireCodec.read(buffer).getOutput());
+        assertNull(WireCodec.read(buffer));
+    }
+
+    @Test
+    public void partialFrameIsNotConsumed() throws ProtocolException {
+        ByteBuffer whole = ByteBuffer.allocate(256);
+        WireCodec.writeResult(whole, 7, 0, "output");
+        whole.flip();
+
+        for (int length = 0; length < whole.limit(); length++) {
+            ByteBuffer part = whole.duplicate().limit(length);
+            assertNull("Read a frame from " + length + " bytes", WireCodec.read(part));
+            assertEquals(0, part.position());
+        }
+        assertEquals(7, WireCodec.read(whole).getCorrelationId());
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void truncatedBody() throws ProtocolException {
+        // The length covers the type and the correlation id, but not the rest of the result
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putInt(2).put(WireCodec.RESULT).put((byte) 1);
+        buffer.flip();
+        WireCodec.read(buffer);
+    }
+
+    @Test
+    public void truncatedFrameIsSkipped() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.putInt(2).put(WireCodec.RESULT).put((byte) 1);
+        WireCodec.writeResult(buffer, 9, 0, "next");
+        buffer.flip();
+
+        try {
+            WireCodec.read(buffer);
+            fail("Read a truncated frame");
+        } catch (ProtocolException ex) {
+            assertEquals("Truncated frame", ex.getMessage());
+        }
+        assertEquals(9, WireCodec.read(buffer).getCorrelationId());
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void stringLongerThanFrame() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putInt(5).put(WireCodec.RESULT).put((byte) 1).put((byte) 0).put((byte) 100).put((byte) 'a');
+        buffer.flip();
+        WireCodec.read(buffer);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void oversizedFrame() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putInt(WireCodec.MAX_FRAME + 1).put(WireCodec.HELLO);
+        buffer.flip();
+        WireCodec.read(buffer);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void negativeFrameLength() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putInt(-1).put(WireCodec.HELLO);
+        buffer.flip();
+        WireCodec.read(buffer);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void emptyFrame() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putInt(0);
+        buffer.flip();
+        WireCodec.read(buffer);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void unknownType() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putInt(1).put((byte) 99);
+        buffer.flip();
+        WireCodec.read(buffer);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void trailingBytes() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putInt(3).put(WireCodec.HELLO).put((byte) 1).put((byte) 0);
+        buffer.flip();
+        WireCodec.read(buffer);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void countLargerThanFrame() throws ProtocolException {
+        // A registry that claims a million names in a few bytes is refused before anything is allocated for it
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putInt(4).put(WireCodec.REGISTRY);
+        WireCodec.writeVarint(buffer, 1_000_000);
+        buffer.putInt(0, buffer.position() - 4);
+        buffer.flip();
+        WireCodec.read(buffer);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void commandIdOutOfRange() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        buffer.putInt(0).put(WireCodec.CALL);
+        WireCodec.writeVarint(buffer, 1);
+        WireCodec.writeVarint(buffer, Integer.MAX_VALUE + 1L);
+        buffer.putInt(0, buffer.position() - 4);
+        buffer.flip();
+        WireCodec.read(buffer);
+    }
+
+    @Test
+    public void varintLimits() throws ProtocolException {
+        long[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+        int[] sizes = {1, 1, 1, 2, 2, 3, 5, 9, 10, 10};
+        for (int i = 0; i < values.length; i++) {
+            ByteBuffer buffer = ByteBuffer.allocate(16);
+            WireCodec.writeVarint(buffer, values[i]);
+            assertEquals("Size of " + values[i], sizes[i], buffer.position());
+            buffer.flip();
+            assertEquals(values[i], WireCodec.readVarint(buffer));
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void varintLongerThanTenBytes() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        for (int i = 0; i < 11; i++)
+            buffer.put((byte) 0x80);
+        buffer.put((byte) 0);
+        buffer.flip();
+        WireCodec.readVarint(buffer);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void varintOverflowingLong() throws ProtocolException {
+        // Nine full bytes, and a tenth with more than the top bit of a long
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        for (int i = 0; i < 9; i++)
+            buffer.put((byte) 0xFF);
+        buffer.put((byte) 0x02);
+        buffer.flip();
+        WireCodec.readVarint(buffer);
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void malformedVarintInFrame() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        buffer.putInt(12).put(WireCodec.HELLO);
+        for (int i = 0; i < 11; i++)
+            buffer.put((byte) 0x80);
+        buffer.flip();
+        WireCodec.read(buffer);
+    }
+
+    @Test
+    public void invalidUtf8IsReplaced() throws ProtocolException {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putInt(5).put(WireCodec.RESULT).put((byte) 1).put((byte) 0).put((byte) 1).put((byte) 0xFF);
+        buffer.flip();
+        assertEquals("\uFFFD", WireCodec.read(buffer).getOutput());
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void frameLargerThanBuffer() {
+        WireCodec.writeResult(ByteBuffer.allocate(16), 1, 0, "more than sixteen bytes of output");
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void nonAsciiFrameLargerThanBuffer() {
+        WireCodec.writeResult(ByteBuffer.allocate(16), 1, 0, "\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9\u00E9");
+    }
+
+    // A command that only has a name, for registry frames.
+    private static class Named extends Command {
+        Named(String name) {
+            this.name = name;
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+        }
+    }
+}
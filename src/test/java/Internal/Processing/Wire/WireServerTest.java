@@ -0,0 +1,132 @@
+package Internal.Processing.Wire;
+
+import Internal.Managing.Commands.Command;
+import Internal.Managing.Commands.InputEvent;
+import Internal.Managing.Core.CommandConfigurator;
+import Internal.Managing.Core.CommandManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests a {@link WireServer} over a loopback connection, with a {@link WireClient} and with raw frames.
+ */
+public class WireServerTest {
+    private static final String[] NONE = new String[0];
+
+    private CommandManager man;
+    private WireServer server;
+
+    @Before
+    public void start() throws IOException {
+        CommandConfigurator configurator = new CommandConfigurator();
+        configurator.setHeadless(true);
+        configurator.setUseInternalCommands(true);
+        man = configurator.build();
+        server = new WireServer(man, new InetSocketAddress("localhost", 0));
+        server.start();
+    }
+
+    @After
+    public void stop() {
+        server.close();
+        man.close();
+    }
+
+    @Test
+    public void callsRunOnTheManager() throws Exception {
+        try (WireClient client = WireClient.connect(server.getAddress())) {
+            assertTrue(client.getCommandIds().containsKey("addf"));
+
+            WireCodec.Frame result = client.call("addf", "wire", NONE, NONE, "1", "2").get(10, TimeUnit.SECONDS);
+            assertEquals(WireCodec.RESULT, result.getType());
+            assertEquals(0, result.getExitStatus());
+            assertEquals("Sum: 3.0", result.getOutput().trim());
+        }
+        assertEquals(1, server.getCalls());
+    }
+
+    @Test
+    public void pipelinedCallsAreMatchedToTheirResults() throws Exception {
+        try (WireClient client = WireClient.connect(server.getAddress())) {
+            List<CompletableFuture<WireCodec.Frame>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++)
+                results.add(client.call("addf", "wire", NONE, NONE, String.valueOf(i), "1"));
+
+            for (int i = 0; i < results.size(); i++)
+                assertEquals("Sum: " + (i + 1.0), results.get(i).get(10, TimeUnit.SECONDS).getOutput().trim());
+        }
+    }
+
+    @Test
+    public void outputLargerThanAFrameIsCutOff() throws Exception {
+        man.addCommand(new Large());
+        try (WireClient client = WireClient.connect(server.getAddress())) {
+            WireCodec.Frame result = client.call("largef", "wire", NONE, NONE).get(60, TimeUnit.SECONDS);
+            assertEquals(Command.EXIT_FAILURE, result.getExitStatus());
+            assertTrue(result.getOutput().startsWith("xxxx"));
+            assertTrue(result.getOutput().contains("cut off"));
+            assertTrue(result.getOutput().length() < Large.SIZE);
+
+            // The connection is still usable afterwards
+            assertEquals("Sum: 3.0", client.call("addf", "wire", NONE, NONE, "1", "2").get(10, TimeUnit.SECONDS).getOutput().trim());
+        }
+    }
+
+    @Test
+    public void unknownCommandIdFails() throws Exception {
+        try (WireClient client = WireClient.connect(server.getAddress())) {
+            WireCodec.Frame result = client.call(Integer.MAX_VALUE, "wire", NONE, NONE).get(10, TimeUnit.SECONDS);
+            assertNotEquals(0, result.getExitStatus());
+        }
+    }
+
+    @Test
+    public void callBeforeHelloClosesTheConnection() throws Exception {
+        try (SocketChannel channel = SocketChannel.open(server.getAddress())) {
+            ByteBuffer out = ByteBuffer.allocate(64);
+            WireCodec.writeCall(out, 1, 0, "wire", NONE, NONE, NONE);
+            out.flip();
+            channel.write(out);
+
+            assertEquals(-1, channel.read(ByteBuffer.allocate(64)));
+        }
+    }
+
+    @Test
+    public void malformedFrameClosesTheConnection() throws Exception {
+        try (SocketChannel channel = SocketChannel.open(server.getAddress())) {
+            ByteBuffer out = ByteBuffer.allocate(64);
+            out.putInt(WireCodec.MAX_FRAME + 1).put(WireCodec.HELLO);
+            out.flip();
+            channel.write(out);
+
+            assertEquals(-1, channel.read(ByteBuffer.allocate(64)));
+        }
+    }
+
+    // A command whose output does not fit into a frame.
+    private static class Large extends Command {
+        static final int SIZE = WireCodec.MAX_FRAME + 1024;
+
+        Large() {
+            this.name = "largef";
+        }
+
+        @Override
+        protected void run(InputEvent event) {
+            event.reply("x".repeat(SIZE));
+        }
+    }
+}